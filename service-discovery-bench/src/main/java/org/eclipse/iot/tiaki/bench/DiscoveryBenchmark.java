@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.bench;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.iot.tiaki.domain.CompoundLabel;
+import org.eclipse.iot.tiaki.domain.Fqdn;
+import org.eclipse.iot.tiaki.domain.ServiceInstance;
+import org.eclipse.iot.tiaki.exceptions.ConfigurationException;
+import org.eclipse.iot.tiaki.exceptions.LookupException;
+import org.eclipse.iot.tiaki.services.DnsServicesDiscovery;
+import org.eclipse.iot.tiaki.stub.StubDnsServer;
+import org.eclipse.iot.tiaki.stub.ZoneFixture;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xbill.DNS.DClass;
+import org.xbill.DNS.NSRecord;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.PTRRecord;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.SOARecord;
+import org.xbill.DNS.SRVRecord;
+import org.xbill.DNS.TXTRecord;
+
+/**
+ * End-to-end benchmark of <code>listServiceInstances</code> against a {@link StubDnsServer}:
+ * it measures the whole lookup path (queries, responses parsing and instances assembly), with
+ * and without the library caches.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DiscoveryBenchmark
+{
+
+    /** Served domain. */
+    static final String DOMAIN = "bench.example.com";
+
+    /** Number of instances of the discovered service type. */
+    @Param({"1", "10"})
+    public int instances;
+    /** <code>true</code> to keep the DNS and results caches enabled. */
+    @Param({"false", "true"})
+    public boolean cached;
+
+    private StubDnsServer server;
+    private DnsServicesDiscovery discovery;
+    private Fqdn domain;
+    private CompoundLabel type;
+
+    @Setup
+    public void setUp() throws IOException, ConfigurationException
+    {
+        this.server = new StubDnsServer().zone(zone(this.instances)).start();
+        this.discovery = (this.cached ? new DnsServicesDiscovery() : new DnsServicesDiscovery(0, 0));
+        this.discovery.dnsServer(this.server.getAddress(), this.server.getPort());
+        this.discovery.checkConfiguration(true);
+        this.domain = new Fqdn(DOMAIN);
+        this.type = new CompoundLabel("mqtt", "", "tcp");
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        this.discovery.shutdownLookups();
+        this.server.close();
+    }
+
+    @Benchmark
+    public Set<ServiceInstance> listServiceInstances() throws LookupException, ConfigurationException
+    {
+        return this.discovery.listServiceInstances(this.domain, this.type, false);
+    }
+
+    /**
+     * Private helper building a zone publishing the provided number of MQTT instances.
+     *
+     * @param instances Number of published instances
+     *
+     * @return The built <code>ZoneFixture</code>
+     *
+     * @throws IOException In case of malformed zone
+     */
+    static ZoneFixture zone(int instances) throws IOException
+    {
+        Name origin = Name.fromString(DOMAIN, Name.root);
+        Name ns = Name.fromString("ns", origin);
+        Name type = Name.fromString("_mqtt._tcp", origin);
+        List<Record> records = new ArrayList<>();
+        records.add(new SOARecord(origin, DClass.IN, 300, ns, Name.fromString("admin", origin),
+                                  1, 3600, 600, 86400, 60));
+        records.add(new NSRecord(origin, DClass.IN, 300, ns));
+        records.add(new PTRRecord(Name.fromString("_services._dns-sd._udp", origin), DClass.IN, 300, type));
+        for (int i = 0; i < instances; i++) {
+            Name instance = Name.fromString("broker" + i, type);
+            records.add(new PTRRecord(type, DClass.IN, 300, instance));
+            records.add(new SRVRecord(instance, DClass.IN, 300, 0, 10, 1883,
+                                      Name.fromString("mqtt" + i, origin)));
+            records.add(new TXTRecord(instance, DClass.IN, 300, "txtvers=1 topic=/devices/" + i));
+        }
+
+        return ZoneFixture.of(origin, records);
+    }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.eclipse.iot.tiaki.domain.CompoundLabel;
+import org.eclipse.iot.tiaki.domain.Fqdn;
+import org.eclipse.iot.tiaki.utils.ValidatorUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the domain names building and validation, run on every lookup.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DomainBenchmark
+{
+
+    private Fqdn domain;
+    private String prefix;
+    private CompoundLabel label;
+    private CompoundLabel subTypedLabel;
+    private String name;
+
+    @Setup
+    public void setUp()
+    {
+        this.domain = new Fqdn("bench.example.com");
+        this.prefix = "_mqtt._tcp";
+        this.label = new CompoundLabel("mqtt", "", "tcp");
+        this.subTypedLabel = new CompoundLabel("mqtt", "broker", "tcp");
+        this.name = "_broker._sub._mqtt._tcp.bench.example.com.";
+    }
+
+    @Benchmark
+    public String fqdnWithPrefix()
+    {
+        return this.domain.fqdnWithPrefix(this.prefix);
+    }
+
+    @Benchmark
+    public String newFqdn()
+    {
+        return new Fqdn(this.name).fqdn();
+    }
+
+    @Benchmark
+    public String internedFqdn()
+    {
+        return Fqdn.intern(this.name).fqdn();
+    }
+
+    @Benchmark
+    public String prefixString()
+    {
+        return this.label.prefixString();
+    }
+
+    @Benchmark
+    public String subTypedPrefixString()
+    {
+        return this.subTypedLabel.prefixString();
+    }
+
+    @Benchmark
+    public String isValidDomainName()
+    {
+        ValidatorUtil.isValidDomainName(this.name);
+
+        return this.name;
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.bench;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.eclipse.iot.tiaki.domain.CompoundLabel;
+import org.eclipse.iot.tiaki.domain.Fqdn;
+import org.eclipse.iot.tiaki.exceptions.DnsServiceException;
+import org.eclipse.iot.tiaki.services.DnsServicesDiscovery;
+import org.eclipse.iot.tiaki.stub.StubDnsServer;
+
+/**
+ * Load generator measuring the discovery throughput against a {@link StubDnsServer}: a number of
+ * threads share one uncached <code>DnsServicesDiscovery</code> and list the service instances in a
+ * loop for the given duration, then throughput and latency percentiles are reported.
+ *
+ * Usage: <code>LoadHarness [threads] [seconds] [instances] [latency ms] [loss rate]</code>
+ *
+ */
+public final class LoadHarness
+{
+
+    /** Latency samples kept by each thread. */
+    private static final int SAMPLES = 1 << 16;
+
+    public static void main(String[] args) throws Exception
+    {
+        int threads = (args.length > 0 ? Integer.parseInt(args[0]) : 8);
+        long seconds = (args.length > 1 ? Long.parseLong(args[1]) : 10L);
+        int instances = (args.length > 2 ? Integer.parseInt(args[2]) : 10);
+        long latency = (args.length > 3 ? Long.parseLong(args[3]) : 0L);
+        double lossRate = (args.length > 4 ? Double.parseDouble(args[4]) : 0d);
+
+        try (StubDnsServer server = new StubDnsServer().zone(DiscoveryBenchmark.zone(instances))
+                                                       .latency(latency, TimeUnit.MILLISECONDS)
+                                                       .lossRate(lossRate)
+                                                       .start()) {
+            final DnsServicesDiscovery discovery = new DnsServicesDiscovery(0, 0);
+            discovery.dnsServer(server.getAddress(), server.getPort());
+            discovery.checkConfiguration(true);
+            final Fqdn domain = new Fqdn(DiscoveryBenchmark.DOMAIN);
+            final CompoundLabel type = new CompoundLabel("mqtt", "", "tcp");
+
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+            final AtomicLong errors = new AtomicLong();
+            final long[][] samples = new long[threads][SAMPLES];
+            final long[] counts = new long[threads];
+            final CountDownLatch done = new CountDownLatch(threads);
+            for (int t = 0; t < threads; t++) {
+                final int index = t;
+                new Thread(new Runnable() {
+                    @Override
+                    public void run()
+                    {
+                        long count = 0;
+                        while (System.nanoTime() < deadline) {
+                            long start = System.nanoTime();
+                            try {
+                                discovery.listServiceInstances(domain, type, false);
+                            } catch (DnsServiceException dse) {
+                                errors.incrementAndGet();
+                            }
+                            samples[index][(int) (count++ % SAMPLES)] = System.nanoTime() - start;
+                        }
+                        counts[index] = count;
+                        done.countDown();
+                    }
+                }, "tiaki-load-" + t).start();
+            }
+            done.await();
+            discovery.shutdownLookups();
+
+            report(threads, seconds, samples, counts, errors.get(), server.queries());
+        }
+    }
+
+    /**
+     * Private helper printing out the outcome of a run.
+     *
+     * @param threads Number of load threads
+     * @param seconds Duration of the run
+     * @param samples Latency samples of each thread, in nanoseconds
+     * @param counts  Discoveries carried out by each thread
+     * @param errors  Failed discoveries
+     * @param queries Queries received by the stub server
+     */
+    private static void report(int threads, long seconds, long[][] samples, long[] counts,
+                               long errors, long queries)
+    {
+        long total = 0;
+        int kept = 0;
+        for (int t = 0; t < threads; t++) {
+            total += counts[t];
+            kept += (int) Math.min(counts[t], SAMPLES);
+        }
+        long[] sorted = new long[kept];
+        int offset = 0;
+        for (int t = 0; t < threads; t++) {
+            int length = (int) Math.min(counts[t], SAMPLES);
+            System.arraycopy(samples[t], 0, sorted, offset, length);
+            offset += length;
+        }
+        Arrays.sort(sorted);
+
+        System.out.printf("threads=%d duration=%ds discoveries=%d errors=%d queries=%d%n",
+                          threads, seconds, total, errors, queries);
+        System.out.printf("throughput=%.1f ops/s%n", (double) total / seconds);
+        if (kept > 0) {
+            System.out.printf("latency p50=%.3fms p99=%.3fms max=%.3fms%n",
+                              millis(sorted[kept / 2]), millis(sorted[(int) (kept * 0.99)]),
+                              millis(sorted[kept - 1]));
+        }
+    }
+
+    /**
+     * Private helper converting nanoseconds to milliseconds.
+     */
+    private static double millis(long nanos)
+    {
+        return nanos / 1e6;
+    }
+
+    private LoadHarness()
+    {
+        throw new AssertionError(String.format("No instances of %s for you!", this.getClass().getName()));
+    }
+
+}
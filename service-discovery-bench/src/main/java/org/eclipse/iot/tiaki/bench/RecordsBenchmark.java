@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.eclipse.iot.tiaki.domain.ServiceInstance;
+import org.eclipse.iot.tiaki.domain.ServiceRecord;
+import org.eclipse.iot.tiaki.domain.TextRecord;
+import org.eclipse.iot.tiaki.utils.DnsUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xbill.DNS.DClass;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.SRVRecord;
+import org.xbill.DNS.TXTRecord;
+import org.xbill.DNS.TextParseException;
+
+/**
+ * Benchmarks of the conversion of the received Resource Records into discovery records.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecordsBenchmark
+{
+
+    private String plainName;
+    private String escapedName;
+    private SRVRecord srvRecord;
+    private SRVRecord namedSrvRecord;
+    private TXTRecord txtRecord;
+
+    @Setup
+    public void setUp() throws TextParseException
+    {
+        this.plainName = "Living\\032Room\\032Printer._ipp._tcp.bench.example.com.";
+        this.escapedName = "Caf\\195\\169\\032M\\195\\188nchen\\226\\128\\153s._ipp._tcp.bench.example.com.";
+        Name owner = Name.fromString("broker._mqtt._tcp.bench.example.com.");
+        this.srvRecord = new SRVRecord(owner, DClass.IN, 300, 0, 10, 1883,
+                                       Name.fromString("mqtt.bench.example.com."));
+        this.namedSrvRecord = new SRVRecord(Name.fromString(this.escapedName), DClass.IN, 300, 0, 10, 631,
+                                            Name.fromString("printer.bench.example.com."));
+        this.txtRecord = new TXTRecord(owner, DClass.IN, 300, "txtvers=1 topic=/devices/+/events qos=1");
+    }
+
+    @Benchmark
+    public String extractPlainDescription()
+    {
+        return DnsUtil.extractDnsSdDescription(this.plainName);
+    }
+
+    @Benchmark
+    public String extractEscapedDescription()
+    {
+        return DnsUtil.extractDnsSdDescription(this.escapedName);
+    }
+
+    @Benchmark
+    public ServiceRecord buildServiceRecord()
+    {
+        return ServiceRecord.build(this.srvRecord);
+    }
+
+    @Benchmark
+    public String describeNamedServiceRecord()
+    {
+        return ServiceRecord.build(this.namedSrvRecord).toString();
+    }
+
+    @Benchmark
+    public int buildServiceInstance()
+    {
+        ServiceInstance instance = new ServiceInstance("_ipp._tcp", ServiceRecord.build(this.namedSrvRecord),
+                                                       TextRecord.build(this.txtRecord));
+
+        return instance.getServiceRecord().getPort() + instance.getServiceRecord().getPriority();
+    }
+
+    @Benchmark
+    public TextRecord buildTextRecord()
+    {
+        return TextRecord.build(this.txtRecord);
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.bench;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.iot.tiaki.commons.EndpointSelector;
+import org.eclipse.iot.tiaki.domain.ServiceInstance;
+import org.eclipse.iot.tiaki.domain.ServiceRecord;
+import org.eclipse.iot.tiaki.domain.TextRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xbill.DNS.DClass;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.SRVRecord;
+import org.xbill.DNS.TXTRecord;
+import org.xbill.DNS.TextParseException;
+
+/**
+ * Benchmarks of the RFC 2782 selection of an endpoint among discovered instances, shared by the
+ * calling threads.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class SelectorBenchmark
+{
+
+    /** Number of endpoints in each of the two priority groups. */
+    @Param({"4", "64"})
+    private int endpoints;
+
+    private EndpointSelector selector;
+    private EndpointSelector failingOver;
+
+    @Setup
+    public void setUp() throws TextParseException
+    {
+        Set<ServiceInstance> instances = new HashSet<>();
+        Set<ServiceInstance> primaries = new HashSet<>();
+        Name owner = Name.fromString("broker._mqtt._tcp.bench.example.com.");
+        TextRecord text = TextRecord.build(new TXTRecord(owner, DClass.IN, 300, "txtvers=1"));
+        for (int priority = 0; priority < 2; priority++) {
+            for (int i = 0; i < this.endpoints; i++) {
+                SRVRecord srv = new SRVRecord(owner, DClass.IN, 300, priority, 10 + i, 1883,
+                                              Name.fromString("mqtt" + priority + "-" + i + ".bench.example.com."));
+                ServiceInstance instance = new ServiceInstance("_mqtt._tcp", ServiceRecord.build(srv), text);
+                instances.add(instance);
+                if (priority == 0) {
+                    primaries.add(instance);
+                }
+            }
+        }
+        this.selector = new EndpointSelector(instances);
+        this.failingOver = new EndpointSelector(instances);
+        for (ServiceInstance primary : primaries) {
+            this.failingOver.markDown(primary);
+        }
+    }
+
+    @Benchmark
+    public ServiceInstance select()
+    {
+        return this.selector.select();
+    }
+
+    @Benchmark
+    public ServiceInstance selectFailingOver()
+    {
+        return this.failingOver.select();
+    }
+
+}
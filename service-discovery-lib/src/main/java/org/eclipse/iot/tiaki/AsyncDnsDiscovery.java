@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki;
+
+import java.util.Set;
+import org.eclipse.iot.tiaki.commons.DiscoveryFuture;
+import org.eclipse.iot.tiaki.domain.CertRecord;
+import org.eclipse.iot.tiaki.domain.CompoundLabel;
+import org.eclipse.iot.tiaki.domain.DnsCertPrefix;
+import org.eclipse.iot.tiaki.domain.Fqdn;
+import org.eclipse.iot.tiaki.domain.ServiceInstance;
+import org.eclipse.iot.tiaki.domain.TextRecord;
+
+/**
+ * Non-blocking companion of {@link DnsDiscovery}: every discovery returns immediately a
+ * {@link DiscoveryFuture}, completed once the DNS responses have been received. Lookup and
+ * configuration errors are reported through the returned future, with the same status codes the
+ * blocking calls raise; the Service Instances listings share the cache of the blocking ones.
+ *
+ * The underlying DNS library (dnsjava 2.1.7) sends queries by blocking I/O only, its own
+ * asynchronous sending being backed by a thread per query: the queries of the asynchronous calls
+ * are thus sent by a bounded pool of workers, each query in flight holding a worker until answered
+ * or timed out. Queries in excess wait in line, so that a burst of calls, or of unanswered
+ * queries, delays the following calls rather than multiplying threads; the size of the pool is
+ * configured by <code>asyncWorkers</code>.
+ *
+ * @see <a href="https://tools.ietf.org/html/rfc6763">DNS-SD</a>
+ */
+public interface AsyncDnsDiscovery
+{
+
+	/**
+	 * List the Service Types under the provided domain.
+	 *
+	 * @param browsingDomain A <code>Fqdn</code> referring the browsing domain
+	 * @param secValidation  <code>true</code> iff DNSSEC trust chain has to be validated
+	 *
+     * @return A future set of <code>String</code> referring the registered Service Types
+	 */
+	DiscoveryFuture<Set<String>> listServiceTypesAsync ( Fqdn browsingDomain, boolean secValidation );
+
+	/**
+	 * List the Service Instances under the provided domain, of the defined <i>type</i>.
+	 *
+	 * @param browsingDomain A <code>Fqdn</code> referring the browsing domain
+	 * @param type           A compound data structure identifying the Service Type
+     * @param secValidation  <code>true</code> iff DNSSEC trust chain has to be validated
+	 *
+     * @return A future set of <code>ServiceInstance</code> objects
+	 */
+	DiscoveryFuture<Set<ServiceInstance>> listServiceInstancesAsync ( Fqdn browsingDomain, CompoundLabel type,
+                                                                      boolean secValidation );
+
+	/**
+	 * List the Text Resource Records under the provided domain for the specified <i>label</i>.
+	 *
+	 * @param browsingDomain A <code>Fqdn</code> referring the browsing domain
+	 * @param label          A <code>String</code> identifying the label to be looked up
+     * @param secValidation  <code>true</code> iff DNSSEC trust chain has to be validated
+     *
+	 * @return A future set of <code>TextRecord</code> objects
+	 */
+	DiscoveryFuture<Set<TextRecord>> listTextRecordsAsync ( Fqdn browsingDomain, String label,
+                                                            boolean secValidation );
+
+	/**
+	 * List the TLSA Resource Records under the provided domain for the specified <i>label</i>.
+	 *
+	 * @param browsingDomain A <code>Fqdn</code> referring the browsing domain
+	 * @param tlsaPrefix     An object which provides the TLSA record prefix based on port and protocol
+	 * @param secValidation  <code>true</code> iff DNSSEC trust chain has to be validated
+     *
+     * @return A future set of <code>CertRecord</code> objects
+	 */
+	DiscoveryFuture<Set<CertRecord>> listTLSARecordsAsync ( Fqdn browsingDomain, DnsCertPrefix tlsaPrefix,
+                                                            boolean secValidation );
+
+	/**
+	 * Check whether the addressed DNS is secured by DNSSEC.
+	 *
+	 * @param name  Fully Qualified Domain Name
+	 *
+     * @return A future <code>Boolean</code>, <code>true</code> iff the DNS is secured by DNSSEC
+	 */
+	DiscoveryFuture<Boolean> isDnsSecValidAsync ( Fqdn name );
+
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import org.eclipse.iot.tiaki.domain.CompoundLabel;
+import org.eclipse.iot.tiaki.domain.Fqdn;
+import org.eclipse.iot.tiaki.domain.ServiceInstance;
+import org.eclipse.iot.tiaki.exceptions.ConfigurationException;
+import org.eclipse.iot.tiaki.exceptions.LookupException;
+
+/**
+ * Companion of {@link DnsDiscovery} listing the Service Instances of several Service Types in a
+ * single call.
+ *
+ * @see <a href="https://tools.ietf.org/html/rfc6763">DNS-SD</a>
+ */
+public interface BatchDnsDiscovery
+{
+
+	/**
+	 * List the Service Instances under the provided domain of several <i>types</i> at once: the
+	 * lookups shared by the types (e.g. the Service Types enumeration) are carried out once.
+	 *
+	 * @param browsingDomain A <code>Fqdn</code> referring the browsing domain
+	 * @param types          The compound data structures identifying the Service Types
+	 * @param secValidation  <code>true</code> iff DNSSEC trust chain has to be validated
+	 *
+	 * @return A map of <code>ServiceInstance</code> sets keyed by Service Type, in the order of <i>types</i>
+	 *
+	 * @throws LookupException        In case of any unrecoverable error during the lookup process.
+	 * @throws ConfigurationException In case of wrong/faulty static and/or runtime configuration.
+	 */
+	Map<CompoundLabel, Set<ServiceInstance>> listServiceInstances ( Fqdn browsingDomain,
+	                                                                Collection<CompoundLabel> types,
+	                                                                boolean secValidation )
+                            throws LookupException, ConfigurationException;
+
+}
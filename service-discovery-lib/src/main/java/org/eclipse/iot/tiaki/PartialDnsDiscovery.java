@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki;
+
+import org.eclipse.iot.tiaki.commons.InstancesResult;
+import org.eclipse.iot.tiaki.domain.CompoundLabel;
+import org.eclipse.iot.tiaki.domain.Fqdn;
+import org.eclipse.iot.tiaki.exceptions.ConfigurationException;
+import org.eclipse.iot.tiaki.exceptions.LookupException;
+
+/**
+ * Companion of {@link DnsDiscovery} returning what could be resolved of a listing, along with
+ * the names which failed, instead of failing the whole listing.
+ *
+ * @see <a href="https://tools.ietf.org/html/rfc6763">DNS-SD</a>
+ */
+public interface PartialDnsDiscovery
+{
+
+	/**
+	 * List the Service Instances under the provided domain, of the defined <i>type</i>, in
+	 * partial-result mode: a service name which cannot be resolved (e.g. lacking its TXT record,
+	 * or answered by a server error) is reported along with its <code>StatusCode</code>, instead
+	 * of failing the whole listing. Incomplete results are never cached, while a listing
+	 * already cached is returned as it is.
+	 *
+	 * @param browsingDomain A <code>Fqdn</code> referring the browsing domain
+	 * @param type           A compound data structure identifying the Service Type
+	 * @param secValidation  <code>true</code> iff DNSSEC trust chain has to be validated
+	 *
+	 * @return An <code>InstancesResult</code> holding the resolved instances and the failed names
+	 *
+	 * @throws LookupException        In case of any unrecoverable error during the lookup process.
+	 * @throws ConfigurationException In case of wrong/faulty static and/or runtime configuration.
+	 */
+	InstancesResult listServiceInstancesPartially ( Fqdn browsingDomain, CompoundLabel type, boolean secValidation )
+                            throws LookupException, ConfigurationException;
+
+}
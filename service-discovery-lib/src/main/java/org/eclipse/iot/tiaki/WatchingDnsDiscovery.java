@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki;
+
+import org.eclipse.iot.tiaki.commons.ServiceWatch;
+import org.eclipse.iot.tiaki.commons.ServiceWatchListener;
+import org.eclipse.iot.tiaki.domain.CompoundLabel;
+import org.eclipse.iot.tiaki.domain.Fqdn;
+import org.eclipse.iot.tiaki.exceptions.ConfigurationException;
+import org.eclipse.iot.tiaki.exceptions.LookupException;
+
+/**
+ * Companion of {@link DnsDiscovery} keeping track of the Service Instances over time, instead of
+ * listing them once.
+ *
+ * @see <a href="https://tools.ietf.org/html/rfc6763">DNS-SD</a>
+ */
+public interface WatchingDnsDiscovery
+{
+
+	/**
+	 * Watch the Service Instances under the provided domain, of the defined <i>type</i>: the
+	 * instances are re-resolved as their TTL expires, and the <i>listener</i> is notified of the
+	 * added, removed and changed instances only.
+	 *
+	 * @param browsingDomain A <code>Fqdn</code> referring the browsing domain
+	 * @param type           A compound data structure identifying the Service Type
+	 * @param secValidation  <code>true</code> iff DNSSEC trust chain has to be validated
+	 * @param listener       A <code>ServiceWatchListener</code> to be notified of the changes
+	 *
+	 * @return A <code>ServiceWatch</code> handle to stop watching
+	 *
+	 * @throws LookupException        In case of illegal domain name.
+	 * @throws ConfigurationException In case of wrong/faulty static and/or runtime configuration.
+	 */
+	ServiceWatch watchServiceInstances ( Fqdn browsingDomain, CompoundLabel type, boolean secValidation,
+	                                     ServiceWatchListener listener )
+                            throws LookupException, ConfigurationException;
+
+}
@@ -11,66 +11,120 @@ package org.eclipse.iot.tiaki.commons;
 
 import org.eclipse.iot.tiaki.exceptions.ConfigurationException;
 import java.io.File;
-import java.io.IOException;
 import java.net.InetAddress;
-import java.net.UnknownHostException;
-import java.nio.file.Files;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Observable;
 import java.util.Observer;
-import org.xbill.DNS.ResolverConfig;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.xbill.DNS.SimpleResolver;
 
 /**
- * An abstract configurable entity that can be introspected: it makes use of an {@link Observable}
- * helper class that can push notification to its observers {@link Observer} in case of verbose setup.
+ * An abstract configurable entity that can be introspected: it makes use of a {@link DiscoveryEvents}
+ * bus that pushes notifications to its {@link DiscoveryListener}s in case of verbose setup.
  *
- * Configuration steps are not Thread-safe. 
+ * Thread-safe: configuration steps are applied to a draft, validated by
+ * {@link #checkConfiguration(boolean)} into an immutable {@link DiscoveryConfig} snapshot which is
+ * then published at once; a snapshot built beforehand can be provided through
+ * {@link #configure(DiscoveryConfig)} as well. Settings changes take effect upon the next check,
+ * lookups checking the configuration only when it has changed. Lookups go on with the snapshot
+ * current when they started, so a single instance can be shared by any number of threads, while
+ * being reconfigured as well.
  *
  */
 public abstract class Configurable
 {
 
     /**
-     * DNS Server to be addressed.
+     * Settings being configured, validated into the next snapshot.
      */
-    protected List<InetAddress> dnsServers;
+    private DiscoveryConfig.Builder draft;
     /**
-     * Secured DNS Domain to be used.
+     * To push client notifications upon internal events.
      */
-    // TODO To be reworded
-    protected String dnsSecDomain;
+    protected volatile boolean introspected;
+
     /**
-     * Trust Anchor to be used, aka Cryptographic Public Key of the Signed Zone.
+     * Validated configuration, <code>null</code> until checked (again).
+     */
+    protected volatile DiscoveryConfig config;
+    /**
+     * Helper to push client notifications about any state change
+     */
+    protected final DiscoveryEvents events;
+    /**
+     * Private Helper to push client notifications about any state change
      *
-     * @see <a href="https://tools.ietf.org/html/draft-ietf-dnsop-dnssec-trust-anchor-04">DNSSEC
-     * Trust Anchor</a>
+     * @deprecated The notifications are pushed through {@link #events}, this helper forwards to it
      */
-    protected String trustAnchorDefault;
+    @Deprecated
+    protected Notifier notifier;
     /**
-     * File containing the Trust Anchor.
+     * Recorder of the measures of the lookups and calls.
      */
-    protected File trustAnchorFile;
+    protected volatile DiscoveryMetrics metrics;
     /**
-     * To push client notifications upon internal events.
+     * Handler of the resolution trees of the calls, <code>null</code> unless tracing.
      */
-    protected boolean introspected;
-
+    protected volatile TraceListener tracer;
     /**
-     * Configuration validation
+     * <code>true</code> iff the SRV targets of the listed instances are looked up for addresses.
      */
-    protected boolean checked;
+    protected volatile boolean resolvedAddresses;
     /**
-     * Private Helper to push client notifications about any state change
+     * Resolvers built out of this configuration, shared among lookups.
      */
-    protected Notifier notifier;
+    protected final ResolversRegistry resolversRegistry;
+    /**
+     * Executor carrying out concurrent lookups, <code>null</code> in sequential mode.
+     */
+    protected volatile ExecutorService lookupExecutor;
+    /**
+     * <code>true</code> iff the lookup executor has been instantiated by this instance.
+     */
+    protected boolean ownedLookupExecutor;
+    /**
+     * Maximum number of concurrent lookups the executor has been instantiated for.
+     */
+    private int lookupThreads;
+    /**
+     * DNS caches backing the lookups.
+     */
+    protected final LookupCaches lookupCaches;
+    /**
+     * Bounded pool of threads sending the queries of the asynchronous calls, the pending ones
+     * being queued.
+     */
+    private final ThreadPoolExecutor asyncWorkers;
+    /**
+     * Scheduler triggering the watches re-resolutions, instantiated on first watch.
+     */
+    private ScheduledExecutorService watchScheduler;
+    /**
+     * Thread delivering the status change events in asynchronous mode.
+     */
+    private ExecutorService eventsDispatcher;
 
     protected Configurable()
     {
         this.introspected = false;
-        this.checked = false;
+        this.events = new DiscoveryEvents();
         this.notifier = this.new Notifier();
-        this.dnsServers = new ArrayList<>();
+        this.metrics = new NoopMetrics();
+        this.draft = DiscoveryConfig.builder();
+        this.asyncWorkers = new ThreadPoolExecutor(Constants.ASYNC_WORKERS, Constants.ASYNC_WORKERS,
+                                                   Constants.ASYNC_WORKERS_KEEP_ALIVE, TimeUnit.MILLISECONDS,
+                                                   new LinkedBlockingQueue<Runnable>(),
+                                                   new LookupThreadFactory("tiaki-async-"));
+        this.asyncWorkers.allowCoreThreadTimeOut(true);
+        this.resolversRegistry = new ResolversRegistry(this.asyncWorkers);
+        this.lookupThreads = 1;
+        this.lookupCaches = new LookupCaches();
     }
 
     /**
@@ -82,8 +136,22 @@ public abstract class Configurable
      */
     public final Configurable dnsServer(InetAddress host)
     {
-        this.dnsServers.add(host);
-        this.checked = false;
+        return dnsServer(host, SimpleResolver.DEFAULT_PORT);
+    }
+
+    /**
+     * Configure a target Resolution Server listening on a non standard port (e.g. a local test
+     * server). Multiple calls set multiple target Resolution Servers, servers sharing an address
+     * being told apart by their port.
+     *
+     * @param host Server's address
+     * @param port Server's port
+     * @return This instance to further configure
+     */
+    public final synchronized Configurable dnsServer(InetAddress host, int port)
+    {
+        this.draft.dnsServer(host, port);
+        this.config = null;
 
         return this;
     }
@@ -94,10 +162,10 @@ public abstract class Configurable
      * @param domain A <code>String</code> containing the domain name
      * @return This instance to further configure
      */
-    public final Configurable dnsSecDomain(String domain)
+    public final synchronized Configurable dnsSecDomain(String domain)
     {
-        this.dnsSecDomain = domain;
-        this.checked = false;
+        this.draft.dnsSecDomain(domain);
+        this.config = null;
 
         return this;
     }
@@ -108,10 +176,10 @@ public abstract class Configurable
      * @param anchor A <code>String</code> containing the public key
      * @return This instance to further configure
      */
-    public final Configurable trustAnchorDefault(String anchor)
+    public final synchronized Configurable trustAnchorDefault(String anchor)
     {
-        this.trustAnchorDefault = anchor;
-        this.checked = false;
+        this.draft.trustAnchor(anchor);
+        this.config = null;
 
         return this;
     }
@@ -122,10 +190,10 @@ public abstract class Configurable
      * @param anchorContainer A <code>Filer</code> storing the public key
      * @return This instance to further configure
      */
-    public final Configurable trustAnchorFile(File anchorContainer)
+    public final synchronized Configurable trustAnchorFile(File anchorContainer)
     {
-        this.trustAnchorFile = anchorContainer;
-        this.checked = false;
+        this.draft.trustAnchorFile(anchorContainer);
+        this.config = null;
 
         return this;
     }
@@ -140,7 +208,7 @@ public abstract class Configurable
     public final Configurable introspected(boolean isIt)
     {
         this.introspected = isIt;
-        this.checked = false;
+        this.events.setIntrospected(isIt);
 
         return this;
     }
@@ -154,100 +222,508 @@ public abstract class Configurable
     public final Configurable observer(Observer handler)
     {
         if (handler != null) {
-            this.notifier.addObserver(handler);
-            this.checked = false;
+            this.events.addListener(new ObserverListener(handler, this.notifier));
         }
 
         return this;
     }
 
     /**
-     * To check the actual configuration.
+     * Register a typed status change listener.
+     *
+     * @param handler A client status change handler
+     * @return This instance to further configure
+     */
+    public final Configurable listener(DiscoveryListener handler)
+    {
+        if (handler != null) {
+            this.events.addListener(handler);
+        }
+
+        return this;
+    }
+
+    /**
+     * Set the recorder of the measures of the lookups, caches, DNSSEC validations and calls.
+     *
+     * @param recorder A <code>DiscoveryMetrics</code>, <code>null</code> to discard the measures
+     * @return This instance to further configure
+     */
+    public final Configurable metrics(DiscoveryMetrics recorder)
+    {
+        this.metrics = (recorder == null ? new NoopMetrics() : recorder);
+
+        return this;
+    }
+
+    /**
+     * Trace the calls: each call is delivered to the provided handler as a tree of timed spans,
+     * one per resolution step and query, see {@link TraceSpan}.
+     *
+     * @param handler A <code>TraceListener</code>, <code>null</code> to stop tracing
+     * @return This instance to further configure
+     */
+    public final Configurable tracer(TraceListener handler)
+    {
+        this.tracer = handler;
+
+        return this;
+    }
+
+    /**
+     * Resolve the SRV targets of the listed Service Instances to their addresses, see
+     * <code>ServiceInstance.getAddresses()</code>: the A and AAAA lookups not answered by the
+     * additional sections of the previous responses are carried out along with the listing
+     * (concurrently, in case of concurrent lookups). Otherwise, only the addresses already known
+     * from those additional sections are provided, at no extra query.
+     *
+     * @param isIt If <code>true</code> the missing addresses are looked up
+     * @return This instance to further configure
+     */
+    public final Configurable resolveAddresses(boolean isIt)
+    {
+        this.resolvedAddresses = isIt;
+
+        return this;
+    }
+
+    /**
+     * Configure the dispatch mode of the status change events: asynchronous events are queued to
+     * a dedicated thread, so that slow listeners do not stall the resolution.
+     *
+     * @param isIt If <code>true</code> events are delivered asynchronously
+     * @return This instance to further configure
+     */
+    public final synchronized Configurable asyncEvents(boolean isIt)
+    {
+        if (isIt && this.eventsDispatcher == null) {
+            this.eventsDispatcher = Executors.newSingleThreadExecutor(new LookupThreadFactory("tiaki-events-"));
+            this.events.setDispatcher(this.eventsDispatcher);
+        } else if (!isIt && this.eventsDispatcher != null) {
+            this.events.setDispatcher(null);
+            this.eventsDispatcher.shutdown();
+            this.eventsDispatcher = null;
+        }
+
+        return this;
+    }
+
+    /**
+     * Configure the concurrent resolution mode: service instances are resolved in parallel by a
+     * bounded pool of threads owned by this instance. A single thread restores the sequential mode.
+     *
+     * @param nrThreads Maximum number of lookups carried out concurrently
+     * @return This instance to further configure
+     */
+    public final synchronized Configurable concurrentLookups(int nrThreads)
+    {
+        this.draft.concurrentLookups(nrThreads);
+        this.config = null;
+
+        return this;
+    }
+
+    /**
+     * Configure the number of threads sending the queries of the asynchronous calls: each query in
+     * flight holds one of them until answered or timed out, the following ones waiting in line.
+     *
+     * @param nrThreads Maximum number of queries of the asynchronous calls in flight at once
+     * @return This instance to further configure
+     */
+    public final synchronized Configurable asyncWorkers(int nrThreads)
+    {
+        this.draft.asyncWorkers(nrThreads);
+        this.config = null;
+
+        return this;
+    }
+
+    /**
+     * Configure the concurrent resolution mode by providing the <code>ExecutorService</code>
+     * carrying out the lookups. Its lifecycle stays in charge of the caller.
+     *
+     * @param executor An <code>ExecutorService</code>, <code>null</code> for the sequential mode
+     * @return This instance to further configure
+     */
+    public final synchronized Configurable lookupExecutor(ExecutorService executor)
+    {
+        shutdownLookups();
+        this.draft.concurrentLookups(1);
+        this.lookupExecutor = executor;
+
+        return this;
+    }
+
+    /**
+     * Configure the time granted to the lookups of a single call: once elapsed, the outstanding
+     * lookups are cancelled and the call fails with {@link StatusCode#DEADLINE_EXCEEDED}. By
+     * default, the calls are not bound to a deadline.
+     *
+     * @param timeout Maximum time to wait for, <code>0</code> not to bind the calls to a deadline
+     * @param unit    The <code>TimeUnit</code> of the <code>timeout</code> argument
+     * @return This instance to further configure
+     */
+    public final synchronized Configurable lookupDeadline(long timeout, TimeUnit unit)
+    {
+        this.draft.lookupDeadline(timeout, unit);
+        this.config = null;
+
+        return this;
+    }
+
+    /**
+     * Configure the time a single query is waited for, before being retried or failed over to the
+     * next server.
+     *
+     * @param timeout Maximum time to wait for
+     * @param unit    The <code>TimeUnit</code> of the <code>timeout</code> argument
+     * @return This instance to further configure
+     */
+    public final synchronized Configurable queryTimeout(long timeout, TimeUnit unit)
+    {
+        this.draft.queryTimeout(timeout, unit);
+        this.config = null;
+
+        return this;
+    }
+
+    /**
+     * Configure the retries of the unanswered queries: a query is sent again to the same server
+     * after the backoff delay, doubled at every retry, then failed over to the next server.
+     *
+     * @param retries Number of times an unanswered query is sent again
+     * @param backoff Delay of the first retry
+     * @param unit    The <code>TimeUnit</code> of the <code>backoff</code> argument
+     * @return This instance to further configure
+     */
+    public final synchronized Configurable queryRetries(int retries, long backoff, TimeUnit unit)
+    {
+        this.draft.queryRetries(retries, backoff, unit);
+        this.config = null;
+
+        return this;
+    }
+
+    /**
+     * Enable or disable the hedged queries: a query still unanswered after the adaptive delay is
+     * sent to the next configured server as well, and the first valid answer is taken. The extra
+     * queries, failovers included, are capped to the default share of the sent ones.
+     *
+     * The lookups address the healthiest server only, the hedging resolver failing over the others:
+     * the query is sent to it by the calling thread, the hedged ones by the asynchronous workers.
+     *
+     * @param isIt <code>true</code> to hedge the queries across the configured servers
+     * @return This instance to further configure
+     */
+    public final Configurable hedgedLookups(boolean isIt)
+    {
+        return hedgedLookups(isIt ? Constants.HEDGE_MAX_EXTRA_LOAD : 0d);
+    }
+
+    /**
+     * Hedge the queries across the configured servers, capping the extra queries.
+     *
+     * @param maxExtraLoad Share of hedged queries with reference to the sent ones, between
+     *                     <code>0</code> (no hedging) and <code>1</code>
+     * @return This instance to further configure
+     */
+    public final synchronized Configurable hedgedLookups(double maxExtraLoad)
+    {
+        this.draft.hedgedLookups(maxExtraLoad);
+        this.config = null;
+
+        return this;
+    }
+
+    /**
+     * Configure the ejection of the unreachable servers: a server leaving the configured number of
+     * consecutive queries unanswered is left out of the lookups for the provided period, then
+     * probed again, unless all the servers are. Answered errors only move the server back.
+     *
+     * @param failures Consecutive network errors after which a server is ejected
+     * @param period   Time an ejected server is left out
+     * @param unit     The <code>TimeUnit</code> of the <code>period</code> argument
+     * @return This instance to further configure
+     */
+    public final synchronized Configurable serverEjection(int failures, long period, TimeUnit unit)
+    {
+        this.draft.serverEjection(failures, period, unit);
+        this.config = null;
+
+        return this;
+    }
+
+    /**
+     * Configure the maximum number of entries of the DNS cache(s).
+     *
+     * @param entries Maximum number of cached entries
+     * @return This instance to further configure
+     */
+    public final synchronized Configurable cacheMaxEntries(int entries)
+    {
+        this.draft.cacheMaxEntries(entries);
+        this.config = null;
+
+        return this;
+    }
+
+    /**
+     * Configure the maximum time positive answers are cached for, regardless of their TTL.
+     *
+     * @param seconds Maximum time to live, in seconds
+     * @return This instance to further configure
+     */
+    public final synchronized Configurable cacheMaxTtl(int seconds)
+    {
+        this.draft.cacheMaxTtl(seconds);
+        this.config = null;
+
+        return this;
+    }
+
+    /**
+     * Configure the maximum time negative answers (i.e. non-existent names or types) are cached
+     * for, regardless of their TTL.
+     *
+     * @param seconds Maximum time to live, in seconds
+     * @return This instance to further configure
+     */
+    public final synchronized Configurable cacheMaxNegativeTtl(int seconds)
+    {
+        this.draft.cacheMaxNegativeTtl(seconds);
+        this.config = null;
+
+        return this;
+    }
+
+    /**
+     * Configure the sharing of the DNS cache(s): shared caches serve every instance configured
+     * in shared mode within the JVM, and they are sized by the instance configuring them last.
+     *
+     * @param isIt If <code>true</code> the JVM-wide cache(s) are used
+     * @return This instance to further configure
+     */
+    public final synchronized Configurable sharedCache(boolean isIt)
+    {
+        this.draft.sharedCache(isIt);
+        this.config = null;
+
+        return this;
+    }
+
+    /**
+     * Configure the isolation of the DNS cache(s): an isolated server has its own cache, so that
+     * its answers are never served on behalf of other servers.
+     *
+     * @param isIt If <code>true</code> each server has its own cache
+     * @return This instance to further configure
+     */
+    public final synchronized Configurable cachePerServer(boolean isIt)
+    {
+        this.draft.cachePerServer(isIt);
+        this.config = null;
+
+        return this;
+    }
+
+    /**
+     * Release the threads carrying out concurrent lookups, if owned by this instance; the
+     * sequential mode is restored.
+     */
+    public synchronized void shutdownLookups()
+    {
+        if (this.lookupExecutor != null && this.ownedLookupExecutor) {
+            this.lookupExecutor.shutdownNow();
+        }
+        this.lookupExecutor = null;
+        this.ownedLookupExecutor = false;
+        this.lookupThreads = 1;
+    }
+
+    /**
+     * Cancel every watch, releasing the thread triggering their re-resolutions.
+     */
+    public synchronized void shutdownWatches()
+    {
+        if (this.watchScheduler != null) {
+            this.watchScheduler.shutdownNow();
+            this.watchScheduler = null;
+        }
+    }
+
+    /**
+     * To check the actual configuration: the settings are validated into a new snapshot, which
+     * replaces the current one at once.
      *
      * @param reloadConfig  <code>true</code> iff the configuration has to be reloaded
      *
      * @throws ConfigurationException In case this instance has not been configured properly
      */
-    public void checkConfiguration(boolean reloadConfig) throws ConfigurationException
+    public synchronized void checkConfiguration(boolean reloadConfig) throws ConfigurationException
     {
-
-        if (!reloadConfig && this.checked) {
+        if (!reloadConfig && this.config != null) {
             return;
         }
 
-        if(this.dnsServers.isEmpty()) {
-            String[] resolvers = ResolverConfig.getCurrentConfig().servers();
-            for(String resolver: resolvers) {
-                try {
-                    this.dnsServers.add(InetAddress.getByName(resolver));
-                } catch(UnknownHostException uhe) { /* acceptable, go ahead */ }
+        publish(this.draft.build());
+    }
+
+    /**
+     * Configure this instance out of an already validated snapshot, replacing every setting
+     * provided so far. No check is carried out again, not even upon reload.
+     *
+     * @param snapshot A <code>DiscoveryConfig</code> built beforehand
+     * @return This instance to further configure
+     */
+    public final synchronized Configurable configure(DiscoveryConfig snapshot)
+    {
+        this.draft = snapshot.toBuilder();
+        publish(snapshot);
+
+        return this;
+    }
+
+    /**
+     * Apply the runtime settings of a validated snapshot, then make it the current one. Invoked
+     * holding the lock of this instance.
+     *
+     * @param snapshot The validated <code>DiscoveryConfig</code>
+     */
+    protected void publish(DiscoveryConfig snapshot)
+    {
+        this.lookupCaches.setMaxEntries(snapshot.getCacheMaxEntries());
+        this.lookupCaches.setMaxTtl(snapshot.getCacheMaxTtl());
+        this.lookupCaches.setMaxNegativeTtl(snapshot.getCacheMaxNegativeTtl());
+        this.lookupCaches.setShared(snapshot.isSharedCache());
+        this.lookupCaches.setPerServer(snapshot.isCachePerServer());
+        this.resolversRegistry.health().setEjection(snapshot.getEjectionFailures(), snapshot.getEjectionPeriod(),
+                                                    TimeUnit.MILLISECONDS);
+        int nrThreads = snapshot.getConcurrentLookups();
+        if (nrThreads != this.lookupThreads) {
+            shutdownLookups();
+            if (nrThreads > 1) {
+                this.lookupExecutor = Executors.newFixedThreadPool(nrThreads, new LookupThreadFactory("tiaki-lookup-"));
+                this.ownedLookupExecutor = true;
             }
-            if(this.dnsServers.isEmpty())
-                throw new ConfigurationException("Unable to retrieve default DNS resolvers");
+            this.lookupThreads = nrThreads;
         }
+        int nrWorkers = snapshot.getAsyncWorkers();
+        if (nrWorkers > this.asyncWorkers.getMaximumPoolSize()) {
+            this.asyncWorkers.setMaximumPoolSize(nrWorkers);
+            this.asyncWorkers.setCorePoolSize(nrWorkers);
+        } else if (nrWorkers < this.asyncWorkers.getMaximumPoolSize()) {
+            this.asyncWorkers.setCorePoolSize(nrWorkers);
+            this.asyncWorkers.setMaximumPoolSize(nrWorkers);
+        }
+        this.config = snapshot;
+    }
 
-        if (this.trustAnchorFile != null) {
-            try {
-                this.trustAnchorDefault = new String(Files.readAllBytes(this.trustAnchorFile.toPath()));
-            } catch (IOException ex) {
-                throw new ConfigurationException("Unable to read the Trust Anchor from "
-                        + this.trustAnchorFile.getName());
-            }
-        } else {
-            try {
-                File defaultTrustAnchorLocation = new File(Constants.DEFAULT_TRUST_ANCHOR_LOCATION);
-                if (defaultTrustAnchorLocation.exists()) {
-                    this.trustAnchorDefault = new String(Files.readAllBytes(defaultTrustAnchorLocation.toPath()));
-                } else {
-                    this.trustAnchorDefault = Constants.DEFAULT_TRUST_ANCHOR;
-                }
-            } catch (IOException ex) {
-                throw new ConfigurationException("Unable to read the Trust Anchor from "
-                        + this.trustAnchorFile.getName());
+    /**
+     * Retrieve the validated configuration, checking it first if needed.
+     *
+     * @return The current <code>DiscoveryConfig</code> snapshot
+     *
+     * @throws ConfigurationException In case configurations have been done, but not checked.
+     */
+    protected DiscoveryConfig validatedConf() throws ConfigurationException
+    {
+        DiscoveryConfig current = this.config;
+        if (current == null) {
+            synchronized (this) {
+                checkConfiguration(false);
+                current = this.config;
             }
         }
-        this.checked = true;
+
+        return current;
     }
 
     /**
-     * Check whether the configuration has been validated or not.
+     * Retrieve the scheduler triggering the watches re-resolutions, instantiating it on first use:
+     * the re-resolutions themselves are carried out by the {@link #asyncExecutor()}.
      *
-     * @throws ConfigurationException In case configurations have been done, but not checked.
+     * @return A <code>ScheduledExecutorService</code> running on a single daemon thread
      */
-    protected void validatedConf() throws ConfigurationException
+    protected synchronized ScheduledExecutorService watchScheduler()
     {
-        checkConfiguration(false);
+        if (this.watchScheduler == null) {
+            this.watchScheduler = Executors.newSingleThreadScheduledExecutor(new LookupThreadFactory("tiaki-watch-"));
+        }
+
+        return this.watchScheduler;
+    }
+
+    /**
+     * Retrieve the executor sending the queries of the asynchronous calls: a pool of
+     * {@link DiscoveryConfig#getAsyncWorkers()} threads owned by this instance, the queries in
+     * excess waiting in line. Idle threads are released after a while.
+     *
+     * @return An <code>ExecutorService</code> running on daemon threads
+     */
+    protected final ExecutorService asyncExecutor()
+    {
+        return this.asyncWorkers;
     }
 
     /**
      * Notify this instance's observers.
      *
      * @param what A <code>String</code> containing the status change event
+     *
+     * @deprecated Use the typed notifications of {@link #events}
      */
+    @Deprecated
     protected void statusChange(String what)
     {
-        if (what == null || what.isEmpty()) {
-            this.notifier.notifyObservers();
-        } else {
-            this.notifier.notifyObservers(what);
-        }
+        this.events.statusChange((what == null || what.isEmpty()) ? null : what);
     }
 
     /**
      * Notify this instance's observers.
      *
      * @param what An <code>Object</code> containing the status change event
+     *
+     * @deprecated Use the typed notifications of {@link #events}
      */
+    @Deprecated
     protected void statusChange(Object what)
     {
         if (what != null) {
-            this.notifier.notifyObservers(what);
+            this.events.statusChange(what);
         }
     }
 
+    /**
+     * Helper class creating daemon threads for concurrent lookups, watches and events, so that a
+     * forgotten configuration does not prevent the JVM from exiting.
+     */
+    private static final class LookupThreadFactory implements ThreadFactory
+    {
+        /** Threads counter, to name them. */
+        private static final AtomicInteger COUNTER = new AtomicInteger();
+        /** Prefix of the threads names. */
+        private final String prefix;
+
+        public LookupThreadFactory(String prefix)
+        {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable task)
+        {
+            Thread thread = new Thread(task, this.prefix + COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+
+            return thread;
+        }
+
+    }
+
     /**
      * Helper class encapsulating the introspective capabilities (asynchronous notification on
-     * status changes).
+     * status changes): the <code>Observable</code> handed to the observers, its notifications
+     * being forwarded to {@link Configurable#events}.
      *
      * @author pmaresca <pmaresca@verisign.com>
      * @version 1.0
@@ -259,19 +735,13 @@ public abstract class Configurable
         @Override
         public final void notifyObservers()
         {
-            setChanged();
-            if (Configurable.this.introspected) {
-                super.notifyObservers();
-            }
+            Configurable.this.events.statusChange(null);
         }
 
         @Override
         public final void notifyObservers(Object arg)
         {
-            setChanged();
-            if (Configurable.this.introspected) {
-                super.notifyObservers(arg);
-            }
+            Configurable.this.events.statusChange(arg);
         }
 
     }
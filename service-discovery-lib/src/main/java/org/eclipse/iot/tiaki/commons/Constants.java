@@ -91,11 +91,98 @@ public final class Constants
 	 */
 	public static final int CACHE_TIME_LIMIT = 15 * 60;
 
+	/**
+	 * 1 minute in seconds, TTL of negative results whose SOA record is unknown.
+	 */
+	public static final int NEGATIVE_CACHE_TTL = 60;
+
+	/**
+	 * No deadline by default: the lookups of a single call are only bounded by the query timeout
+	 * and retries.
+	 */
+	public static final long LOOKUP_DEADLINE = 0L;
+
+	/**
+	 * 10 seconds in milliseconds, default time a single query is waited for (as dnsjava's).
+	 */
+	public static final long QUERY_TIMEOUT = 10 * 1000L;
+
+	/**
+	 * Default number of times an unanswered query is sent again to the same server.
+	 */
+	public static final int QUERY_RETRIES = 0;
+
+	/**
+	 * 100 milliseconds, delay of the first retry of an unanswered query, doubled at every retry.
+	 */
+	public static final long QUERY_RETRY_BACKOFF = 100L;
+
+	/**
+	 * Default number of threads carrying out the queries of the asynchronous calls, hence of
+	 * queries in flight at once.
+	 */
+	public static final int ASYNC_WORKERS = 8;
+
+	/**
+	 * 1 minute in milliseconds, time an idle asynchronous worker is kept alive.
+	 */
+	public static final long ASYNC_WORKERS_KEEP_ALIVE = 60 * 1000L;
+
+	/**
+	 * 1 second in milliseconds, minimum interval between two resolutions of a watch.
+	 */
+	public static final long WATCH_MIN_INTERVAL = 1000L;
+
+	/**
+	 * 30 seconds in milliseconds, delay of a watch resolution following an unsuccessful one.
+	 */
+	public static final long WATCH_RETRY_DELAY = 30 * 1000L;
+
+	/**
+	 * 100 milliseconds, delay of hedged queries until enough response times have been observed.
+	 */
+	public static final long HEDGE_INITIAL_DELAY = 100L;
+
+	/**
+	 * 5 milliseconds, lower bound of the adaptive delay of hedged queries.
+	 */
+	public static final long HEDGE_MIN_DELAY = 5L;
+
+	/**
+	 * Percentile of the observed response times after which a query is hedged.
+	 */
+	public static final double HEDGE_PERCENTILE = 0.95;
+
+	/**
+	 * Default share of hedged queries, with reference to the sent ones (i.e. 10% extra load).
+	 */
+	public static final double HEDGE_MAX_EXTRA_LOAD = 0.1;
+
+	/**
+	 * Hedged queries allowed in a burst, regardless of the extra load share.
+	 */
+	public static final int HEDGE_MAX_BURST = 10;
+
+	/**
+	 * Consecutive network errors after which a server is ejected from the lookups.
+	 */
+	public static final int HEALTH_EJECTION_FAILURES = 3;
+
+	/**
+	 * 30 seconds in milliseconds, time an ejected server is left out before being probed again.
+	 */
+	public static final long HEALTH_EJECTION_PERIOD = 30 * 1000L;
+
 	/**
 	 * Resource Record default TTL.
 	 */
 	public static final long RECORD_DEFAULT_TTL = 3600L;
 
+	/**
+	 * Domain names interned by <code>Fqdn.intern</code>, beyond which they are let go altogether.
+	 */
+	public static final int FQDN_INTERNED_NAMES = 4096;
+
 
 	private Constants ()
     {
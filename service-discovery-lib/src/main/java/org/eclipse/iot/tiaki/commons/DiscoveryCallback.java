@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.commons;
+
+import org.eclipse.iot.tiaki.exceptions.DnsServiceException;
+
+/**
+ * Client handler of an asynchronous discovery outcome, see {@link DiscoveryFuture}. Handlers are
+ * invoked by the thread completing the discovery, hence they are supposed not to block.
+ *
+ * @param <T> Type of the discovery result
+ */
+public interface DiscoveryCallback<T>
+{
+
+    /**
+     * Invoked upon successful completion.
+     *
+     * @param result The discovery result
+     */
+    void onSuccess(T result);
+
+    /**
+     * Invoked upon failure.
+     *
+     * @param error A <code>DnsServiceException</code> defining the raised error
+     */
+    void onFailure(DnsServiceException error);
+
+}
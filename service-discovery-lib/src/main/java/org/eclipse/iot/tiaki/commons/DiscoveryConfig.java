@@ -0,0 +1,658 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.commons;
+
+import org.eclipse.iot.tiaki.exceptions.ConfigurationException;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import org.xbill.DNS.ResolverConfig;
+import org.xbill.DNS.SimpleResolver;
+
+/**
+ * Validated configuration of a discovery, as a snapshot: a configuration change never alters an
+ * existing snapshot, a new one is built and validated instead. Lookups read the current snapshot
+ * once, then go on with it regardless of concurrent changes.
+ *
+ * Snapshots are produced by a {@link Builder}, which carries out every check (default servers
+ * retrieval, Trust Anchor reading) once and for all when building.
+ *
+ * Immutable, hence Thread-safe.
+ *
+ */
+public final class DiscoveryConfig
+{
+
+    /** DNS Servers to be addressed, along with their ports. */
+    private final List<InetSocketAddress> dnsServers;
+    /** Trust Anchor the validating resolvers are loaded with. */
+    private final String trustAnchor;
+    /** Default DNSSEC domain. */
+    private final String dnsSecDomain;
+    /** Maximum number of entries of the DNS cache(s). */
+    private final int cacheMaxEntries;
+    /** Maximum TTL of positive cached answers, in seconds. */
+    private final int cacheMaxTtl;
+    /** Maximum TTL of negative cached answers, in seconds. */
+    private final int cacheMaxNegativeTtl;
+    /** <code>true</code> iff the JVM-wide DNS cache(s) are used. */
+    private final boolean sharedCache;
+    /** <code>true</code> iff each server has its own DNS cache. */
+    private final boolean cachePerServer;
+    /** Time granted to the lookups of a single call, in milliseconds. */
+    private final long lookupDeadline;
+    /** Time a single query is waited for, in milliseconds. */
+    private final long queryTimeout;
+    /** Number of times an unanswered query is sent again. */
+    private final int queryRetries;
+    /** Delay of the first retry, in milliseconds. */
+    private final long retryBackoff;
+    /** Share of hedged queries with reference to the sent ones, <code>0</code> unless hedging. */
+    private final double hedgedLoad;
+    /** Consecutive network errors after which a server is ejected. */
+    private final int ejectionFailures;
+    /** Time an ejected server is left out, in milliseconds. */
+    private final long ejectionPeriod;
+    /** Maximum number of lookups carried out concurrently, <code>1</code> in sequential mode. */
+    private final int concurrentLookups;
+    /** Number of threads carrying out the queries of the asynchronous calls. */
+    private final int asyncWorkers;
+
+    /**
+     * @param builder      The builder holding the settings
+     * @param dnsServers   The validated DNS Servers
+     * @param trustAnchor  The loaded Trust Anchor
+     */
+    private DiscoveryConfig(Builder builder, List<InetSocketAddress> dnsServers, String trustAnchor)
+    {
+        this.dnsServers = Collections.unmodifiableList(new ArrayList<>(dnsServers));
+        this.trustAnchor = trustAnchor;
+        this.dnsSecDomain = builder.dnsSecDomain;
+        this.cacheMaxEntries = builder.cacheMaxEntries;
+        this.cacheMaxTtl = builder.cacheMaxTtl;
+        this.cacheMaxNegativeTtl = builder.cacheMaxNegativeTtl;
+        this.sharedCache = builder.sharedCache;
+        this.cachePerServer = builder.cachePerServer;
+        this.lookupDeadline = builder.lookupDeadline;
+        this.queryTimeout = builder.queryTimeout;
+        this.queryRetries = builder.queryRetries;
+        this.retryBackoff = builder.retryBackoff;
+        this.hedgedLoad = builder.hedgedLoad;
+        this.ejectionFailures = builder.ejectionFailures;
+        this.ejectionPeriod = builder.ejectionPeriod;
+        this.concurrentLookups = builder.concurrentLookups;
+        this.asyncWorkers = builder.asyncWorkers;
+    }
+
+    /**
+     * @return A new <code>Builder</code> holding the default settings
+     */
+    public static Builder builder()
+    {
+        return new Builder();
+    }
+
+    /**
+     * @return A new <code>Builder</code> holding the settings of this snapshot, its Trust Anchor
+     *         as default one
+     */
+    public Builder toBuilder()
+    {
+        Builder builder = new Builder();
+        builder.dnsServers.addAll(this.dnsServers);
+        builder.trustAnchor = this.trustAnchor;
+        builder.dnsSecDomain = this.dnsSecDomain;
+        builder.cacheMaxEntries = this.cacheMaxEntries;
+        builder.cacheMaxTtl = this.cacheMaxTtl;
+        builder.cacheMaxNegativeTtl = this.cacheMaxNegativeTtl;
+        builder.sharedCache = this.sharedCache;
+        builder.cachePerServer = this.cachePerServer;
+        builder.lookupDeadline = this.lookupDeadline;
+        builder.queryTimeout = this.queryTimeout;
+        builder.queryRetries = this.queryRetries;
+        builder.retryBackoff = this.retryBackoff;
+        builder.hedgedLoad = this.hedgedLoad;
+        builder.ejectionFailures = this.ejectionFailures;
+        builder.ejectionPeriod = this.ejectionPeriod;
+        builder.concurrentLookups = this.concurrentLookups;
+        builder.asyncWorkers = this.asyncWorkers;
+
+        return builder;
+    }
+
+    /**
+     * @return An immutable <code>List</code> of the DNS Servers to be addressed
+     */
+    public List<InetSocketAddress> getDnsServers()
+    {
+        return this.dnsServers;
+    }
+
+    /**
+     * @return The Trust Anchor the validating resolvers are loaded with
+     */
+    public String getTrustAnchor()
+    {
+        return this.trustAnchor;
+    }
+
+    /**
+     * @return The default DNSSEC domain
+     */
+    public String getDnsSecDomain()
+    {
+        return this.dnsSecDomain;
+    }
+
+    /**
+     * @return The maximum number of entries of the DNS cache(s)
+     */
+    public int getCacheMaxEntries()
+    {
+        return this.cacheMaxEntries;
+    }
+
+    /**
+     * @return The maximum TTL of positive cached answers, in seconds
+     */
+    public int getCacheMaxTtl()
+    {
+        return this.cacheMaxTtl;
+    }
+
+    /**
+     * @return The maximum TTL of negative cached answers, in seconds
+     */
+    public int getCacheMaxNegativeTtl()
+    {
+        return this.cacheMaxNegativeTtl;
+    }
+
+    /**
+     * @return <code>true</code> iff the JVM-wide DNS cache(s) are used
+     */
+    public boolean isSharedCache()
+    {
+        return this.sharedCache;
+    }
+
+    /**
+     * @return <code>true</code> iff each server has its own DNS cache
+     */
+    public boolean isCachePerServer()
+    {
+        return this.cachePerServer;
+    }
+
+    /**
+     * @return The time granted to the lookups of a single call, in milliseconds, <code>0</code>
+     *         if unbounded
+     */
+    public long getLookupDeadline()
+    {
+        return this.lookupDeadline;
+    }
+
+    /**
+     * @return The time a single query is waited for, in milliseconds
+     */
+    public long getQueryTimeout()
+    {
+        return this.queryTimeout;
+    }
+
+    /**
+     * @return The number of times an unanswered query is sent again
+     */
+    public int getQueryRetries()
+    {
+        return this.queryRetries;
+    }
+
+    /**
+     * @return The delay of the first retry of an unanswered query, in milliseconds
+     */
+    public long getRetryBackoff()
+    {
+        return this.retryBackoff;
+    }
+
+    /**
+     * @return The share of hedged queries with reference to the sent ones, <code>0</code> unless
+     *         hedging
+     */
+    public double getHedgedLoad()
+    {
+        return this.hedgedLoad;
+    }
+
+    /**
+     * @return The number of consecutive network errors after which a server is ejected
+     */
+    public int getEjectionFailures()
+    {
+        return this.ejectionFailures;
+    }
+
+    /**
+     * @return The time an ejected server is left out before being probed again, in milliseconds
+     */
+    public long getEjectionPeriod()
+    {
+        return this.ejectionPeriod;
+    }
+
+    /**
+     * Check whether the resolvers built for another snapshot can serve this one as well, i.e.
+     * both address the same servers with the same Trust Anchor, query and hedging settings.
+     *
+     * @param other Another snapshot
+     *
+     * @return <code>true</code> iff the resolvers can be shared
+     */
+    boolean sharesResolvers(DiscoveryConfig other)
+    {
+        return this == other
+                || (this.queryTimeout == other.queryTimeout && this.queryRetries == other.queryRetries
+                    && this.retryBackoff == other.retryBackoff && this.hedgedLoad == other.hedgedLoad
+                    && this.dnsServers.equals(other.dnsServers)
+                    && Objects.equals(this.trustAnchor, other.trustAnchor));
+    }
+
+    /**
+     * @return The maximum number of lookups carried out concurrently, <code>1</code> in
+     *         sequential mode
+     */
+    public int getConcurrentLookups()
+    {
+        return this.concurrentLookups;
+    }
+
+    /**
+     * @return The number of threads carrying out the queries of the asynchronous calls, i.e. the
+     *         maximum number of their queries in flight at once
+     */
+    public int getAsyncWorkers()
+    {
+        return this.asyncWorkers;
+    }
+
+    /**
+     * Builder of the {@link DiscoveryConfig} snapshots. Settings are checked as they are provided,
+     * the servers and the Trust Anchor are resolved by {@link #build()}.
+     *
+     * Not Thread-safe.
+     */
+    public static final class Builder
+    {
+        /** DNS Servers to be addressed, the system ones if none. */
+        private final List<InetSocketAddress> dnsServers;
+        /** Trust Anchor, <code>null</code> for the default one. */
+        private String trustAnchor;
+        /** File storing the Trust Anchor, prevailing over <code>trustAnchor</code>. */
+        private File trustAnchorFile;
+        /** Default DNSSEC domain. */
+        private String dnsSecDomain;
+        /** Maximum number of entries of the DNS cache(s). */
+        private int cacheMaxEntries;
+        /** Maximum TTL of positive cached answers, in seconds. */
+        private int cacheMaxTtl;
+        /** Maximum TTL of negative cached answers, in seconds. */
+        private int cacheMaxNegativeTtl;
+        /** <code>true</code> iff the JVM-wide DNS cache(s) are used. */
+        private boolean sharedCache;
+        /** <code>true</code> iff each server has its own DNS cache. */
+        private boolean cachePerServer;
+        /** Time granted to the lookups of a single call, in milliseconds. */
+        private long lookupDeadline;
+        /** Time a single query is waited for, in milliseconds. */
+        private long queryTimeout;
+        /** Number of times an unanswered query is sent again. */
+        private int queryRetries;
+        /** Delay of the first retry, in milliseconds. */
+        private long retryBackoff;
+        /** Share of hedged queries, <code>0</code> unless hedging. */
+        private double hedgedLoad;
+        /** Consecutive network errors after which a server is ejected. */
+        private int ejectionFailures;
+        /** Time an ejected server is left out, in milliseconds. */
+        private long ejectionPeriod;
+        /** Maximum number of lookups carried out concurrently. */
+        private int concurrentLookups;
+        /** Number of threads carrying out the queries of the asynchronous calls. */
+        private int asyncWorkers;
+
+        private Builder()
+        {
+            this.dnsServers = new ArrayList<>();
+            this.cacheMaxEntries = Constants.CACHE_SIZE;
+            this.cacheMaxTtl = Constants.CACHE_TIME_LIMIT;
+            this.cacheMaxNegativeTtl = Constants.CACHE_TIME_LIMIT;
+            this.lookupDeadline = Constants.LOOKUP_DEADLINE;
+            this.queryTimeout = Constants.QUERY_TIMEOUT;
+            this.queryRetries = Constants.QUERY_RETRIES;
+            this.retryBackoff = Constants.QUERY_RETRY_BACKOFF;
+            this.hedgedLoad = 0d;
+            this.ejectionFailures = Constants.HEALTH_EJECTION_FAILURES;
+            this.ejectionPeriod = Constants.HEALTH_EJECTION_PERIOD;
+            this.concurrentLookups = 1;
+            this.asyncWorkers = Constants.ASYNC_WORKERS;
+        }
+
+        /**
+         * Add a target Resolution Server, multiple calls adding multiple servers.
+         *
+         * @param host Server's address
+         * @param port Server's port
+         * @return This builder
+         */
+        public Builder dnsServer(InetAddress host, int port)
+        {
+            if (port <= 0 || port > 65535) {
+                throw new IllegalArgumentException("Invalid DNS server port: " + port);
+            }
+            this.dnsServers.add(new InetSocketAddress(host, port));
+
+            return this;
+        }
+
+        /**
+         * Add a target Resolution Server listening on the standard port.
+         *
+         * @param host Server's address
+         * @return This builder
+         */
+        public Builder dnsServer(InetAddress host)
+        {
+            return dnsServer(host, SimpleResolver.DEFAULT_PORT);
+        }
+
+        /**
+         * @param domain The default DNSSEC domain
+         * @return This builder
+         */
+        public Builder dnsSecDomain(String domain)
+        {
+            this.dnsSecDomain = domain;
+
+            return this;
+        }
+
+        /**
+         * @param anchor The Trust Anchor, <code>null</code> for the default one
+         * @return This builder
+         */
+        public Builder trustAnchor(String anchor)
+        {
+            this.trustAnchor = anchor;
+
+            return this;
+        }
+
+        /**
+         * @param anchorContainer A <code>File</code> storing the Trust Anchor, read when building
+         * @return This builder
+         */
+        public Builder trustAnchorFile(File anchorContainer)
+        {
+            this.trustAnchorFile = anchorContainer;
+
+            return this;
+        }
+
+        /**
+         * @param entries Maximum number of entries of the DNS cache(s)
+         * @return This builder
+         */
+        public Builder cacheMaxEntries(int entries)
+        {
+            if (entries < 0) {
+                throw new IllegalArgumentException("The cache size cannot be negative");
+            }
+            this.cacheMaxEntries = entries;
+
+            return this;
+        }
+
+        /**
+         * @param seconds Maximum TTL of positive cached answers
+         * @return This builder
+         */
+        public Builder cacheMaxTtl(int seconds)
+        {
+            if (seconds < 0) {
+                throw new IllegalArgumentException("The cache TTL cannot be negative");
+            }
+            this.cacheMaxTtl = seconds;
+
+            return this;
+        }
+
+        /**
+         * @param seconds Maximum TTL of negative cached answers
+         * @return This builder
+         */
+        public Builder cacheMaxNegativeTtl(int seconds)
+        {
+            if (seconds < 0) {
+                throw new IllegalArgumentException("The cache TTL cannot be negative");
+            }
+            this.cacheMaxNegativeTtl = seconds;
+
+            return this;
+        }
+
+        /**
+         * @param isIt If <code>true</code> the JVM-wide DNS cache(s) are used
+         * @return This builder
+         */
+        public Builder sharedCache(boolean isIt)
+        {
+            this.sharedCache = isIt;
+
+            return this;
+        }
+
+        /**
+         * @param isIt If <code>true</code> each server has its own DNS cache
+         * @return This builder
+         */
+        public Builder cachePerServer(boolean isIt)
+        {
+            this.cachePerServer = isIt;
+
+            return this;
+        }
+
+        /**
+         * @param timeout Time granted to the lookups of a single call, <code>0</code> for no deadline
+         * @param unit    The <code>TimeUnit</code> of the <code>timeout</code> argument
+         * @return This builder
+         */
+        public Builder lookupDeadline(long timeout, TimeUnit unit)
+        {
+            if (timeout < 0) {
+                throw new IllegalArgumentException("The lookup deadline cannot be negative");
+            }
+            this.lookupDeadline = unit.toMillis(timeout);
+
+            return this;
+        }
+
+        /**
+         * @param timeout Time a single query is waited for
+         * @param unit    The <code>TimeUnit</code> of the <code>timeout</code> argument
+         * @return This builder
+         */
+        public Builder queryTimeout(long timeout, TimeUnit unit)
+        {
+            if (unit.toMillis(timeout) <= 0) {
+                throw new IllegalArgumentException("The query timeout has to be at least a millisecond");
+            }
+            this.queryTimeout = unit.toMillis(timeout);
+
+            return this;
+        }
+
+        /**
+         * @param retries Number of times an unanswered query is sent again
+         * @param backoff Delay of the first retry, doubled at every following one
+         * @param unit    The <code>TimeUnit</code> of the <code>backoff</code> argument
+         * @return This builder
+         */
+        public Builder queryRetries(int retries, long backoff, TimeUnit unit)
+        {
+            if (retries < 0 || backoff < 0) {
+                throw new IllegalArgumentException("The query retries and backoff cannot be negative");
+            }
+            this.queryRetries = retries;
+            this.retryBackoff = unit.toMillis(backoff);
+
+            return this;
+        }
+
+        /**
+         * @param maxExtraLoad Share of hedged queries with reference to the sent ones, between
+         *                     <code>0</code> (no hedging) and <code>1</code>
+         * @return This builder
+         */
+        public Builder hedgedLookups(double maxExtraLoad)
+        {
+            if (maxExtraLoad < 0 || maxExtraLoad > 1) {
+                throw new IllegalArgumentException("The extra load must be between 0 and 1");
+            }
+            this.hedgedLoad = maxExtraLoad;
+
+            return this;
+        }
+
+        /**
+         * @param failures Consecutive network errors after which a server is ejected
+         * @param period   Time an ejected server is left out before being probed again
+         * @param unit     The <code>TimeUnit</code> of the <code>period</code> argument
+         * @return This builder
+         */
+        public Builder serverEjection(int failures, long period, TimeUnit unit)
+        {
+            if (failures <= 0 || unit.toMillis(period) <= 0) {
+                throw new IllegalArgumentException("The ejection failures and period have to be positive");
+            }
+            this.ejectionFailures = failures;
+            this.ejectionPeriod = unit.toMillis(period);
+
+            return this;
+        }
+
+        /**
+         * @param nrThreads Maximum number of lookups carried out concurrently, <code>1</code> for
+         *                  the sequential mode
+         * @return This builder
+         */
+        public Builder concurrentLookups(int nrThreads)
+        {
+            if (nrThreads < 1) {
+                throw new IllegalArgumentException("At least one lookup thread is needed");
+            }
+            this.concurrentLookups = nrThreads;
+
+            return this;
+        }
+
+        /**
+         * @param nrThreads Number of threads carrying out the queries of the asynchronous calls
+         * @return This builder
+         */
+        public Builder asyncWorkers(int nrThreads)
+        {
+            if (nrThreads < 1) {
+                throw new IllegalArgumentException("At least one asynchronous worker is needed");
+            }
+            this.asyncWorkers = nrThreads;
+
+            return this;
+        }
+
+        /**
+         * Validate the settings into a snapshot: the system servers are retrieved if none has
+         * been provided, and the Trust Anchor is read from its file, or from the default location.
+         *
+         * @return A new <code>DiscoveryConfig</code>
+         *
+         * @throws ConfigurationException In case the servers or the Trust Anchor cannot be retrieved
+         */
+        public DiscoveryConfig build() throws ConfigurationException
+        {
+            return new DiscoveryConfig(this, servers(), anchor());
+        }
+
+        /**
+         * Private helper retrieving the servers to be addressed.
+         *
+         * @return The provided servers, the system ones if none
+         *
+         * @throws ConfigurationException In case no server can be retrieved
+         */
+        private List<InetSocketAddress> servers() throws ConfigurationException
+        {
+            List<InetSocketAddress> servers = new ArrayList<>(this.dnsServers);
+            if (servers.isEmpty()) {
+                for (String resolver : ResolverConfig.getCurrentConfig().servers()) {
+                    try {
+                        servers.add(new InetSocketAddress(InetAddress.getByName(resolver),
+                                                          SimpleResolver.DEFAULT_PORT));
+                    } catch (UnknownHostException uhe) { /* acceptable, go ahead */ }
+                }
+                if (servers.isEmpty()) {
+                    throw new ConfigurationException("Unable to retrieve default DNS resolvers");
+                }
+            }
+
+            return servers;
+        }
+
+        /**
+         * Private helper loading the Trust Anchor: from the provided file first, then the
+         * provided one, then the default location, falling back to the built-in one.
+         *
+         * @return The Trust Anchor
+         *
+         * @throws ConfigurationException In case the Trust Anchor file cannot be read
+         */
+        private String anchor() throws ConfigurationException
+        {
+            File container = this.trustAnchorFile;
+            if (container == null) {
+                if (this.trustAnchor != null) {
+                    return this.trustAnchor;
+                }
+                container = new File(Constants.DEFAULT_TRUST_ANCHOR_LOCATION);
+                if (!container.exists()) {
+                    return Constants.DEFAULT_TRUST_ANCHOR;
+                }
+            }
+            try {
+                return new String(Files.readAllBytes(container.toPath()));
+            } catch (IOException ex) {
+                throw new ConfigurationException("Unable to read the Trust Anchor from "
+                        + container.getName());
+            }
+        }
+
+    }
+
+}
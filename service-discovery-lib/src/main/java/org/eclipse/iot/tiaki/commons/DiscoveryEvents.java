@@ -0,0 +1,317 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.commons;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import org.eclipse.iot.tiaki.domain.Fqdn;
+import org.eclipse.iot.tiaki.utils.FormattingUtil;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.Type;
+
+/**
+ * Bus delivering the internal events of an introspected discovery to its {@link DiscoveryListener}s.
+ *
+ * Events are enabled only if introspection is on and at least one listener is registered: event
+ * payloads are built after this check, so a silent discovery does not pay for them. Listeners are
+ * held by a copy-on-write list, hence events are delivered without locking; in asynchronous mode
+ * they are queued to a single thread, so that slow listeners never stall the resolution.
+ *
+ * Thread-safe.
+ *
+ */
+public final class DiscoveryEvents
+{
+
+    /** Registered listeners. */
+    private final List<DiscoveryListener> listeners;
+    /** <code>true</code> iff events have to be delivered. */
+    private volatile boolean introspected;
+    /** Thread delivering the events in asynchronous mode, <code>null</code> otherwise. */
+    private volatile ExecutorService dispatcher;
+
+    public DiscoveryEvents()
+    {
+        this.listeners = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * @param listener A <code>DiscoveryListener</code> to be registered
+     */
+    public void addListener(DiscoveryListener listener)
+    {
+        this.listeners.add(listener);
+    }
+
+    /**
+     * @param listener A <code>DiscoveryListener</code> to be unregistered
+     */
+    public void removeListener(DiscoveryListener listener)
+    {
+        this.listeners.remove(listener);
+    }
+
+    /**
+     * @param isIt <code>true</code> to deliver the events
+     */
+    public void setIntrospected(boolean isIt)
+    {
+        this.introspected = isIt;
+    }
+
+    /**
+     * Configure the dispatch mode.
+     *
+     * @param dispatcher An <code>ExecutorService</code> running a single thread, <code>null</code>
+     *                   to deliver the events synchronously
+     */
+    public void setDispatcher(ExecutorService dispatcher)
+    {
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * @return <code>true</code> iff events are delivered to at least one listener
+     */
+    public boolean enabled()
+    {
+        return this.introspected && !this.listeners.isEmpty();
+    }
+
+    /**
+     * @param message A <code>String</code> describing an informative event
+     */
+    public void info(final String message)
+    {
+        if (enabled()) {
+            dispatch(new Delivery() {
+                @Override
+                protected void deliver(DiscoveryListener listener) { listener.info(message); }
+            });
+        }
+    }
+
+    /**
+     * @param server The selected server
+     */
+    public void server(final String server)
+    {
+        if (enabled()) {
+            dispatch(new Delivery() {
+                @Override
+                protected void deliver(DiscoveryListener listener) { listener.serverSelected(server); }
+            });
+        }
+    }
+
+    /**
+     * @param name   The queried domain
+     * @param prefix The prefix of the queried domain name
+     * @param rrType The queried Resource Record type
+     */
+    public void query(Fqdn name, String prefix, int rrType)
+    {
+        if (enabled()) {
+            query(name.fqdnWithPrefix(prefix), rrType);
+        }
+    }
+
+    /**
+     * @param qname  The queried domain name
+     * @param rrType The queried Resource Record type
+     */
+    public void query(final String qname, int rrType)
+    {
+        if (enabled()) {
+            final String type = Type.string(rrType);
+            dispatch(new Delivery() {
+                @Override
+                protected void deliver(DiscoveryListener listener) { listener.querySent(qname, type); }
+            });
+        }
+    }
+
+    /**
+     * @param name    The queried domain
+     * @param prefix  The prefix of the queried domain name
+     * @param type    The queried Resource Record type
+     * @param results The results worked out of the response
+     */
+    public void response(Fqdn name, String prefix, String type, Collection<? extends Object> results)
+    {
+        if (enabled()) {
+            response(name.fqdnWithPrefix(prefix), type, results);
+        }
+    }
+
+    /**
+     * @param query   The queried domain name
+     * @param type    The queried Resource Record type
+     * @param records The received records
+     */
+    public void response(String query, String type, Record[] records)
+    {
+        if (enabled()) {
+            response(StatusChangeEvent.build(query, type, StatusChangeEvent.castedArray(records)));
+        }
+    }
+
+    /**
+     * @param query   The queried domain name
+     * @param type    The queried Resource Record type
+     * @param results The results worked out of the response
+     */
+    public void response(String query, String type, Collection<? extends Object> results)
+    {
+        if (enabled()) {
+            response(StatusChangeEvent.build(query, type, StatusChangeEvent.castedList(results)));
+        }
+    }
+
+    /**
+     * @param response A <code>StatusChangeEvent</code> coupling the query with its results
+     */
+    public void response(final StatusChangeEvent response)
+    {
+        if (enabled()) {
+            dispatch(new Delivery() {
+                @Override
+                protected void deliver(DiscoveryListener listener) { listener.responseReceived(response); }
+            });
+        }
+    }
+
+    /**
+     * Deliver a status change notified through the deprecated <code>Configurable</code> API: the
+     * observers receive it as it is, the other listeners as a response if a
+     * <code>StatusChangeEvent</code>, as an informative event otherwise.
+     *
+     * @param what The status change, <code>null</code> for a bare notification
+     */
+    public void statusChange(final Object what)
+    {
+        if (enabled()) {
+            dispatch(new Delivery() {
+                @Override
+                protected void deliver(DiscoveryListener listener)
+                {
+                    if (listener instanceof ObserverListener) {
+                        ((ObserverListener) listener).update(what);
+                    } else if (what instanceof StatusChangeEvent) {
+                        listener.responseReceived((StatusChangeEvent) what);
+                    } else if (what != null) {
+                        listener.info(what.toString());
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Deliver the outcome of a DNSSEC check: the observers receive it as the response string they
+     * used to, the other listeners as a response.
+     *
+     * @param name    The validated domain
+     * @param outcome The <code>StatusCode</code> of the DNSSEC validation
+     */
+    public void dnsSec(Fqdn name, StatusCode outcome)
+    {
+        if (enabled()) {
+            String message;
+            if (outcome == StatusCode.SUCCESSFUL_OPERATION) {
+                message = FormattingUtil.authenticData(name.fqdn());
+            } else if (outcome == StatusCode.NETWORK_ERROR) {
+                message = FormattingUtil.networkError(name.fqdn());
+            } else if (outcome == StatusCode.RESOURCE_LOOKUP_ERROR) {
+                message = FormattingUtil.unableToResolve(name.fqdn());
+            } else {
+                message = FormattingUtil.unableToValidate(name.fqdn());
+            }
+            final StatusChangeEvent response = StatusChangeEvent.build(name.fqdn(), "",
+                                                                       StatusChangeEvent.castedValue(message));
+            final String legacy = FormattingUtil.response(message);
+            dispatch(new Delivery() {
+                @Override
+                protected void deliver(DiscoveryListener listener)
+                {
+                    if (listener instanceof ObserverListener) {
+                        ((ObserverListener) listener).update(legacy);
+                    } else {
+                        listener.responseReceived(response);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Signal the completion of a discovery.
+     */
+    public void answer()
+    {
+        if (enabled()) {
+            dispatch(new Delivery() {
+                @Override
+                protected void deliver(DiscoveryListener listener) { listener.answerComplete(); }
+            });
+        }
+    }
+
+    /**
+     * Private helper delivering an event, either synchronously or through the dispatcher.
+     *
+     * @param delivery The <code>Delivery</code> of the event
+     */
+    private void dispatch(Delivery delivery)
+    {
+        ExecutorService executor = this.dispatcher;
+        if (executor != null) {
+            try {
+                executor.execute(delivery);
+                return;
+            } catch (RejectedExecutionException ree) {
+                // dispatcher shut down: deliver synchronously
+            }
+        }
+        delivery.run();
+    }
+
+    /**
+     * Helper class delivering an event to every registered listener; a failing listener does not
+     * prevent the others from being notified.
+     */
+    private abstract class Delivery implements Runnable
+    {
+
+        @Override
+        public final void run()
+        {
+            for (DiscoveryListener listener : DiscoveryEvents.this.listeners) {
+                try {
+                    deliver(listener);
+                } catch (RuntimeException re) {
+                    // listeners failures must not affect the discovery
+                }
+            }
+        }
+
+        /**
+         * Deliver the event to a listener.
+         *
+         * @param listener The notified <code>DiscoveryListener</code>
+         */
+        protected abstract void deliver(DiscoveryListener listener);
+
+    }
+
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.commons;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.iot.tiaki.exceptions.DnsServiceException;
+import org.eclipse.iot.tiaki.exceptions.LookupException;
+
+/**
+ * Pending outcome of an asynchronous discovery. Besides the blocking {@link Future} contract, it
+ * allows registering {@link DiscoveryCallback} handlers, invoked upon completion by the completing
+ * thread (or immediately by the registering thread, in case of an already completed discovery).
+ *
+ * A failed discovery reports its <code>DnsServiceException</code> as cause of the
+ * <code>ExecutionException</code> raised by {@link #get()}.
+ *
+ * @param <T> Type of the discovery result
+ */
+public final class DiscoveryFuture<T> implements Future<T>
+{
+
+    /** Released upon completion. */
+    private final CountDownLatch completion;
+    /** Handlers waiting for the completion. */
+    private final List<DiscoveryCallback<? super T>> callbacks;
+    /** <code>true</code> once completed, either successfully or not. */
+    private boolean done;
+    /** <code>true</code> iff cancelled before completion. */
+    private boolean cancelled;
+    /** Discovery result, in case of success. */
+    private T result;
+    /** Discovery error, in case of failure. */
+    private DnsServiceException error;
+
+    public DiscoveryFuture()
+    {
+        this.completion = new CountDownLatch(1);
+        this.callbacks = new ArrayList<>();
+    }
+
+    /**
+     * Build a future completing once all the provided ones have completed successfully, or as soon
+     * as any of them fails.
+     *
+     * @param <T> Type of the discovery results
+     * @param futures The futures to be combined
+     *
+     * @return A <code>DiscoveryFuture</code> of the results, in the same order of <code>futures</code>
+     */
+    public static <T> DiscoveryFuture<List<T>> all(List<DiscoveryFuture<T>> futures)
+    {
+        final DiscoveryFuture<List<T>> combined = new DiscoveryFuture<>();
+        if (futures.isEmpty()) {
+            combined.complete(Collections.<T>emptyList());
+            return combined;
+        }
+
+        final Object[] results = new Object[futures.size()];
+        final AtomicInteger pending = new AtomicInteger(futures.size());
+        for (int i = 0; i < futures.size(); i++) {
+            final int index = i;
+            futures.get(i).whenDone(new DiscoveryCallback<T>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public void onSuccess(T result)
+                {
+                    results[index] = result;
+                    if (pending.decrementAndGet() == 0) {
+                        combined.complete((List<T>) Arrays.asList(results));
+                    }
+                }
+
+                @Override
+                public void onFailure(DnsServiceException error)
+                {
+                    combined.fail(error);
+                }
+            });
+        }
+
+        return combined;
+    }
+
+    /**
+     * Complete this discovery successfully.
+     *
+     * @param result The discovery result
+     *
+     * @return <code>true</code> iff this call completed the discovery
+     */
+    public boolean complete(T result)
+    {
+        List<DiscoveryCallback<? super T>> toNotify;
+        synchronized (this) {
+            if (this.done) {
+                return false;
+            }
+            this.done = true;
+            this.result = result;
+            toNotify = drainCallbacks();
+        }
+        this.completion.countDown();
+        for (DiscoveryCallback<? super T> callback : toNotify) {
+            callback.onSuccess(result);
+        }
+
+        return true;
+    }
+
+    /**
+     * Complete this discovery with a failure.
+     *
+     * @param error A <code>DnsServiceException</code> defining the raised error
+     *
+     * @return <code>true</code> iff this call completed the discovery
+     */
+    public boolean fail(DnsServiceException error)
+    {
+        List<DiscoveryCallback<? super T>> toNotify;
+        synchronized (this) {
+            if (this.done) {
+                return false;
+            }
+            this.done = true;
+            this.error = error;
+            toNotify = drainCallbacks();
+        }
+        this.completion.countDown();
+        for (DiscoveryCallback<? super T> callback : toNotify) {
+            callback.onFailure(error);
+        }
+
+        return true;
+    }
+
+    /**
+     * Register a handler to be invoked upon completion.
+     *
+     * @param callback A <code>DiscoveryCallback</code> handling the outcome
+     *
+     * @return This instance
+     */
+    public DiscoveryFuture<T> whenDone(DiscoveryCallback<? super T> callback)
+    {
+        synchronized (this) {
+            if (!this.done) {
+                this.callbacks.add(callback);
+                return this;
+            }
+        }
+        if (this.error != null) {
+            callback.onFailure(this.error);
+        } else {
+            callback.onSuccess(this.result);
+        }
+
+        return this;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning)
+    {
+        List<DiscoveryCallback<? super T>> toNotify;
+        LookupException cancellation = new LookupException(StatusCode.NETWORK_ERROR, "Discovery cancelled");
+        synchronized (this) {
+            if (this.done) {
+                return false;
+            }
+            this.done = true;
+            this.cancelled = true;
+            this.error = cancellation;
+            toNotify = drainCallbacks();
+        }
+        this.completion.countDown();
+        for (DiscoveryCallback<? super T> callback : toNotify) {
+            callback.onFailure(cancellation);
+        }
+
+        return true;
+    }
+
+    @Override
+    public synchronized boolean isCancelled()
+    {
+        return this.cancelled;
+    }
+
+    @Override
+    public synchronized boolean isDone()
+    {
+        return this.done;
+    }
+
+    @Override
+    public T get() throws InterruptedException, ExecutionException
+    {
+        this.completion.await();
+
+        return outcome();
+    }
+
+    @Override
+    public T get(long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException
+    {
+        if (!this.completion.await(timeout, unit)) {
+            throw new TimeoutException("Discovery still pending");
+        }
+
+        return outcome();
+    }
+
+    /**
+     * Private helper reporting the outcome of a completed discovery.
+     *
+     * @return The discovery result
+     *
+     * @throws ExecutionException In case of failed discovery
+     */
+    private synchronized T outcome() throws ExecutionException
+    {
+        if (this.cancelled) {
+            throw new CancellationException("Discovery cancelled");
+        }
+        if (this.error != null) {
+            throw new ExecutionException(this.error.getMessage(), this.error);
+        }
+
+        return this.result;
+    }
+
+    /**
+     * Private helper handing over the registered handlers, to be invoked outside the lock.
+     *
+     * @return The handlers registered so far
+     */
+    private List<DiscoveryCallback<? super T>> drainCallbacks()
+    {
+        List<DiscoveryCallback<? super T>> drained = new ArrayList<>(this.callbacks);
+        this.callbacks.clear();
+
+        return drained;
+    }
+
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.commons;
+
+/**
+ * Client handler of the internal events of an introspected discovery, see {@link DiscoveryEvents}.
+ * Handlers are invoked either by the resolving thread or, in case of asynchronous dispatch, by the
+ * single thread delivering the events in order.
+ */
+public interface DiscoveryListener
+{
+
+    /**
+     * Invoked upon an informative event (e.g. the resolving mode).
+     *
+     * @param message A <code>String</code> describing the event
+     */
+    void info(String message);
+
+    /**
+     * Invoked whenever a server is selected to carry out the next queries.
+     *
+     * @param server The selected server
+     */
+    void serverSelected(String server);
+
+    /**
+     * Invoked whenever a query is sent.
+     *
+     * @param name The queried domain name
+     * @param type The queried Resource Record type
+     */
+    void querySent(String name, String type);
+
+    /**
+     * Invoked whenever a response is received.
+     *
+     * @param response A <code>StatusChangeEvent</code> coupling the query with its results
+     */
+    void responseReceived(StatusChangeEvent response);
+
+    /**
+     * Invoked once a discovery has completed.
+     */
+    void answerComplete();
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.commons;
+
+/**
+ * Service provider interface recording the measures of a configured discovery: queries, caches,
+ * DNSSEC validations and whole calls. Recorders are invoked by the resolving threads, hence they
+ * have to be thread-safe and cheap, see {@link NoopMetrics} and {@link InMemoryMetrics}.
+ */
+public interface DiscoveryMetrics
+{
+
+    /** Cache of the DNS Resource Records. */
+    String RECORDS_CACHE = "records";
+    /** Cache of the Service Instances listings. */
+    String INSTANCES_CACHE = "instances";
+
+    /**
+     * Invoked whenever a query has been answered, or has failed.
+     *
+     * @param server  The addressed server
+     * @param rrType  The queried Resource Record type
+     * @param outcome The <code>StatusCode</code> of the query
+     * @param nanos   The query latency, in nanoseconds
+     */
+    void queryCompleted(String server, int rrType, StatusCode outcome, long nanos);
+
+    /**
+     * Invoked whenever a cache is looked up.
+     *
+     * @param cache The name of the cache, e.g. {@link #RECORDS_CACHE}
+     * @param hit   <code>true</code> iff the cache answered
+     */
+    void cacheAccessed(String cache, boolean hit);
+
+    /**
+     * Invoked whenever a DNSSEC validated response has been received.
+     *
+     * @param outcome The <code>StatusCode</code> of the validation
+     * @param nanos   The validation latency once the response is received, in nanoseconds
+     */
+    void dnsSecValidated(StatusCode outcome, long nanos);
+
+    /**
+     * Invoked whenever a call of the discovery API has completed.
+     *
+     * @param method  The name of the called method
+     * @param outcome The <code>StatusCode</code> of the call
+     * @param nanos   The call latency, in nanoseconds
+     */
+    void callCompleted(String method, StatusCode outcome, long nanos);
+
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.commons;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.eclipse.iot.tiaki.domain.ServiceInstance;
+import org.eclipse.iot.tiaki.domain.ServiceRecord;
+
+/**
+ * Selector of the endpoint to contact among discovered Service Instances, as defined by RFC 2782:
+ * the lowest priority group holding an endpoint not marked down is chosen, then one of its up
+ * endpoints at random, in proportion to the SRV weights. Endpoints of weight 0 are only chosen
+ * with a very small probability, unless their whole group has weight 0.
+ *
+ * The weights of each priority group are kept in a Fenwick tree of cumulative sums, so that a
+ * selection takes O(log n) steps and marking an endpoint down or up updates the sums in place.
+ * Neither locks nor allocations are involved: a selection racing with a marking may draw a down
+ * endpoint, in which case it draws again.
+ *
+ * Thread-safe.
+ *
+ * @see <a href="http://tools.ietf.org/html/rfc2782">RFC 2782</a>
+ */
+public final class EndpointSelector
+{
+
+    /** Scale of the SRV weights, leaving a unit of chance to the endpoints of weight 0. */
+    private static final int WEIGHT_SCALE = 1 << 16;
+    /** Draws attempted in a group before scanning it for an up endpoint. */
+    private static final int MAX_DRAWS = 4;
+
+    /** The endpoints, by ascending priority. */
+    private final ServiceInstance[] endpoints;
+    /** The position of each endpoint in <code>endpoints</code>. */
+    private final Map<ServiceInstance, Integer> positions;
+    /** The scaled weight of each endpoint. */
+    private final long[] weights;
+    /** First position of each priority group, followed by the number of endpoints. */
+    private final int[] groupStarts;
+    /** Highest power of two not above the size of each group, the first step of a lookup. */
+    private final int[] groupSteps;
+    /** The Fenwick tree of each group, laid out at the positions of its endpoints. */
+    private final AtomicLongArray tree;
+    /** The total weight of the up endpoints of each group. */
+    private final AtomicLongArray totals;
+    /** Whether each endpoint is marked down (1) or not (0). */
+    private final AtomicIntegerArray down;
+
+    /**
+     * @param instances The Service Instances to select from, e.g. as listed by
+     *                  <code>listServiceInstances</code>
+     */
+    public EndpointSelector(Set<ServiceInstance> instances)
+    {
+        List<ServiceInstance> sorted = new ArrayList<>(instances);
+        Collections.sort(sorted);
+        int size = sorted.size();
+        this.endpoints = sorted.toArray(new ServiceInstance[size]);
+        this.positions = new HashMap<>(size * 2);
+        this.weights = new long[size];
+        this.tree = new AtomicLongArray(size);
+        this.down = new AtomicIntegerArray(size);
+
+        List<Integer> starts = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            ServiceRecord record = this.endpoints[i].getServiceRecord();
+            if (i == 0 || record.getPriority() != this.endpoints[i - 1].getServiceRecord().getPriority()) {
+                starts.add(i);
+            }
+            this.positions.put(this.endpoints[i], i);
+            this.weights[i] = (long) record.getWeight() * WEIGHT_SCALE + 1;
+        }
+        starts.add(size);
+
+        int groups = starts.size() - 1;
+        this.groupStarts = new int[groups + 1];
+        this.groupSteps = new int[groups];
+        this.totals = new AtomicLongArray(groups);
+        for (int g = 0; g <= groups; g++) {
+            this.groupStarts[g] = starts.get(g);
+        }
+        for (int g = 0; g < groups; g++) {
+            int start = this.groupStarts[g];
+            int length = this.groupStarts[g + 1] - start;
+            this.groupSteps[g] = Integer.highestOneBit(length);
+            long total = 0;
+            for (int i = 1; i <= length; i++) {
+                long sum = this.tree.get(start + i - 1) + this.weights[start + i - 1];
+                this.tree.set(start + i - 1, sum);
+                int parent = i + (i & -i);
+                if (parent <= length) {
+                    this.tree.addAndGet(start + parent - 1, sum);
+                }
+                total += this.weights[start + i - 1];
+            }
+            this.totals.set(g, total);
+        }
+    }
+
+    /**
+     * Select an endpoint, as defined by RFC 2782.
+     *
+     * @return The selected <code>ServiceInstance</code>, <code>null</code> if every endpoint is
+     *         marked down (or none has been discovered)
+     */
+    public ServiceInstance select()
+    {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int g = 0; g < this.groupSteps.length; g++) {
+            if (this.totals.get(g) <= 0) {
+                continue;
+            }
+            for (int draw = 0; draw < MAX_DRAWS; draw++) {
+                long total = this.totals.get(g);
+                if (total <= 0) {
+                    break;
+                }
+                int position = find(g, random.nextLong(total));
+                if (this.down.get(position) == 0) {
+                    return this.endpoints[position];
+                }
+            }
+            // draws kept racing with markings: settle for any up endpoint of the group
+            for (int i = this.groupStarts[g]; i < this.groupStarts[g + 1]; i++) {
+                if (this.down.get(i) == 0) {
+                    return this.endpoints[i];
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Mark an endpoint down, so that it is not selected until marked up again: once its whole
+     * priority group is down, the next group is selected from.
+     *
+     * @param endpoint The <code>ServiceInstance</code> which failed
+     *
+     * @return <code>true</code> iff the endpoint was up
+     */
+    public boolean markDown(ServiceInstance endpoint)
+    {
+        return mark(endpoint, 0, 1, -1);
+    }
+
+    /**
+     * Mark an endpoint up again.
+     *
+     * @param endpoint The <code>ServiceInstance</code> which recovered
+     *
+     * @return <code>true</code> iff the endpoint was down
+     */
+    public boolean markUp(ServiceInstance endpoint)
+    {
+        return mark(endpoint, 1, 0, 1);
+    }
+
+    /**
+     * @param endpoint A <code>ServiceInstance</code> of this selector
+     *
+     * @return <code>true</code> iff the endpoint is marked down
+     */
+    public boolean isDown(ServiceInstance endpoint)
+    {
+        Integer position = this.positions.get(endpoint);
+
+        return position != null && this.down.get(position) == 1;
+    }
+
+    /**
+     * @return The number of endpoints, up or down
+     */
+    public int size()
+    {
+        return this.endpoints.length;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "EndpointSelector {" + "endpoints=" + this.endpoints.length + ", groups="
+                + this.groupSteps.length + ", down=" + this.down + '}';
+    }
+
+    /**
+     * Private helper looking a group up for the endpoint whose cumulative weight range holds the
+     * value drawn.
+     *
+     * @return The position of that endpoint
+     */
+    private int find(int group, long drawn)
+    {
+        int start = this.groupStarts[group];
+        int length = this.groupStarts[group + 1] - start;
+        int index = 0;
+        long remaining = drawn;
+        for (int step = this.groupSteps[group]; step > 0; step >>= 1) {
+            int next = index + step;
+            if (next <= length) {
+                long sum = this.tree.get(start + next - 1);
+                if (sum <= remaining) {
+                    index = next;
+                    remaining -= sum;
+                }
+            }
+        }
+
+        // a racing marking may have left the sums inconsistent
+        return start + Math.min(index, length - 1);
+    }
+
+    /**
+     * Private helper flipping the state of an endpoint and, if flipped, updating its group sums.
+     */
+    private boolean mark(ServiceInstance endpoint, int from, int to, int sign)
+    {
+        Integer position = this.positions.get(endpoint);
+        if (position == null || !this.down.compareAndSet(position, from, to)) {
+            return false;
+        }
+
+        int group = groupOf(position);
+        int start = this.groupStarts[group];
+        int length = this.groupStarts[group + 1] - start;
+        long delta = sign * this.weights[position];
+        for (int i = position - start + 1; i <= length; i += i & -i) {
+            this.tree.addAndGet(start + i - 1, delta);
+        }
+        this.totals.addAndGet(group, delta);
+
+        return true;
+    }
+
+    /**
+     * Private helper finding the priority group of an endpoint.
+     */
+    private int groupOf(int position)
+    {
+        int low = 0;
+        int high = this.groupSteps.length - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (this.groupStarts[middle] <= position) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        return low;
+    }
+
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.commons;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Policy of the hedged queries, shared by the {@link HedgingResolver}s of a configured entity.
+ *
+ * The hedging delay adapts to the observed response times: once enough of them are known, a query
+ * is hedged when its response is later than their {@link Constants#HEDGE_PERCENTILE} percentile.
+ * The extra load is capped by a budget: every sent query earns a share of a hedge, every hedge
+ * spends a whole one, and at most {@link Constants#HEDGE_MAX_BURST} hedges can be saved up.
+ * Failovers are charged too, although never refused: they run the budget into debt, delaying the
+ * next hedges.
+ *
+ * Thread-safe.
+ *
+ */
+public final class HedgingPolicy
+{
+
+    /** Response times kept to compute the hedging delay. */
+    private static final int SAMPLES = 128;
+    /** Response times needed before adapting the hedging delay. */
+    private static final int MIN_SAMPLES = 16;
+    /** Budget units making up a hedge. */
+    private static final long HEDGE_COST = 1000L;
+
+    /** Latest response times, in nanoseconds, as a ring buffer. */
+    private final long[] samples;
+    /** Response times observed so far. */
+    private long observed;
+    /** Hedging delay computed out of the samples, in nanoseconds. */
+    private volatile long delay;
+    /** Budget units earned by every sent query. */
+    private final long earning;
+    /** Available budget units. */
+    private final AtomicLong budget;
+
+    /**
+     * Build a policy capping the hedged queries to a share of the sent ones.
+     *
+     * @param maxExtraLoad Share of hedged queries, between <code>0</code> (no hedging) and <code>1</code>
+     */
+    public HedgingPolicy(double maxExtraLoad)
+    {
+        if (maxExtraLoad < 0 || maxExtraLoad > 1) {
+            throw new IllegalArgumentException("The extra load must be between 0 and 1");
+        }
+        this.samples = new long[SAMPLES];
+        this.delay = TimeUnit.MILLISECONDS.toNanos(Constants.HEDGE_INITIAL_DELAY);
+        this.earning = Math.round(maxExtraLoad * HEDGE_COST);
+        this.budget = new AtomicLong(this.earning > 0 ? Constants.HEDGE_MAX_BURST * HEDGE_COST : 0L);
+    }
+
+    /**
+     * @param unit The <code>TimeUnit</code> of the returned value
+     *
+     * @return The current hedging delay
+     */
+    public long delay(TimeUnit unit)
+    {
+        return unit.convert(this.delay, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Take into account the response time of a query.
+     *
+     * @param nanos The response time, in nanoseconds
+     */
+    public void observe(long nanos)
+    {
+        long[] sorted;
+        synchronized (this.samples) {
+            this.samples[(int) (this.observed++ % SAMPLES)] = nanos;
+            if (this.observed < MIN_SAMPLES || this.observed % MIN_SAMPLES != 0) {
+                return;
+            }
+            sorted = Arrays.copyOf(this.samples, (int) Math.min(this.observed, SAMPLES));
+        }
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(sorted.length * Constants.HEDGE_PERCENTILE) - 1;
+        long percentile = sorted[Math.min(sorted.length - 1, rank)];
+        this.delay = Math.max(percentile, TimeUnit.MILLISECONDS.toNanos(Constants.HEDGE_MIN_DELAY));
+    }
+
+    /**
+     * Take into account a sent query, earning a share of a hedge.
+     */
+    public void sent()
+    {
+        if (this.earning == 0) {
+            return;
+        }
+        long max = Constants.HEDGE_MAX_BURST * HEDGE_COST;
+        long current;
+        do {
+            current = this.budget.get();
+            if (current >= max) {
+                return;
+            }
+        } while (!this.budget.compareAndSet(current, Math.min(max, current + this.earning)));
+    }
+
+    /**
+     * Spend a hedge out of the budget.
+     *
+     * @return <code>true</code> iff the budget allows a hedged query
+     */
+    public boolean tryHedge()
+    {
+        long current;
+        do {
+            current = this.budget.get();
+            if (current < HEDGE_COST) {
+                return false;
+            }
+        } while (!this.budget.compareAndSet(current, current - HEDGE_COST));
+
+        return true;
+    }
+
+    /**
+     * Charge a failover to the budget, the debt being capped as the savings are.
+     */
+    public void failedOver()
+    {
+        if (this.earning == 0) {
+            return;
+        }
+        long min = -Constants.HEDGE_MAX_BURST * HEDGE_COST;
+        long current;
+        do {
+            current = this.budget.get();
+            if (current <= min) {
+                return;
+            }
+        } while (!this.budget.compareAndSet(current, Math.max(min, current - HEDGE_COST)));
+    }
+
+}
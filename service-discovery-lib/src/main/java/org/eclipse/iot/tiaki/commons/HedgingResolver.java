@@ -0,0 +1,541 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.commons;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.xbill.DNS.Message;
+import org.xbill.DNS.Rcode;
+import org.xbill.DNS.Resolver;
+import org.xbill.DNS.ResolverListener;
+import org.xbill.DNS.TSIG;
+
+/**
+ * <code>Resolver</code> hedging its queries across the configured servers: a query is sent to the
+ * primary server first, then to the next one if no answer has been received within the delay of
+ * the {@link HedgingPolicy}, and so forth. The first valid answer is returned, the outstanding
+ * queries are abandoned and their late answers discarded.
+ *
+ * The query to the primary server is sent by the calling thread, the hedged ones by the provided
+ * executor: a hedged query takes its server only once started, so that a saturated executor
+ * delays the hedging, never the query itself. A hedged answer received first interrupts the
+ * calling thread out of its pending query.
+ *
+ * A failed or unusable answer (<code>SERVFAIL</code>, <code>REFUSED</code>) moves to the next
+ * server at once, as a failover does, the calling thread sending the query again; failovers are
+ * charged to the extra load budget as well, although never refused. When provided with the
+ * {@link ServersHealth} of the servers, the servers following the primary one are addressed the
+ * healthiest first.
+ *
+ * Thread-safe.
+ *
+ */
+public final class HedgingResolver implements Resolver
+{
+
+    /** Counter of the asynchronous queries, to identify them. */
+    private static final AtomicInteger IDS = new AtomicInteger();
+    /** Timer handing the late queries over to the executors, shared within the JVM. */
+    private static final ScheduledThreadPoolExecutor TIMER = timer();
+
+    /** Resolvers keyed by server, in configuration order. */
+    private final Map<String, Resolver> resolvers;
+    /** Server every query is sent to first. */
+    private final String primary;
+    /** Health statistics of the servers, <code>null</code> to keep the configuration order. */
+    private final ServersHealth health;
+    /** The shared hedging policy. */
+    private final HedgingPolicy policy;
+    /** Executor of the hedged queries. */
+    private final Executor executor;
+
+    /**
+     * @param resolvers Resolvers of the servers, in hedging order
+     * @param policy    The hedging policy
+     * @param executor  Executor of the hedged queries
+     */
+    public HedgingResolver(List<Resolver> resolvers, HedgingPolicy policy, Executor executor)
+    {
+        this(keyed(resolvers), "0", null, policy, executor);
+    }
+
+    /**
+     * @param resolvers Resolvers keyed by server, in configuration order
+     * @param primary   Server every query is sent to first
+     * @param health    Health statistics ordering the other servers of every query
+     * @param policy    The hedging policy
+     * @param executor  Executor of the hedged queries
+     */
+    public HedgingResolver(Map<String, Resolver> resolvers, String primary, ServersHealth health,
+                           HedgingPolicy policy, Executor executor)
+    {
+        if (!resolvers.containsKey(primary)) {
+            throw new IllegalArgumentException("The primary server has to be one of the resolvers");
+        }
+        this.resolvers = Collections.unmodifiableMap(new LinkedHashMap<>(resolvers));
+        this.primary = primary;
+        this.health = health;
+        this.policy = policy;
+        this.executor = executor;
+    }
+
+    @Override
+    public Message send(Message query) throws IOException
+    {
+        List<Resolver> ordered = new ArrayList<>(this.resolvers.size());
+        ordered.add(this.resolvers.get(this.primary));
+        Map<String, Resolver> others = (this.health == null ? this.resolvers : this.health.order(this.resolvers));
+        for (Map.Entry<String, Resolver> other : others.entrySet()) {
+            if (!other.getKey().equals(this.primary)) {
+                ordered.add(other.getValue());
+            }
+        }
+
+        Attempt attempt = new Attempt(ordered, query);
+        this.policy.sent();
+        attempt.scheduleHedge();
+        try {
+            return attempt.run();
+        } finally {
+            attempt.finish();
+        }
+    }
+
+    @Override
+    public Object sendAsync(final Message query, final ResolverListener listener)
+    {
+        final Integer id = IDS.incrementAndGet();
+        this.executor.execute(new Runnable() {
+            @Override
+            public void run()
+            {
+                try {
+                    listener.receiveMessage(id, send(query));
+                } catch (Exception e) {
+                    listener.handleException(id, e);
+                }
+            }
+        });
+
+        return id;
+    }
+
+    @Override
+    public void setPort(int port)
+    {
+        for (Resolver resolver : this.resolvers.values()) {
+            resolver.setPort(port);
+        }
+    }
+
+    @Override
+    public void setTCP(boolean flag)
+    {
+        for (Resolver resolver : this.resolvers.values()) {
+            resolver.setTCP(flag);
+        }
+    }
+
+    @Override
+    public void setIgnoreTruncation(boolean flag)
+    {
+        for (Resolver resolver : this.resolvers.values()) {
+            resolver.setIgnoreTruncation(flag);
+        }
+    }
+
+    @Override
+    public void setEDNS(int level)
+    {
+        for (Resolver resolver : this.resolvers.values()) {
+            resolver.setEDNS(level);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public void setEDNS(int level, int payloadSize, int flags, List options)
+    {
+        for (Resolver resolver : this.resolvers.values()) {
+            resolver.setEDNS(level, payloadSize, flags, options);
+        }
+    }
+
+    @Override
+    public void setTSIGKey(TSIG key)
+    {
+        for (Resolver resolver : this.resolvers.values()) {
+            resolver.setTSIGKey(key);
+        }
+    }
+
+    @Override
+    public void setTimeout(int secs, int msecs)
+    {
+        for (Resolver resolver : this.resolvers.values()) {
+            resolver.setTimeout(secs, msecs);
+        }
+    }
+
+    @Override
+    public void setTimeout(int secs)
+    {
+        for (Resolver resolver : this.resolvers.values()) {
+            resolver.setTimeout(secs);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "HedgingResolver[" + this.primary + "]" + this.resolvers.keySet();
+    }
+
+    /**
+     * Private helper keying resolvers by their position.
+     *
+     * @param resolvers Resolvers of the servers, in hedging order
+     *
+     * @return The resolvers keyed by position
+     */
+    private static Map<String, Resolver> keyed(List<Resolver> resolvers)
+    {
+        Map<String, Resolver> keyed = new LinkedHashMap<>();
+        for (Resolver resolver : resolvers) {
+            keyed.put(String.valueOf(keyed.size()), resolver);
+        }
+
+        return keyed;
+    }
+
+    /**
+     * Private helper instantiating the timer of the hedged queries, on a daemon thread.
+     *
+     * @return A single-threaded <code>ScheduledThreadPoolExecutor</code>
+     */
+    private static ScheduledThreadPoolExecutor timer()
+    {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable task)
+            {
+                Thread thread = new Thread(task, "tiaki-hedging");
+                thread.setDaemon(true);
+
+                return thread;
+            }
+        });
+        timer.setRemoveOnCancelPolicy(true);
+
+        return timer;
+    }
+
+    /**
+     * Private helper checking whether an answer can be returned, or the next server is to be asked.
+     *
+     * @param response The received answer
+     *
+     * @return <code>true</code> iff the answer is usable
+     */
+    private static boolean usable(Message response)
+    {
+        int rcode = response.getRcode();
+
+        return (rcode != Rcode.SERVFAIL && rcode != Rcode.REFUSED);
+    }
+
+    /**
+     * Helper class carrying out a single query: the servers are taken in order, by the calling
+     * thread upon failover or by a hedged query once started, until a usable answer is received.
+     */
+    private final class Attempt
+    {
+        /** Position returned while queries are outstanding. */
+        private static final int OUTSTANDING = -2;
+
+        /** Resolvers of the servers, in hedging order. */
+        private final List<Resolver> servers;
+        /** The query. */
+        private final Message query;
+        /** Thread waiting for the outcome. */
+        private final Thread caller;
+        /** Outcomes of the sent queries, in reception order. */
+        private final BlockingQueue<Outcome> outcomes;
+        /** Position of the next server to be asked. */
+        private int next;
+        /** Queries sent so far. */
+        private int sent;
+        /** <code>true</code> once the outcome has been returned to the caller. */
+        private boolean finished;
+        /** <code>true</code> once a hedged answer has been received first. */
+        private boolean won;
+        /** <code>true</code> while the caller is interrupted by the winning hedged answer. */
+        private boolean interrupted;
+        /** Timer of the next hedged query, <code>null</code> if none. */
+        private ScheduledFuture<?> timer;
+
+        public Attempt(List<Resolver> servers, Message query)
+        {
+            this.servers = servers;
+            this.query = query;
+            this.caller = Thread.currentThread();
+            this.outcomes = new LinkedBlockingQueue<>();
+        }
+
+        /**
+         * Send the query from the calling thread, failing over the next servers until a usable
+         * answer is received, by this thread or by a hedged query.
+         *
+         * @return The first usable answer, the last unusable one if none
+         *
+         * @throws IOException In case no server has answered
+         */
+        public Message run() throws IOException
+        {
+            int received = 0;
+            Message unusable = null;
+            IOException failure = null;
+            int index = claim();
+            while (true) {
+                if (index >= 0) {
+                    this.outcomes.add(sendTo(this.servers.get(index)));
+                    resume();
+                }
+                Outcome outcome = this.outcomes.poll();
+                if (outcome == null) {
+                    index = failover(received);
+                    if (index >= 0) {
+                        policy.failedOver();
+                        continue;
+                    }
+                    if (index != OUTSTANDING) {
+                        break;
+                    }
+                    outcome = await();
+                }
+                index = -1;
+                received++;
+                if (outcome.response != null && usable(outcome.response)) {
+                    return outcome.response;
+                }
+                if (outcome.response != null) {
+                    unusable = outcome.response;
+                } else {
+                    failure = outcome.failure;
+                }
+            }
+
+            if (unusable != null) {
+                return unusable;
+            }
+            throw failure;
+        }
+
+        /**
+         * Schedule the next hedged query after the current delay, if any server is left.
+         */
+        public synchronized void scheduleHedge()
+        {
+            if (this.finished || this.next >= this.servers.size()) {
+                return;
+            }
+            this.timer = TIMER.schedule(new Runnable() {
+                @Override
+                public void run()
+                {
+                    hedge();
+                }
+            }, policy.delay(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Return the outcome to the caller: the late hedged queries are abandoned, and the caller
+         * is no longer interrupted.
+         */
+        public synchronized void finish()
+        {
+            this.finished = true;
+            if (this.timer != null) {
+                this.timer.cancel(false);
+            }
+            resume();
+        }
+
+        /**
+         * Hand a hedged query over to the executor, budget permitting; invoked by the timer.
+         */
+        private void hedge()
+        {
+            synchronized (this) {
+                if (this.finished || this.next >= this.servers.size()) {
+                    return;
+                }
+            }
+            if (!policy.tryHedge()) {
+                return;
+            }
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run()
+                    {
+                        int index = claim();
+                        if (index < 0) {
+                            return;
+                        }
+                        scheduleHedge();
+                        Outcome outcome = sendTo(servers.get(index));
+                        outcomes.add(outcome);
+                        if (outcome.response != null && usable(outcome.response)) {
+                            won();
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException ree) {
+                // no hedging, the query goes on
+            }
+        }
+
+        /**
+         * Take the next server to be asked.
+         *
+         * @return Its position, <code>-1</code> if none is left or the outcome has been returned
+         */
+        private synchronized int claim()
+        {
+            if (this.finished || this.next >= this.servers.size()) {
+                return -1;
+            }
+            this.sent++;
+
+            return this.next++;
+        }
+
+        /**
+         * Take the next server to fail over to, unless queries are still outstanding.
+         *
+         * @param received Outcomes received so far by the caller
+         *
+         * @return Its position, <code>OUTSTANDING</code> if an outcome is still expected,
+         *         <code>-1</code> if no server is left
+         */
+        private synchronized int failover(int received)
+        {
+            return (received < this.sent ? OUTSTANDING : claim());
+        }
+
+        /**
+         * Interrupt the caller out of its pending query, the first hedged answer being usable.
+         */
+        private synchronized void won()
+        {
+            if (!this.finished && !this.won) {
+                this.won = true;
+                this.interrupted = true;
+                this.caller.interrupt();
+            }
+        }
+
+        /**
+         * Clear the interruption of the caller by the winning hedged answer, if any; invoked by the
+         * caller.
+         *
+         * @return <code>true</code> iff the caller had been interrupted by the winning answer
+         */
+        private synchronized boolean resume()
+        {
+            if (!this.interrupted) {
+                return false;
+            }
+            this.interrupted = false;
+            Thread.interrupted();
+
+            return true;
+        }
+
+        /**
+         * Wait for the next outcome of the outstanding queries.
+         *
+         * @return The received outcome
+         *
+         * @throws InterruptedIOException In case the caller has been interrupted
+         */
+        private Outcome await() throws InterruptedIOException
+        {
+            while (true) {
+                try {
+                    return this.outcomes.take();
+                } catch (InterruptedException ie) {
+                    if (!resume()) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Query interrupted");
+                    }
+                }
+            }
+        }
+
+        /**
+         * Send the query to a server, waiting for its outcome.
+         *
+         * @param resolver Resolver of the addressed server
+         *
+         * @return The <code>Outcome</code> of the query
+         */
+        private Outcome sendTo(Resolver resolver)
+        {
+            long start = System.nanoTime();
+            try {
+                Message response = resolver.send((Message) this.query.clone());
+                if (usable(response)) {
+                    policy.observe(System.nanoTime() - start);
+                }
+                return new Outcome(response, null);
+            } catch (IOException exception) {
+                return new Outcome(null, exception);
+            } catch (RuntimeException exception) {
+                return new Outcome(null, new IOException(exception));
+            }
+        }
+
+    }
+
+    /**
+     * Helper class holding the outcome of a query sent to a server.
+     */
+    private static final class Outcome
+    {
+        /** The received answer, <code>null</code> in case of failure. */
+        private final Message response;
+        /** The failure, <code>null</code> in case of answer. */
+        private final IOException failure;
+
+        public Outcome(Message response, IOException failure)
+        {
+            this.response = response;
+            this.failure = failure;
+        }
+
+    }
+
+}
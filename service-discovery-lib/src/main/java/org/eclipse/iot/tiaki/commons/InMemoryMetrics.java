@@ -0,0 +1,343 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.commons;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.xbill.DNS.Type;
+
+/**
+ * <code>DiscoveryMetrics</code> keeping its measures in memory, to be read by the accessors or
+ * scraped altogether as text, see {@link #scrape()}. Latencies are kept as {@link Histogram}s
+ * with fixed buckets, so that recording never allocates once a series exists.
+ *
+ * Thread-safe.
+ *
+ */
+public final class InMemoryMetrics implements DiscoveryMetrics
+{
+
+    /** Queries sent, keyed by Resource Record type. */
+    private final ConcurrentMap<String, Histogram> queries;
+    /** Failed queries, keyed by server and <code>StatusCode</code>. */
+    private final ConcurrentMap<String, ConcurrentMap<StatusCode, AtomicLong>> errors;
+    /** Cache hits, keyed by cache. */
+    private final ConcurrentMap<String, AtomicLong> hits;
+    /** Cache misses, keyed by cache. */
+    private final ConcurrentMap<String, AtomicLong> misses;
+    /** DNSSEC validations. */
+    private final Histogram validations;
+    /** Calls, keyed by method. */
+    private final ConcurrentMap<String, Histogram> calls;
+
+    public InMemoryMetrics()
+    {
+        this.queries = new ConcurrentHashMap<>();
+        this.errors = new ConcurrentHashMap<>();
+        this.hits = new ConcurrentHashMap<>();
+        this.misses = new ConcurrentHashMap<>();
+        this.validations = new Histogram();
+        this.calls = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public void queryCompleted(String server, int rrType, StatusCode outcome, long nanos)
+    {
+        histogram(this.queries, Type.string(rrType)).record(nanos);
+        if (outcome != StatusCode.SUCCESSFUL_OPERATION) {
+            ConcurrentMap<StatusCode, AtomicLong> byStatus = this.errors.get(server);
+            if (byStatus == null) {
+                ConcurrentMap<StatusCode, AtomicLong> created = new ConcurrentHashMap<>();
+                byStatus = this.errors.putIfAbsent(server, created);
+                if (byStatus == null) {
+                    byStatus = created;
+                }
+            }
+            counter(byStatus, outcome).incrementAndGet();
+        }
+    }
+
+    @Override
+    public void cacheAccessed(String cache, boolean hit)
+    {
+        counter((hit ? this.hits : this.misses), cache).incrementAndGet();
+    }
+
+    @Override
+    public void dnsSecValidated(StatusCode outcome, long nanos)
+    {
+        this.validations.record(nanos);
+    }
+
+    @Override
+    public void callCompleted(String method, StatusCode outcome, long nanos)
+    {
+        histogram(this.calls, method).record(nanos);
+    }
+
+    /**
+     * @param rrType The Resource Record type, e.g. <code>SRV</code>
+     *
+     * @return The latencies of the queries of the type, <code>null</code> if none
+     */
+    public Histogram queries(String rrType)
+    {
+        return this.queries.get(rrType);
+    }
+
+    /**
+     * @param server The addressed server
+     * @param status The <code>StatusCode</code> of the failure
+     *
+     * @return The number of the queries to the server having failed with the status
+     */
+    public long errors(String server, StatusCode status)
+    {
+        ConcurrentMap<StatusCode, AtomicLong> byStatus = this.errors.get(server);
+        AtomicLong counter = (byStatus == null ? null : byStatus.get(status));
+
+        return (counter == null ? 0L : counter.get());
+    }
+
+    /**
+     * @param cache The name of the cache
+     *
+     * @return The number of lookups answered by the cache
+     */
+    public long cacheHits(String cache)
+    {
+        AtomicLong counter = this.hits.get(cache);
+
+        return (counter == null ? 0L : counter.get());
+    }
+
+    /**
+     * @param cache The name of the cache
+     *
+     * @return The number of lookups not answered by the cache
+     */
+    public long cacheMisses(String cache)
+    {
+        AtomicLong counter = this.misses.get(cache);
+
+        return (counter == null ? 0L : counter.get());
+    }
+
+    /**
+     * @param cache The name of the cache
+     *
+     * @return The share of lookups answered by the cache, <code>0</code> if none
+     */
+    public double cacheHitRatio(String cache)
+    {
+        long hit = cacheHits(cache), total = hit + cacheMisses(cache);
+
+        return (total == 0 ? 0.0 : (double) hit / total);
+    }
+
+    /**
+     * @return The latencies of the DNSSEC validations
+     */
+    public Histogram validations()
+    {
+        return this.validations;
+    }
+
+    /**
+     * @param method The name of the called method
+     *
+     * @return The latencies of the calls of the method, <code>null</code> if none
+     */
+    public Histogram calls(String method)
+    {
+        return this.calls.get(method);
+    }
+
+    /**
+     * Render every measure in the Prometheus text exposition format, latencies in milliseconds.
+     *
+     * @return A <code>String</code> holding a measure per line
+     */
+    public String scrape()
+    {
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(this.queries).entrySet()) {
+            entry.getValue().scrape(text, "tiaki_query_latency_ms", "type=\"" + entry.getKey() + "\"");
+        }
+        for (Map.Entry<String, ConcurrentMap<StatusCode, AtomicLong>> server : new TreeMap<>(this.errors).entrySet()) {
+            for (Map.Entry<StatusCode, AtomicLong> status : new TreeMap<>(server.getValue()).entrySet()) {
+                text.append("tiaki_query_errors_total{server=\"").append(server.getKey())
+                    .append("\",status=\"").append(status.getKey().name()).append("\"} ")
+                    .append(status.getValue().get()).append('\n');
+            }
+        }
+        for (Map.Entry<String, AtomicLong> entry : new TreeMap<>(this.hits).entrySet()) {
+            text.append("tiaki_cache_hits_total{cache=\"").append(entry.getKey()).append("\"} ")
+                .append(entry.getValue().get()).append('\n');
+        }
+        for (Map.Entry<String, AtomicLong> entry : new TreeMap<>(this.misses).entrySet()) {
+            text.append("tiaki_cache_misses_total{cache=\"").append(entry.getKey()).append("\"} ")
+                .append(entry.getValue().get()).append('\n');
+        }
+        this.validations.scrape(text, "tiaki_dnssec_validation_ms", "");
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(this.calls).entrySet()) {
+            entry.getValue().scrape(text, "tiaki_call_latency_ms", "method=\"" + entry.getKey() + "\"");
+        }
+
+        return text.toString();
+    }
+
+    /**
+     * Private helper retrieving the histogram of a series, creating it if missing.
+     */
+    private static Histogram histogram(ConcurrentMap<String, Histogram> series, String key)
+    {
+        Histogram histogram = series.get(key);
+        if (histogram == null) {
+            Histogram created = new Histogram();
+            histogram = series.putIfAbsent(key, created);
+            if (histogram == null) {
+                histogram = created;
+            }
+        }
+
+        return histogram;
+    }
+
+    /**
+     * Private helper retrieving the counter of a series, creating it if missing.
+     */
+    private static <K> AtomicLong counter(ConcurrentMap<K, AtomicLong> series, K key)
+    {
+        AtomicLong counter = series.get(key);
+        if (counter == null) {
+            AtomicLong created = new AtomicLong();
+            counter = series.putIfAbsent(key, created);
+            if (counter == null) {
+                counter = created;
+            }
+        }
+
+        return counter;
+    }
+
+    /**
+     * Latency histogram with fixed upper bounds in milliseconds, from 1ms up to 10s, plus an
+     * unbounded bucket.
+     *
+     * Thread-safe.
+     *
+     */
+    public static final class Histogram
+    {
+
+        /** Upper bounds of the buckets, in milliseconds. */
+        private static final long[] BOUNDS = { 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000 };
+
+        /** Recorded latencies per bucket, the last one being unbounded. */
+        private final AtomicLongArray buckets;
+        /** Sum of the recorded latencies, in nanoseconds. */
+        private final AtomicLong sum;
+
+        Histogram()
+        {
+            this.buckets = new AtomicLongArray(BOUNDS.length + 1);
+            this.sum = new AtomicLong();
+        }
+
+        /**
+         * @param nanos A latency, in nanoseconds
+         */
+        void record(long nanos)
+        {
+            long latency = Math.max(0L, nanos);
+            int bucket = 0;
+            while (bucket < BOUNDS.length && latency > TimeUnit.MILLISECONDS.toNanos(BOUNDS[bucket])) {
+                bucket++;
+            }
+            this.buckets.incrementAndGet(bucket);
+            this.sum.addAndGet(latency);
+        }
+
+        /**
+         * @return The number of recorded latencies
+         */
+        public long count()
+        {
+            long count = 0;
+            for (int i = 0; i < this.buckets.length(); i++) {
+                count += this.buckets.get(i);
+            }
+
+            return count;
+        }
+
+        /**
+         * @param unit The unit of the result
+         *
+         * @return The sum of the recorded latencies
+         */
+        public long sum(TimeUnit unit)
+        {
+            return unit.convert(this.sum.get(), TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * @param percentile The percentile, between <code>0</code> and <code>100</code>
+         *
+         * @return The upper bound in milliseconds of the bucket holding the percentile,
+         *         <code>Long.MAX_VALUE</code> if beyond the last bound, <code>0</code> if empty
+         */
+        public long percentile(double percentile)
+        {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("The percentile must be between 0 and 100");
+            }
+            long count = count();
+            if (count == 0) {
+                return 0L;
+            }
+            long rank = (long) Math.ceil(percentile / 100 * count), seen = 0;
+            for (int i = 0; i < BOUNDS.length; i++) {
+                seen += this.buckets.get(i);
+                if (seen >= Math.max(1L, rank)) {
+                    return BOUNDS[i];
+                }
+            }
+
+            return Long.MAX_VALUE;
+        }
+
+        /**
+         * Private helper rendering this histogram as cumulative buckets.
+         */
+        private void scrape(StringBuilder text, String name, String labels)
+        {
+            String prefix = (labels.isEmpty() ? "" : labels + ",");
+            long cumulative = 0;
+            for (int i = 0; i <= BOUNDS.length; i++) {
+                cumulative += this.buckets.get(i);
+                text.append(name).append("_bucket{").append(prefix).append("le=\"")
+                    .append(i < BOUNDS.length ? String.valueOf(BOUNDS[i]) : "+Inf").append("\"} ")
+                    .append(cumulative).append('\n');
+            }
+            String suffix = (labels.isEmpty() ? " " : "{" + labels + "} ");
+            text.append(name).append("_sum").append(suffix).append(sum(TimeUnit.MILLISECONDS)).append('\n');
+            text.append(name).append("_count").append(suffix).append(cumulative).append('\n');
+        }
+
+    }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.commons;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import org.eclipse.iot.tiaki.domain.ServiceInstance;
+
+/**
+ * Outcome of a Service Instances listing in partial-result mode: the instances resolved, along
+ * with the names which could not be, each bound to the <code>StatusCode</code> of its failure
+ * (e.g. a service name lacking its SRV or TXT record, or left unresolved by the deadline).
+ *
+ * Immutable.
+ *
+ */
+public final class InstancesResult
+{
+
+    /** The resolved instances. */
+    private final Set<ServiceInstance> instances;
+    /** The failures, keyed by DNS name. */
+    private final Map<String, StatusCode> errors;
+
+    /**
+     * @param instances The resolved instances
+     * @param errors    The failures, keyed by DNS name
+     */
+    public InstancesResult(Set<ServiceInstance> instances, Map<String, StatusCode> errors)
+    {
+        this.instances = Collections.unmodifiableSet(new TreeSet<>(instances));
+        this.errors = Collections.unmodifiableMap(new LinkedHashMap<>(errors));
+    }
+
+    /**
+     * @return An immutable set of the resolved <code>ServiceInstance</code>s
+     */
+    public Set<ServiceInstance> getInstances()
+    {
+        return this.instances;
+    }
+
+    /**
+     * @return An immutable map of the failures, keyed by the DNS name which could not be resolved
+     */
+    public Map<String, StatusCode> getErrors()
+    {
+        return this.errors;
+    }
+
+    /**
+     * @return <code>true</code> iff every name has been resolved
+     */
+    public boolean isComplete()
+    {
+        return this.errors.isEmpty();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "InstancesResult {" + "instances=" + instances + ", errors=" + errors + '}';
+    }
+
+}
@@ -0,0 +1,401 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.commons;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.eclipse.iot.tiaki.utils.DnsUtil;
+import org.xbill.DNS.Cache;
+import org.xbill.DNS.Credibility;
+import org.xbill.DNS.DClass;
+import org.xbill.DNS.Message;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.PTRRecord;
+import org.xbill.DNS.RRset;
+import org.xbill.DNS.Rcode;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.SRVRecord;
+import org.xbill.DNS.Section;
+import org.xbill.DNS.SetResponse;
+import org.xbill.DNS.Type;
+
+/**
+ * Provider of the DNS <code>Cache</code>s backing the lookups of a configured entity.
+ *
+ * Caches are either owned by the entity or shared by all the entities of the JVM configured in
+ * shared mode; in both cases, a single cache can serve every server or each server can be given
+ * its own one, so that answers of a server are never served on behalf of another one. Shared
+ * caches take the sizing of the entity configuring them last.
+ *
+ * Since a <code>Lookup</code> hides the responses it receives, the caches keep track of the
+ * negative caching TTL of the last response added by each thread, see {@link #takeNegativeTtl()},
+ * as well as whether a response has been added at all, see {@link #takeAnswered()}.
+ *
+ * Records of the additional sections are kept when the answers refer to them (RFC 6763, 12): the
+ * SRV and TXT records of the PTR targets and the addresses of the SRV targets are then served to
+ * the next lookups, saving their round trips. The caches only back insecure lookups.
+ *
+ * Cached records keep the TTL they have been received with: the time they are left to live is
+ * retrieved by {@link #remainingTtl(Cache, Record)}, so that the results assembled out of them do
+ * not outlive them.
+ *
+ * Thread-safe.
+ *
+ */
+public final class LookupCaches
+{
+
+    /** Key of the cache serving every server. */
+    private static final String ANY_SERVER = "*";
+    /** Caches shared among all the entities in shared mode, keyed by server. */
+    private static final ConcurrentMap<String, Cache> SHARED = new ConcurrentHashMap<>();
+    /** Negative caching TTL of the last response added by the current thread. */
+    private static final ThreadLocal<Long> NEGATIVE_TTL = new ThreadLocal<>();
+    /** Set iff a response has been added by the current thread. */
+    private static final ThreadLocal<Boolean> ANSWERED = new ThreadLocal<>();
+
+    /** Caches owned by this entity, keyed by server. */
+    private final ConcurrentMap<String, Cache> owned;
+    /** Maximum number of cached entries. */
+    private volatile int maxEntries;
+    /** Maximum TTL of positive entries, in seconds. */
+    private volatile int maxTtl;
+    /** Maximum TTL of negative entries, in seconds. */
+    private volatile int maxNegativeTtl;
+    /** <code>true</code> iff the JVM-wide caches are used. */
+    private volatile boolean shared;
+    /** <code>true</code> iff each server has its own cache. */
+    private volatile boolean perServer;
+
+    public LookupCaches()
+    {
+        this.owned = new ConcurrentHashMap<>();
+        this.maxEntries = Constants.CACHE_SIZE;
+        this.maxTtl = Constants.CACHE_TIME_LIMIT;
+        this.maxNegativeTtl = Constants.CACHE_TIME_LIMIT;
+    }
+
+    /**
+     * Retrieve the cache serving the lookups addressed to the provided server.
+     *
+     * @param server The addressed server
+     *
+     * @return A DNS <code>Cache</code>
+     */
+    public Cache cache(String server)
+    {
+        ConcurrentMap<String, Cache> caches = (this.shared ? SHARED : this.owned);
+        String key = (this.perServer && server != null ? server : ANY_SERVER);
+        Cache cache = caches.get(key);
+        if (cache == null) {
+            Cache created = size(new TtlTrackingCache());
+            cache = caches.putIfAbsent(key, created);
+            if (cache == null) {
+                cache = created;
+            }
+        }
+
+        return cache;
+    }
+
+    /**
+     * Retrieve and forget the negative caching TTL of the last response added to any cache by the
+     * current thread.
+     *
+     * @return The negative caching TTL in seconds, <code>-1</code> in case of none
+     */
+    public static long takeNegativeTtl()
+    {
+        Long ttl = NEGATIVE_TTL.get();
+        NEGATIVE_TTL.remove();
+
+        return (ttl == null ? -1L : ttl);
+    }
+
+    /**
+     * Tell and forget whether a response has been added to any cache by the current thread, that
+     * is whether a lookup has not been answered by the cache alone.
+     *
+     * @return <code>true</code> iff a response has been added since the last call
+     */
+    public static boolean takeAnswered()
+    {
+        boolean answered = (ANSWERED.get() != null);
+        ANSWERED.remove();
+
+        return answered;
+    }
+
+    /**
+     * Retrieve the time a record served by a cache is left to live, i.e. the time left until its
+     * expiry from that cache.
+     *
+     * @param cache  The <code>Cache</code> the record has been served by
+     * @param record A record, as served by a lookup backed by <code>cache</code>
+     *
+     * @return The remaining TTL in seconds, the TTL of the record in case of unknown expiry
+     */
+    public static long remainingTtl(Cache cache, Record record)
+    {
+        return (cache instanceof TtlTrackingCache ? ((TtlTrackingCache) cache).remainingTtl(record)
+                                                  : record.getTTL());
+    }
+
+    /**
+     * @return Maximum time to live of negative entries, in seconds
+     */
+    public int getMaxNegativeTtl()
+    {
+        return this.maxNegativeTtl;
+    }
+
+    /**
+     * @param entries Maximum number of entries of each cache
+     */
+    public void setMaxEntries(int entries)
+    {
+        if (entries < 0) {
+            throw new IllegalArgumentException("The cache size cannot be negative");
+        }
+        this.maxEntries = entries;
+        resize();
+    }
+
+    /**
+     * @param seconds Maximum time to live of positive entries, in seconds
+     */
+    public void setMaxTtl(int seconds)
+    {
+        if (seconds < 0) {
+            throw new IllegalArgumentException("The cache TTL cannot be negative");
+        }
+        this.maxTtl = seconds;
+        resize();
+    }
+
+    /**
+     * @param seconds Maximum time to live of negative entries, in seconds
+     */
+    public void setMaxNegativeTtl(int seconds)
+    {
+        if (seconds < 0) {
+            throw new IllegalArgumentException("The cache TTL cannot be negative");
+        }
+        this.maxNegativeTtl = seconds;
+        resize();
+    }
+
+    /**
+     * @param isIt <code>true</code> to use the caches shared within the JVM
+     */
+    public void setShared(boolean isIt)
+    {
+        this.shared = isIt;
+        resize();
+    }
+
+    /**
+     * @param isIt <code>true</code> to give each server its own cache
+     */
+    public void setPerServer(boolean isIt)
+    {
+        this.perServer = isIt;
+    }
+
+    /**
+     * Drop the entries of the owned caches. Shared caches are left untouched.
+     */
+    public void clear()
+    {
+        for (Cache cache : this.owned.values()) {
+            cache.clearCache();
+        }
+    }
+
+    /**
+     * Private helper applying the configured sizing to the caches in use.
+     */
+    private void resize()
+    {
+        for (Cache cache : (this.shared ? SHARED : this.owned).values()) {
+            size(cache);
+        }
+    }
+
+    /**
+     * Private helper applying the configured sizing to a cache.
+     *
+     * @param cache A DNS <code>Cache</code>
+     *
+     * @return The sized <code>Cache</code>
+     */
+    private Cache size(Cache cache)
+    {
+        cache.setMaxEntries(this.maxEntries);
+        cache.setMaxCache(this.maxTtl);
+        cache.setMaxNCache(this.maxNegativeTtl);
+
+        return cache;
+    }
+
+    /**
+     * Helper class recording the negative caching TTL of the responses it is fed with, and
+     * harvesting their additional sections. It also keeps the expiry of the cached records,
+     * weakly referenced so that evicted records are forgotten.
+     */
+    private static final class TtlTrackingCache extends Cache
+    {
+
+        /** Expiry of the cached records, in milliseconds since the epoch. */
+        private final Map<Record, Long> expiries;
+
+        public TtlTrackingCache()
+        {
+            super(DClass.ANY);
+            this.expiries = Collections.synchronizedMap(new WeakHashMap<Record, Long>());
+        }
+
+        @Override
+        public synchronized void addRRset(RRset rrset, int cred)
+        {
+            super.addRRset(rrset, cred);
+            if (rrset.size() == 0) {
+                return;
+            }
+            // an RRset of lower credibility than the cached one is not stored
+            SetResponse held = super.lookupRecords(rrset.getName(), rrset.getType(), cred);
+            if (!held.isSuccessful()) {
+                return;
+            }
+            for (RRset answer : held.answers()) {
+                if (answer.getType() == rrset.getType() && answer.first() == rrset.first()) {
+                    long ttl = rrset.getTTL();
+                    if (getMaxCache() >= 0) {
+                        ttl = Math.min(ttl, getMaxCache());
+                    }
+                    Long expiry = System.currentTimeMillis() + ttl * 1000L;
+                    Iterator<?> records = answer.rrs();
+                    while (records.hasNext()) {
+                        Record record = (Record) records.next();
+                        // replace the key as well, an equal record may be held by an evicted RRset
+                        this.expiries.remove(record);
+                        this.expiries.put(record, expiry);
+                    }
+                }
+            }
+        }
+
+        /**
+         * @param record A record served by this cache
+         *
+         * @return The time the record is left to live in seconds, its TTL in case of unknown expiry
+         */
+        public long remainingTtl(Record record)
+        {
+            Long expiry = this.expiries.get(record);
+            if (expiry == null) {
+                return record.getTTL();
+            }
+            long remaining = expiry - System.currentTimeMillis();
+
+            return (remaining <= 0 ? 0L : (remaining + 999L) / 1000L);
+        }
+
+        @Override
+        public SetResponse addMessage(Message in)
+        {
+            SetResponse response = super.addMessage(in);
+            harvest(in);
+            ANSWERED.set(Boolean.TRUE);
+            long ttl = DnsUtil.negativeTtl(in);
+            if (ttl >= 0) {
+                NEGATIVE_TTL.set(ttl);
+            }
+
+            return response;
+        }
+
+        /**
+         * Private helper caching the records of the additional section the answers refer to,
+         * which the base cache either drops (SRV, TXT) or keeps at a credibility the lookups
+         * ignore (A, AAAA). Only the records within the zone of the question are harvested, the
+         * others being left to the base cache.
+         */
+        private void harvest(Message in)
+        {
+            RRset[] additional = in.getSectionRRsets(Section.ADDITIONAL);
+            if (in.getRcode() != Rcode.NOERROR || additional.length == 0 || in.getQuestion() == null) {
+                return;
+            }
+
+            Name zone = bailiwick(in.getQuestion().getName());
+            Set<Name> targets = new HashSet<>();
+            Set<Name> hosts = new HashSet<>();
+            for (RRset rrset : in.getSectionRRsets(Section.ANSWER)) {
+                refer(rrset, targets, hosts);
+            }
+            for (RRset rrset : additional) {
+                if (rrset.getType() == Type.SRV && targets.contains(rrset.getName())
+                        && rrset.getName().subdomain(zone)) {
+                    refer(rrset, targets, hosts);
+                }
+            }
+            for (RRset rrset : additional) {
+                int type = rrset.getType();
+                if (rrset.getName().subdomain(zone)
+                        && (((type == Type.SRV || type == Type.TXT) && targets.contains(rrset.getName()))
+                            || ((type == Type.A || type == Type.AAAA) && hosts.contains(rrset.getName())))) {
+                    addRRset(rrset, Credibility.NONAUTH_ANSWER);
+                }
+            }
+        }
+
+        /**
+         * Private helper approximating the zone a question belongs to out of its name, the
+         * response not telling it: a DNS-SD name (e.g. <code>_http._tcp.example.com.</code>)
+         * belongs to the domain its underscore labels are registered under, any other name is
+         * its own zone.
+         */
+        private static Name bailiwick(Name name)
+        {
+            for (int i = name.labels() - 1; i >= 0; i--) {
+                if (name.getLabelString(i).startsWith("_")) {
+                    return new Name(name, i + 1);
+                }
+            }
+
+            return name;
+        }
+
+        /**
+         * Private helper collecting the names a set of records refers to.
+         */
+        private static void refer(RRset rrset, Set<Name> targets, Set<Name> hosts)
+        {
+            Iterator<?> records = rrset.rrs();
+            while (records.hasNext()) {
+                Record record = (Record) records.next();
+                if (record instanceof PTRRecord) {
+                    targets.add(((PTRRecord) record).getTarget());
+                } else if (record instanceof SRVRecord) {
+                    hosts.add(((SRVRecord) record).getTarget());
+                }
+            }
+        }
+
+    }
+
+}
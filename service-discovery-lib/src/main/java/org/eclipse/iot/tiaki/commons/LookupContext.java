@@ -11,8 +11,11 @@ package org.eclipse.iot.tiaki.commons;
 
 import org.eclipse.iot.tiaki.domain.Fqdn;
 import java.io.Serializable;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.xbill.DNS.Lookup;
+import org.xbill.DNS.Record;
 import org.xbill.DNS.Resolver;
 
 /**
@@ -23,6 +26,8 @@ public final class LookupContext implements Serializable
 {
 
 	private static final long serialVersionUID = 448226124178324159L;
+	/** Server addressed by the lookup. */
+	private String server;
 	/** Resolver to be used during the lookup. */
 	private Resolver resolver;
     /** Validating Resolver to be used during the DNSSEC check. */
@@ -41,6 +46,30 @@ public final class LookupContext implements Serializable
 	private boolean secure;
 	/** Indicate the Resource Record type. */
 	private int rrType;
+	/** Minimum TTL of the records retrieved so far, in seconds. */
+	private long minTtl = Long.MAX_VALUE;
+	/** Deadline of the call, as <code>System.nanoTime()</code> value. */
+	private long deadline;
+	/** Indicate whether the call is bound to a deadline. */
+	private boolean bounded;
+	/** Outcome of the last query. */
+	private StatusCode status;
+	/** Failures of the call keyed by DNS name, <code>null</code> unless in partial-result mode. */
+	private Map<String, StatusCode> failures;
+	/** Span enclosing the next queries, <code>null</code> unless the call is traced. */
+	private TraceSpan span;
+
+
+	public String getServer ()
+    {
+		return this.server;
+	}
+
+
+	public void setServer ( String server )
+    {
+		this.server = server;
+	}
 
 
 	public Resolver getResolver ()
@@ -135,4 +164,152 @@ public final class LookupContext implements Serializable
 		this.rrType = rrType;
 	}
 
+	public long getMinTtl ()
+    {
+		return this.minTtl;
+	}
+
+	/**
+	 * Bind the call to a deadline.
+	 *
+	 * @param timeout Time granted to the call, in milliseconds, <code>0</code> not to bound it
+	 */
+	public void setTimeout ( long timeout )
+    {
+		this.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+		this.bounded = (timeout > 0);
+	}
+
+	/**
+	 * Bind the call to the same deadline as another context.
+	 *
+	 * @param other The context whose deadline is taken
+	 */
+	public void setDeadline ( LookupContext other )
+    {
+		this.deadline = other.deadline;
+		this.bounded = other.bounded;
+	}
+
+	/**
+	 * @return The time left before the deadline in nanoseconds, <code>Long.MAX_VALUE</code> if unbounded
+	 */
+	public long getRemaining ()
+    {
+		return (this.bounded ? this.deadline - System.nanoTime() : Long.MAX_VALUE);
+	}
+
+	/**
+	 * @return <code>true</code> iff the deadline has elapsed
+	 */
+	public boolean isExpired ()
+    {
+		return getRemaining() <= 0;
+	}
+
+	public StatusCode getStatus ()
+    {
+		return this.status;
+	}
+
+	public void setStatus ( StatusCode status )
+    {
+		this.status = status;
+	}
+
+	/**
+	 * Switch the call to the partial-result mode: a name which cannot be resolved is recorded
+	 * into the provided map, instead of failing the whole call.
+	 *
+	 * @param failures The <code>Map</code> collecting the failures, keyed by DNS name
+	 */
+	public void setFailures ( Map<String, StatusCode> failures )
+    {
+		this.failures = failures;
+	}
+
+	/**
+	 * @return <code>true</code> iff in partial-result mode
+	 */
+	public boolean isPartial ()
+    {
+		return this.failures != null;
+	}
+
+	/**
+	 * Record the failure of a name, in partial-result mode.
+	 *
+	 * @param name  The DNS name which could not be resolved
+	 * @param error The <code>StatusCode</code> of the failure
+	 */
+	public void fail ( String name, StatusCode error )
+    {
+		this.failures.put(name, error);
+	}
+
+	public TraceSpan getSpan ()
+    {
+		return this.span;
+	}
+
+	public void setSpan ( TraceSpan span )
+    {
+		this.span = span;
+	}
+
+	/**
+	 * Start a resolution step of a traced call: the next queries are enclosed by its span.
+	 *
+	 * @param step The name of the step
+	 */
+	public void enter ( String step )
+    {
+		if (this.span != null) {
+			this.span = this.span.child(step);
+		}
+	}
+
+	/**
+	 * End the current resolution step of a traced call.
+	 *
+	 * @param outcome The outcome of the step
+	 */
+	public void exit ( StatusCode outcome )
+    {
+		if (this.span != null && this.span.getParent() != null) {
+			this.span.end(outcome);
+			this.span = this.span.getParent();
+		}
+	}
+
+	/**
+	 * Take into account the TTL of records retrieved within this context.
+	 *
+	 * @param records The retrieved <code>Record</code>s
+	 */
+	public void observeTtl ( Record[] records )
+    {
+		for (Record record : records) {
+			observeTtl(record.getTTL());
+		}
+	}
+
+	/**
+	 * Take into account a TTL observed within this context.
+	 *
+	 * @param ttl A TTL, in seconds
+	 */
+	public void observeTtl ( long ttl )
+    {
+		this.minTtl = Math.min(this.minTtl, ttl);
+	}
+
+	/**
+	 * Forget the TTLs observed so far, e.g. before asking the next server.
+	 */
+	public void resetTtl ()
+    {
+		this.minTtl = Long.MAX_VALUE;
+	}
+
 }
@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.commons;
+
+/**
+ * <code>DiscoveryMetrics</code> discarding every measure, used unless metrics are configured.
+ *
+ * Immutable.
+ *
+ */
+public final class NoopMetrics implements DiscoveryMetrics
+{
+
+    @Override
+    public void queryCompleted(String server, int rrType, StatusCode outcome, long nanos) { }
+
+    @Override
+    public void cacheAccessed(String cache, boolean hit) { }
+
+    @Override
+    public void dnsSecValidated(StatusCode outcome, long nanos) { }
+
+    @Override
+    public void callCompleted(String method, StatusCode outcome, long nanos) { }
+
+}
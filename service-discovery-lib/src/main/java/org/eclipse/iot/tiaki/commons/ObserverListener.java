@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.commons;
+
+import java.util.Observable;
+import java.util.Observer;
+import org.eclipse.iot.tiaki.utils.FormattingUtil;
+
+/**
+ * Adapter of a legacy <code>Observer</code> to the {@link DiscoveryListener} interface: events are
+ * rendered as they used to be notified, by the same <code>Observable</code>.
+ */
+final class ObserverListener implements DiscoveryListener
+{
+
+    /** The adapted observer. */
+    private final Observer observer;
+    /** The notifying <code>Observable</code>. */
+    private final Observable source;
+
+    /**
+     * @param observer The adapted observer
+     * @param source   The <code>Observable</code> handed to the observer, possibly <code>null</code>
+     */
+    public ObserverListener(Observer observer, Observable source)
+    {
+        this.observer = observer;
+        this.source = source;
+    }
+
+    @Override
+    public void info(String message)
+    {
+        this.observer.update(this.source, FormattingUtil.info(message));
+    }
+
+    @Override
+    public void serverSelected(String server)
+    {
+        this.observer.update(this.source, FormattingUtil.server(server));
+    }
+
+    @Override
+    public void querySent(String name, String type)
+    {
+        this.observer.update(this.source, FormattingUtil.query(name, type));
+    }
+
+    @Override
+    public void responseReceived(StatusChangeEvent response)
+    {
+        this.observer.update(this.source, response);
+    }
+
+    @Override
+    public void answerComplete()
+    {
+        this.observer.update(this.source, FormattingUtil.answer());
+    }
+
+    /**
+     * Deliver a status change as it is.
+     *
+     * @param what The status change, <code>null</code> for a bare notification
+     */
+    public void update(Object what)
+    {
+        this.observer.update(this.source, what);
+    }
+
+}
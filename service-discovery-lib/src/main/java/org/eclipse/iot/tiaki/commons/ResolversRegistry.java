@@ -0,0 +1,301 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.commons;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import org.eclipse.iot.tiaki.exceptions.ConfigurationException;
+import org.eclipse.iot.tiaki.utils.DnsUtil;
+import org.xbill.DNS.Resolver;
+import org.xbill.DNS.SimpleResolver;
+
+/**
+ * Registry of the DNS <code>Resolver</code>s serving a configured entity. Plain and validating
+ * resolvers are instantiated once per configured server, then shared by every lookup of the same
+ * configuration (i.e. servers, trust anchor and query settings); they are instantiated again upon
+ * configuration changes, or once the registry is invalidated.
+ *
+ * Every query is waited for up to the configured timeout, and sent again after a backoff when
+ * unanswered, as many times as configured.
+ *
+ * The outcome of every query is recorded into the {@link ServersHealth} of the registry, which
+ * orders the retrieved resolvers, the healthiest server first; the statistics survive the
+ * invalidation of the registry.
+ *
+ * When hedging, every server is given a <code>HedgingResolver</code> sending the queries to it
+ * first, and only the healthiest one is retrieved: the lookups have no other server to fail over
+ * to, the hedging resolver failing over the other servers itself.
+ *
+ * Retrieving resolvers is Thread-safe: the returned maps are immutable snapshots.
+ *
+ */
+public final class ResolversRegistry
+{
+
+    /** Resolvers of the last retrieved configuration, <code>null</code> if none. */
+    private volatile Registered registered;
+    /** Health statistics of the servers. */
+    private final ServersHealth health;
+    /** Executor of the queries sent asynchronously by the built resolvers. */
+    private final Executor asyncWorkers;
+
+    /**
+     * @param asyncWorkers Executor of the queries sent asynchronously by the built resolvers
+     */
+    public ResolversRegistry(Executor asyncWorkers)
+    {
+        this.health = new ServersHealth();
+        this.asyncWorkers = asyncWorkers;
+    }
+
+    /**
+     * Retrieve the resolvers for the provided configuration, instantiating them on first use.
+     *
+     * @param secValidation <code>true</code> iff DNSSEC validating resolvers are needed
+     * @param dnsServers    Configured DNS servers
+     * @param trustAnchor   Trust Anchor the validating resolvers are loaded with
+     *
+     * @return An immutable <code>Map</code> of <code>Resolver</code> keyed by server, the
+     *         healthiest server first
+     *
+     * @throws ConfigurationException
+     *      In case instance(s) of <code>Resolver</code> cannot he instantiated.
+     */
+    public Map<String, Resolver> resolvers(boolean secValidation, List<InetAddress> dnsServers,
+                                           String trustAnchor)
+                                    throws ConfigurationException
+    {
+        List<InetSocketAddress> addresses = new ArrayList<>(dnsServers.size());
+        for (InetAddress dnsServer : dnsServers) {
+            addresses.add(new InetSocketAddress(dnsServer, SimpleResolver.DEFAULT_PORT));
+        }
+
+        return resolvers(addresses, secValidation, trustAnchor);
+    }
+
+    /**
+     * Retrieve the resolvers for the provided configuration, instantiating them on first use.
+     * Servers listening on a non standard port are keyed as <code>host:port</code>.
+     *
+     * @param dnsServers    Configured DNS servers, along with their ports
+     * @param secValidation <code>true</code> iff DNSSEC validating resolvers are needed
+     * @param trustAnchor   Trust Anchor the validating resolvers are loaded with
+     *
+     * @return An immutable <code>Map</code> of <code>Resolver</code> keyed by server, the
+     *         healthiest server first
+     *
+     * @throws ConfigurationException
+     *      In case instance(s) of <code>Resolver</code> cannot he instantiated.
+     */
+    public Map<String, Resolver> resolvers(List<InetSocketAddress> dnsServers, boolean secValidation,
+                                           String trustAnchor)
+                                    throws ConfigurationException
+    {
+        DiscoveryConfig.Builder config = DiscoveryConfig.builder().trustAnchor(trustAnchor);
+        for (InetSocketAddress dnsServer : dnsServers) {
+            config.dnsServer(dnsServer.getAddress(), dnsServer.getPort());
+        }
+
+        return resolvers(config.build(), secValidation);
+    }
+
+    /**
+     * Retrieve the resolvers for the provided configuration snapshot, instantiating them on first use.
+     *
+     * @param config        A validated configuration
+     * @param secValidation <code>true</code> iff DNSSEC validating resolvers are needed
+     *
+     * @return An immutable <code>Map</code> of <code>Resolver</code> keyed by server, the
+     *         healthiest server first
+     *
+     * @throws ConfigurationException
+     *      In case instance(s) of <code>Resolver</code> cannot he instantiated.
+     */
+    public Map<String, Resolver> resolvers(DiscoveryConfig config, boolean secValidation)
+                                    throws ConfigurationException
+    {
+        Registered current = this.registered;
+        Map<String, Resolver> resolvers = (current != null && current.config.sharesResolvers(config)
+                                            ? current.resolvers(secValidation) : null);
+        if (resolvers != null) {
+            return retrieved(current, resolvers);
+        }
+
+        synchronized (this) {
+            current = this.registered;
+            if (current == null || !current.config.sharesResolvers(config)) {
+                HedgingPolicy policy = (config.getHedgedLoad() > 0 ? new HedgingPolicy(config.getHedgedLoad())
+                                                                     : null);
+                current = new Registered(config, policy, null, null);
+            }
+            resolvers = current.resolvers(secValidation);
+            if (resolvers == null) {
+                resolvers = Collections.unmodifiableMap(build(secValidation, current.config, current.hedging));
+                current = (secValidation
+                            ? new Registered(current.config, current.hedging, current.resolvers, resolvers)
+                            : new Registered(current.config, current.hedging, resolvers, current.valResolvers));
+            }
+            this.registered = current;
+        }
+
+        return retrieved(current, resolvers);
+    }
+
+    /**
+     * @return The health statistics of the servers
+     */
+    public ServersHealth health()
+    {
+        return this.health;
+    }
+
+    /**
+     * Drop the registered resolvers: they will be instantiated again on next retrieval.
+     */
+    public synchronized void invalidate()
+    {
+        this.registered = null;
+    }
+
+    /**
+     * Private helper ordering the registered resolvers by health: when hedging, the healthiest
+     * server only is retrieved.
+     *
+     * @param current   The registered resolvers
+     * @param resolvers The resolvers to be retrieved, in configuration order
+     *
+     * @return An immutable <code>Map</code> of <code>Resolver</code> keyed by server, the
+     *         healthiest server first
+     */
+    private Map<String, Resolver> retrieved(Registered current, Map<String, Resolver> resolvers)
+    {
+        Map<String, Resolver> ordered = this.health.order(resolvers);
+        if (current.hedging == null) {
+            return ordered;
+        }
+        Map.Entry<String, Resolver> healthiest = ordered.entrySet().iterator().next();
+
+        return Collections.singletonMap(healthiest.getKey(), healthiest.getValue());
+    }
+
+    /**
+     * Private helper instantiating one <code>Resolver</code> per configured server.
+     *
+     * @param secValidation <code>true</code> iff DNSSEC validating resolvers are needed
+     * @param config        The configuration the resolvers are built for
+     * @param policy        The hedging policy, <code>null</code> unless hedging
+     *
+     * @return Instance(s) of <code>Resolver</code> keyed by server
+     *
+     * @throws ConfigurationException
+     *      In case instance(s) of <code>Resolver</code> cannot he instantiated.
+     */
+    private Map<String, Resolver> build(boolean secValidation, DiscoveryConfig config, HedgingPolicy policy)
+                                throws ConfigurationException
+    {
+        String trustAnchor = config.getTrustAnchor();
+        Map<String, Resolver> built = new LinkedHashMap<>();
+        for (InetSocketAddress address : config.getDnsServers()) {
+            InetAddress dnsServer = address.getAddress();
+            if (dnsServer != null && (!dnsServer.getHostAddress().isEmpty()
+                    || !dnsServer.getCanonicalHostName().isEmpty())) {
+                String server = ((dnsServer.getHostAddress().isEmpty())
+                        ? dnsServer.getCanonicalHostName() : dnsServer.getHostAddress());
+                int port = address.getPort();
+                if (port == SimpleResolver.DEFAULT_PORT) {
+                    built.put(server, DnsUtil.getResolver(false, trustAnchor, server));
+                } else {
+                    built.put(server + ":" + port, DnsUtil.getResolver(false, trustAnchor, server, port));
+                }
+            } else {
+                built.putAll(DnsUtil.getResolvers(false, trustAnchor));
+            }
+        }
+
+        long timeout = config.getQueryTimeout();
+        for (Map.Entry<String, Resolver> resolver : built.entrySet()) {
+            resolver.getValue().setTimeout((int) (timeout / 1000), (int) (timeout % 1000));
+            Resolver tracked = new TrackedResolver(resolver.getValue(), resolver.getKey(), this.health);
+            resolver.setValue(config.getQueryRetries() == 0 ? tracked
+                                : new RetryingResolver(tracked, config.getQueryRetries(), config.getRetryBackoff(),
+                                                       this.asyncWorkers));
+        }
+        if (policy != null && built.size() > 1) {
+            built = hedged(built, policy, this.health, this.asyncWorkers);
+        }
+        if (secValidation) {
+            for (Map.Entry<String, Resolver> resolver : built.entrySet()) {
+                resolver.setValue(DnsUtil.getValidatingResolver(resolver.getValue(), trustAnchor));
+            }
+        }
+
+        return built;
+    }
+
+    /**
+     * Private helper giving every server a <code>HedgingResolver</code> sending the queries to it
+     * first, then hedging them across the other servers.
+     *
+     * @param resolvers Plain resolvers keyed by server, in configuration order
+     * @param policy    The hedging policy
+     * @param health    Health statistics ordering the other servers of every query
+     * @param executor  Executor of the hedged queries
+     *
+     * @return The hedging resolvers, keyed by the server they send the queries to first
+     */
+    private static Map<String, Resolver> hedged(Map<String, Resolver> resolvers, HedgingPolicy policy,
+                                                ServersHealth health, Executor executor)
+    {
+        Map<String, Resolver> hedged = new LinkedHashMap<>();
+        for (String server : resolvers.keySet()) {
+            hedged.put(server, new HedgingResolver(resolvers, server, health, policy, executor));
+        }
+
+        return hedged;
+    }
+
+    /**
+     * Helper class coupling the resolvers with the configuration they have been built for.
+     * Immutable, it is replaced as a whole.
+     */
+    private static final class Registered
+    {
+        /** Configuration the resolvers have been built for. */
+        private final DiscoveryConfig config;
+        /** Policy of the hedged queries, <code>null</code> unless hedging. */
+        private final HedgingPolicy hedging;
+        /** Plain resolvers, <code>null</code> until needed. */
+        private final Map<String, Resolver> resolvers;
+        /** Validating resolvers, <code>null</code> until needed. */
+        private final Map<String, Resolver> valResolvers;
+
+        public Registered(DiscoveryConfig config, HedgingPolicy hedging, Map<String, Resolver> resolvers,
+                          Map<String, Resolver> valResolvers)
+        {
+            this.config = config;
+            this.hedging = hedging;
+            this.resolvers = resolvers;
+            this.valResolvers = valResolvers;
+        }
+
+        public Map<String, Resolver> resolvers(boolean secValidation)
+        {
+            return (secValidation ? this.valResolvers : this.resolvers);
+        }
+
+    }
+
+}
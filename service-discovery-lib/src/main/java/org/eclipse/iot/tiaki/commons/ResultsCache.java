@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.commons;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of discovery results, each one expiring after its own TTL. Once full, the least recently
+ * used result is evicted. Hits and misses are counted to let clients size the cache.
+ *
+ * Thread-safe.
+ *
+ * @param <V> Type of the cached results
+ */
+public final class ResultsCache<V>
+{
+
+    /** Cached results, in access order. */
+    private final Map<String, Cached<V>> entries;
+    /** Maximum number of cached results. */
+    private volatile int maxEntries;
+    /** Lookups answered by the cache. */
+    private final AtomicLong hits;
+    /** Lookups not answered by the cache. */
+    private final AtomicLong misses;
+
+    /**
+     * Build a cache holding at most <code>maxEntries</code> results.
+     *
+     * @param maxEntries Maximum number of cached results, <code>0</code> disables the cache
+     */
+    public ResultsCache(int maxEntries)
+    {
+        if (maxEntries < 0) {
+            throw new IllegalArgumentException("The cache size cannot be negative");
+        }
+        this.maxEntries = maxEntries;
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+        this.entries = new LinkedHashMap<String, Cached<V>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 2847365107235689921L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Cached<V>> eldest)
+            {
+                return size() > ResultsCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Retrieve a result, unless expired.
+     *
+     * @param key The result key
+     *
+     * @return The cached result, <code>null</code> in case of miss
+     */
+    public V get(String key)
+    {
+        Cached<V> entry;
+        synchronized (this.entries) {
+            entry = this.entries.get(key);
+            if (entry != null && entry.expiresAt - System.nanoTime() <= 0) {
+                this.entries.remove(key);
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            this.misses.incrementAndGet();
+            return null;
+        }
+        this.hits.incrementAndGet();
+
+        return entry.value;
+    }
+
+    /**
+     * Retrieve the remaining lifetime of a result, without affecting the hit/miss counters.
+     *
+     * @param key  The result key
+     * @param unit The <code>TimeUnit</code> of the returned value
+     *
+     * @return The remaining lifetime, rounded up, <code>-1</code> in case of no live result
+     */
+    public long expiresIn(String key, TimeUnit unit)
+    {
+        long remaining;
+        synchronized (this.entries) {
+            Cached<V> entry = this.entries.get(key);
+            remaining = (entry == null ? -1L : entry.expiresAt - System.nanoTime());
+        }
+        if (remaining <= 0) {
+            return -1L;
+        }
+        long converted = unit.convert(remaining, TimeUnit.NANOSECONDS);
+
+        return (unit.toNanos(converted) < remaining ? converted + 1 : converted);
+    }
+
+    /**
+     * Store a result for its TTL.
+     *
+     * @param key   The result key
+     * @param value The result
+     * @param ttl   Time to live of the result, in seconds
+     */
+    public void put(String key, V value, long ttl)
+    {
+        if (ttl <= 0 || this.maxEntries == 0) {
+            return;
+        }
+        Cached<V> entry = new Cached<>(value, System.nanoTime() + TimeUnit.SECONDS.toNanos(ttl));
+        synchronized (this.entries) {
+            this.entries.put(key, entry);
+        }
+    }
+
+    /**
+     * Drop every cached result.
+     */
+    public void clear()
+    {
+        synchronized (this.entries) {
+            this.entries.clear();
+        }
+    }
+
+    /**
+     * @return The number of cached results, expired ones included
+     */
+    public int size()
+    {
+        synchronized (this.entries) {
+            return this.entries.size();
+        }
+    }
+
+    /**
+     * @return The number of lookups answered by the cache
+     */
+    public long hits()
+    {
+        return this.hits.get();
+    }
+
+    /**
+     * @return The number of lookups not answered by the cache
+     */
+    public long misses()
+    {
+        return this.misses.get();
+    }
+
+    /**
+     * Helper class coupling a result with its expiration.
+     *
+     * @param <V> Type of the cached result
+     */
+    private static final class Cached<V>
+    {
+        /** The cached result. */
+        private final V value;
+        /** Expiration, as <code>System.nanoTime()</code> value. */
+        private final long expiresAt;
+
+        public Cached(V value, long expiresAt)
+        {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+    }
+
+}
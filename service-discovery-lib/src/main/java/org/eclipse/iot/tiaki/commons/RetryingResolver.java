@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.commons;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.xbill.DNS.Message;
+import org.xbill.DNS.Resolver;
+import org.xbill.DNS.ResolverListener;
+import org.xbill.DNS.TSIG;
+
+/**
+ * <code>Resolver</code> sending an unanswered query again to the same server, after an
+ * exponential backoff: the first retry waits for the configured delay, every following one for
+ * twice the previous delay. Only network errors (i.e. timeouts and unreachable servers) are
+ * retried, answers being returned as they are whatever their rcode.
+ *
+ */
+final class RetryingResolver implements Resolver
+{
+
+    /** Identifiers of the asynchronous queries. */
+    private static final AtomicInteger IDS = new AtomicInteger();
+
+    /** The resolver addressing the server. */
+    private final Resolver resolver;
+    /** Number of times an unanswered query is sent again. */
+    private final int retries;
+    /** Delay of the first retry, in milliseconds. */
+    private final long backoff;
+    /** Executor of the queries sent asynchronously. */
+    private final Executor executor;
+
+    /**
+     * @param resolver The resolver addressing the server
+     * @param retries  Number of times an unanswered query is sent again
+     * @param backoff  Delay of the first retry, in milliseconds
+     * @param executor Executor of the queries sent asynchronously
+     */
+    public RetryingResolver(Resolver resolver, int retries, long backoff, Executor executor)
+    {
+        this.resolver = resolver;
+        this.retries = retries;
+        this.backoff = backoff;
+        this.executor = executor;
+    }
+
+    @Override
+    public Message send(Message query) throws IOException
+    {
+        long delay = this.backoff;
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return this.resolver.send(query);
+            } catch (IOException exception) {
+                if (attempt >= this.retries || (exception instanceof InterruptedIOException
+                                                 && Thread.currentThread().isInterrupted())) {
+                    throw exception;
+                }
+            }
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Query retry interrupted");
+            }
+            delay *= 2;
+        }
+    }
+
+    @Override
+    public Object sendAsync(final Message query, final ResolverListener listener)
+    {
+        final Integer id = IDS.incrementAndGet();
+        this.executor.execute(new Runnable() {
+            @Override
+            public void run()
+            {
+                try {
+                    listener.receiveMessage(id, send(query));
+                } catch (Exception e) {
+                    listener.handleException(id, e);
+                }
+            }
+        });
+
+        return id;
+    }
+
+    @Override
+    public void setPort(int port)
+    {
+        this.resolver.setPort(port);
+    }
+
+    @Override
+    public void setTCP(boolean flag)
+    {
+        this.resolver.setTCP(flag);
+    }
+
+    @Override
+    public void setIgnoreTruncation(boolean flag)
+    {
+        this.resolver.setIgnoreTruncation(flag);
+    }
+
+    @Override
+    public void setEDNS(int level)
+    {
+        this.resolver.setEDNS(level);
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public void setEDNS(int level, int payloadSize, int flags, List options)
+    {
+        this.resolver.setEDNS(level, payloadSize, flags, options);
+    }
+
+    @Override
+    public void setTSIGKey(TSIG key)
+    {
+        this.resolver.setTSIGKey(key);
+    }
+
+    @Override
+    public void setTimeout(int secs, int msecs)
+    {
+        this.resolver.setTimeout(secs, msecs);
+    }
+
+    @Override
+    public void setTimeout(int secs)
+    {
+        this.resolver.setTimeout(secs);
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.resolver.toString();
+    }
+
+}
@@ -0,0 +1,339 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.commons;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Health statistics of the DNS servers, kept across lookups: success rate and smoothed round trip
+ * time of the queries, along with the consecutive network errors.
+ *
+ * The servers are ordered by health, the healthiest first: higher success rate, then lower round
+ * trip time, then configuration order. A server repeatedly unreachable is ejected, i.e. left out
+ * of the ordered servers until the ejection period has elapsed, unless all of them are; a single
+ * lookup is then given the ejected server first, as a probe bringing it back in upon success.
+ *
+ * Thread-safe.
+ *
+ */
+public final class ServersHealth
+{
+
+    /** Weight of the last outcome in the smoothed statistics, as in the TCP RTT estimation. */
+    private static final double SMOOTHING = 0.125;
+    /** Success rate above which a server is healthy, the smoothed rate only converging to 1. */
+    private static final double HEALTHY_RATE = 0.99;
+
+    /** Statistics of the servers, keyed by server. */
+    private final ConcurrentMap<String, Stats> stats;
+    /** Consecutive network errors after which a server is ejected. */
+    private volatile int ejectionFailures;
+    /** Time an ejected server is left out, in nanoseconds. */
+    private volatile long ejectionPeriod;
+
+    public ServersHealth()
+    {
+        this.stats = new ConcurrentHashMap<>();
+        this.ejectionFailures = Constants.HEALTH_EJECTION_FAILURES;
+        this.ejectionPeriod = TimeUnit.MILLISECONDS.toNanos(Constants.HEALTH_EJECTION_PERIOD);
+    }
+
+    /**
+     * Configure the ejection of the failing servers.
+     *
+     * @param failures Consecutive network errors after which a server is ejected
+     * @param period   Time an ejected server is left out before being probed again
+     * @param unit     The <code>TimeUnit</code> of the <code>period</code> argument
+     */
+    public void setEjection(int failures, long period, TimeUnit unit)
+    {
+        if (failures <= 0 || period <= 0) {
+            throw new IllegalArgumentException("The ejection failures and period have to be positive");
+        }
+        this.ejectionFailures = failures;
+        this.ejectionPeriod = unit.toNanos(period);
+    }
+
+    /**
+     * Record a query answered by a server.
+     *
+     * @param server The addressed server
+     * @param rtt    Round trip time of the query, in nanoseconds
+     */
+    public void success(String server, long rtt)
+    {
+        stats(server).success(rtt);
+    }
+
+    /**
+     * Record a query left unanswered by a server (I/O error or timeout), counting toward its
+     * ejection.
+     *
+     * @param server The addressed server
+     */
+    public void failure(String server)
+    {
+        stats(server).failure(this.ejectionFailures, this.ejectionPeriod);
+    }
+
+    /**
+     * Record a query answered by a server with an error (e.g. <code>SERVFAIL</code> or
+     * <code>REFUSED</code>): the server being reachable, only its success rate is lowered.
+     *
+     * @param server The addressed server
+     */
+    public void serverError(String server)
+    {
+        stats(server).serverError();
+    }
+
+    /**
+     * Order the provided servers by health. Healthy servers, i.e. without network errors since
+     * their last answer and almost always successful, are left in their original order, i.e. the
+     * provided map itself is returned. Ejected servers are left out, unless all the servers are,
+     * but for the lookup probing one of them, given it first.
+     *
+     * @param <T> Type of the values associated to the servers
+     * @param servers An immutable <code>Map</code> of values keyed by server, in configuration order
+     *
+     * @return An immutable <code>Map</code> of the values of the servers to query, the healthiest
+     *         server first
+     */
+    public <T> Map<String, T> order(Map<String, T> servers)
+    {
+        boolean healthy = true;
+        for (String server : servers.keySet()) {
+            Stats current = this.stats.get(server);
+            healthy &= (current == null || current.isHealthy());
+        }
+        if (healthy) {
+            return servers;
+        }
+
+        long now = System.nanoTime();
+        final Map<String, Integer> ranks = new LinkedHashMap<>();
+        final Map<String, Long> latencies = new LinkedHashMap<>();
+        for (String server : servers.keySet()) {
+            Stats current = this.stats.get(server);
+            if (current == null) {
+                ranks.put(server, 0);
+                latencies.put(server, Long.MAX_VALUE);
+            } else {
+                ranks.put(server, current.rank(now, this.ejectionPeriod));
+                latencies.put(server, current.latencyClass());
+            }
+        }
+
+        List<String> ordered = new ArrayList<>(servers.keySet());
+        Collections.sort(ordered, new Comparator<String>() {
+            @Override
+            public int compare(String server1, String server2)
+            {
+                int byRank = ranks.get(server1).compareTo(ranks.get(server2));
+
+                return (byRank != 0 ? byRank : latencies.get(server1).compareTo(latencies.get(server2)));
+            }
+        });
+        boolean allEjected = (ranks.get(ordered.get(0)) == Stats.EJECTED);
+        Map<String, T> reordered = new LinkedHashMap<>();
+        for (String server : ordered) {
+            if (allEjected || ranks.get(server) != Stats.EJECTED) {
+                reordered.put(server, servers.get(server));
+            }
+        }
+
+        return Collections.unmodifiableMap(reordered);
+    }
+
+    /**
+     * @param server A server
+     *
+     * @return The smoothed share of successful queries, <code>1</code> if never queried
+     */
+    public double successRate(String server)
+    {
+        Stats current = this.stats.get(server);
+
+        return (current == null ? 1d : current.successRate());
+    }
+
+    /**
+     * @param server A server
+     * @param unit   The <code>TimeUnit</code> of the returned value
+     *
+     * @return The smoothed round trip time, <code>-1</code> if never answered
+     */
+    public long smoothedRtt(String server, TimeUnit unit)
+    {
+        Stats current = this.stats.get(server);
+        long rtt = (current == null ? -1L : current.smoothedRtt());
+
+        return (rtt < 0 ? -1L : unit.convert(rtt, TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * @param server A server
+     *
+     * @return The number of network errors since the last successful query
+     */
+    public int consecutiveFailures(String server)
+    {
+        Stats current = this.stats.get(server);
+
+        return (current == null ? 0 : current.consecutiveFailures());
+    }
+
+    /**
+     * @param server A server
+     *
+     * @return <code>true</code> iff the server is currently ejected
+     */
+    public boolean isEjected(String server)
+    {
+        Stats current = this.stats.get(server);
+
+        return (current != null && current.isEjected());
+    }
+
+    /**
+     * Private helper retrieving the statistics of a server, instantiating them on first use.
+     *
+     * @param server A server
+     *
+     * @return The <code>Stats</code> of the server
+     */
+    private Stats stats(String server)
+    {
+        Stats current = this.stats.get(server);
+        if (current == null) {
+            Stats created = new Stats();
+            current = this.stats.putIfAbsent(server, created);
+            if (current == null) {
+                current = created;
+            }
+        }
+
+        return current;
+    }
+
+    /**
+     * Helper class holding the statistics of a single server.
+     */
+    private static final class Stats
+    {
+        /** Rank of a server given to the probing lookup. */
+        private static final int PROBING = -1;
+        /** Rank of an ejected server. */
+        private static final int EJECTED = 11;
+
+        /** Smoothed share of successful queries. */
+        private double successRate = 1d;
+        /** Smoothed round trip time in nanoseconds, <code>-1</code> until answered. */
+        private long smoothedRtt = -1L;
+        /** Network errors since the last successful query. */
+        private int consecutiveFailures;
+        /** <code>true</code> iff ejected. */
+        private boolean ejected;
+        /** End of the ejection period, as <code>System.nanoTime()</code> value. */
+        private long ejectedUntil;
+
+        public synchronized void success(long rtt)
+        {
+            this.successRate += SMOOTHING * (1d - this.successRate);
+            this.smoothedRtt = (this.smoothedRtt < 0 ? rtt
+                                    : this.smoothedRtt + (long) (SMOOTHING * (rtt - this.smoothedRtt)));
+            this.consecutiveFailures = 0;
+            this.ejected = false;
+        }
+
+        public synchronized void failure(int ejectionFailures, long ejectionPeriod)
+        {
+            this.successRate -= SMOOTHING * this.successRate;
+            if (++this.consecutiveFailures >= ejectionFailures) {
+                this.ejected = true;
+                this.ejectedUntil = System.nanoTime() + ejectionPeriod;
+            }
+        }
+
+        public synchronized void serverError()
+        {
+            this.successRate -= SMOOTHING * this.successRate;
+        }
+
+        /**
+         * Rank this server, the lower the healthier: the success rate is bucketed in tenths not
+         * to reorder the servers upon negligible differences. The first lookup ranking an ejected
+         * server past its ejection period is given it first, as a probe; the following ones wait
+         * for the probe outcome, up to another ejection period.
+         *
+         * @param now            Current <code>System.nanoTime()</code> value
+         * @param ejectionPeriod Time an ejected server is left out, in nanoseconds
+         *
+         * @return The rank of this server
+         */
+        public synchronized int rank(long now, long ejectionPeriod)
+        {
+            if (this.ejected) {
+                if (now - this.ejectedUntil < 0) {
+                    return EJECTED;
+                }
+                this.ejectedUntil = now + ejectionPeriod;
+                return PROBING;
+            }
+
+            return (int) Math.round((1d - this.successRate) * 10);
+        }
+
+        /**
+         * @return The order of magnitude of the smoothed round trip time, not to reorder the
+         *         servers upon negligible differences; unanswered servers come last
+         */
+        public synchronized long latencyClass()
+        {
+            return (this.smoothedRtt < 0 ? Long.MAX_VALUE
+                                         : 64 - Long.numberOfLeadingZeros(this.smoothedRtt));
+        }
+
+        public synchronized boolean isHealthy()
+        {
+            return (this.consecutiveFailures == 0 && this.successRate > HEALTHY_RATE);
+        }
+
+        public synchronized double successRate()
+        {
+            return this.successRate;
+        }
+
+        public synchronized long smoothedRtt()
+        {
+            return this.smoothedRtt;
+        }
+
+        public synchronized int consecutiveFailures()
+        {
+            return this.consecutiveFailures;
+        }
+
+        public synchronized boolean isEjected()
+        {
+            return this.ejected;
+        }
+
+    }
+
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.commons;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import org.eclipse.iot.tiaki.domain.ServiceInstance;
+import org.eclipse.iot.tiaki.domain.ServiceRecord;
+
+/**
+ * Changes of a set of Service Instances between two resolutions. Instances are identified by the
+ * owner name of their SRV record: an instance is <i>changed</i> when its target, port, priority,
+ * weight or text record differ; a mere TTL difference is not a change.
+ */
+public final class ServiceChanges
+{
+
+    /** Instances appeared since the previous resolution. */
+    private final Set<ServiceInstance> added;
+    /** Instances disappeared since the previous resolution. */
+    private final Set<ServiceInstance> removed;
+    /** Instances changed since the previous resolution, in their current version. */
+    private final Set<ServiceInstance> changed;
+
+    private ServiceChanges(Set<ServiceInstance> added, Set<ServiceInstance> removed, Set<ServiceInstance> changed)
+    {
+        this.added = Collections.unmodifiableSet(added);
+        this.removed = Collections.unmodifiableSet(removed);
+        this.changed = Collections.unmodifiableSet(changed);
+    }
+
+    /**
+     * Compute the changes between two resolutions.
+     *
+     * @param previous The instances previously resolved
+     * @param current  The instances currently resolved
+     *
+     * @return The <code>ServiceChanges</code> turning <code>previous</code> into <code>current</code>
+     */
+    public static ServiceChanges between(Collection<ServiceInstance> previous, Collection<ServiceInstance> current)
+    {
+        Map<String, ServiceInstance> before = byName(previous);
+        Set<ServiceInstance> added = new TreeSet<>(), removed = new TreeSet<>(), changed = new TreeSet<>();
+        for (Map.Entry<String, ServiceInstance> entry : byName(current).entrySet()) {
+            ServiceInstance old = before.remove(entry.getKey());
+            if (old == null) {
+                added.add(entry.getValue());
+            } else if (!sameData(old, entry.getValue())) {
+                changed.add(entry.getValue());
+            }
+        }
+        removed.addAll(before.values());
+
+        return new ServiceChanges(added, removed, changed);
+    }
+
+    public Set<ServiceInstance> getAdded()
+    {
+        return this.added;
+    }
+
+    public Set<ServiceInstance> getRemoved()
+    {
+        return this.removed;
+    }
+
+    public Set<ServiceInstance> getChanged()
+    {
+        return this.changed;
+    }
+
+    /**
+     * @return <code>true</code> iff nothing changed
+     */
+    public boolean isEmpty()
+    {
+        return this.added.isEmpty() && this.removed.isEmpty() && this.changed.isEmpty();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ServiceChanges {" + "added=" + added + ", removed=" + removed + ", changed=" + changed + '}';
+    }
+
+    /**
+     * Private helper indexing instances by their identifying name.
+     *
+     * @param instances A collection of <code>ServiceInstance</code>
+     *
+     * @return The instances keyed by the owner name of their SRV record
+     */
+    private static Map<String, ServiceInstance> byName(Collection<ServiceInstance> instances)
+    {
+        Map<String, ServiceInstance> indexed = new LinkedHashMap<>();
+        for (ServiceInstance instance : instances) {
+            indexed.put(instance.getServiceRecord().getOwner(), instance);
+        }
+
+        return indexed;
+    }
+
+    /**
+     * Private helper comparing two versions of an instance, regardless of their TTL.
+     *
+     * @param one   A <code>ServiceInstance</code>
+     * @param other Another version of the same <code>ServiceInstance</code>
+     *
+     * @return <code>true</code> iff both versions carry the same data
+     */
+    private static boolean sameData(ServiceInstance one, ServiceInstance other)
+    {
+        ServiceRecord oneSrv = one.getServiceRecord(), otherSrv = other.getServiceRecord();
+
+        return Objects.equals(oneSrv.getHost(), otherSrv.getHost())
+                && oneSrv.getPort() == otherSrv.getPort()
+                && oneSrv.getPriority() == otherSrv.getPriority()
+                && oneSrv.getWeight() == otherSrv.getWeight()
+                && Objects.equals(one.getTextRecord().getRData(), other.getTextRecord().getRData());
+    }
+
+}
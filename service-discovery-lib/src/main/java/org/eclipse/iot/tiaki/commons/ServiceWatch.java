@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.commons;
+
+/**
+ * Handle of an ongoing Service Instances watch, re-resolving the watched instances as their TTL
+ * expires and notifying a {@link ServiceWatchListener} of the changes.
+ */
+public interface ServiceWatch
+{
+
+    /**
+     * Stop watching: no notification is delivered once this method returns, except the one being
+     * delivered, if any.
+     */
+    void cancel();
+
+    /**
+     * @return <code>true</code> iff this watch has been cancelled
+     */
+    boolean isCancelled();
+
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.commons;
+
+import org.eclipse.iot.tiaki.exceptions.DnsServiceException;
+
+/**
+ * Client handler of a Service Instances watch, see {@link ServiceWatch}. Handlers are invoked by
+ * the thread re-resolving the watched instances, one notification at a time.
+ */
+public interface ServiceWatchListener
+{
+
+    /**
+     * Invoked whenever the watched instances change, the first resolution reporting every instance
+     * as added.
+     *
+     * @param changes The <code>ServiceChanges</code> since the previous notification
+     */
+    void onChange(ServiceChanges changes);
+
+    /**
+     * Invoked upon an unsuccessful resolution; the watch goes on, retrying later.
+     *
+     * @param error A <code>DnsServiceException</code> defining the raised error
+     */
+    void onError(DnsServiceException error);
+
+}
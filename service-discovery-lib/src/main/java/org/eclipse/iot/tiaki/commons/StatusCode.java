@@ -23,6 +23,7 @@ public enum StatusCode
     CONFIGURATION_ERROR((short) 10001, "Inconsistent secured DNS settings"),
     NETWORK_ERROR((short) 10002, "Unreachable DNS or timeout expired"),
     ILLEGAL_FQDN((short) 10003, "Provided an illegal FQDN"),
+    DEADLINE_EXCEEDED((short) 10004, "Lookup deadline exceeded"),
     RESOURCE_LOOKUP_ERROR((short) 9003, "DNS Resolution error"),
     RESOURCE_INSECURE_ERROR((short) 9505, "Insecure DNS packet"),
     RESOURCE_UNEXPECTED((short) 9506, "Unexpected Resource Record Type"),
@@ -0,0 +1,27 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.commons;
+
+/**
+ * Client handler of the resolution trees of a traced discovery, see {@link TraceSpan}. Handlers
+ * are invoked by the calling thread once a call has completed, hence they should hand the trace
+ * over (e.g. export it as JSON to a log) rather than process it.
+ */
+public interface TraceListener
+{
+
+    /**
+     * Invoked once a call has completed, successfully or not.
+     *
+     * @param call The root <code>TraceSpan</code> of the call
+     */
+    void traced(TraceSpan call);
+
+}
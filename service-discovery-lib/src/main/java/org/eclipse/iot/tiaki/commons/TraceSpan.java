@@ -0,0 +1,297 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.commons;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timed node of the resolution tree of a discovery call: the root span stands for the call, its
+ * children for the resolution steps (e.g. the Service Types enumeration) and the queries, each
+ * query span recording the server it has been sent to, its outcome and its answer.
+ *
+ * Spans are built by the resolving threads, concurrent queries adding their spans to the same
+ * parent; a span is complete once its call has been delivered to the {@link TraceListener}, and it
+ * can then be exported as JSON, see {@link #toJson()}.
+ *
+ * Thread-safe.
+ *
+ */
+public final class TraceSpan
+{
+
+    /** Name of the call, step or query. */
+    private final String name;
+    /** Enclosing span, <code>null</code> for the call. */
+    private final TraceSpan parent;
+    /** Start time, in milliseconds since the epoch. */
+    private final long startTime;
+    /** Start time, as <code>System.nanoTime()</code> value. */
+    private final long start;
+    /** Duration in nanoseconds, <code>-1</code> until ended. */
+    private volatile long duration;
+    /** Server the query has been sent to. */
+    private volatile String server;
+    /** Outcome of the call or query. */
+    private volatile StatusCode status;
+    /** Response code of the query. */
+    private volatile String rcode;
+    /** Number of records answered, <code>-1</code> if unknown. */
+    private volatile int records;
+    /** Whether the query has been answered by the cache, <code>null</code> if uncached. */
+    private volatile Boolean cacheHit;
+    /** Enclosed spans, in start order. */
+    private final List<TraceSpan> children;
+
+    /**
+     * @param name   The name of the call, step or query
+     * @param parent The enclosing span, <code>null</code> for the call
+     */
+    private TraceSpan(String name, TraceSpan parent)
+    {
+        this.name = name;
+        this.parent = parent;
+        this.startTime = System.currentTimeMillis();
+        this.start = System.nanoTime();
+        this.duration = -1L;
+        this.records = -1;
+        this.children = new ArrayList<>();
+    }
+
+    /**
+     * Start the span of a call.
+     *
+     * @param name The name of the call
+     *
+     * @return The started root <code>TraceSpan</code>
+     */
+    public static TraceSpan root(String name)
+    {
+        return new TraceSpan(name, null);
+    }
+
+    /**
+     * Start a span enclosed by this one.
+     *
+     * @param childName The name of the step or query
+     *
+     * @return The started child <code>TraceSpan</code>
+     */
+    public TraceSpan child(String childName)
+    {
+        TraceSpan child = new TraceSpan(childName, this);
+        synchronized (this.children) {
+            this.children.add(child);
+        }
+
+        return child;
+    }
+
+    /**
+     * End this span, unless already ended.
+     *
+     * @param outcome The outcome of the call, step or query
+     */
+    public void end(StatusCode outcome)
+    {
+        if (this.duration < 0) {
+            this.status = outcome;
+            this.duration = System.nanoTime() - this.start;
+        }
+    }
+
+    /**
+     * @param server The server the query has been sent to
+     */
+    public void setServer(String server)
+    {
+        this.server = server;
+    }
+
+    /**
+     * @param rcode The response code of the query, e.g. <code>NXDOMAIN</code>
+     */
+    public void setRcode(String rcode)
+    {
+        this.rcode = rcode;
+    }
+
+    /**
+     * @param records The number of records answered
+     */
+    public void setRecords(int records)
+    {
+        this.records = records;
+    }
+
+    /**
+     * @param isIt <code>true</code> iff the query has been answered by the cache
+     */
+    public void setCacheHit(boolean isIt)
+    {
+        this.cacheHit = isIt;
+    }
+
+    public String getName()
+    {
+        return this.name;
+    }
+
+    /**
+     * @return The enclosing span, <code>null</code> for the call
+     */
+    public TraceSpan getParent()
+    {
+        return this.parent;
+    }
+
+    /**
+     * @return The start time, in milliseconds since the epoch
+     */
+    public long getStartTime()
+    {
+        return this.startTime;
+    }
+
+    /**
+     * @param unit The unit of the result
+     *
+     * @return The duration of this span, <code>-1</code> until ended
+     */
+    public long getDuration(TimeUnit unit)
+    {
+        long nanos = this.duration;
+
+        return (nanos < 0 ? -1L : unit.convert(nanos, TimeUnit.NANOSECONDS));
+    }
+
+    public String getServer()
+    {
+        return this.server;
+    }
+
+    public StatusCode getStatus()
+    {
+        return this.status;
+    }
+
+    public String getRcode()
+    {
+        return this.rcode;
+    }
+
+    /**
+     * @return The number of records answered, <code>-1</code> if unknown
+     */
+    public int getRecords()
+    {
+        return this.records;
+    }
+
+    /**
+     * @return Whether the query has been answered by the cache, <code>null</code> if uncached
+     */
+    public Boolean getCacheHit()
+    {
+        return this.cacheHit;
+    }
+
+    /**
+     * @return A snapshot of the enclosed spans, in start order
+     */
+    public List<TraceSpan> getChildren()
+    {
+        synchronized (this.children) {
+            return new ArrayList<>(this.children);
+        }
+    }
+
+    /**
+     * Render this span and the enclosed ones as a JSON object, durations in microseconds. Members
+     * not known (e.g. the server of a step) are left out.
+     *
+     * @return A <code>String</code> holding a JSON object
+     */
+    public String toJson()
+    {
+        StringBuilder json = new StringBuilder();
+        toJson(json);
+
+        return json.toString();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "TraceSpan {" + "name=" + this.name + ", status=" + this.status
+                + ", duration=" + getDuration(TimeUnit.MICROSECONDS) + "us}";
+    }
+
+    /**
+     * Private helper appending this span as a JSON object.
+     */
+    private void toJson(StringBuilder json)
+    {
+        json.append("{\"name\":");
+        quote(json, this.name);
+        json.append(",\"start\":").append(this.startTime)
+            .append(",\"durationMicros\":").append(getDuration(TimeUnit.MICROSECONDS));
+        if (this.server != null) {
+            json.append(",\"server\":");
+            quote(json, this.server);
+        }
+        if (this.status != null) {
+            json.append(",\"status\":\"").append(this.status.name()).append('"');
+        }
+        if (this.rcode != null) {
+            json.append(",\"rcode\":");
+            quote(json, this.rcode);
+        }
+        if (this.records >= 0) {
+            json.append(",\"records\":").append(this.records);
+        }
+        if (this.cacheHit != null) {
+            json.append(",\"cacheHit\":").append(this.cacheHit);
+        }
+        List<TraceSpan> enclosed = getChildren();
+        if (!enclosed.isEmpty()) {
+            json.append(",\"children\":[");
+            for (int i = 0; i < enclosed.size(); i++) {
+                if (i > 0) {
+                    json.append(',');
+                }
+                enclosed.get(i).toJson(json);
+            }
+            json.append(']');
+        }
+        json.append('}');
+    }
+
+    /**
+     * Private helper appending a JSON string, escaping quotes, backslashes and control characters.
+     */
+    private static void quote(StringBuilder json, String value)
+    {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.commons;
+
+import java.io.IOException;
+import java.util.List;
+import org.xbill.DNS.Message;
+import org.xbill.DNS.Rcode;
+import org.xbill.DNS.Resolver;
+import org.xbill.DNS.ResolverListener;
+import org.xbill.DNS.TSIG;
+
+/**
+ * <code>Resolver</code> recording the outcome of the queries sent to a server into its
+ * {@link ServersHealth}: unanswered queries count toward the ejection of the server, while answers
+ * other than <code>NOERROR</code> and <code>NXDOMAIN</code> only lower its success rate.
+ *
+ */
+final class TrackedResolver implements Resolver
+{
+
+    /** The resolver addressing the server. */
+    private final Resolver resolver;
+    /** The addressed server. */
+    private final String server;
+    /** Health statistics to be fed. */
+    private final ServersHealth health;
+
+    /**
+     * @param resolver The resolver addressing the server
+     * @param server   The addressed server
+     * @param health   Health statistics to be fed
+     */
+    public TrackedResolver(Resolver resolver, String server, ServersHealth health)
+    {
+        this.resolver = resolver;
+        this.server = server;
+        this.health = health;
+    }
+
+    @Override
+    public Message send(Message query) throws IOException
+    {
+        long start = System.nanoTime();
+        try {
+            Message response = this.resolver.send(query);
+            record(response, start);
+            return response;
+        } catch (IOException exception) {
+            this.health.failure(this.server);
+            throw exception;
+        }
+    }
+
+    @Override
+    public Object sendAsync(Message query, final ResolverListener listener)
+    {
+        final long start = System.nanoTime();
+
+        return this.resolver.sendAsync(query, new ResolverListener() {
+            @Override
+            public void receiveMessage(Object id, Message response)
+            {
+                record(response, start);
+                listener.receiveMessage(id, response);
+            }
+
+            @Override
+            public void handleException(Object id, Exception exception)
+            {
+                health.failure(server);
+                listener.handleException(id, exception);
+            }
+        });
+    }
+
+    @Override
+    public void setPort(int port)
+    {
+        this.resolver.setPort(port);
+    }
+
+    @Override
+    public void setTCP(boolean flag)
+    {
+        this.resolver.setTCP(flag);
+    }
+
+    @Override
+    public void setIgnoreTruncation(boolean flag)
+    {
+        this.resolver.setIgnoreTruncation(flag);
+    }
+
+    @Override
+    public void setEDNS(int level)
+    {
+        this.resolver.setEDNS(level);
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public void setEDNS(int level, int payloadSize, int flags, List options)
+    {
+        this.resolver.setEDNS(level, payloadSize, flags, options);
+    }
+
+    @Override
+    public void setTSIGKey(TSIG key)
+    {
+        this.resolver.setTSIGKey(key);
+    }
+
+    @Override
+    public void setTimeout(int secs, int msecs)
+    {
+        this.resolver.setTimeout(secs, msecs);
+    }
+
+    @Override
+    public void setTimeout(int secs)
+    {
+        this.resolver.setTimeout(secs);
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.resolver.toString();
+    }
+
+    /**
+     * Private helper recording the outcome of an answered query.
+     *
+     * @param response The received answer
+     * @param start    Sending time, as <code>System.nanoTime()</code> value
+     */
+    private void record(Message response, long start)
+    {
+        int rcode = response.getRcode();
+        if (rcode == Rcode.NOERROR || rcode == Rcode.NXDOMAIN) {
+            this.health.success(this.server, System.nanoTime() - start);
+        } else {
+            this.health.serverError(this.server);
+        }
+    }
+
+}
@@ -9,6 +9,7 @@
 
 package org.eclipse.iot.tiaki.domain;
 
+import java.util.Arrays;
 import org.xbill.DNS.TLSARecord;
 import org.xbill.DNS.utils.base16;
 
@@ -16,13 +17,11 @@ import org.xbill.DNS.utils.base16;
 public class CertRecord extends DiscoveryRecord
 {
 
-	private TLSARecord tlsaRecord;
+	private final TLSARecord tlsaRecord;
 
 	public CertRecord ( TLSARecord tlsaRecord )
     {
-		super( tlsaRecord.getName().toString(),
-               base16.toString( tlsaRecord.getCertificateAssociationData() ),
-               tlsaRecord.getTTL());
+		super( tlsaRecord.getName().toString(), null, tlsaRecord.getTTL() );
 		this.tlsaRecord = tlsaRecord;
 	}
 
@@ -69,17 +68,72 @@ public class CertRecord extends DiscoveryRecord
     public int certSelector() { return tlsaRecord.getSelector(); }
 
 
-	@Override
-	public String toString()
+    @Override
+    public int hashCode()
     {
-		return String.format("%d %s", ttl, rData);
-	}
+        int hash = 7;
+        hash = 31 * hash + certUsage();
+        hash = 31 * hash + certSelector();
+        hash = 31 * hash + certMatchingType();
+        hash = 31 * hash + Arrays.hashCode(this.tlsaRecord.getCertificateAssociationData());
+        hash = 31 * hash + (int) (this.ttl ^ (this.ttl >>> 32));
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (obj == null) {
+            return false;
+        }
+
+        if (this.getClass() != obj.getClass()) {
+            return false;
+        }
+
+        final CertRecord that = (CertRecord) obj;
+
+        return certUsage() == that.certUsage() && certSelector() == that.certSelector()
+                && certMatchingType() == that.certMatchingType() && this.ttl == that.ttl
+                && Arrays.equals(this.tlsaRecord.getCertificateAssociationData(),
+                                 that.tlsaRecord.getCertificateAssociationData());
+    }
+
+    /**
+     * Orders by association data, as its hexadecimal rendering would be.
+     */
+    @Override
+    public int compareTo(DiscoveryRecord other)
+    {
+        if (!(other instanceof CertRecord)) {
+            return super.compareTo(other);
+        }
+
+        byte[] mine = this.tlsaRecord.getCertificateAssociationData();
+        byte[] theirs = ((CertRecord) other).tlsaRecord.getCertificateAssociationData();
+        for (int i = 0; i < Math.min(mine.length, theirs.length); i++) {
+            int diff = (mine[i] & 0xFF) - (theirs[i] & 0xFF);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+
+        return mine.length - theirs.length;
+    }
+
+    @Override
+    protected String renderRData()
+    {
+        return base16.toString(this.tlsaRecord.getCertificateAssociationData());
+    }
 
     @Override
-	public String toDisplay()
+	protected String renderDisplay()
     {
-		return String.format("%d %s %d %d %d %s", ttl, "TLSA",
-                                certMatchingType(), certUsage(), certSelector(), rData);
+		return new StringBuilder(getRData().length() + 32)
+            .append(ttl).append(" TLSA ").append(certMatchingType()).append(' ').append(certUsage())
+            .append(' ').append(certSelector()).append(' ').append(getRData())
+            .toString();
 	}
 
 }
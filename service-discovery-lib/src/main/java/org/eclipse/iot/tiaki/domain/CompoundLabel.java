@@ -211,6 +211,7 @@ public class CompoundLabel
         int hash = 7;
         hash = 89 * hash + Objects.hashCode(this.type);
         hash = 89 * hash + Objects.hashCode(this.subType);
+        hash = 89 * hash + Objects.hashCode(this.proto);
 
         return hash;
     }
@@ -231,6 +232,9 @@ public class CompoundLabel
         if (!Objects.equals(this.subType, other.subType)) {
             return false;
         }
+        if (!Objects.equals(this.proto, other.proto)) {
+            return false;
+        }
 
         return true;
     }
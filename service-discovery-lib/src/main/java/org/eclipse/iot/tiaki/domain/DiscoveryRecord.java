@@ -15,6 +15,11 @@ import java.util.Objects;
  * Base Class abstracting the commonalities of Discovery Data. A <code>DiscoveryRecord</code>
  * defines a @{link Comparable} instance.
  *
+ * Subclasses holding structured data (e.g. host and port) do not provide their raw textual data
+ * up front: it is rendered on first access, see {@link #renderRData()}, as are the
+ * <code>toString()</code> and {@link #toDisplay()} strings, each one at most once. Such
+ * subclasses compare their structured data as well, instead of the rendered one.
+ *
  */
 public abstract class DiscoveryRecord implements Comparable<DiscoveryRecord>
 {
@@ -23,13 +28,20 @@ public abstract class DiscoveryRecord implements Comparable<DiscoveryRecord>
      */
     protected final String owner;
     /**
-     * A <code>String</code> containing this resource record raw textual data.
+     * A <code>String</code> containing this resource record raw textual data, <code>null</code>
+     * if rendered on first access: use {@link #getRData()} instead.
      */
     protected final String rData;
     /**
      * Resource record specific TTL.
      */
     protected final long ttl;
+    /** The raw textual data rendered on first access, <code>null</code> until rendered. */
+    private volatile String rendered;
+    /** The <code>toString()</code> rendering, <code>null</code> until rendered. */
+    private volatile String text;
+    /** The <code>toDisplay()</code> rendering, <code>null</code> until rendered. */
+    private volatile String display;
 
     public DiscoveryRecord()
     {
@@ -41,6 +53,11 @@ public abstract class DiscoveryRecord implements Comparable<DiscoveryRecord>
         this("N/A", rData, ttl);
     }
 
+    /**
+     * @param owner The owner of this record
+     * @param rData The raw textual data, <code>null</code> to render it on first access
+     * @param ttl   The TTL of this record
+     */
     public DiscoveryRecord(String owner, String rData, long ttl)
     {
         this.owner = owner;
@@ -55,7 +72,16 @@ public abstract class DiscoveryRecord implements Comparable<DiscoveryRecord>
 
     public String getRData()
     {
-        return this.rData;
+        if (this.rData != null) {
+            return this.rData;
+        }
+        String data = this.rendered;
+        if (data == null) {
+            data = renderRData();
+            this.rendered = data;
+        }
+
+        return data;
     }
 
     public long getTtl()
@@ -92,19 +118,61 @@ public abstract class DiscoveryRecord implements Comparable<DiscoveryRecord>
      * @return A <code>String</code> with a representable version of this
      * <code>DiscoveryRecord</code>
      */
-    public abstract String toDisplay();
+    public String toDisplay()
+    {
+        String rendered = this.display;
+        if (rendered == null) {
+            rendered = renderDisplay();
+            this.display = rendered;
+        }
+
+        return rendered;
+    }
+
+    /**
+     * Render the raw textual data of a record built without, invoked at most once by
+     * {@link #getRData()}.
+     *
+     * @return A <code>String</code> containing this resource record raw textual data
+     */
+    protected String renderRData()
+    {
+        return null;
+    }
+
+    /**
+     * Render this record as returned by <code>toString()</code>, invoked at most once.
+     *
+     * @return A <code>String</code> with the TTL and raw textual data of this record
+     */
+    protected String renderString()
+    {
+        return this.ttl + " " + getRData();
+    }
+
+    /**
+     * Render this record as returned by {@link #toDisplay()}, invoked at most once. Subclasses
+     * overriding {@link #toDisplay()} itself do not need to override this method.
+     *
+     * @return A <code>String</code> with a representable version of this record, its
+     *         <code>toString()</code> rendering by default
+     */
+    protected String renderDisplay()
+    {
+        return toString();
+    }
 
     @Override
     public int compareTo(DiscoveryRecord t)
     {
-        return this.rData.compareTo(t.getRData());
+        return getRData().compareTo(t.getRData());
     }
 
     @Override
     public int hashCode()
     {
         int hash = 3;
-        hash = 97 * hash + Objects.hashCode(this.rData);
+        hash = 97 * hash + Objects.hashCode(getRData());
         hash = 97 * hash + (int) (this.ttl ^ (this.ttl >>> 32));
         return hash;
     }
@@ -119,7 +187,7 @@ public abstract class DiscoveryRecord implements Comparable<DiscoveryRecord>
             return false;
         }
         final DiscoveryRecord other = (DiscoveryRecord) obj;
-        if (!Objects.equals(this.rData, other.rData)) {
+        if (!Objects.equals(getRData(), other.getRData())) {
             return false;
         }
         if (this.ttl != other.ttl) {
@@ -131,7 +199,13 @@ public abstract class DiscoveryRecord implements Comparable<DiscoveryRecord>
     @Override
     public String toString()
     {
-        return String.format("%d %s", this.ttl, this.rData);
+        String rendered = this.text;
+        if (rendered == null) {
+            rendered = renderString();
+            this.text = rendered;
+        }
+
+        return rendered;
     }
 
 }
@@ -12,10 +12,18 @@ package org.eclipse.iot.tiaki.domain;
 import org.eclipse.iot.tiaki.commons.Constants;
 import org.eclipse.iot.tiaki.utils.ValidatorUtil;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * A class abstracting a Fully Qualified Domain Name (FQDN).
  *
+ * The rendered name is built and validated once, on first use, as well as the last name rendered
+ * with a prefix; names seen over and over (e.g. the ones answered by PTR records) can be shared
+ * through {@link #intern(String)}.
+ *
+ * Immutable.
+ *
  * @see <a href="http://en.wikipedia.org/wiki/Fully_qualified_domain_name">FQDN</a>
  * @see <a href="http://en.wikipedia.org/wiki/CNAME_record">CNAME</a>
  */
@@ -23,9 +31,13 @@ public final class Fqdn
 {
 
     /**
-     * Quoting template for escaped FQDNs.
+     * Quote of escaped FQDNs.
      */
-    private static final String DNS_SD_QUOTED = "\"%s\"";
+    private static final String DNS_SD_QUOTE = "\"";
+    /**
+     * Interned names, keyed by domain name.
+     */
+    private static final ConcurrentMap<String, Fqdn> INTERNED = new ConcurrentHashMap<>();
 
     /**
      * A label to be concatenated with the root domain name.
@@ -35,6 +47,14 @@ public final class Fqdn
      * A root domain name.
      */
     private final String domain;
+    /**
+     * The rendered FQDN, <code>null</code> until first rendered.
+     */
+    private volatile String rendered;
+    /**
+     * The FQDN last rendered with a prefix, <code>null</code> if none.
+     */
+    private volatile Prefixed prefixed;
 
     /**
      * Constructor taking in input the domain name to be used onwards.
@@ -61,6 +81,31 @@ public final class Fqdn
         this.domain = domain.trim();
     }
 
+    /**
+     * Return the shared instance of the provided domain name, building it if unknown. Interned
+     * names are bounded: once {@link Constants#FQDN_INTERNED_NAMES} are known, they are let go
+     * altogether.
+     *
+     * @param domain A <code>String</code> containing a domain name
+     * @return The <code>Fqdn</code> of the domain name
+     */
+    public static Fqdn intern(String domain)
+    {
+        Fqdn fqdn = INTERNED.get(domain);
+        if (fqdn == null) {
+            fqdn = new Fqdn(domain);
+            if (INTERNED.size() >= Constants.FQDN_INTERNED_NAMES) {
+                INTERNED.clear();
+            }
+            Fqdn interned = INTERNED.putIfAbsent(domain, fqdn);
+            if (interned != null) {
+                fqdn = interned;
+            }
+        }
+
+        return fqdn;
+    }
+
     /**
      * Return a FQDN.
      *
@@ -69,7 +114,13 @@ public final class Fqdn
     // TODO Remove in favour of toString()
     public String fqdn()
     {
-        return buildFQDN("");
+        String fqdn = this.rendered;
+        if (fqdn == null) {
+            fqdn = buildFQDN("");
+            this.rendered = fqdn;
+        }
+
+        return fqdn;
     }
 
     /**
@@ -80,11 +131,17 @@ public final class Fqdn
      */
     public String fqdnWithPrefix(String prefix)
     {
-        String builtFqdn = buildFQDN("");
+        String builtFqdn = fqdn();
         if(builtFqdn.contains(prefix))
             return builtFqdn;
-        else
-            return buildFQDN(prefix);
+
+        Prefixed last = this.prefixed;
+        if (last == null || !last.prefix.equals(prefix)) {
+            last = new Prefixed(prefix, buildFQDN(prefix));
+            this.prefixed = last;
+        }
+
+        return last.fqdn;
     }
 
 	/**
@@ -115,34 +172,45 @@ public final class Fqdn
      */
     private String buildFQDN(String prefix)
     {
-        StringBuilder builder = new StringBuilder();
+        StringBuilder builder = new StringBuilder(this.entityLabel.length() + this.domain.length()
+                                                  + (prefix == null ? 0 : prefix.length()) + 3);
         if (prefix != null && !prefix.isEmpty()) {
             builder.append(prefix);
-            if(!builder.toString().endsWith(Constants.DNS_LABEL_DELIMITER))
-                builder.append(Constants.DNS_LABEL_DELIMITER);
+            delimit(builder);
         }
         if (!this.entityLabel.isEmpty()) {
             builder.append(this.entityLabel);
-            if(!builder.toString().endsWith(Constants.DNS_LABEL_DELIMITER))
-                builder.append(Constants.DNS_LABEL_DELIMITER);
+            delimit(builder);
         }
         builder.append(this.domain);
-        if (!this.domain.endsWith(Constants.DNS_LABEL_DELIMITER)) {
-            builder.append(Constants.DNS_LABEL_DELIMITER);
-        }
-        ValidatorUtil.isValidDomainName(builder.toString());
+        delimit(builder);
+        String built = builder.toString();
+        ValidatorUtil.isValidDomainName(built);
 
-        if (ValidatorUtil.isDnsSdDomainName(builder.toString())) {
-            return String.format(DNS_SD_QUOTED, builder.toString());
+        if (ValidatorUtil.isDnsSdDomainName(built)) {
+            return DNS_SD_QUOTE + built + DNS_SD_QUOTE;
         } else {
-            return builder.toString();
+            return built;
+        }
+    }
+
+    /**
+     * Terminate the name being built with the label delimiter, unless already terminated.
+     *
+     * @param builder A <code>StringBuilder</code> holding the name being built
+     */
+    private static void delimit(StringBuilder builder)
+    {
+        if (builder.length() == 0
+                || builder.charAt(builder.length() - 1) != Constants.DNS_LABEL_DELIMITER.charAt(0)) {
+            builder.append(Constants.DNS_LABEL_DELIMITER);
         }
     }
 
     @Override
     public String toString()
     {
-        return buildFQDN("");
+        return fqdn();
     }
 
     @Override
@@ -174,4 +242,21 @@ public final class Fqdn
         return hash;
     }
 
+    /**
+     * Helper class coupling a prefix with the FQDN rendered with it.
+     */
+    private static final class Prefixed
+    {
+
+        private final String prefix;
+        private final String fqdn;
+
+        public Prefixed(String prefix, String fqdn)
+        {
+            this.prefix = prefix;
+            this.fqdn = fqdn;
+        }
+
+    }
+
 }
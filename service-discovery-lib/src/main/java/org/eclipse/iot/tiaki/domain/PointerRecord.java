@@ -11,6 +11,7 @@ package org.eclipse.iot.tiaki.domain;
 
 import org.eclipse.iot.tiaki.commons.Constants;
 import org.eclipse.iot.tiaki.utils.RDataUtil;
+import org.xbill.DNS.Name;
 import org.xbill.DNS.PTRRecord;
 
 /**
@@ -23,6 +24,9 @@ import org.xbill.DNS.PTRRecord;
 public class PointerRecord extends DiscoveryRecord
 {
 
+    /** The name the record points to. */
+    private final Name target;
+
     /**
      * Static builder. It wraps out a {@link PTRRecord} by extracting relevant data.
      *
@@ -42,7 +46,7 @@ public class PointerRecord extends DiscoveryRecord
      */
     public String getDnsLabel()
     {
-        return RDataUtil.getDnsLabelFromRData( this.rData );
+        return RDataUtil.getDnsLabelFromRData( getRData() );
     }
 
     /**
@@ -55,8 +59,9 @@ public class PointerRecord extends DiscoveryRecord
     @Override
     public String getServiceType()
     {
-        return this.rData.contains(Constants.DNS_LABEL_DELIMITER) ? this.rData.substring(1,
-                this.rData.indexOf(Constants.DNS_LABEL_DELIMITER)) : null;
+        String rData = getRData();
+        return rData.contains(Constants.DNS_LABEL_DELIMITER) ? rData.substring(1,
+                rData.indexOf(Constants.DNS_LABEL_DELIMITER)) : null;
     }
 
     /**
@@ -69,7 +74,8 @@ public class PointerRecord extends DiscoveryRecord
     @Override
     public String getServiceZone(String dnsLabel)
     {
-        return this.rData.contains(dnsLabel) ? this.rData.substring(dnsLabel.length() + 1) : null;
+        String rData = getRData();
+        return rData.contains(dnsLabel) ? rData.substring(dnsLabel.length() + 1) : null;
     }
 
     /**
@@ -82,25 +88,67 @@ public class PointerRecord extends DiscoveryRecord
     @Override
     public String getServiceName(String dnsLabel)
     {
-        return this.rData.contains(dnsLabel) ? this.rData : null;
+        String rData = getRData();
+        return rData.contains(dnsLabel) ? rData : null;
     }
 
     private PointerRecord(PTRRecord ptrRecord)
     {
-        super(ptrRecord.getName().toString(),
-                ptrRecord.rdataToString(), ptrRecord.getTTL());
+        super(ptrRecord.getName().toString(), null, ptrRecord.getTTL());
+        this.target = ptrRecord.getTarget();
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int hash = 7;
+        hash = 31 * hash + this.target.hashCode();
+        hash = 31 * hash + (int) (this.ttl ^ (this.ttl >>> 32));
+        return hash;
+    }
+
+    /**
+     * Compares the targets as DNS names do, i.e. case-insensitively.
+     */
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (obj == null) {
+            return false;
+        }
+
+        if (this.getClass() != obj.getClass()) {
+            return false;
+        }
+
+        final PointerRecord that = (PointerRecord) obj;
+
+        return this.ttl == that.ttl && this.target.equals(that.target);
+    }
+
+    /**
+     * Orders by target, in DNS canonical order.
+     */
+    @Override
+    public int compareTo(DiscoveryRecord other)
+    {
+        if (!(other instanceof PointerRecord)) {
+            return super.compareTo(other);
+        }
+
+        return this.target.compareTo(((PointerRecord) other).target);
     }
 
     @Override
-    public String toString()
+    protected String renderRData()
     {
-        return super.toString();
+        return this.target.toString();
     }
 
     @Override
-    public String toDisplay()
+    protected String renderDisplay()
     {
-        return String.format("%d PTR %s", ttl, rData);
+        return this.ttl + " PTR " + getRData();
     }
 
 }
@@ -10,12 +10,19 @@
 
 package org.eclipse.iot.tiaki.domain;
 
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 
 /**
  * Class to capture service instance related information. This includes both the SRV and TXT record information. It implements
  * {@link Comparable} to sort services based on priority of {@link ServiceRecord}.
  *
+ * The addresses of the SRV target, if resolved, are carried along: they are not part of the
+ * identity of the instance.
+ *
  */
 public final class ServiceInstance extends DiscoveryRecord
 {
@@ -26,6 +33,8 @@ public final class ServiceInstance extends DiscoveryRecord
 	private final ServiceRecord serviceRecord;
 	/** The <code>TextRecord</code> of this Service Instance. */
 	private final TextRecord textRecord;
+	/** The addresses of the SRV target of this Service Instance, IPv4 first. */
+	private final List<InetAddress> addresses;
 
 
 	/**
@@ -40,12 +49,31 @@ public final class ServiceInstance extends DiscoveryRecord
 	 */
 	public ServiceInstance ( String serviceType, ServiceRecord serviceRecord, TextRecord textRecord )
     {
-		super( String.format( "%s %s %d %d %d %d %s", serviceType, serviceRecord.getHost(), serviceRecord.getPort(),
-				serviceRecord.getPriority(), serviceRecord.getWeight(), serviceRecord.getTtl(), textRecord.getRData() ),
-				serviceRecord.getTtl() );
+		this( serviceType, serviceRecord, textRecord, Collections.<InetAddress>emptyList() );
+	}
+
+
+	/**
+	 * Four arguments constructor building up a Service Instance along with the addresses of its host.
+	 *
+	 * @param serviceType
+	 *        A <code>String</code> defining the Service Type of this Service Instance
+	 * @param serviceRecord
+	 *        The <code>ServiceRecord</code> of this Service Instance
+	 * @param textRecord
+	 *        The <code>TextRecord</code> of this Service Instance
+	 * @param addresses
+	 *        The addresses of the SRV target of this Service Instance
+	 */
+	public ServiceInstance ( String serviceType, ServiceRecord serviceRecord, TextRecord textRecord,
+			List<InetAddress> addresses )
+    {
+		super( null, serviceRecord.getTtl() );
 		this.serviceType = serviceType;
 		this.serviceRecord = serviceRecord;
 		this.textRecord = textRecord;
+		this.addresses = ( addresses.isEmpty() ? Collections.<InetAddress>emptyList()
+				: Collections.unmodifiableList( new ArrayList<>( addresses ) ) );
 	}
 
 
@@ -71,6 +99,18 @@ public final class ServiceInstance extends DiscoveryRecord
 	}
 
 
+	/**
+	 * Returns the addresses of the SRV target, as found in the additional sections of the responses
+	 * or resolved upon listing (see <code>Configurable.resolveAddresses</code>)
+	 *
+	 * @return An immutable list of the addresses, IPv4 first, empty if none is known
+	 */
+	public List<InetAddress> getAddresses ()
+    {
+		return this.addresses;
+	}
+
+
 	@Override
 	public int hashCode ()
     {
@@ -113,20 +153,6 @@ public final class ServiceInstance extends DiscoveryRecord
 	}
 
 
-	@Override
-	public String toString ()
-    {
-		StringBuilder sb = new StringBuilder();
-		sb.append( this.serviceRecord );
-		if ( this.textRecord != null ) {
-			sb.append( " " )
-              .append( this.textRecord.getRData() );
-		}
-
-		return sb.toString();
-	}
-
-
 	@Override
 	public String getServiceType ()
     {
@@ -147,10 +173,42 @@ public final class ServiceInstance extends DiscoveryRecord
 		throw new UnsupportedOperationException( "Not supported yet." );
 	}
 
-    @Override
-    public String toDisplay()
+	@Override
+	protected String renderRData ()
+    {
+		StringBuilder sb = new StringBuilder( 64 );
+		sb.append( this.serviceType ).append( ' ' ).append( this.serviceRecord.getHost() )
+		  .append( ' ' ).append( this.serviceRecord.getPort() )
+		  .append( ' ' ).append( this.serviceRecord.getPriority() )
+		  .append( ' ' ).append( this.serviceRecord.getWeight() )
+		  .append( ' ' ).append( this.serviceRecord.getTtl() );
+		if ( this.textRecord != null ) {
+			sb.append( ' ' )
+              .append( this.textRecord.getRData() );
+		}
+
+		return sb.toString();
+	}
+
+
+	@Override
+	protected String renderString ()
+    {
+		StringBuilder sb = new StringBuilder();
+		sb.append( this.serviceRecord );
+		if ( this.textRecord != null ) {
+			sb.append( " " )
+              .append( this.textRecord.getRData() );
+		}
+
+		return sb.toString();
+	}
+
+
+	@Override
+	protected String renderDisplay ()
     {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
-    }
+		throw new UnsupportedOperationException( "Not supported yet." );
+	}
 
 }
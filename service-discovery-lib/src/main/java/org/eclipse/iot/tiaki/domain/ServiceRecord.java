@@ -58,7 +58,7 @@ public final class ServiceRecord extends DiscoveryRecord
         else if(owner.contains(Constants.UDP))
             proto = Constants.UDP.replace("_", "").toUpperCase();
 
-        return new ServiceRecord(srvRecord.getName().toString(),
+        return new ServiceRecord(owner,
                                  srvRecord.getTarget().toString(),
                                  proto,
                                  srvRecord.getPort(), srvRecord.getPriority(),
@@ -139,13 +139,6 @@ public final class ServiceRecord extends DiscoveryRecord
 
     }
 
-    @Override
-    public String toString()
-    {
-        return String.format("%d \"%s\" %s %s:%d", ttl, DnsUtil.extractDnsSdDescription(owner),
-                (host.endsWith(".") ? host.substring(0, host.length() - 1) : host), proto, port);
-    }
-
     @Override
     public int compareTo(DiscoveryRecord other)
     {
@@ -171,26 +164,15 @@ public final class ServiceRecord extends DiscoveryRecord
                 return 1;
             }
         } else {
-            return this.compareTo(other);
+            return super.compareTo(other);
         }
 
         return 0;
     }
 
-    private ServiceRecord(String host, String proto, int port, int priority, int weight, long ttl)
-    {
-        super(String.format("%s %s:%d %d %d %d", host, proto, port, priority, weight, ttl), ttl);
-        this.host = host;
-        this.proto = proto;
-        this.port = port;
-        this.priority = priority;
-        this.weight = weight;
-    }
-
     private ServiceRecord(String owner, String host, String proto, int port, int priority, int weight, long ttl)
     {
-        super(owner, String.format("\"%s\" %s %s:%d %d %d %d",
-                        DnsUtil.extractDnsSdDescription(owner), host, proto, port, priority, weight, ttl), ttl);
+        super(owner, null, ttl);
         this.host = host;
         this.proto = proto;
         this.port = port;
@@ -215,9 +197,39 @@ public final class ServiceRecord extends DiscoveryRecord
     }
 
     @Override
-    public String toDisplay() {
-        return String.format("%d SRV %d %d %s:%d", ttl, priority, weight,
-                (host.endsWith(".") ? host.substring(0, host.length() - 1) : host), port);
+    protected String renderRData()
+    {
+        return new StringBuilder(this.owner.length() + this.host.length() + 32)
+            .append('"').append(DnsUtil.extractDnsSdDescription(this.owner)).append("\" ")
+            .append(this.host).append(' ').append(this.proto).append(':').append(this.port)
+            .append(' ').append(this.priority).append(' ').append(this.weight).append(' ').append(this.ttl)
+            .toString();
+    }
+
+    @Override
+    protected String renderString()
+    {
+        return new StringBuilder(this.owner.length() + this.host.length() + 24)
+            .append(this.ttl).append(" \"").append(DnsUtil.extractDnsSdDescription(this.owner)).append("\" ")
+            .append(bareHost()).append(' ').append(this.proto).append(':').append(this.port)
+            .toString();
+    }
+
+    @Override
+    protected String renderDisplay()
+    {
+        return new StringBuilder(this.host.length() + 32)
+            .append(this.ttl).append(" SRV ").append(this.priority).append(' ').append(this.weight).append(' ')
+            .append(bareHost()).append(':').append(this.port)
+            .toString();
+    }
+
+    /**
+     * Private helper stripping the trailing dot of the host.
+     */
+    private String bareHost()
+    {
+        return (this.host.endsWith(".") ? this.host.substring(0, this.host.length() - 1) : this.host);
     }
 
 }
@@ -9,6 +9,9 @@
 
 package org.eclipse.iot.tiaki.domain;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Set;
 import org.xbill.DNS.TXTRecord;
 
@@ -20,6 +23,11 @@ import org.xbill.DNS.TXTRecord;
 public final class TextRecord extends DiscoveryRecord
 {
 
+    /** The received record, <code>null</code> for a compound record. */
+    private final TXTRecord txtRecord;
+    /** The flattened records of a compound record, <code>null</code> otherwise. */
+    private final List<TextRecord> parts;
+
     /**
      * Takes in input a <code>Set</code> of strings and produces a value corresponding to the max TTL
      *
@@ -29,18 +37,16 @@ public final class TextRecord extends DiscoveryRecord
      */
     public final static TextRecord build( Set<TextRecord> txtsRec )
     {
-        StringBuilder flattened = new StringBuilder();
         String owner = null;
         long max = Long.MIN_VALUE;
         for(TextRecord txt: txtsRec) {
-            flattened.append(txt.getRData());
             if(txt.getTtl() > max)
                 max = txt.getTtl();
             if(owner == null)
                 owner = txt.getOwner();
         }
 
-        return new TextRecord(owner, flattened.toString(), max);
+        return new TextRecord(owner, new ArrayList<>(txtsRec), max);
     }
 
 	/**
@@ -52,18 +58,22 @@ public final class TextRecord extends DiscoveryRecord
 	 */
 	public final static TextRecord build ( TXTRecord txtRec )
     {
-		return new TextRecord( txtRec.rdataToString(), txtRec.getTTL() );
+		return new TextRecord( txtRec );
 	}
 
 
-	private TextRecord ( String txtData, long ttl )
+	private TextRecord ( TXTRecord txtRec )
     {
-		super( txtData, ttl );
+		super( null, txtRec.getTTL() );
+		this.txtRecord = txtRec;
+		this.parts = null;
 	}
 
-    private TextRecord ( String owner, String txtData, long ttl )
+    private TextRecord ( String owner, List<TextRecord> parts, long ttl )
     {
-		super( owner, txtData, ttl );
+		super( owner, null, ttl );
+		this.txtRecord = null;
+		this.parts = parts;
 	}
 
 	@Override
@@ -87,15 +97,114 @@ public final class TextRecord extends DiscoveryRecord
 	}
 
 	@Override
-	public String toString()
-	{
-		return super.toString();
+	protected String renderRData ()
+    {
+		if ( this.txtRecord != null ) {
+			return this.txtRecord.rdataToString();
+		}
+
+		StringBuilder flattened = new StringBuilder();
+		for ( TextRecord txt: this.parts ) {
+			flattened.append( txt.getRData() );
+		}
+
+		return flattened.toString();
 	}
 
     @Override
-    public String toDisplay()
+    protected String renderDisplay()
     {
-        return String.format("%d TXT %s", ttl, rData);
+        return this.ttl + " TXT " + getRData();
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int hash = 7;
+        for (byte[] string : strings()) {
+            hash = 31 * hash + Arrays.hashCode(string);
+        }
+        hash = 31 * hash + (int) (this.ttl ^ (this.ttl >>> 32));
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (obj == null) {
+            return false;
+        }
+
+        if (this.getClass() != obj.getClass()) {
+            return false;
+        }
+
+        final TextRecord that = (TextRecord) obj;
+        if (this.ttl != that.ttl) {
+            return false;
+        }
+        List<byte[]> mine = strings();
+        List<byte[]> theirs = that.strings();
+        if (mine.size() != theirs.size()) {
+            return false;
+        }
+        for (int i = 0; i < mine.size(); i++) {
+            if (!Arrays.equals(mine.get(i), theirs.get(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Orders by character-strings, byte-wise, as their textual rendering would mostly be.
+     */
+    @Override
+    public int compareTo(DiscoveryRecord other)
+    {
+        if (!(other instanceof TextRecord)) {
+            return super.compareTo(other);
+        }
+
+        List<byte[]> mine = strings();
+        List<byte[]> theirs = ((TextRecord) other).strings();
+        for (int i = 0; i < Math.min(mine.size(), theirs.size()); i++) {
+            byte[] string = mine.get(i);
+            byte[] otherString = theirs.get(i);
+            for (int j = 0; j < Math.min(string.length, otherString.length); j++) {
+                int diff = (string[j] & 0xFF) - (otherString[j] & 0xFF);
+                if (diff != 0) {
+                    return diff;
+                }
+            }
+            if (string.length != otherString.length) {
+                return string.length - otherString.length;
+            }
+        }
+
+        return mine.size() - theirs.size();
+    }
+
+    /**
+     * Private helper retrieving the character-strings of this record, those of its parts in
+     * order for a compound record.
+     *
+     * @return The character-strings as byte arrays
+     */
+    @SuppressWarnings("unchecked")
+    private List<byte[]> strings()
+    {
+        if (this.txtRecord != null) {
+            return this.txtRecord.getStringsAsByteArrays();
+        }
+
+        List<byte[]> strings = new ArrayList<>();
+        for (TextRecord txt : this.parts) {
+            strings.addAll(txt.strings());
+        }
+
+        return strings;
     }
 
 }
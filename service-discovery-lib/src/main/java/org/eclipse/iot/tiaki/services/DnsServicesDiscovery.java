@@ -9,19 +9,48 @@
 
 package org.eclipse.iot.tiaki.services;
 
+import java.io.IOException;
 import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.eclipse.iot.tiaki.AsyncDnsDiscovery;
+import org.eclipse.iot.tiaki.BatchDnsDiscovery;
 import org.eclipse.iot.tiaki.DnsDiscovery;
+import org.eclipse.iot.tiaki.PartialDnsDiscovery;
+import org.eclipse.iot.tiaki.WatchingDnsDiscovery;
 import org.eclipse.iot.tiaki.commons.Configurable;
 import org.eclipse.iot.tiaki.commons.Constants;
+import org.eclipse.iot.tiaki.commons.DiscoveryCallback;
+import org.eclipse.iot.tiaki.commons.DiscoveryConfig;
+import org.eclipse.iot.tiaki.commons.DiscoveryFuture;
+import org.eclipse.iot.tiaki.commons.DiscoveryMetrics;
+import org.eclipse.iot.tiaki.commons.InstancesResult;
+import org.eclipse.iot.tiaki.commons.LookupCaches;
 import org.eclipse.iot.tiaki.commons.LookupContext;
-import org.eclipse.iot.tiaki.commons.StatusChangeEvent;
+import org.eclipse.iot.tiaki.commons.ResultsCache;
+import org.eclipse.iot.tiaki.commons.ServersHealth;
+import org.eclipse.iot.tiaki.commons.ServiceChanges;
+import org.eclipse.iot.tiaki.commons.ServiceWatch;
+import org.eclipse.iot.tiaki.commons.ServiceWatchListener;
 import org.eclipse.iot.tiaki.commons.StatusCode;
+import org.eclipse.iot.tiaki.commons.TraceListener;
+import org.eclipse.iot.tiaki.commons.TraceSpan;
 import org.eclipse.iot.tiaki.domain.CertRecord;
 import org.eclipse.iot.tiaki.domain.CompoundLabel;
 import org.eclipse.iot.tiaki.domain.DnsCertPrefix;
@@ -32,35 +61,56 @@ import org.eclipse.iot.tiaki.domain.ServiceInstance;
 import org.eclipse.iot.tiaki.domain.ServiceRecord;
 import org.eclipse.iot.tiaki.domain.TextRecord;
 import org.eclipse.iot.tiaki.exceptions.ConfigurationException;
+import org.eclipse.iot.tiaki.exceptions.DnsServiceException;
 import org.eclipse.iot.tiaki.exceptions.LookupException;
 import org.eclipse.iot.tiaki.utils.DnsUtil;
 import org.eclipse.iot.tiaki.utils.ExceptionsUtil;
 import org.eclipse.iot.tiaki.utils.FormattingUtil;
 import org.eclipse.iot.tiaki.utils.ValidatorUtil;
+import org.xbill.DNS.AAAARecord;
+import org.xbill.DNS.ARecord;
 import org.xbill.DNS.Cache;
-import org.xbill.DNS.DClass;
+import org.xbill.DNS.Credibility;
 import org.xbill.DNS.Lookup;
+import org.xbill.DNS.Message;
+import org.xbill.DNS.Name;
 import org.xbill.DNS.PTRRecord;
+import org.xbill.DNS.RRset;
+import org.xbill.DNS.Rcode;
 import org.xbill.DNS.Record;
 import org.xbill.DNS.Resolver;
 import org.xbill.DNS.SRVRecord;
+import org.xbill.DNS.SetResponse;
 import org.xbill.DNS.TLSARecord;
 import org.xbill.DNS.TXTRecord;
+import org.xbill.DNS.TextParseException;
 import org.xbill.DNS.Type;
 
 /**
  * Class encapsulating the DNS-SD Service Lookup facilities.
  *
+ * Thread-safe: a single instance is meant to be shared by concurrent lookups. Each lookup reads the
+ * configuration snapshot once and goes on with it, so that a concurrent reload never mixes two
+ * configurations within a lookup; the errors trace of a lookup is owned by its calling thread.
+ *
  */
-public class DnsServicesDiscovery extends Configurable implements DnsDiscovery
+public class DnsServicesDiscovery extends Configurable implements DnsDiscovery, AsyncDnsDiscovery, BatchDnsDiscovery,
+                                                                  PartialDnsDiscovery, WatchingDnsDiscovery
 {
 
-    /** Lookup Cache. */
-    private Cache anyClassCache;
+    /** Types of the address lookups of the SRV targets, IPv4 first. */
+    private static final int[] ADDRESS_TYPES = { Type.A, Type.AAAA };
+
+    /** Service Instances Cache, holding the assembled results. */
+    private final ResultsCache<Set<ServiceInstance>> instancesCache;
     /** Thread-owned Errors trace. */
-    private ThreadLocal<Map<String, StatusCode>> errorsTrace;
+    private final ThreadLocal<Map<String, StatusCode>> errorsTrace;
+    /** Thread-owned root span of the call, if traced. */
+    private final ThreadLocal<TraceSpan> callSpan;
     /** DNS Lookup helper. */
-    private ServicesLookupHelper helper;
+    private final ServicesLookupHelper helper;
+    /** Asynchronous DNS Lookup helper. */
+    private final AsyncLookupHelper asyncHelper;
 
     public DnsServicesDiscovery() { this(Constants.CACHE_SIZE, Constants.CACHE_TIME_LIMIT); }
 
@@ -68,107 +118,300 @@ public class DnsServicesDiscovery extends Configurable implements DnsDiscovery
      * Overloaded constructor taking as argument Cache size and TTL.
      *
      * @param cacheSize Unsigned <code>int</code> defining the Cache size
-     * @param cacheTTL Unsigned <code>int</code> defining the Cache TTL
+     * @param cacheTTL Unsigned <code>int</code> defining the Cache maximum TTL, for positive and negative entries
      */
     public DnsServicesDiscovery(int cacheSize, int cacheTTL)
     {
-        this.anyClassCache = new Cache(DClass.ANY);
-        this.anyClassCache.setMaxEntries(cacheSize);
-        this.anyClassCache.setMaxNCache(cacheTTL);
+        cacheMaxEntries(cacheSize);
+        cacheMaxTtl(cacheTTL);
+        cacheMaxNegativeTtl(cacheTTL);
+        this.instancesCache = new ResultsCache<>(cacheSize);
         this.helper = this.new ServicesLookupHelper();
+        this.asyncHelper = this.new AsyncLookupHelper();
         this.errorsTrace = new ThreadLocal<Map<String, StatusCode>>() {
             @Override
             protected Map<String, StatusCode> initialValue() {
                 return new LinkedHashMap<>();
             }
         };
+        this.callSpan = new ThreadLocal<>();
     }
 
     @Override
     public Set<String> listServiceTypes(Fqdn browsingDomain, boolean secValidation)
                         throws LookupException, ConfigurationException
     {
+        long start = System.nanoTime();
+        StatusCode outcome = StatusCode.SUCCESSFUL_OPERATION;
+        TraceSpan span = startTrace("listServiceTypes");
         try {
-            ValidatorUtil.isValidDomainName(browsingDomain);
-        } catch(IllegalArgumentException exception) {
-            throw new LookupException(StatusCode.ILLEGAL_FQDN, browsingDomain.fqdn());
-        }
-        validatedConf();
-        Set<String> result = null;
-        try {
-            result = new TreeSet<>();
-            result.addAll(this.helper.serviceTypes(browsingDomain, secValidation));
-            if (result.isEmpty() && !ExceptionsUtil.onlyNameResolutionTrace(this.errorsTrace.get())) {
-                throw ExceptionsUtil.build(StatusCode.RESOURCE_LOOKUP_ERROR,
-                                           FormattingUtil.unableToResolve(browsingDomain.fqdn()),
-                                           errorsTrace.get());
+            try {
+                ValidatorUtil.isValidDomainName(browsingDomain);
+            } catch(IllegalArgumentException exception) {
+                throw new LookupException(StatusCode.ILLEGAL_FQDN, browsingDomain.fqdn());
             }
-        } catch (LookupException | ConfigurationException exception) {
+            validatedConf();
+            Set<String> result = null;
+            try {
+                result = new TreeSet<>();
+                result.addAll(this.helper.serviceTypes(browsingDomain, secValidation));
+                if (result.isEmpty() && !ExceptionsUtil.onlyNameResolutionTrace(this.errorsTrace.get())) {
+                    throw ExceptionsUtil.build(StatusCode.RESOURCE_LOOKUP_ERROR,
+                                               FormattingUtil.unableToResolve(browsingDomain.fqdn()),
+                                               errorsTrace.get());
+                }
+            } catch (LookupException | ConfigurationException exception) {
+                throw exception;
+            } finally {
+                errorsTrace.remove();
+            }
+
+            return result;
+        } catch (LookupException | ConfigurationException | RuntimeException exception) {
+            outcome = outcomeOf(exception);
             throw exception;
         } finally {
-            errorsTrace.remove();
+            this.metrics.callCompleted("listServiceTypes", outcome, System.nanoTime() - start);
+            endTrace(span, outcome);
         }
-
-        return result;
     }
 
     @Override
     public Set<ServiceInstance> listServiceInstances(Fqdn browsingDomain, CompoundLabel type, boolean secValidation)
             throws LookupException, ConfigurationException
     {
+        long start = System.nanoTime();
+        StatusCode outcome = StatusCode.SUCCESSFUL_OPERATION;
+        TraceSpan span = startTrace("listServiceInstances");
         try {
-            ValidatorUtil.isValidDomainName(browsingDomain);
-        } catch(IllegalArgumentException exception) {
-            throw new LookupException(StatusCode.ILLEGAL_FQDN, browsingDomain.fqdn());
+            try {
+                ValidatorUtil.isValidDomainName(browsingDomain);
+            } catch(IllegalArgumentException exception) {
+                throw new LookupException(StatusCode.ILLEGAL_FQDN, browsingDomain.fqdn());
+            }
+            ValidatorUtil.isValidLabel(type);
+            validatedConf();
+            Set<ServiceInstance> cached = this.instancesCache.get(instancesKey(browsingDomain, type, secValidation));
+            this.metrics.cacheAccessed(DiscoveryMetrics.INSTANCES_CACHE, cached != null);
+            if (cached != null) {
+                return new TreeSet<>(cached);
+            }
+            Set<ServiceInstance> result = null;
+            try {
+                result = new TreeSet<>();
+                result.addAll(this.helper.serviceInstances(browsingDomain, type, secValidation));
+                if (result.isEmpty() && !ExceptionsUtil.onlyNameResolutionTrace(this.errorsTrace.get())) {
+                    throw ExceptionsUtil.build(StatusCode.RESOURCE_LOOKUP_ERROR,
+                            FormattingUtil.unableToResolve(browsingDomain.fqdnWithPrefix(type.prefixString())),
+                            errorsTrace.get());
+                }
+            } catch (LookupException | ConfigurationException exception) {
+                throw exception;
+            } finally {
+                errorsTrace.remove();
+            }
+
+            return result;
+        } catch (LookupException | ConfigurationException | RuntimeException exception) {
+            outcome = outcomeOf(exception);
+            throw exception;
+        } finally {
+            this.metrics.callCompleted("listServiceInstances", outcome, System.nanoTime() - start);
+            endTrace(span, outcome);
         }
-        ValidatorUtil.isValidLabel(type);
-        validatedConf();
-        Set<ServiceInstance> result = null;
+    }
+
+    @Override
+    public InstancesResult listServiceInstancesPartially(Fqdn browsingDomain, CompoundLabel type,
+                                                         boolean secValidation)
+            throws LookupException, ConfigurationException
+    {
+        long start = System.nanoTime();
+        StatusCode outcome = StatusCode.SUCCESSFUL_OPERATION;
+        TraceSpan span = startTrace("listServiceInstancesPartially");
         try {
-            result = new TreeSet<>();
-            result.addAll(this.helper.serviceInstances(browsingDomain, type, secValidation));
-            if (result.isEmpty() && !ExceptionsUtil.onlyNameResolutionTrace(this.errorsTrace.get())) {
-                throw ExceptionsUtil.build(StatusCode.RESOURCE_LOOKUP_ERROR,
-                        FormattingUtil.unableToResolve(browsingDomain.fqdnWithPrefix(type.prefixString())),
-                        errorsTrace.get());
+            try {
+                ValidatorUtil.isValidDomainName(browsingDomain);
+            } catch(IllegalArgumentException exception) {
+                throw new LookupException(StatusCode.ILLEGAL_FQDN, browsingDomain.fqdn());
             }
-        } catch (LookupException | ConfigurationException exception) {
+            ValidatorUtil.isValidLabel(type);
+            validatedConf();
+            Map<String, StatusCode> failures = new LinkedHashMap<>();
+            Set<ServiceInstance> cached = this.instancesCache.get(instancesKey(browsingDomain, type, secValidation));
+            this.metrics.cacheAccessed(DiscoveryMetrics.INSTANCES_CACHE, cached != null);
+            if (cached != null) {
+                return new InstancesResult(cached, failures);
+            }
+            try {
+                Set<ServiceInstance> result = this.helper.serviceInstances(browsingDomain, type, secValidation, failures);
+                if (result.isEmpty() && failures.isEmpty()
+                        && !ExceptionsUtil.onlyNameResolutionTrace(this.errorsTrace.get())) {
+                    throw ExceptionsUtil.build(StatusCode.RESOURCE_LOOKUP_ERROR,
+                            FormattingUtil.unableToResolve(browsingDomain.fqdnWithPrefix(type.prefixString())),
+                            errorsTrace.get());
+                }
+
+                return new InstancesResult(result, failures);
+            } finally {
+                errorsTrace.remove();
+            }
+        } catch (LookupException | ConfigurationException | RuntimeException exception) {
+            outcome = outcomeOf(exception);
             throw exception;
         } finally {
-            errorsTrace.remove();
+            this.metrics.callCompleted("listServiceInstancesPartially", outcome, System.nanoTime() - start);
+            endTrace(span, outcome);
         }
+    }
 
-        return result;
+    @Override
+    public Map<CompoundLabel, Set<ServiceInstance>> listServiceInstances(Fqdn browsingDomain,
+                                                                         Collection<CompoundLabel> types,
+                                                                         boolean secValidation)
+            throws LookupException, ConfigurationException
+    {
+        long start = System.nanoTime();
+        StatusCode outcome = StatusCode.SUCCESSFUL_OPERATION;
+        TraceSpan span = startTrace("listServiceInstancesBatch");
+        try {
+            try {
+                ValidatorUtil.isValidDomainName(browsingDomain);
+            } catch(IllegalArgumentException exception) {
+                throw new LookupException(StatusCode.ILLEGAL_FQDN, browsingDomain.fqdn());
+            }
+            for (CompoundLabel type : types) {
+                ValidatorUtil.isValidLabel(type);
+            }
+            validatedConf();
+
+            Map<CompoundLabel, Set<ServiceInstance>> result = new LinkedHashMap<>();
+            Set<CompoundLabel> pending = new LinkedHashSet<>();
+            boolean found = false;
+            for (CompoundLabel type : types) {
+                Set<ServiceInstance> cached = this.instancesCache.get(instancesKey(browsingDomain, type, secValidation));
+                this.metrics.cacheAccessed(DiscoveryMetrics.INSTANCES_CACHE, cached != null);
+                result.put(type, (cached != null ? new TreeSet<>(cached) : null));
+                if (cached == null) {
+                    pending.add(type);
+                } else {
+                    found |= !cached.isEmpty();
+                }
+            }
+            if (pending.isEmpty()) {
+                return result;
+            }
+
+            try {
+                Map<CompoundLabel, Set<ServiceInstance>> resolved = this.helper.serviceInstances(browsingDomain, pending,
+                                                                                                 secValidation);
+                for (Map.Entry<CompoundLabel, Set<ServiceInstance>> type : resolved.entrySet()) {
+                    result.put(type.getKey(), type.getValue());
+                    found |= !type.getValue().isEmpty();
+                }
+                if (!found && !ExceptionsUtil.onlyNameResolutionTrace(this.errorsTrace.get())) {
+                    throw ExceptionsUtil.build(StatusCode.RESOURCE_LOOKUP_ERROR,
+                                               FormattingUtil.unableToResolve(browsingDomain.fqdn()),
+                                               errorsTrace.get());
+                }
+            } finally {
+                errorsTrace.remove();
+            }
+
+            return result;
+        } catch (LookupException | ConfigurationException | RuntimeException exception) {
+            outcome = outcomeOf(exception);
+            throw exception;
+        } finally {
+            this.metrics.callCompleted("listServiceInstancesBatch", outcome, System.nanoTime() - start);
+            endTrace(span, outcome);
+        }
     }
 
     @Override
-    public Set<TextRecord> listTextRecords(Fqdn browsingDomain, String label, boolean secValidation)
-                                throws LookupException, ConfigurationException
+    public ServiceWatch watchServiceInstances(Fqdn browsingDomain, CompoundLabel type, boolean secValidation,
+                                              ServiceWatchListener listener)
+            throws LookupException, ConfigurationException
     {
         try {
             ValidatorUtil.isValidDomainName(browsingDomain);
         } catch(IllegalArgumentException exception) {
             throw new LookupException(StatusCode.ILLEGAL_FQDN, browsingDomain.fqdn());
         }
-        ValidatorUtil.isValidLabel(label);
+        ValidatorUtil.isValidLabel(type);
+        if (listener == null) {
+            throw new IllegalArgumentException("A watch listener is needed");
+        }
         validatedConf();
-        Set<TextRecord> result = null;
+        InstancesWatch watch = this.new InstancesWatch(browsingDomain, type, secValidation, listener);
+        watch.schedule(0L);
+
+        return watch;
+    }
+
+    /**
+     * @return The number of Service Instances listings answered by the cache
+     */
+    public long cacheHits()
+    {
+        return this.instancesCache.hits();
+    }
+
+    /**
+     * @return The number of Service Instances listings not answered by the cache
+     */
+    public long cacheMisses()
+    {
+        return this.instancesCache.misses();
+    }
+
+    /**
+     * @return The health statistics of the configured servers, kept across lookups
+     */
+    public ServersHealth serversHealth()
+    {
+        return this.resolversRegistry.health();
+    }
+
+    @Override
+    public Set<TextRecord> listTextRecords(Fqdn browsingDomain, String label, boolean secValidation)
+                                throws LookupException, ConfigurationException
+    {
+        long start = System.nanoTime();
+        StatusCode outcome = StatusCode.SUCCESSFUL_OPERATION;
+        TraceSpan span = startTrace("listTextRecords");
         try {
-            result = new TreeSet<>();
-            Fqdn txtFqdn = new Fqdn(label, browsingDomain.domain());
-            result.addAll(this.helper.serviceTexts(txtFqdn, label, secValidation));
-            if (result.isEmpty() && !ExceptionsUtil.onlyNameResolutionTrace(this.errorsTrace.get())) {
-                throw ExceptionsUtil.build(StatusCode.RESOURCE_LOOKUP_ERROR,
-                        FormattingUtil.unableToResolve(browsingDomain.fqdnWithPrefix(label)),
-                        errorsTrace.get());
+            try {
+                ValidatorUtil.isValidDomainName(browsingDomain);
+            } catch(IllegalArgumentException exception) {
+                throw new LookupException(StatusCode.ILLEGAL_FQDN, browsingDomain.fqdn());
             }
-        } catch (LookupException | ConfigurationException exception) {
+            ValidatorUtil.isValidLabel(label);
+            validatedConf();
+            Set<TextRecord> result = null;
+            try {
+                result = new TreeSet<>();
+                Fqdn txtFqdn = new Fqdn(label, browsingDomain.domain());
+                result.addAll(this.helper.serviceTexts(txtFqdn, label, secValidation));
+                if (result.isEmpty() && !ExceptionsUtil.onlyNameResolutionTrace(this.errorsTrace.get())) {
+                    throw ExceptionsUtil.build(StatusCode.RESOURCE_LOOKUP_ERROR,
+                            FormattingUtil.unableToResolve(browsingDomain.fqdnWithPrefix(label)),
+                            errorsTrace.get());
+                }
+            } catch (LookupException | ConfigurationException exception) {
+                throw exception;
+            } finally {
+                errorsTrace.remove();
+            }
+
+            return result;
+        } catch (LookupException | ConfigurationException | RuntimeException exception) {
+            outcome = outcomeOf(exception);
             throw exception;
         } finally {
-            errorsTrace.remove();
+            this.metrics.callCompleted("listTextRecords", outcome, System.nanoTime() - start);
+            endTrace(span, outcome);
         }
-
-        return result;
     }
 
     @Override
@@ -176,168 +419,512 @@ public class DnsServicesDiscovery extends Configurable implements DnsDiscovery
                                                     boolean secValidation)
                                         throws LookupException, ConfigurationException
     {
+        long start = System.nanoTime();
+        StatusCode outcome = StatusCode.SUCCESSFUL_OPERATION;
+        TraceSpan span = startTrace("listTLSARecords");
         try {
-            ValidatorUtil.isValidDomainName(browsingDomain);
-        } catch(IllegalArgumentException exception) {
-            throw new LookupException(StatusCode.ILLEGAL_FQDN, browsingDomain.fqdn());
+            try {
+                ValidatorUtil.isValidDomainName(browsingDomain);
+            } catch(IllegalArgumentException exception) {
+                throw new LookupException(StatusCode.ILLEGAL_FQDN, browsingDomain.fqdn());
+            }
+            validatedConf();
+            Set<CertRecord> result = null;
+            try {
+                result = new TreeSet<>();
+                result.addAll(this.helper.tlsaRecords(browsingDomain, tlsaPrefix, secValidation));
+                if (result.isEmpty() && !ExceptionsUtil.onlyNameResolutionTrace(this.errorsTrace.get())) {
+                    throw ExceptionsUtil.build(StatusCode.RESOURCE_LOOKUP_ERROR,
+                            FormattingUtil.unableToResolve(browsingDomain.fqdn()),
+                            errorsTrace.get());
+                }
+            } catch (LookupException exception) {
+                throw exception;
+            } finally {
+                errorsTrace.remove();
+            }
+
+            return result;
+        } catch (LookupException | ConfigurationException | RuntimeException exception) {
+            outcome = outcomeOf(exception);
+            throw exception;
+        } finally {
+            this.metrics.callCompleted("listTLSARecords", outcome, System.nanoTime() - start);
+            endTrace(span, outcome);
         }
-        validatedConf();
-        Set<CertRecord> result = null;
+    }
+
+    @Override
+    public boolean isDnsSecValid(Fqdn name) throws LookupException, ConfigurationException
+    {
+        long start = System.nanoTime();
+        StatusCode outcome = StatusCode.SUCCESSFUL_OPERATION;
+        TraceSpan span = startTrace("isDnsSecValid");
         try {
-            result = new TreeSet<>();
-            result.addAll(this.helper.tlsaRecords(browsingDomain, tlsaPrefix, secValidation));
-            if (result.isEmpty() && !ExceptionsUtil.onlyNameResolutionTrace(this.errorsTrace.get())) {
-                throw ExceptionsUtil.build(StatusCode.RESOURCE_LOOKUP_ERROR,
-                        FormattingUtil.unableToResolve(browsingDomain.fqdn()),
-                        errorsTrace.get());
-            }
-        } catch (LookupException exception) {
+            try {
+                ValidatorUtil.isValidDomainName(name);
+            } catch(IllegalArgumentException exception) {
+                throw new LookupException(StatusCode.ILLEGAL_FQDN, name.fqdn());
+            }
+            DiscoveryConfig config = validatedConf();
+            if (name == null || name.fqdn().isEmpty()) {
+                name = new Fqdn(config.getDnsSecDomain());
+            }
+
+            Map<String, Resolver> resolvers = retrieveResolvers(config, true);
+            Iterator<String> itrResolvers = resolvers.keySet().iterator();
+            boolean validated = false;
+            String server = null;
+            do {
+                server = itrResolvers.next();
+                events.server(server);
+                events.query(name, "", Type.SOA);
+                TraceSpan check = (this.callSpan.get() == null ? null
+                                                              : this.callSpan.get().child("DNSSEC " + name.fqdn()));
+                if (check != null) {
+                    check.setServer(server);
+                }
+                try {
+                    validated = DnsUtil.checkDnsSec(name, resolvers.get(server), Type.SOA, this.metrics);
+                    if (check != null) {
+                        check.end(validated ? StatusCode.SUCCESSFUL_OPERATION : StatusCode.NETWORK_ERROR);
+                    }
+                    if (validated) {
+                        events.dnsSec(name, StatusCode.SUCCESSFUL_OPERATION);
+                    } else {
+                        events.dnsSec(name, StatusCode.NETWORK_ERROR);
+                    }
+                } catch (LookupException le) {
+                    if (check != null) {
+                        check.end(le.dnsError());
+                    }
+                    if (le.dnsError() == StatusCode.RESOURCE_LOOKUP_ERROR) {
+                        events.dnsSec(name, StatusCode.RESOURCE_LOOKUP_ERROR);
+                    } else {
+                        events.dnsSec(name, le.dnsError());
+                    }
+
+                    if (le.dnsError() == StatusCode.RESOURCE_INSECURE_ERROR) {
+                        throw ExceptionsUtil.build(StatusCode.DNSSEC_STATUS_ERROR,
+                          "DNSSEC Validation Failed",
+                          new LinkedHashMap<String, StatusCode>());
+                    }
+                    throw le;
+                }
+            } while (itrResolvers.hasNext() && !validated);
+
+            return validated;
+        } catch (LookupException | ConfigurationException | RuntimeException exception) {
+            outcome = outcomeOf(exception);
             throw exception;
         } finally {
-            errorsTrace.remove();
+            this.metrics.callCompleted("isDnsSecValid", outcome, System.nanoTime() - start);
+            endTrace(span, outcome);
+        }
+    }
+
+    @Override
+    public DiscoveryFuture<Set<String>> listServiceTypesAsync(Fqdn browsingDomain, boolean secValidation)
+    {
+        DiscoveryFuture<Set<String>> result = new DiscoveryFuture<>();
+        try {
+            validatedAsync(browsingDomain);
+            this.asyncHelper.serviceTypes(browsingDomain, secValidation, result);
+        } catch (LookupException | ConfigurationException exception) {
+            result.fail(exception);
         }
 
         return result;
     }
 
     @Override
-    public boolean isDnsSecValid(Fqdn name) throws LookupException, ConfigurationException
+    public DiscoveryFuture<Set<ServiceInstance>> listServiceInstancesAsync(Fqdn browsingDomain, CompoundLabel type,
+                                                                           boolean secValidation)
     {
+        DiscoveryFuture<Set<ServiceInstance>> result = new DiscoveryFuture<>();
         try {
-            ValidatorUtil.isValidDomainName(name);
-        } catch(IllegalArgumentException exception) {
-            throw new LookupException(StatusCode.ILLEGAL_FQDN, name.fqdn());
+            validatedAsync(browsingDomain);
+            ValidatorUtil.isValidLabel(type);
+            Set<ServiceInstance> cached = this.instancesCache.get(instancesKey(browsingDomain, type, secValidation));
+            this.metrics.cacheAccessed(DiscoveryMetrics.INSTANCES_CACHE, cached != null);
+            if (cached != null) {
+                result.complete(new TreeSet<>(cached));
+                return result;
+            }
+            this.asyncHelper.serviceInstances(browsingDomain, type, secValidation, result);
+        } catch (LookupException | ConfigurationException exception) {
+            result.fail(exception);
+        } catch (IllegalArgumentException exception) {
+            result.fail(new LookupException(StatusCode.ILLEGAL_FQDN, String.valueOf(type)));
         }
-        validatedConf();
-        if (name == null || name.fqdn().isEmpty()) {
-            name = new Fqdn(this.dnsSecDomain);
-        }
-
-        Map<String, Resolver> resolvers = retrieveResolvers(true);
-        Iterator<String> itrResolvers = resolvers.keySet().iterator();
-        boolean validated = false;
-        String server = null;
-        do {
-            server = itrResolvers.next();
-            statusChange(FormattingUtil.server(server));
-            statusChange(FormattingUtil.query(name, "", "SOA"));
-            try {
-                validated = DnsUtil.checkDnsSec(name, resolvers.get(server), Type.SOA);
-                if (validated) {
-                    statusChange(FormattingUtil.response(FormattingUtil.authenticData(name.fqdn())));
-                } else {
-                    statusChange(FormattingUtil.response(FormattingUtil.networkError(name.fqdn())));
-                }
-            } catch (LookupException le) {
-                if (le.dnsError() == StatusCode.RESOURCE_LOOKUP_ERROR) {
-                    statusChange(FormattingUtil.response(FormattingUtil.unableToResolve(name.fqdn())));
-                } else {
-                    statusChange(FormattingUtil.response(FormattingUtil.unableToValidate(name.fqdn())));
-                }
 
-                if (le.dnsError() == StatusCode.RESOURCE_INSECURE_ERROR) {
-                    throw ExceptionsUtil.build(StatusCode.DNSSEC_STATUS_ERROR,
-                      "DNSSEC Validation Failed",
-                      new LinkedHashMap<String, StatusCode>());
-                }
-                throw le;
+        return result;
+    }
+
+    @Override
+    public DiscoveryFuture<Set<TextRecord>> listTextRecordsAsync(Fqdn browsingDomain, String label,
+                                                                 boolean secValidation)
+    {
+        DiscoveryFuture<Set<TextRecord>> result = new DiscoveryFuture<>();
+        try {
+            validatedAsync(browsingDomain);
+            ValidatorUtil.isValidLabel(label);
+            this.asyncHelper.serviceTexts(new Fqdn(label, browsingDomain.domain()), secValidation, result);
+        } catch (LookupException | ConfigurationException exception) {
+            result.fail(exception);
+        } catch (IllegalArgumentException exception) {
+            result.fail(new LookupException(StatusCode.ILLEGAL_FQDN, String.valueOf(label)));
+        }
+
+        return result;
+    }
+
+    @Override
+    public DiscoveryFuture<Set<CertRecord>> listTLSARecordsAsync(Fqdn browsingDomain, DnsCertPrefix tlsaPrefix,
+                                                                 boolean secValidation)
+    {
+        DiscoveryFuture<Set<CertRecord>> result = new DiscoveryFuture<>();
+        try {
+            validatedAsync(browsingDomain);
+            this.asyncHelper.tlsaRecords(browsingDomain, tlsaPrefix, secValidation, result);
+        } catch (LookupException | ConfigurationException exception) {
+            result.fail(exception);
+        }
+
+        return result;
+    }
+
+    @Override
+    public DiscoveryFuture<Boolean> isDnsSecValidAsync(Fqdn name)
+    {
+        DiscoveryFuture<Boolean> result = new DiscoveryFuture<>();
+        try {
+            DiscoveryConfig config = validatedAsync(name);
+            if (name.fqdn().isEmpty()) {
+                name = new Fqdn(config.getDnsSecDomain());
             }
-        } while (itrResolvers.hasNext() && !validated);
+            this.asyncHelper.dnsSec(name, result);
+        } catch (LookupException | ConfigurationException exception) {
+            result.fail(exception);
+        }
 
-        return validated;
+        return result;
     }
 
     /**
-     * Private helper to retrieve a set of one or more instances of <code>Resolver</code> to carry
-     * out the lookup.
+     * Private helper validating the input domain and the configuration of an asynchronous call.
      *
-     * @param secValidation <code>true</code> iff DNSSEC validation id needed
-     * @return Instance(s) of <code>Resolver</code>
+     * @param browsingDomain A <code>Fqdn</code> referring the browsing domain
      *
-     * @throws ConfigurationException
-     *      In case instance(s) of <code>Resolver</code> cannot he instantiated.
+     * @return The validated configuration
+     *
+     * @throws LookupException        In case of illegal domain name.
+     * @throws ConfigurationException In case of wrong/faulty static and/or runtime configuration.
      */
-    private Map<String, Resolver> retrieveResolvers(boolean secValidation)
-                                    throws ConfigurationException
+    private DiscoveryConfig validatedAsync(Fqdn browsingDomain) throws LookupException, ConfigurationException
     {
-        Map<String, Resolver> resolvers = new LinkedHashMap<>();
-        for(InetAddress dnsServer: this.dnsServers) {
-            if (dnsServer != null && (!dnsServer.getHostAddress().isEmpty()
-                    || !dnsServer.getCanonicalHostName().isEmpty())) {
-                String server = ((dnsServer.getHostAddress().isEmpty())
-                        ? dnsServer.getCanonicalHostName() : dnsServer.getHostAddress());
-                resolvers.put(server, DnsUtil.getResolver(secValidation, this.trustAnchorDefault, server));
-            } else {
-                resolvers.putAll(DnsUtil.getResolvers(secValidation, this.trustAnchorDefault));
-            }
+        try {
+            ValidatorUtil.isValidDomainName(browsingDomain);
+        } catch(IllegalArgumentException exception) {
+            throw new LookupException(StatusCode.ILLEGAL_FQDN,
+                                      (browsingDomain == null ? "null" : browsingDomain.fqdn()));
         }
 
-        return resolvers;
+        return validatedConf();
+    }
+
+    @Override
+    protected void publish(DiscoveryConfig snapshot)
+    {
+        super.publish(snapshot);
+        this.instancesCache.clear();
     }
 
     /**
-     * Resource Record holder type enumeration. It enumerates the types hold by DNS RRs.
+     * Private helper starting the trace of a call, if tracing.
+     *
+     * @param method The name of the called method
+     *
+     * @return The root <code>TraceSpan</code> of the call, <code>null</code> unless tracing
      */
-    private enum RrHolderType { NAMES, ZONES, TYPES, OTHER; }
+    private TraceSpan startTrace(String method)
+    {
+        if (this.tracer == null) {
+            return null;
+        }
+        TraceSpan span = TraceSpan.root(method);
+        this.callSpan.set(span);
+
+        return span;
+    }
 
     /**
-     * Private inner helper class to implement DNS-specific lookup operations.
+     * Private helper ending the trace of a call and delivering it, if tracing.
      *
-     * @author pmaresca <pmaresca@verisign.com>
-     * @version 1.0
-     * @since 2015/05/02
+     * @param span The root <code>TraceSpan</code> of the call, <code>null</code> unless tracing
+     * @param outcome The <code>StatusCode</code> of the call
      */
-    // TODO Deal with DNSSECJava validation problems to avoid a double resolving process
-    private final class ServicesLookupHelper
+    private void endTrace(TraceSpan span, StatusCode outcome)
     {
+        if (span != null) {
+            this.callSpan.remove();
+            span.end(outcome);
+            TraceListener listener = this.tracer;
+            if (listener != null) {
+                listener.traced(span);
+            }
+        }
+    }
 
-        public ServicesLookupHelper() { super(); }
+    /**
+     * Private helper telling the response code a lookup outcome stands for, since a
+     * <code>Lookup</code> hides the responses it receives.
+     *
+     * @param outcome The <code>StatusCode</code> of a lookup
+     *
+     * @return The response code, <code>null</code> in case of no response
+     */
+    private static String rcodeOf(StatusCode outcome)
+    {
+        switch (outcome) {
+            case NETWORK_ERROR:
+                return null;
+            case SERVER_ERROR:
+                return Rcode.string(Rcode.SERVFAIL);
+            case RESOLUTION_NAME_ERROR:
+                return Rcode.string(Rcode.NXDOMAIN);
+            default:
+                return Rcode.string(Rcode.NOERROR);
+        }
+    }
 
-        /**
-         * Retrieve a set of Service Types from the browsing domain.
-         *
-         * @param browsingDomain <code>Fqdn</code> representing the browsing domain
-         * @param secValidation  <code>true</code> in case secure browsing is needed
-         *
-         * @return A set of <code>String</code> identifying the retrieved Service Types.
-         *
-         * @throws LookupException
-         *      In case of any unrecoverable error during the lookup process.
-         *
-         * @throws ConfigurationException
-         *      In case of wrong/faulty static and/or runtime configuration.
-         */
-        public Set<String> serviceTypes(Fqdn browsingDomain, boolean secValidation)
-                                throws LookupException, ConfigurationException
-        {
-            statusChange(FormattingUtil.info((secValidation?"Secure Resolving mode":"Insecure Resolving mode")));
-            Map<String, Resolver> resolvers = retrieveResolvers(false);
-            Map<String, Resolver> valResolvers = retrieveResolvers(true);
+    /**
+     * Private helper mapping the failure of a call to the <code>StatusCode</code> it is recorded with.
+     *
+     * @param exception The failure of the call
+     *
+     * @return The <code>StatusCode</code> of the failure
+     */
+    private static StatusCode outcomeOf(Exception exception)
+    {
+        if (exception instanceof LookupException) {
+            return ((LookupException) exception).dnsError();
+        } else if (exception instanceof ConfigurationException) {
+            return StatusCode.CONFIGURATION_ERROR;
+        }
 
-            RecordsContainer set = new RecordsContainer();
-            errorsTrace.get().clear();
+        return StatusCode.RESOURCE_LOOKUP_ERROR;
+    }
 
-            Iterator<String> itrResolvers = resolvers.keySet().iterator();
-            LookupContext ctx = DnsUtil.context(browsingDomain, Constants.SERVICES_DNS_SD_UDP, "", "",
-                                                Type.PTR, secValidation);
-            String server = null;
+    /**
+     * Private helper building the key of a Service Instances listing.
+     *
+     * @param browsingDomain <code>Fqdn</code> representing the browsing domain
+     * @param type A <code>CompoundLabel</code> defining the Service Type
+     * @param secValidation <code>true</code> in case of secure browsing
+     *
+     * @return A <code>String</code> identifying the listing, with or without resolved addresses
+     */
+    private String instancesKey(Fqdn browsingDomain, CompoundLabel type, boolean secValidation)
+    {
+        StringBuilder key = new StringBuilder(64);
+        key.append(secValidation ? "sec" : "insec").append('|').append(type.getType())
+           .append('|').append(type.getSubType()).append('|').append(type.getProto())
+           .append('|').append(browsingDomain.fqdn());
+        if (this.resolvedAddresses) {
+            key.append("|addr");
+        }
+
+        return key.toString();
+    }
+
+    /**
+     * Private helper checking whether a lookup is about the addresses of a SRV target.
+     *
+     * @param rrType The Resource Record <code>Type</code> looked up
+     *
+     * @return <code>true</code> iff one of the {@link #ADDRESS_TYPES}
+     */
+    private static boolean isAddressType(int rrType)
+    {
+        return (rrType == Type.A || rrType == Type.AAAA);
+    }
+
+    /**
+     * Private helper collecting the SRV targets of Service Instances.
+     *
+     * @param instances The Service Instances
+     *
+     * @return The target host names, but the root one (i.e. service not available)
+     */
+    private static Set<String> targets(Collection<ServiceInstance> instances)
+    {
+        Set<String> hosts = new LinkedHashSet<>();
+        for (ServiceInstance instance : instances) {
+            String host = instance.getServiceRecord().getHost();
+            if (!".".equals(host)) {
+                hosts.add(host);
+            }
+        }
+
+        return hosts;
+    }
+
+    /**
+     * Private helper collecting the address held by an A or AAAA record.
+     *
+     * @param record    A record of an address lookup
+     * @param addresses The list the address is added to
+     */
+    private static void collectAddress(Record record, List<InetAddress> addresses)
+    {
+        if (record instanceof ARecord) {
+            addresses.add(((ARecord) record).getAddress());
+        } else if (record instanceof AAAARecord) {
+            addresses.add(((AAAARecord) record).getAddress());
+        }
+    }
+
+    /**
+     * Private helper retrieving the addresses of SRV targets from the lookup cache alone, e.g. as
+     * harvested from the additional sections of the previous responses.
+     *
+     * @param server The server the addresses have been received from
+     * @param hosts  The target host names
+     *
+     * @return The known addresses, keyed by host name
+     */
+    private Map<String, List<InetAddress>> cachedAddresses(String server, Set<String> hosts)
+    {
+        Map<String, List<InetAddress>> addresses = new HashMap<>();
+        Cache cache = this.lookupCaches.cache(server);
+        for (String host : hosts) {
+            List<InetAddress> found = new ArrayList<>();
+            try {
+                Name name = Name.fromString(host);
+                for (int rrType : ADDRESS_TYPES) {
+                    SetResponse cached = cache.lookupRecords(name, rrType, Credibility.NORMAL);
+                    if (cached.isSuccessful()) {
+                        for (RRset rrset : cached.answers()) {
+                            Iterator<?> itrRecords = rrset.rrs();
+                            while (itrRecords.hasNext()) {
+                                collectAddress((Record) itrRecords.next(), found);
+                            }
+                        }
+                    }
+                }
+            } catch (TextParseException tpe) {
+                continue;
+            }
+            addresses.put(host, found);
+        }
+
+        return addresses;
+    }
+
+    /**
+     * Private helper attaching the addresses of their SRV targets to Service Instances.
+     *
+     * @param instances The Service Instances, replaced in place
+     * @param addresses The addresses, keyed by host name
+     */
+    private static void attachAddresses(Map<String, ServiceInstance> instances,
+                                        Map<String, List<InetAddress>> addresses)
+    {
+        for (Map.Entry<String, ServiceInstance> entry : instances.entrySet()) {
+            ServiceInstance instance = entry.getValue();
+            List<InetAddress> found = addresses.get(instance.getServiceRecord().getHost());
+            if (found != null && !found.isEmpty()) {
+                entry.setValue(new ServiceInstance(instance.getServiceType(), instance.getServiceRecord(),
+                                                   instance.getTextRecord(), found));
+            }
+        }
+    }
+
+    /**
+     * Private helper to retrieve a set of one or more instances of <code>Resolver</code> to carry
+     * out the lookup. Instances are pooled by the resolvers registry, they are built up again only
+     * upon configuration changes.
+     *
+     * @param config The configuration snapshot the lookup goes on with
+     * @param secValidation <code>true</code> iff DNSSEC validation id needed
+     * @return Instance(s) of <code>Resolver</code>
+     *
+     * @throws ConfigurationException
+     *      In case instance(s) of <code>Resolver</code> cannot he instantiated.
+     */
+    private Map<String, Resolver> retrieveResolvers(DiscoveryConfig config, boolean secValidation)
+                                    throws ConfigurationException
+    {
+        return this.resolversRegistry.resolvers(config, secValidation);
+    }
+
+    /**
+     * Resource Record holder type enumeration. It enumerates the types hold by DNS RRs.
+     */
+    private enum RrHolderType { NAMES, ZONES, TYPES, OTHER; }
+
+    /**
+     * Private inner helper class to implement DNS-specific lookup operations.
+     *
+     * @author pmaresca <pmaresca@verisign.com>
+     * @version 1.0
+     * @since 2015/05/02
+     */
+    private final class ServicesLookupHelper
+    {
+
+        public ServicesLookupHelper() { super(); }
+
+        /**
+         * Retrieve a set of Service Types from the browsing domain.
+         *
+         * @param browsingDomain <code>Fqdn</code> representing the browsing domain
+         * @param secValidation  <code>true</code> in case secure browsing is needed
+         *
+         * @return A set of <code>String</code> identifying the retrieved Service Types.
+         *
+         * @throws LookupException
+         *      In case of any unrecoverable error during the lookup process.
+         *
+         * @throws ConfigurationException
+         *      In case of wrong/faulty static and/or runtime configuration.
+         */
+        public Set<String> serviceTypes(Fqdn browsingDomain, boolean secValidation)
+                                throws LookupException, ConfigurationException
+        {
+            events.info((secValidation?"Secure Resolving mode":"Insecure Resolving mode"));
+            DiscoveryConfig config = validatedConf();
+            Map<String, Resolver> resolvers = retrieveResolvers(config, false);
+            Map<String, Resolver> valResolvers = retrieveResolvers(config, true);
+
+            RecordsContainer set = new RecordsContainer();
+            errorsTrace.get().clear();
+
+            Iterator<String> itrResolvers = resolvers.keySet().iterator();
+            LookupContext ctx = DnsUtil.context(browsingDomain, Constants.SERVICES_DNS_SD_UDP, "", "",
+                                                Type.PTR, secValidation);
+            ctx.setSpan(callSpan.get());
+            ctx.setTimeout(config.getLookupDeadline());
+            String server = null;
             do {
                 server = itrResolvers.next();
                 Resolver resolver = resolvers.get(server);
                 ctx.setResolver(resolver);
                 Resolver valResolver = valResolvers.get(server);
                 ctx.setValResolver(valResolver);
-                statusChange(FormattingUtil.server(server));
+                ctx.setServer(server);
+                events.server(server);
 
                 try {
                     Record[] records = lookup(ctx);
                     set.getLabels().addAll(DnsUtil.extractNamesFromRecords(records));
-                    statusChange(StatusChangeEvent.build(browsingDomain.fqdn(), Type.string(Type.PTR),
-                                    StatusChangeEvent.castedArray(records)));
+                    events.response(browsingDomain.fqdn(), Type.string(Type.PTR), records);
                 } catch (LookupException le) {
                     if (le.dnsError().equals(StatusCode.NETWORK_ERROR) && !itrResolvers.hasNext()) {
                         throw  le;
                     } else if (le.dnsError().equals(StatusCode.SERVER_ERROR)
+                                || le.dnsError().equals(StatusCode.DEADLINE_EXCEEDED)
                                 || le.dnsError().equals(StatusCode.RESOURCE_INSECURE_ERROR)) {
                         throw le;
                     } else {
@@ -347,7 +934,7 @@ public class DnsServicesDiscovery extends Configurable implements DnsDiscovery
                     }
                 }
             } while (itrResolvers.hasNext() && set.getLabels().isEmpty());
-            statusChange(FormattingUtil.answer());
+            events.answer();
 
             return set.getLabels();
         }
@@ -370,15 +957,18 @@ public class DnsServicesDiscovery extends Configurable implements DnsDiscovery
         public Set<TextRecord> serviceTexts(Fqdn browsingDomain, String label, boolean secValidation)
                                     throws LookupException, ConfigurationException
         {
-            statusChange(FormattingUtil.info((secValidation?"Secure Resolving mode":"Insecure Resolving mode")));
-            Map<String, Resolver> resolvers = retrieveResolvers(false);
-            Map<String, Resolver> valResolvers = retrieveResolvers(true);
+            events.info((secValidation?"Secure Resolving mode":"Insecure Resolving mode"));
+            DiscoveryConfig config = validatedConf();
+            Map<String, Resolver> resolvers = retrieveResolvers(config, false);
+            Map<String, Resolver> valResolvers = retrieveResolvers(config, true);
 
             RecordsContainer set = new RecordsContainer();
             errorsTrace.get().clear();
 
             Iterator<String> itrResolvers = resolvers.keySet().iterator();
             LookupContext ctx = DnsUtil.context(browsingDomain, label, label, "", Type.TXT, secValidation);
+            ctx.setSpan(callSpan.get());
+            ctx.setTimeout(config.getLookupDeadline());
             String server = null;
             do {
                 server = itrResolvers.next();
@@ -386,18 +976,19 @@ public class DnsServicesDiscovery extends Configurable implements DnsDiscovery
                 ctx.setResolver(resolver);
                 Resolver valResolver = valResolvers.get(server);
                 ctx.setValResolver(valResolver);
-                statusChange(FormattingUtil.server(server));
+                ctx.setServer(server);
+                events.server(server);
 
                 try {
                     Record[] records = lookup(ctx);
                     parseRecords(records, set, RrHolderType.OTHER);
-                    statusChange(StatusChangeEvent.build(browsingDomain.fqdnWithPrefix(label),
-                                    "", StatusChangeEvent.castedList(set.getTexts())));
+                    events.response(browsingDomain, label, "", set.getTexts());
                 } catch (LookupException le) {
                     if (le.dnsError().equals(StatusCode.NETWORK_ERROR) && !itrResolvers.hasNext()) {
                         throw  le;
                     } else if (le.dnsError().equals(StatusCode.SERVER_ERROR)
-                                    || le.dnsError().equals(StatusCode.RESOURCE_INSECURE_ERROR)) {
+                                || le.dnsError().equals(StatusCode.DEADLINE_EXCEEDED)
+                                || le.dnsError().equals(StatusCode.RESOURCE_INSECURE_ERROR)) {
                         throw le;
                     } else {
                         errorsTrace.get().put(
@@ -406,7 +997,7 @@ public class DnsServicesDiscovery extends Configurable implements DnsDiscovery
                     }
                 }
             } while (itrResolvers.hasNext() && set.getTexts().isEmpty());
-            statusChange(FormattingUtil.answer());
+            events.answer();
 
             return set.getTexts();
         }
@@ -429,9 +1020,35 @@ public class DnsServicesDiscovery extends Configurable implements DnsDiscovery
         public Set<ServiceInstance> serviceInstances(Fqdn browsingDomain, CompoundLabel type, boolean secValidation)
                                         throws LookupException, ConfigurationException
         {
-            statusChange(FormattingUtil.info((secValidation?"Secure Resolving mode":"Insecure Resolving mode")));
-            Map<String, Resolver> resolvers = retrieveResolvers(false);
-            Map<String, Resolver> valResolvers = retrieveResolvers(true);
+            return serviceInstances(browsingDomain, type, secValidation, null);
+        }
+
+        /**
+         * Retrieve a set of Service Resource Records from the browsing domain, according to the
+         * specified <i>type</i>, possibly in partial-result mode: the names which cannot be
+         * resolved are then recorded into the provided map, rather than failing the whole listing.
+         *
+         * @param browsingDomain <code>Fqdn</code> representing the browsing domain
+         * @param type A <code>String</code> defining the Service Type to be looked up
+         * @param secValidation  <code>true</code> in case secure browsing is needed
+         * @param failures The <code>Map</code> collecting the failures keyed by DNS name,
+         *                 <code>null</code> unless in partial-result mode
+         *
+         * @return A set of <code>String</code> identifying the retrieve Service records.
+         *
+         * @throws LookupException
+         *      In case of any unrecoverable error during the lookup process.
+         * @throws ConfigurationException
+         *      In case of wrong/faulty static and/or runtime configuration.
+         */
+        public Set<ServiceInstance> serviceInstances(Fqdn browsingDomain, CompoundLabel type, boolean secValidation,
+                                                     Map<String, StatusCode> failures)
+                                        throws LookupException, ConfigurationException
+        {
+            events.info((secValidation?"Secure Resolving mode":"Insecure Resolving mode"));
+            DiscoveryConfig config = validatedConf();
+            Map<String, Resolver> resolvers = retrieveResolvers(config, false);
+            Map<String, Resolver> valResolvers = retrieveResolvers(config, true);
 
             Set<ServiceInstance> instances = new TreeSet<>();
             errorsTrace.get().clear();
@@ -441,6 +1058,7 @@ public class DnsServicesDiscovery extends Configurable implements DnsDiscovery
             boolean bySubType = type.hasSubType(), byProto = type.hasProtocol();
             LookupContext ctx = DnsUtil.context(browsingDomain, "", "", type.getType(),
                                                 Type.PTR, secValidation);
+            ctx.setTimeout(config.getLookupDeadline());
             String server = null;
             do {
                 server = itrResolvers.next();
@@ -448,12 +1066,21 @@ public class DnsServicesDiscovery extends Configurable implements DnsDiscovery
                 ctx.setResolver(resolver);
                 Resolver valResolver = valResolvers.get(server);
                 ctx.setValResolver(valResolver);
-                statusChange(FormattingUtil.server(server));
+                ctx.setServer(server);
+                events.server(server);
+                if (failures != null) {
+                    failures.clear();
+                }
+                ctx.setFailures(failures);
+                // the listing is cached out of the answers of the last server asked only
+                ctx.setSpan(callSpan.get());
+                ctx.resetTtl();
 
                 try {
                     Set<String> types = new TreeSet<>();
                     ctx.setDomainName(browsingDomain);
                     if(!bySubType) {
+                        ctx.enter("types");
                         if(!byProto) {
                             ctx.setLabel(type.prefixString(Constants.TCP));
                             types.addAll(DnsUtil.filterByType(type.prefixString(Constants.TCP),
@@ -466,8 +1093,8 @@ public class DnsServicesDiscovery extends Configurable implements DnsDiscovery
                             ctx.setLabel(type.prefixString());
                             types.addAll(DnsUtil.filterByType(type.prefixString(), retrieveDnsSdTypes(ctx)));  // service types
                         }
-                        statusChange(StatusChangeEvent.build(ctx.getDomainName().fqdnWithPrefix(ctx.getPrefix()),
-                                    Type.string(ctx.getRrType()), StatusChangeEvent.castedList(types)));
+                        events.response(ctx.getDomainName(), ctx.getPrefix(), Type.string(ctx.getRrType()), types);
+                        ctx.exit(StatusCode.SUCCESSFUL_OPERATION);
                     } else {    // browsing by subtype
                         if(!byProto) {
                             types.add(browsingDomain.fqdnWithPrefix(type.prefixString(Constants.TCP)));
@@ -476,15 +1103,20 @@ public class DnsServicesDiscovery extends Configurable implements DnsDiscovery
                             types.add(browsingDomain.fqdnWithPrefix(type.prefixString()));
                     }
 
+                    ctx.enter("names");
                     Set<String> names = retrieveDnsNames(ctx, types);   // service names
+                    ctx.exit(StatusCode.SUCCESSFUL_OPERATION);
                     ctx.setDomainName(browsingDomain);
-                    statusChange(StatusChangeEvent.build(ctx.getDomainName().fqdnWithPrefix(ctx.getPrefix()),
-                                    Type.string(ctx.getRrType()), StatusChangeEvent.castedList(names)));
+                    events.response(ctx.getDomainName(), ctx.getPrefix(), Type.string(ctx.getRrType()), names);
+                    ctx.enter("instances");
                     instances.addAll(retrieveDnsInstances(ctx, names)); // service instances
+                    ctx.exit(StatusCode.SUCCESSFUL_OPERATION);
                 } catch (LookupException le) {
+                    ctx.exit(le.dnsError());
                     if (le.dnsError().equals(StatusCode.NETWORK_ERROR) && !itrResolvers.hasNext()) {
                         throw  le;
                     } else if (le.dnsError().equals(StatusCode.SERVER_ERROR)
+                                || le.dnsError().equals(StatusCode.DEADLINE_EXCEEDED)
                                 || le.dnsError().equals(StatusCode.RESOURCE_INSECURE_ERROR)) {
                         throw le;
                     } else {
@@ -494,7 +1126,162 @@ public class DnsServicesDiscovery extends Configurable implements DnsDiscovery
                     }
                 }
             } while (itrResolvers.hasNext() && instances.isEmpty());
-            statusChange(FormattingUtil.answer());
+            events.answer();
+            if (failures != null && !failures.isEmpty()) {
+                return instances;   // incomplete listing, not to be cached
+            }
+            if (!instances.isEmpty()) {
+                instancesCache.put(instancesKey(browsingDomain, type, secValidation),
+                                   Collections.unmodifiableSet(new TreeSet<>(instances)), ctx.getMinTtl());
+            } else if (ExceptionsUtil.onlyNameResolutionTrace(errorsTrace.get())) {
+                // missing service type or instances: cache the negative result as well
+                long ttl = (ctx.getMinTtl() == Long.MAX_VALUE ? Constants.NEGATIVE_CACHE_TTL : ctx.getMinTtl());
+                instancesCache.put(instancesKey(browsingDomain, type, secValidation),
+                                   Collections.<ServiceInstance>emptySet(), ttl);
+            }
+
+            return instances;
+        }
+
+        /**
+         * Retrieve the Service Instances of several <i>types</i> under the same browsing domain:
+         * the Service Types are enumerated once, and the PTR, SRV and TXT lookups shared by the
+         * types are carried out once as well (concurrently, in case of concurrent lookups).
+         *
+         * @param browsingDomain <code>Fqdn</code> representing the browsing domain
+         * @param types The Service Types to be looked up
+         * @param secValidation  <code>true</code> in case secure browsing is needed
+         *
+         * @return A <code>Map</code> of the Service Instances keyed by Service Type, in the order
+         *         of <code>types</code>
+         *
+         * @throws LookupException
+         *      In case of any unrecoverable error during the lookup process.
+         * @throws ConfigurationException
+         *      In case of wrong/faulty static and/or runtime configuration.
+         */
+        public Map<CompoundLabel, Set<ServiceInstance>> serviceInstances(Fqdn browsingDomain,
+                                                                         Collection<CompoundLabel> types,
+                                                                         boolean secValidation)
+                                                        throws LookupException, ConfigurationException
+        {
+            events.info((secValidation?"Secure Resolving mode":"Insecure Resolving mode"));
+            DiscoveryConfig config = validatedConf();
+            Map<String, Resolver> resolvers = retrieveResolvers(config, false);
+            Map<String, Resolver> valResolvers = retrieveResolvers(config, true);
+
+            Map<CompoundLabel, Set<ServiceInstance>> instances = new LinkedHashMap<>();
+            for (CompoundLabel type : types) {
+                instances.put(type, new TreeSet<ServiceInstance>());
+            }
+            errorsTrace.get().clear();
+            Iterator<String> itrResolvers = resolvers.keySet().iterator();
+
+            LookupContext ctx = DnsUtil.context(browsingDomain, "", "", "", Type.PTR, secValidation);
+            ctx.setTimeout(config.getLookupDeadline());
+            String server = null;
+            boolean found = false;
+            do {
+                server = itrResolvers.next();
+                Resolver resolver = resolvers.get(server);
+                ctx.setResolver(resolver);
+                Resolver valResolver = valResolvers.get(server);
+                ctx.setValResolver(valResolver);
+                ctx.setServer(server);
+                events.server(server);
+                // the listings are cached out of the answers of the last server asked only
+                ctx.setSpan(callSpan.get());
+                ctx.resetTtl();
+
+                try {
+                    // service types, enumerated once unless all browsed by subtype
+                    Map<CompoundLabel, Set<String>> typeNames = new LinkedHashMap<>();
+                    Set<String> dnsSdTypes = null;
+                    for (CompoundLabel type : instances.keySet()) {
+                        Set<String> typeFqdns = new TreeSet<>();
+                        if (!type.hasSubType()) {
+                            if (dnsSdTypes == null) {
+                                ctx.setDomainName(browsingDomain);
+                                dnsSdTypes = retrieveDnsSdTypes(ctx);
+                                events.response(ctx.getDomainName(), ctx.getPrefix(), Type.string(ctx.getRrType()),
+                                                dnsSdTypes);
+                            }
+                            if (!type.hasProtocol()) {
+                                typeFqdns.addAll(DnsUtil.filterByType(type.prefixString(Constants.TCP), dnsSdTypes));
+                                typeFqdns.addAll(DnsUtil.filterByType(type.prefixString(Constants.UDP), dnsSdTypes));
+                            } else {
+                                typeFqdns.addAll(DnsUtil.filterByType(type.prefixString(), dnsSdTypes));
+                            }
+                        } else if (!type.hasProtocol()) {
+                            typeFqdns.add(browsingDomain.fqdnWithPrefix(type.prefixString(Constants.TCP)));
+                            typeFqdns.add(browsingDomain.fqdnWithPrefix(type.prefixString(Constants.UDP)));
+                        } else {
+                            typeFqdns.add(browsingDomain.fqdnWithPrefix(type.prefixString()));
+                        }
+                        typeNames.put(type, typeFqdns);
+                    }
+
+                    // service names, each type looked up once
+                    Set<String> typeFqdns = new TreeSet<>();
+                    for (Set<String> fqdns : typeNames.values()) {
+                        typeFqdns.addAll(fqdns);
+                    }
+                    Map<String, Set<String>> names = retrieveDnsNames(ctx, typeFqdns, lookupExecutor);
+                    Set<String> svcNames = new TreeSet<>();
+                    for (Map.Entry<CompoundLabel, Set<String>> type : typeNames.entrySet()) {
+                        Set<String> typeSvcNames = new TreeSet<>();
+                        for (String typeFqdn : type.getValue()) {
+                            typeSvcNames.addAll(names.get(typeFqdn));
+                        }
+                        type.setValue(typeSvcNames);
+                        svcNames.addAll(typeSvcNames);
+                    }
+                    ctx.setDomainName(browsingDomain);
+                    events.response(ctx.getDomainName(), ctx.getPrefix(), Type.string(ctx.getRrType()), svcNames);
+
+                    // service instances, each name resolved once
+                    Map<String, ServiceInstance> resolved = resolveDnsInstances(ctx, svcNames);
+                    for (Map.Entry<CompoundLabel, Set<String>> type : typeNames.entrySet()) {
+                        String svcType = type.getKey().getType();
+                        for (String svcName : type.getValue()) {
+                            ServiceInstance instance = resolved.get(svcName);
+                            if (instance != null) {
+                                instances.get(type.getKey()).add(new ServiceInstance(svcType,
+                                                                    instance.getServiceRecord(),
+                                                                    instance.getTextRecord(),
+                                                                    instance.getAddresses()));
+                                found = true;
+                            }
+                        }
+                    }
+                } catch (LookupException le) {
+                    if (le.dnsError().equals(StatusCode.NETWORK_ERROR) && !itrResolvers.hasNext()) {
+                        throw  le;
+                    } else if (le.dnsError().equals(StatusCode.SERVER_ERROR)
+                                || le.dnsError().equals(StatusCode.DEADLINE_EXCEEDED)
+                                || le.dnsError().equals(StatusCode.RESOURCE_INSECURE_ERROR)) {
+                        throw le;
+                    } else {
+                        errorsTrace.get().put(
+                                ExceptionsUtil.traceKey(resolver, browsingDomain.fqdn(),
+                                        "Retrieving-Instances"), le.dnsError());
+                    }
+                }
+            } while (itrResolvers.hasNext() && !found);
+            events.answer();
+
+            boolean onlyMissing = ExceptionsUtil.onlyNameResolutionTrace(errorsTrace.get());
+            long negativeTtl = (ctx.getMinTtl() == Long.MAX_VALUE ? Constants.NEGATIVE_CACHE_TTL : ctx.getMinTtl());
+            for (Map.Entry<CompoundLabel, Set<ServiceInstance>> type : instances.entrySet()) {
+                String key = instancesKey(browsingDomain, type.getKey(), secValidation);
+                if (!type.getValue().isEmpty()) {
+                    instancesCache.put(key, Collections.unmodifiableSet(new TreeSet<>(type.getValue())),
+                                       ctx.getMinTtl());
+                } else if (found || onlyMissing) {
+                    // missing service type or instances: cache the negative result as well
+                    instancesCache.put(key, Collections.<ServiceInstance>emptySet(), negativeTtl);
+                }
+            }
 
             return instances;
         }
@@ -520,9 +1307,10 @@ public class DnsServicesDiscovery extends Configurable implements DnsDiscovery
                                            boolean secValidation)
                                 throws LookupException, ConfigurationException
         {
-            statusChange(FormattingUtil.info((secValidation?"Secure Resolving mode":"Insecure Resolving mode")));
-            Map<String, Resolver> resolvers = retrieveResolvers(false);
-            Map<String, Resolver> valResolvers = retrieveResolvers(true);
+            events.info((secValidation?"Secure Resolving mode":"Insecure Resolving mode"));
+            DiscoveryConfig config = validatedConf();
+            Map<String, Resolver> resolvers = retrieveResolvers(config, false);
+            Map<String, Resolver> valResolvers = retrieveResolvers(config, true);
 
             Set<CertRecord> tlsaDiscoveryRecords = new TreeSet<>();
             errorsTrace.get().clear();
@@ -531,6 +1319,8 @@ public class DnsServicesDiscovery extends Configurable implements DnsDiscovery
             String tlsaFqdn = tlsaPrefix.toString() + Constants.DNS_LABEL_DELIMITER + browsingDomain.fqdn();
             Fqdn browsingDomainWithTLSAPrefix = new Fqdn(tlsaFqdn);
             LookupContext ctx = DnsUtil.context(browsingDomainWithTLSAPrefix, "", "", "", Type.TLSA, secValidation);
+            ctx.setSpan(callSpan.get());
+            ctx.setTimeout(config.getLookupDeadline());
             String server;
             do {
                 server = itrResolvers.next();
@@ -538,7 +1328,8 @@ public class DnsServicesDiscovery extends Configurable implements DnsDiscovery
                 ctx.setResolver(resolver);
                 Resolver valResolver = valResolvers.get(server);
                 ctx.setValResolver(valResolver);
-                statusChange(FormattingUtil.server(server));
+                ctx.setServer(server);
+                events.server(server);
 
                 try {
                     Record[] records = lookup(ctx);
@@ -547,12 +1338,12 @@ public class DnsServicesDiscovery extends Configurable implements DnsDiscovery
                             tlsaDiscoveryRecords.add(new CertRecord((TLSARecord) record));
                         }
                     }
-                    statusChange(StatusChangeEvent.build(ctx.getDomainName().fqdnWithPrefix(ctx.getPrefix()),
-                                    "", StatusChangeEvent.castedList(tlsaDiscoveryRecords)));
+                    events.response(ctx.getDomainName(), ctx.getPrefix(), "", tlsaDiscoveryRecords);
                 } catch (LookupException le) {
                     if (le.dnsError().equals(StatusCode.NETWORK_ERROR) && !itrResolvers.hasNext()) {
                         throw  le;
                     } else if (le.dnsError().equals(StatusCode.SERVER_ERROR)
+                                || le.dnsError().equals(StatusCode.DEADLINE_EXCEEDED)
                                 || le.dnsError().equals(StatusCode.RESOURCE_INSECURE_ERROR)) {
                         throw le;
                     } else {
@@ -563,27 +1354,74 @@ public class DnsServicesDiscovery extends Configurable implements DnsDiscovery
                     }
                 }
             } while (itrResolvers.hasNext() && tlsaDiscoveryRecords.isEmpty());
-            statusChange(FormattingUtil.answer());
+            events.answer();
 
             return tlsaDiscoveryRecords;
         }
 
         /**
-         * Instantiate and trigger a DNS lookup according to the defined input parameters.
+         * Instantiate and trigger a DNS lookup according to the defined input parameters, recording
+         * its latency and outcome.
          *
          * @param ctx A <code>LookupContext</code> defining this lookup parameters
          *
          * @return A set of one or more Resource <code>Record</code>
          *
          * @throws LookupException
-         *      In case of unsuccessful DNS lookup; the <code>StatusCode</code> is returned as part of this error.
+         *      In case of unsuccessful DNS lookup or expired deadline; the <code>StatusCode</code> is
+         *      returned as part of this error.
          */
         private Record[] lookup(LookupContext ctx) throws LookupException
         {
+            checkDeadline(ctx);
+            TraceSpan parent = ctx.getSpan(), span = null;
+            if (parent != null) {
+                span = parent.child(Type.string(ctx.getRrType()) + " "
+                                    + ctx.getDomainName().fqdnWithPrefix(ctx.getPrefix()));
+                span.setServer(ctx.getServer());
+                ctx.setSpan(span);
+            }
+            long start = System.nanoTime();
+            StatusCode outcome = StatusCode.NETWORK_ERROR;
+            try {
+                Record[] records = (ctx.isSecure() ? secureLookup(ctx) : cachedLookup(ctx));
+                outcome = ctx.getStatus();
+                if (span != null) {
+                    span.setRecords(records.length);
+                }
+
+                return records;
+            } catch (LookupException le) {
+                outcome = le.dnsError();
+                throw le;
+            } finally {
+                metrics.queryCompleted(ctx.getServer(), ctx.getRrType(), outcome, System.nanoTime() - start);
+                if (span != null) {
+                    span.end(outcome);
+                    ctx.setSpan(parent);
+                }
+            }
+        }
+
+        /**
+         * Instantiate and trigger a DNS lookup backed by the DNS cache.
+         *
+         * @param ctx A <code>LookupContext</code> defining this lookup parameters
+         *
+         * @return A set of one or more Resource <code>Record</code>
+         *
+         * @throws LookupException
+         *      In case of unsuccessful DNS lookup or expired deadline; the <code>StatusCode</code> is
+         *      returned as part of this error.
+         */
+        private Record[] cachedLookup(LookupContext ctx) throws LookupException
+        {
+            LookupCaches.takeNegativeTtl();
+            LookupCaches.takeAnswered();
             Lookup lookup = DnsUtil.instantiateLookup(ctx.getDomainName().fqdnWithPrefix(ctx.getPrefix()),
                                                       ctx.getResolver(),
                                                       ctx.getRrType(),
-                                                      anyClassCache);
+                                                      lookupCaches.cache(ctx.getServer()));
             ctx.setLookup(lookup);
             Record[] records = lookup.run();
             // double attemp without quotes
@@ -591,99 +1429,267 @@ public class DnsServicesDiscovery extends Configurable implements DnsDiscovery
                 lookup = DnsUtil.instantiateLookup(ctx.getDomainName().fqdnWithPrefix(ctx.getPrefix()).replaceAll("\"", ""),
                                                    ctx.getResolver(),
                                                    ctx.getRrType(),
-                                                   anyClassCache);
+                                                   lookupCaches.cache(ctx.getServer()));
                 ctx.setLookup(lookup);
                 records = lookup.run();
             }
 
-            statusChange(FormattingUtil.query(ctx.getDomainName(), ctx.getPrefix(),
-                         Type.string(ctx.getRrType())));
+            events.query(ctx.getDomainName(), ctx.getPrefix(), ctx.getRrType());
             StatusCode outcome = DnsUtil.checkLookupStatus(lookup);
-            if(outcome == StatusCode.SUCCESSFUL_OPERATION) {
-                if(records != null && records.length > 0 && ctx.isSecure()) {
-                    Fqdn toCheck = new Fqdn(ctx.getPrefix(), ctx.getDomainName().domain());
-                    DnsUtil.checkDnsSec(toCheck, ctx.getValResolver(), ctx.getRrType());
-                }
-            }else if (outcome.equals(StatusCode.SERVER_ERROR) ||
+            ctx.setStatus(outcome);
+            boolean cacheHit = !LookupCaches.takeAnswered()
+                                && outcome != StatusCode.NETWORK_ERROR && outcome != StatusCode.SERVER_ERROR;
+            metrics.cacheAccessed(DiscoveryMetrics.RECORDS_CACHE, cacheHit);
+            if (ctx.getSpan() != null) {
+                ctx.getSpan().setCacheHit(cacheHit);
+                ctx.getSpan().setRcode(rcodeOf(outcome));
+            }
+            if (outcome.equals(StatusCode.NETWORK_ERROR)) {
+                checkDeadline(ctx);
+            }
+            if (outcome.equals(StatusCode.SERVER_ERROR) ||
                       outcome.equals(StatusCode.NETWORK_ERROR)) {
                 throw ExceptionsUtil.build(outcome,
                                            FormattingUtil.unableToResolve(ctx.getDomainName().fqdn()),
                                            errorsTrace.get());
-            } else {
+            } else if (outcome != StatusCode.SUCCESSFUL_OPERATION) {
                 errorsTrace.get().put(
                         ExceptionsUtil.traceKey(ctx.getResolver(), ctx.getResolver().toString() + ctx.getDomainName(),
                                 "Checking-Lookup-Status"), outcome);
+                observeNegativeTtl(ctx, LookupCaches.takeNegativeTtl());
             }
 
-            return (records == null?new Record[0]:records);
+            if (records == null) {
+                return new Record[0];
+            }
+            // cached records carry the TTL they have been received with
+            Cache cache = lookupCaches.cache(ctx.getServer());
+            for (Record record : records) {
+                ctx.observeTtl(LookupCaches.remainingTtl(cache, record));
+            }
+
+            return records;
         }
 
         /**
-         * Retrieve the DNS Service's Zones.
+         * Check the deadline of the call a lookup belongs to, not to start new queries once elapsed.
          *
          * @param ctx A <code>LookupContext</code> defining this lookup parameters
          *
-         * @return A set of <code>String</code> containing the DNS zones
-         *
          * @throws LookupException
-         *      In case of unsuccessful DNS lookup; the <code>StatusCode</code> is returned as part of this error.
+         *      In case of expired deadline.
          */
-        private Set<String> retrieveDnsSdTypes(LookupContext ctx) throws LookupException
+        private void checkDeadline(LookupContext ctx) throws LookupException
         {
-            ctx.setPrefix(Constants.SERVICES_DNS_SD_UDP);
-            ctx.setRrType(Type.PTR);
-            Record[] records = lookup(ctx);
-            RecordsContainer set = new RecordsContainer();
-            parseRecords(records, set, RrHolderType.ZONES);
-
-            return set.getLabels();
+            if (ctx.isExpired()) {
+                throw ExceptionsUtil.build(StatusCode.DEADLINE_EXCEEDED,
+                                           "Lookup deadline expired: "
+                                               + FormattingUtil.unableToResolve(ctx.getDomainName().fqdn()),
+                                           errorsTrace.get());
+            }
         }
 
         /**
-         * Retrieve the DNS Service's Names.
+         * Take into account the negative caching TTL of an unsuccessful lookup; answers whose SOA
+         * record is unknown (e.g. served by the DNS cache) are bound to a default TTL. Missing
+         * addresses are not taken into account, the instances being listed without them.
          *
          * @param ctx A <code>LookupContext</code> defining this lookup parameters
-         *
-         * @return A set of <code>String</code> containing the DNS service names
-         *
-         * @throws LookupException
-         *      In case of unsuccessful DNS lookup; the <code>StatusCode</code> is returned as part of this error.
+         * @param ttl The negative caching TTL in seconds, <code>-1</code> if unknown
          */
-        private Set<String> retrieveDnsNames(LookupContext ctx, Set<String> zones)
-                                throws LookupException
+        private void observeNegativeTtl(LookupContext ctx, long ttl)
         {
-            ctx.setPrefix("");
-            ctx.setRrType(Type.PTR);
-            RecordsContainer set = new RecordsContainer();
-            for (String zone : zones) {
-                ctx.setDomainName(new Fqdn(zone));
-                Record[] records = lookup(ctx);
-                parseRecords(records, set, RrHolderType.NAMES);
+            if (isAddressType(ctx.getRrType())) {
+                return;
             }
-
-            return set.getLabels();
+            ctx.observeTtl(Math.min((ttl < 0 ? Constants.NEGATIVE_CACHE_TTL : ttl),
+                                    lookupCaches.getMaxNegativeTtl()));
         }
 
         /**
-         * Retrieve the Service's records.
+         * Trigger a validated DNS lookup: records and DNSSEC outcome (AD flag and validation
+         * reason) are both taken from the single response of the <code>ValidatingResolver</code>.
          *
          * @param ctx A <code>LookupContext</code> defining this lookup parameters
          *
-         * @return A set of <code>String</code> containing the service's records
+         * @return A set of one or more Resource <code>Record</code>
          *
          * @throws LookupException
-         *      In case of unsuccessful DNS lookup; the <code>StatusCode</code> is returned as part of this error.
+         *      In case of unsuccessful DNS lookup or DNSSEC validation; the <code>StatusCode</code> is
+         *      returned as part of this error.
          */
-        private Set<ServiceRecord> retrieveDnsRecords(LookupContext ctx, Set<String> svcNames)
-                                    throws LookupException
+        private Record[] secureLookup(LookupContext ctx) throws LookupException
         {
-            RecordsContainer set = new RecordsContainer();
-            ctx.setPrefix("");
-            ctx.setRrType(Type.SRV);
-            for (String svcName : svcNames) {
-                ctx.setDomainName(new Fqdn(svcName));
-                Record[] records = lookup(ctx);
-                parseRecords(records, set, RrHolderType.OTHER);
+            String domainName = ctx.getDomainName().fqdnWithPrefix(ctx.getPrefix());
+            Message response;
+            try {
+                response = ctx.getValResolver().send(DnsUtil.newQuery(domainName, ctx.getRrType()));
+            } catch (IOException exception) {
+                checkDeadline(ctx);
+                throw ExceptionsUtil.build(StatusCode.NETWORK_ERROR,
+                                           FormattingUtil.unableToResolve(ctx.getDomainName().fqdn()),
+                                           errorsTrace.get());
+            }
+
+            events.query(ctx.getDomainName(), ctx.getPrefix(), ctx.getRrType());
+            StatusCode outcome = DnsUtil.responseStatus(response, ctx.getRrType());
+            ctx.setStatus(outcome);
+            if (ctx.getSpan() != null) {
+                ctx.getSpan().setRcode(Rcode.string(response.getRcode()));
+            }
+            if (outcome == StatusCode.SUCCESSFUL_OPERATION || response.getRcode() == Rcode.SERVFAIL) {
+                long start = System.nanoTime();
+                StatusCode validation = DnsUtil.validationOutcome(response);
+                metrics.dnsSecValidated(validation, System.nanoTime() - start);
+                if (validation != StatusCode.SUCCESSFUL_OPERATION) {
+                    throw ExceptionsUtil.build(validation, "DNSSEC Validation Failed",
+                                               new LinkedHashMap<String, StatusCode>());
+                }
+            }
+            if (outcome == StatusCode.SUCCESSFUL_OPERATION) {
+                Record[] records = DnsUtil.answers(response, ctx.getRrType());
+                ctx.observeTtl(records);
+
+                return records;
+            } else if (outcome == StatusCode.NETWORK_ERROR) {
+                throw ExceptionsUtil.build(outcome,
+                                           FormattingUtil.unableToResolve(ctx.getDomainName().fqdn()),
+                                           errorsTrace.get());
+            } else {
+                errorsTrace.get().put(
+                        ExceptionsUtil.traceKey(ctx.getValResolver(), ctx.getValResolver().toString() + ctx.getDomainName(),
+                                "Checking-Lookup-Status"), outcome);
+                observeNegativeTtl(ctx, DnsUtil.negativeTtl(response));
+            }
+
+            return new Record[0];
+        }
+
+        /**
+         * Retrieve the DNS Service's Zones.
+         *
+         * @param ctx A <code>LookupContext</code> defining this lookup parameters
+         *
+         * @return A set of <code>String</code> containing the DNS zones
+         *
+         * @throws LookupException
+         *      In case of unsuccessful DNS lookup; the <code>StatusCode</code> is returned as part of this error.
+         */
+        private Set<String> retrieveDnsSdTypes(LookupContext ctx) throws LookupException
+        {
+            ctx.setPrefix(Constants.SERVICES_DNS_SD_UDP);
+            ctx.setRrType(Type.PTR);
+            Record[] records = lookup(ctx);
+            RecordsContainer set = new RecordsContainer();
+            parseRecords(records, set, RrHolderType.ZONES);
+
+            return set.getLabels();
+        }
+
+        /**
+         * Retrieve the DNS Service's Names.
+         *
+         * @param ctx A <code>LookupContext</code> defining this lookup parameters
+         *
+         * @return A set of <code>String</code> containing the DNS service names
+         *
+         * @throws LookupException
+         *      In case of unsuccessful DNS lookup; the <code>StatusCode</code> is returned as part of this error.
+         */
+        private Set<String> retrieveDnsNames(LookupContext ctx, Set<String> zones)
+                                throws LookupException
+        {
+            ctx.setPrefix("");
+            ctx.setRrType(Type.PTR);
+            RecordsContainer set = new RecordsContainer();
+            for (String zone : zones) {
+                ctx.setDomainName(Fqdn.intern(zone));
+                try {
+                    Record[] records = lookup(ctx);
+                    parseRecords(records, set, RrHolderType.NAMES);
+                } catch (LookupException le) {
+                    if (!ctx.isPartial()) {
+                        throw le;
+                    }
+                    ctx.fail(zone, le.dnsError());
+                }
+            }
+
+            return set.getLabels();
+        }
+
+        /**
+         * Retrieve the DNS Service's Names of several zones, concurrently over the provided
+         * executor (if any) within the lookup deadline.
+         *
+         * @param ctx A <code>LookupContext</code> defining this lookup parameters
+         * @param zones The zones to be looked up
+         * @param executor The <code>ExecutorService</code> carrying out the lookups, <code>null</code>
+         *                 in sequential mode
+         *
+         * @return A <code>Map</code> of the DNS service names keyed by zone
+         *
+         * @throws LookupException
+         *      In case of unsuccessful DNS lookup or expired deadline; the <code>StatusCode</code> is
+         *      returned as part of this error.
+         */
+        private Map<String, Set<String>> retrieveDnsNames(LookupContext ctx, Set<String> zones,
+                                                          ExecutorService executor)
+                                            throws LookupException
+        {
+            Map<String, Set<String>> names = new LinkedHashMap<>();
+            if (executor == null || zones.size() < 2) {
+                for (String zone : zones) {
+                    names.put(zone, retrieveDnsNames(ctx, Collections.singleton(zone)));
+                }
+                return names;
+            }
+
+            Map<String, ConcurrentLookup> ptrLookups = new LinkedHashMap<>();
+            try {
+                for (String zone : zones) {
+                    ConcurrentLookup ptrLookup = new ConcurrentLookup(ctx, Fqdn.intern(zone), Type.PTR);
+                    ptrLookups.put(zone, ptrLookup);
+                    ptrLookup.dispatch(executor);
+                }
+                for (Map.Entry<String, ConcurrentLookup> ptrLookup : ptrLookups.entrySet()) {
+                    RecordsContainer set = new RecordsContainer();
+                    parseRecords(ptrLookup.getValue().await(), set, RrHolderType.NAMES);
+                    names.put(ptrLookup.getKey(), set.getLabels());
+                }
+
+                return names;
+            } catch (RejectedExecutionException ree) {
+                throw ExceptionsUtil.build(StatusCode.NETWORK_ERROR,
+                                           "Concurrent lookups rejected: " + ree.getMessage(),
+                                           errorsTrace.get());
+            } finally {
+                for (ConcurrentLookup lookup : ptrLookups.values()) {
+                    lookup.cancel();
+                }
+            }
+        }
+
+        /**
+         * Retrieve the Service's records.
+         *
+         * @param ctx A <code>LookupContext</code> defining this lookup parameters
+         *
+         * @return A set of <code>String</code> containing the service's records
+         *
+         * @throws LookupException
+         *      In case of unsuccessful DNS lookup; the <code>StatusCode</code> is returned as part of this error.
+         */
+        private Set<ServiceRecord> retrieveDnsRecords(LookupContext ctx, Set<String> svcNames)
+                                    throws LookupException
+        {
+            RecordsContainer set = new RecordsContainer();
+            ctx.setPrefix("");
+            ctx.setRrType(Type.SRV);
+            for (String svcName : svcNames) {
+                ctx.setDomainName(Fqdn.intern(svcName));
+                Record[] records = lookup(ctx);
+                parseRecords(records, set, RrHolderType.OTHER);
             }
 
             return set.getRecords();
@@ -702,7 +1708,30 @@ public class DnsServicesDiscovery extends Configurable implements DnsDiscovery
         private Set<ServiceInstance> retrieveDnsInstances(LookupContext ctx, Set<String> svcNames)
                                         throws LookupException
         {
-            Set<ServiceInstance> svcInstances = new TreeSet<>();
+            return new TreeSet<>(resolveDnsInstances(ctx, svcNames).values());
+        }
+
+        /**
+         * Resolve the Service's instances, keyed by service name; names lacking SRV or TXT records
+         * are left out.
+         *
+         * @param ctx A <code>LookupContext</code> defining this lookup parameters
+         * @param svcNames The service names to be resolved
+         *
+         * @return A <code>Map</code> of the resolved <code>ServiceInstance</code> keyed by service name
+         *
+         * @throws LookupException
+         *      In case of unsuccessful DNS lookup; the <code>StatusCode</code> is returned as part of this error.
+         */
+        private Map<String, ServiceInstance> resolveDnsInstances(LookupContext ctx, Set<String> svcNames)
+                                                throws LookupException
+        {
+            ExecutorService executor = lookupExecutor;
+            if (executor != null && svcNames.size() > 1) {
+                return resolveDnsInstances(ctx, svcNames, executor);
+            }
+
+            Map<String, ServiceInstance> svcInstances = new LinkedHashMap<>();
             Set<String> aName = new LinkedHashSet<>();
             RecordsContainer set = new RecordsContainer();
             for (String svcName : svcNames) {
@@ -710,29 +1739,248 @@ public class DnsServicesDiscovery extends Configurable implements DnsDiscovery
                 set.getTexts().clear();
                 aName.add(svcName);
 
-                Set<ServiceRecord> svcRecords = retrieveDnsRecords(ctx, aName);
-                statusChange(StatusChangeEvent.build(svcName, "", StatusChangeEvent.castedList(svcRecords)));
-                if (svcRecords.isEmpty()) {
+                Set<ServiceRecord> svcRecords;
+                try {
+                    svcRecords = retrieveDnsRecords(ctx, aName);
+                    events.response(svcName, "", svcRecords);
+                    if (svcRecords.isEmpty()) {
+                        missing(ctx, svcName, ctx.getStatus());
+                        continue;
+                    }
+
+                    ctx.setPrefix("");
+                    ctx.setRrType(Type.TXT);
+                    ctx.setDomainName(Fqdn.intern(svcName));
+                    Record[] records = lookup(ctx);
+                    parseRecords(records, set, RrHolderType.OTHER);
+                    events.response(svcName, "", set.getTexts());
+                    if (set.getTexts().isEmpty()) {
+                        missing(ctx, svcName, ctx.getStatus());
+                        continue;
+                    }
+                } catch (LookupException le) {
+                    if (!ctx.isPartial()) {
+                        throw le;
+                    }
+                    ctx.fail(svcName, le.dnsError());
                     continue;
                 }
 
-                ctx.setPrefix("");
-                ctx.setRrType(Type.TXT);
-                ctx.setDomainName(new Fqdn(svcName));
-                Record[] records = lookup(ctx);
-                parseRecords(records, set, RrHolderType.OTHER);
-                statusChange(StatusChangeEvent.build(svcName, "", StatusChangeEvent.castedList(set.getTexts())));
-                if (set.getTexts().isEmpty()) {
-                    continue;
+                svcInstances.put(svcName, new ServiceInstance(ctx.getType(), svcRecords.iterator().next(),
+                                                              TextRecord.build(set.getTexts())));
+            }
+
+            return withAddresses(ctx, svcInstances);
+        }
+
+        /**
+         * Resolve the Service's instances concurrently: SRV and TXT lookups of every name are
+         * dispatched at once over the provided executor, then assembled within the lookup deadline.
+         *
+         * @param ctx A <code>LookupContext</code> defining this lookup parameters
+         * @param svcNames The service names to be resolved
+         * @param executor The <code>ExecutorService</code> carrying out the lookups
+         *
+         * @return A <code>Map</code> of the resolved <code>ServiceInstance</code> keyed by service name
+         *
+         * @throws LookupException
+         *      In case of unsuccessful DNS lookup or expired deadline; the <code>StatusCode</code> is
+         *      returned as part of this error.
+         */
+        private Map<String, ServiceInstance> resolveDnsInstances(LookupContext ctx, Set<String> svcNames,
+                                                                 ExecutorService executor)
+                                        throws LookupException
+        {
+            Map<String, ConcurrentLookup> srvLookups = new LinkedHashMap<>();
+            Map<String, ConcurrentLookup> txtLookups = new LinkedHashMap<>();
+            List<ConcurrentLookup> dispatched = new ArrayList<>();
+            try {
+                for (String svcName : svcNames) {
+                    ConcurrentLookup srvLookup = new ConcurrentLookup(ctx, Fqdn.intern(svcName), Type.SRV);
+                    ConcurrentLookup txtLookup = new ConcurrentLookup(ctx, Fqdn.intern(svcName), Type.TXT);
+                    srvLookups.put(svcName, srvLookup);
+                    txtLookups.put(svcName, txtLookup);
+                    srvLookup.dispatch(executor);
+                    dispatched.add(srvLookup);
+                    txtLookup.dispatch(executor);
+                    dispatched.add(txtLookup);
+                }
+
+                Map<String, ServiceInstance> svcInstances = new LinkedHashMap<>();
+                for (String svcName : svcNames) {
+                    RecordsContainer set = new RecordsContainer();
+                    try {
+                        parseRecords(srvLookups.get(svcName).await(), set, RrHolderType.OTHER);
+                        events.response(svcName, "", set.getRecords());
+                        if (set.getRecords().isEmpty()) {
+                            missing(ctx, svcName, srvLookups.get(svcName).status());
+                            continue;
+                        }
+
+                        parseRecords(txtLookups.get(svcName).await(), set, RrHolderType.OTHER);
+                        events.response(svcName, "", set.getTexts());
+                        if (set.getTexts().isEmpty()) {
+                            missing(ctx, svcName, txtLookups.get(svcName).status());
+                            continue;
+                        }
+                    } catch (LookupException le) {
+                        if (!ctx.isPartial()) {
+                            throw le;
+                        }
+                        ctx.fail(svcName, le.dnsError());
+                        continue;
+                    }
+
+                    svcInstances.put(svcName, new ServiceInstance(ctx.getType(), set.getRecords().iterator().next(),
+                                                                  TextRecord.build(set.getTexts())));
+                }
+
+                return withAddresses(ctx, svcInstances);
+            } catch (RejectedExecutionException ree) {
+                throw ExceptionsUtil.build(StatusCode.NETWORK_ERROR,
+                                           "Concurrent lookups rejected: " + ree.getMessage(),
+                                           errorsTrace.get());
+            } finally {
+                for (ConcurrentLookup lookup : dispatched) {
+                    lookup.cancel();
                 }
+            }
+        }
+
+        /**
+         * Attach the addresses of their SRV targets to the resolved instances: the cached ones (e.g.
+         * harvested from the additional sections of the previous responses) and, if so configured,
+         * the looked up ones. Failing address lookups leave the instances without addresses rather
+         * than failing the listing.
+         *
+         * @param ctx A <code>LookupContext</code> defining this lookup parameters
+         * @param svcInstances The resolved <code>ServiceInstance</code> keyed by service name
+         *
+         * @return The same <code>Map</code>, the instances along with their addresses
+         */
+        private Map<String, ServiceInstance> withAddresses(LookupContext ctx, Map<String, ServiceInstance> svcInstances)
+        {
+            Set<String> hosts = targets(svcInstances.values());
+            if (hosts.isEmpty()) {
+                return svcInstances;
+            }
 
-                svcInstances.add(new ServiceInstance(ctx.getType(), svcRecords.iterator().next(),
-                                    TextRecord.build(set.getTexts())));
+            if (resolvedAddresses) {
+                ctx.enter("addresses");
+                ExecutorService executor = lookupExecutor;
+                attachAddresses(svcInstances, (executor != null ? lookupAddresses(ctx, hosts, executor)
+                                                                : lookupAddresses(ctx, hosts)));
+                ctx.exit(StatusCode.SUCCESSFUL_OPERATION);
+            } else if (!ctx.isSecure()) {
+                attachAddresses(svcInstances, cachedAddresses(ctx.getServer(), hosts));
             }
 
             return svcInstances;
         }
 
+        /**
+         * Look the addresses of SRV targets up, one after the other.
+         *
+         * @param ctx A <code>LookupContext</code> defining this lookup parameters
+         * @param hosts The target host names
+         *
+         * @return The addresses found, keyed by host name
+         */
+        private Map<String, List<InetAddress>> lookupAddresses(LookupContext ctx, Set<String> hosts)
+        {
+            Map<String, List<InetAddress>> addresses = new HashMap<>();
+            ctx.setPrefix("");
+            for (String host : hosts) {
+                List<InetAddress> found = new ArrayList<>();
+                addresses.put(host, found);
+                ctx.setDomainName(Fqdn.intern(host));
+                for (int rrType : ADDRESS_TYPES) {
+                    ctx.setRrType(rrType);
+                    try {
+                        for (Record record : lookup(ctx)) {
+                            collectAddress(record, found);
+                        }
+                    } catch (LookupException le) {
+                        if (le.dnsError().equals(StatusCode.DEADLINE_EXCEEDED)) {
+                            return addresses;
+                        }
+                    }
+                }
+            }
+
+            return addresses;
+        }
+
+        /**
+         * Look the addresses of SRV targets up concurrently, all at once over the provided executor.
+         *
+         * @param ctx A <code>LookupContext</code> defining this lookup parameters
+         * @param hosts The target host names
+         * @param executor The <code>ExecutorService</code> carrying out the lookups
+         *
+         * @return The addresses found, keyed by host name
+         */
+        private Map<String, List<InetAddress>> lookupAddresses(LookupContext ctx, Set<String> hosts,
+                                                               ExecutorService executor)
+        {
+            Map<String, List<InetAddress>> addresses = new HashMap<>();
+            Map<String, List<ConcurrentLookup>> lookups = new LinkedHashMap<>();
+            List<ConcurrentLookup> dispatched = new ArrayList<>();
+            try {
+                for (String host : hosts) {
+                    List<ConcurrentLookup> hostLookups = new ArrayList<>(ADDRESS_TYPES.length);
+                    lookups.put(host, hostLookups);
+                    for (int rrType : ADDRESS_TYPES) {
+                        ConcurrentLookup lookup = new ConcurrentLookup(ctx, Fqdn.intern(host), rrType);
+                        lookup.dispatch(executor);
+                        hostLookups.add(lookup);
+                        dispatched.add(lookup);
+                    }
+                }
+            } catch (RejectedExecutionException ree) {
+                // the hosts not dispatched are left without addresses
+            }
+
+            try {
+                for (Map.Entry<String, List<ConcurrentLookup>> hostLookups : lookups.entrySet()) {
+                    List<InetAddress> found = new ArrayList<>();
+                    addresses.put(hostLookups.getKey(), found);
+                    for (ConcurrentLookup lookup : hostLookups.getValue()) {
+                        try {
+                            for (Record record : lookup.await()) {
+                                collectAddress(record, found);
+                            }
+                        } catch (LookupException le) {
+                            if (le.dnsError().equals(StatusCode.DEADLINE_EXCEEDED)) {
+                                return addresses;
+                            }
+                        }
+                    }
+                }
+
+                return addresses;
+            } finally {
+                for (ConcurrentLookup lookup : dispatched) {
+                    lookup.cancel();
+                }
+            }
+        }
+
+        /**
+         * Record a service name lacking its SRV or TXT records, in partial-result mode.
+         *
+         * @param ctx A <code>LookupContext</code> defining this lookup parameters
+         * @param svcName The service name
+         * @param status The outcome of the last lookup of the name, <code>null</code> if unknown
+         */
+        private void missing(LookupContext ctx, String svcName, StatusCode status)
+        {
+            if (ctx.isPartial()) {
+                ctx.fail(svcName, (status == null || status == StatusCode.SUCCESSFUL_OPERATION
+                                    ? StatusCode.RESOLUTION_RR_TYPE_ERROR : status));
+            }
+        }
+
         /**
          * Scrapes the Discovery Service Records according to their nature.
          *
@@ -771,4 +2019,896 @@ public class DnsServicesDiscovery extends Configurable implements DnsDiscovery
 
     }
 
+    /**
+     * Private inner helper class to implement non-blocking DNS-specific lookup operations: queries
+     * are sent by the bounded pool of the asynchronous workers, and the DNS-SD resolution chain is
+     * carried on by the workers receiving the responses. Every call gathers the errors and TTLs of
+     * its queries into an {@link AsyncCall}, so that it fails and caches as its synchronous
+     * counterpart does.
+     */
+    private final class AsyncLookupHelper
+    {
+
+        public AsyncLookupHelper() { super(); }
+
+        /**
+         * Retrieve a set of Service Types from the browsing domain.
+         *
+         * @param browsingDomain <code>Fqdn</code> representing the browsing domain
+         * @param secValidation  <code>true</code> in case secure browsing is needed
+         * @param result The <code>DiscoveryFuture</code> to be completed
+         */
+        public void serviceTypes(final Fqdn browsingDomain, boolean secValidation,
+                                 final DiscoveryFuture<Set<String>> result)
+        {
+            final AsyncCall call = new AsyncCall();
+            query(browsingDomain.fqdnWithPrefix(Constants.SERVICES_DNS_SD_UDP), Type.PTR, secValidation, call)
+                .whenDone(new Continuation<Record[], Set<String>>(result) {
+                    @Override
+                    protected void proceed(Record[] records)
+                    {
+                        complete(result, new TreeSet<>(DnsUtil.extractNamesFromRecords(records)), call,
+                                 browsingDomain.fqdn());
+                    }
+                });
+        }
+
+        /**
+         * Retrieve a set of Text Resource Records by their own domain name.
+         *
+         * @param txtFqdn <code>Fqdn</code> representing the labelled domain
+         * @param secValidation  <code>true</code> in case secure browsing is needed
+         * @param result The <code>DiscoveryFuture</code> to be completed
+         */
+        public void serviceTexts(final Fqdn txtFqdn, boolean secValidation,
+                                 final DiscoveryFuture<Set<TextRecord>> result)
+        {
+            final AsyncCall call = new AsyncCall();
+            query(txtFqdn.fqdn(), Type.TXT, secValidation, call)
+                .whenDone(new Continuation<Record[], Set<TextRecord>>(result) {
+                    @Override
+                    protected void proceed(Record[] records)
+                    {
+                        RecordsContainer set = new RecordsContainer();
+                        parseRecords(records, set);
+                        complete(result, set.getTexts(), call, txtFqdn.fqdn());
+                    }
+                });
+        }
+
+        /**
+         * Retrieve a set of TLSA Records from the browsing domain.
+         *
+         * @param browsingDomain <code>Fqdn</code> representing the browsing domain
+         * @param tlsaPrefix The TLSA prefix as couple <code>port:protocol</code>
+         * @param secValidation  <code>true</code> in case secure browsing is needed
+         * @param result The <code>DiscoveryFuture</code> to be completed
+         */
+        public void tlsaRecords(final Fqdn browsingDomain, DnsCertPrefix tlsaPrefix, boolean secValidation,
+                                final DiscoveryFuture<Set<CertRecord>> result)
+        {
+            final AsyncCall call = new AsyncCall();
+            String tlsaFqdn = tlsaPrefix.toString() + Constants.DNS_LABEL_DELIMITER + browsingDomain.fqdn();
+            query(tlsaFqdn, Type.TLSA, secValidation, call)
+                .whenDone(new Continuation<Record[], Set<CertRecord>>(result) {
+                    @Override
+                    protected void proceed(Record[] records)
+                    {
+                        Set<CertRecord> tlsaDiscoveryRecords = new TreeSet<>();
+                        for (Record record : records) {
+                            if (record instanceof TLSARecord) {
+                                tlsaDiscoveryRecords.add(new CertRecord((TLSARecord) record));
+                            }
+                        }
+                        complete(result, tlsaDiscoveryRecords, call, browsingDomain.fqdn());
+                    }
+                });
+        }
+
+        /**
+         * Validate the DNSSEC trust chain of the provided domain name.
+         *
+         * @param name <code>Fqdn</code> representing the validating domain
+         * @param result The <code>DiscoveryFuture</code> to be completed
+         */
+        public void dnsSec(final Fqdn name, final DiscoveryFuture<Boolean> result)
+        {
+            query(name.fqdn(), Type.SOA, true, new AsyncCall())
+                .whenDone(new Continuation<Record[], Boolean>(result) {
+                    @Override
+                    protected void proceed(Record[] records) throws LookupException
+                    {
+                        if (records.length == 0) {
+                            throw new LookupException(StatusCode.RESOLUTION_NAME_ERROR,
+                                                      FormattingUtil.unableToResolve(name.fqdn()));
+                        }
+                        events.dnsSec(name, StatusCode.SUCCESSFUL_OPERATION);
+                        result.complete(Boolean.TRUE);
+                    }
+
+                    @Override
+                    public void onFailure(DnsServiceException error)
+                    {
+                        if (error.dnsError() == StatusCode.RESOURCE_INSECURE_ERROR) {
+                            error = ExceptionsUtil.build(StatusCode.DNSSEC_STATUS_ERROR, "DNSSEC Validation Failed",
+                                                         new LinkedHashMap<String, StatusCode>());
+                        }
+                        super.onFailure(error);
+                    }
+                });
+        }
+
+        /**
+         * Retrieve a set of Service Instances from the browsing domain, according to the
+         * specified <i>type</i>: service types, names and instance records are looked up
+         * stage by stage, the lookups of each stage being all in flight at once. The listing is
+         * stored into the instances cache, as the synchronous listing is.
+         *
+         * @param browsingDomain <code>Fqdn</code> representing the browsing domain
+         * @param type A <code>CompoundLabel</code> defining the Service Type to be looked up
+         * @param secValidation  <code>true</code> in case secure browsing is needed
+         * @param result The <code>DiscoveryFuture</code> to be completed
+         */
+        public void serviceInstances(final Fqdn browsingDomain, final CompoundLabel type,
+                                     final boolean secValidation, final DiscoveryFuture<Set<ServiceInstance>> result)
+        {
+            final AsyncCall call = new AsyncCall();
+            final String key = instancesKey(browsingDomain, type, secValidation);
+            final Set<String> prefixes = new LinkedHashSet<>();
+            if (type.hasProtocol()) {
+                prefixes.add(type.prefixString());
+            } else {
+                prefixes.add(type.prefixString(Constants.TCP));
+                prefixes.add(type.prefixString(Constants.UDP));
+            }
+
+            final DiscoveryFuture<Set<String>> types = new DiscoveryFuture<>();
+            if (type.hasSubType()) {    // browsing by subtype, skip the types listing step
+                Set<String> subTypes = new TreeSet<>();
+                for (String prefix : prefixes) {
+                    subTypes.add(browsingDomain.fqdnWithPrefix(prefix));
+                }
+                types.complete(subTypes);
+            } else {
+                query(browsingDomain.fqdnWithPrefix(Constants.SERVICES_DNS_SD_UDP), Type.PTR, secValidation, call)
+                    .whenDone(new Continuation<Record[], Set<String>>(types) {
+                        @Override
+                        protected void proceed(Record[] records)
+                        {
+                            RecordsContainer set = new RecordsContainer();
+                            parseRecords(records, set);
+                            Set<String> filtered = new TreeSet<>();
+                            for (String prefix : prefixes) {
+                                filtered.addAll(DnsUtil.filterByType(prefix, set.getLabels()));
+                            }
+                            types.complete(filtered);
+                        }
+                    });
+            }
+
+            final DiscoveryFuture<Set<ServiceInstance>> found = new DiscoveryFuture<>();
+            types.whenDone(new Continuation<Set<String>, Set<ServiceInstance>>(found) {
+                @Override
+                protected void proceed(Set<String> zones)
+                {
+                    List<DiscoveryFuture<Record[]>> ptrLookups = new ArrayList<>();
+                    for (String zone : zones) {
+                        ptrLookups.add(query(zone, Type.PTR, secValidation, call));
+                    }
+                    DiscoveryFuture.all(ptrLookups).whenDone(
+                            new Continuation<List<Record[]>, Set<ServiceInstance>>(found) {
+                        @Override
+                        protected void proceed(List<Record[]> ptrs)
+                        {
+                            RecordsContainer names = new RecordsContainer();
+                            for (Record[] records : ptrs) {
+                                parseRecords(records, names);
+                            }
+                            serviceInstances(type, names.getLabels(), secValidation, call, found);
+                        }
+                    });
+                }
+            });
+
+            found.whenDone(new Continuation<Set<ServiceInstance>, Set<ServiceInstance>>(result) {
+                @Override
+                protected void proceed(Set<ServiceInstance> instances)
+                {
+                    if (!instances.isEmpty()) {
+                        instancesCache.put(key, Collections.unmodifiableSet(new TreeSet<>(instances)),
+                                           call.getMinTtl());
+                    } else if (ExceptionsUtil.onlyNameResolutionTrace(call.errors())) {
+                        // missing service type or instances: cache the negative result as well
+                        long ttl = (call.getMinTtl() == Long.MAX_VALUE ? Constants.NEGATIVE_CACHE_TTL
+                                                                        : call.getMinTtl());
+                        instancesCache.put(key, Collections.<ServiceInstance>emptySet(), ttl);
+                    }
+                    complete(result, instances, call, (type.hasProtocol()
+                                                        ? browsingDomain.fqdnWithPrefix(type.prefixString())
+                                                        : browsingDomain.fqdn()));
+                }
+            });
+        }
+
+        /**
+         * Retrieve the instances records of the provided service names, all in flight at once.
+         *
+         * @param type A <code>CompoundLabel</code> defining the Service Type to be looked up
+         * @param svcNames The service names to be resolved
+         * @param secValidation  <code>true</code> in case secure browsing is needed
+         * @param call The <code>AsyncCall</code> the lookups belong to
+         * @param result The <code>DiscoveryFuture</code> to be completed
+         */
+        private void serviceInstances(final CompoundLabel type, final Set<String> svcNames,
+                                      final boolean secValidation, final AsyncCall call,
+                                      final DiscoveryFuture<Set<ServiceInstance>> result)
+        {
+            List<DiscoveryFuture<Record[]>> lookups = new ArrayList<>();
+            for (String svcName : svcNames) {
+                lookups.add(query(svcName, Type.SRV, secValidation, call));
+                lookups.add(query(svcName, Type.TXT, secValidation, call));
+            }
+            DiscoveryFuture.all(lookups).whenDone(new Continuation<List<Record[]>, Set<ServiceInstance>>(result) {
+                @Override
+                protected void proceed(List<Record[]> records)
+                {
+                    Map<String, ServiceInstance> svcInstances = new LinkedHashMap<>();
+                    int i = 0;
+                    for (String svcName : svcNames) {
+                        RecordsContainer set = new RecordsContainer();
+                        parseRecords(records.get(i++), set);
+                        parseRecords(records.get(i++), set);
+                        if (set.getRecords().isEmpty() || set.getTexts().isEmpty()) {
+                            continue;
+                        }
+                        svcInstances.put(svcName, new ServiceInstance(type.getType(), set.getRecords().iterator().next(),
+                                            TextRecord.build(set.getTexts())));
+                    }
+                    withAddresses(svcInstances, secValidation, call, result);
+                }
+            });
+        }
+
+        /**
+         * Attach the addresses of their SRV targets to the resolved instances, as cached or, if
+         * so configured, as looked up all at once, then complete the result. Failing address
+         * lookups leave the instances without addresses rather than failing the listing.
+         *
+         * @param svcInstances The resolved <code>ServiceInstance</code> keyed by service name
+         * @param secValidation  <code>true</code> in case secure browsing is needed
+         * @param call The <code>AsyncCall</code> the lookups belong to
+         * @param result The <code>DiscoveryFuture</code> to be completed
+         */
+        private void withAddresses(final Map<String, ServiceInstance> svcInstances, boolean secValidation,
+                                   AsyncCall call, final DiscoveryFuture<Set<ServiceInstance>> result)
+        {
+            final List<String> hosts = new ArrayList<>(targets(svcInstances.values()));
+            if (!hosts.isEmpty() && resolvedAddresses) {
+                List<DiscoveryFuture<Record[]>> lookups = new ArrayList<>();
+                for (String host : hosts) {
+                    for (int rrType : ADDRESS_TYPES) {
+                        lookups.add(orNone(query(host, rrType, secValidation, call)));
+                    }
+                }
+                DiscoveryFuture.all(lookups).whenDone(new Continuation<List<Record[]>, Set<ServiceInstance>>(result) {
+                    @Override
+                    protected void proceed(List<Record[]> records)
+                    {
+                        Map<String, List<InetAddress>> addresses = new HashMap<>();
+                        int i = 0;
+                        for (String host : hosts) {
+                            List<InetAddress> found = new ArrayList<>();
+                            for (int j = 0; j < ADDRESS_TYPES.length; j++) {
+                                for (Record record : records.get(i++)) {
+                                    collectAddress(record, found);
+                                }
+                            }
+                            addresses.put(host, found);
+                        }
+                        attachAddresses(svcInstances, addresses);
+                        events.answer();
+                        result.complete(new TreeSet<>(svcInstances.values()));
+                    }
+                });
+                return;
+            }
+
+            if (!hosts.isEmpty() && !secValidation) {
+                try {
+                    String server = retrieveResolvers(validatedConf(), false).keySet().iterator().next();
+                    attachAddresses(svcInstances, cachedAddresses(server, new LinkedHashSet<>(hosts)));
+                } catch (ConfigurationException ce) {
+                    // left without addresses, the listing itself having succeeded
+                }
+            }
+            events.answer();
+            result.complete(new TreeSet<>(svcInstances.values()));
+        }
+
+        /**
+         * Complete the result of a call as its synchronous counterpart returns: nothing found
+         * because of other errors than missing names fails the call with
+         * {@link StatusCode#RESOURCE_LOOKUP_ERROR}.
+         *
+         * @param <T> Type of the found elements
+         * @param result The <code>DiscoveryFuture</code> to be completed
+         * @param found The found elements
+         * @param call The <code>AsyncCall</code> the lookups belong to
+         * @param name The domain name the call is about
+         */
+        private <T> void complete(DiscoveryFuture<Set<T>> result, Set<T> found, AsyncCall call, String name)
+        {
+            Map<String, StatusCode> errors = call.errors();
+            if (found.isEmpty() && !ExceptionsUtil.onlyNameResolutionTrace(errors)) {
+                result.fail(ExceptionsUtil.build(StatusCode.RESOURCE_LOOKUP_ERROR,
+                                                 FormattingUtil.unableToResolve(name), errors));
+            } else {
+                result.complete(found);
+            }
+        }
+
+        /**
+         * Wrap a query whose failure is not to fail the resolution chain.
+         *
+         * @param lookup The <code>DiscoveryFuture</code> of the query
+         *
+         * @return A <code>DiscoveryFuture</code> completed with the answer records, none upon failure
+         */
+        private DiscoveryFuture<Record[]> orNone(DiscoveryFuture<Record[]> lookup)
+        {
+            final DiscoveryFuture<Record[]> answer = new DiscoveryFuture<>();
+            lookup.whenDone(new DiscoveryCallback<Record[]>() {
+                @Override
+                public void onSuccess(Record[] records)
+                {
+                    answer.complete(records);
+                }
+
+                @Override
+                public void onFailure(DnsServiceException error)
+                {
+                    answer.complete(new Record[0]);
+                }
+            });
+
+            return answer;
+        }
+
+        /**
+         * Send a single question to the configured servers, failing over the next server upon
+         * network errors. Insecure questions are answered by the lookup cache when possible.
+         *
+         * @param domainName A domain name to lookup
+         * @param rrType The Resource Record <code>Type</code>
+         * @param secValidation  <code>true</code> in case DNSSEC validation is needed
+         * @param call The <code>AsyncCall</code> the query belongs to
+         *
+         * @return A <code>DiscoveryFuture</code> completed with the answer records
+         */
+        private DiscoveryFuture<Record[]> query(String domainName, int rrType, boolean secValidation,
+                                                AsyncCall call)
+        {
+            DiscoveryFuture<Record[]> answer = new DiscoveryFuture<>();
+            try {
+                Message query = DnsUtil.newQuery(domainName, rrType);
+                List<Map.Entry<String, Resolver>> servers
+                    = new ArrayList<>(retrieveResolvers(validatedConf(), secValidation).entrySet());
+                if (!secValidation) {
+                    Cache cache = lookupCaches.cache(servers.get(0).getKey());
+                    SetResponse cached = cache.lookupRecords(query.getQuestion().getName(), rrType, Credibility.NORMAL);
+                    if (cached.isSuccessful()) {
+                        Record[] records = cachedAnswers(cached, rrType);
+                        // cached records carry the TTL they have been received with
+                        for (Record record : records) {
+                            call.observeTtl(LookupCaches.remainingTtl(cache, record));
+                        }
+                        answer.complete(records);
+                        return answer;
+                    }
+                    if (cached.isNXDOMAIN() || cached.isNXRRSET()) {
+                        call.error(ExceptionsUtil.traceKey(cache, domainName, "Checking-Cache-Status"),
+                                   (cached.isNXDOMAIN() ? StatusCode.RESOLUTION_NAME_ERROR
+                                                        : StatusCode.RESOLUTION_RR_TYPE_ERROR));
+                        observeNegativeTtl(call, rrType, -1L);
+                        answer.complete(new Record[0]);
+                        return answer;
+                    }
+                }
+                send(query, rrType, secValidation, servers, 0, call, answer);
+            } catch (LookupException | ConfigurationException exception) {
+                answer.fail(exception);
+            } catch (RuntimeException exception) {
+                answer.fail(new LookupException(StatusCode.RESOURCE_LOOKUP_ERROR, exception.toString(), exception));
+            }
+
+            return answer;
+        }
+
+        /**
+         * Send a query to the server at position <code>index</code>, moving to the next one in case
+         * of network errors. The query is sent by a worker of the bounded pool rather than by
+         * <code>Resolver.sendAsync</code>, which dnsjava backs with a thread per query.
+         *
+         * @param query The query <code>Message</code>
+         * @param rrType The Resource Record <code>Type</code>
+         * @param secValidation <code>true</code> in case DNSSEC validation is needed
+         * @param servers The resolvers to be tried, in order
+         * @param index Position of the resolver to be used
+         * @param call The <code>AsyncCall</code> the query belongs to
+         * @param answer The <code>DiscoveryFuture</code> to be completed
+         */
+        private void send(final Message query, final int rrType, final boolean secValidation,
+                          final List<Map.Entry<String, Resolver>> servers, final int index,
+                          final AsyncCall call, final DiscoveryFuture<Record[]> answer)
+        {
+            final String name = query.getQuestion().getName().toString();
+            final String server = servers.get(index).getKey();
+            final Resolver resolver = servers.get(index).getValue();
+            try {
+                asyncExecutor().execute(new Runnable() {
+                    @Override
+                    public void run()
+                    {
+                        events.server(server);
+                        events.query(name, rrType);
+                        Message response;
+                        try {
+                            response = resolver.send(query);
+                        } catch (IOException exception) {
+                            retry(new LookupException(StatusCode.NETWORK_ERROR, FormattingUtil.unableToResolve(name),
+                                                      exception));
+                            return;
+                        } catch (RuntimeException exception) {
+                            answer.fail(new LookupException(StatusCode.RESOURCE_LOOKUP_ERROR, exception.toString(),
+                                                            exception));
+                            return;
+                        }
+                        received(response);
+                    }
+
+                    private void received(Message response)
+                    {
+                        StatusCode outcome = DnsUtil.responseStatus(response, rrType);
+                        if (secValidation && (outcome == StatusCode.SUCCESSFUL_OPERATION
+                                                || response.getRcode() == Rcode.SERVFAIL)) {
+                            StatusCode validation = DnsUtil.validationOutcome(response);
+                            if (validation != StatusCode.SUCCESSFUL_OPERATION) {
+                                outcome = validation;
+                            }
+                        }
+
+                        if (outcome == StatusCode.NETWORK_ERROR) {
+                            retry(new LookupException(outcome, FormattingUtil.unableToResolve(name)));
+                        } else if (outcome == StatusCode.SUCCESSFUL_OPERATION
+                                    || outcome == StatusCode.RESOLUTION_NAME_ERROR
+                                    || outcome == StatusCode.RESOLUTION_RR_TYPE_ERROR) {
+                            if (!secValidation) {
+                                lookupCaches.cache(server).addMessage(response);
+                            }
+                            Record[] records = DnsUtil.answers(response, rrType);
+                            if (outcome == StatusCode.SUCCESSFUL_OPERATION) {
+                                for (Record record : records) {
+                                    call.observeTtl(record.getTTL());
+                                }
+                            } else {
+                                call.error(ExceptionsUtil.traceKey(resolver, server + name, "Checking-Lookup-Status"),
+                                           outcome);
+                                observeNegativeTtl(call, rrType, DnsUtil.negativeTtl(response));
+                            }
+                            answer.complete(records);
+                        } else {
+                            answer.fail(ExceptionsUtil.build(outcome,
+                                            (secValidation ? "DNSSEC Validation Failed" : FormattingUtil.unableToResolve(name)),
+                                            call.errors()));
+                        }
+                    }
+
+                    private void retry(LookupException error)
+                    {
+                        if (index + 1 < servers.size()) {
+                            call.error(ExceptionsUtil.traceKey(resolver, server + name, "Sending-Query"),
+                                       error.dnsError());
+                            send(query, rrType, secValidation, servers, index + 1, call, answer);
+                        } else {
+                            answer.fail(ExceptionsUtil.build(error.dnsError(), error.getMessage(), call.errors()));
+                        }
+                    }
+                });
+            } catch (RuntimeException exception) {
+                answer.fail(new LookupException(StatusCode.RESOURCE_LOOKUP_ERROR, exception.toString(), exception));
+            }
+        }
+
+        /**
+         * Take into account the negative caching TTL of an unsuccessful query; answers whose SOA
+         * record is unknown (e.g. served by the DNS cache) are bound to a default TTL. Missing
+         * addresses are not taken into account, the instances being listed without them.
+         *
+         * @param call The <code>AsyncCall</code> the query belongs to
+         * @param rrType The Resource Record <code>Type</code> of the query
+         * @param ttl The negative caching TTL in seconds, <code>-1</code> if unknown
+         */
+        private void observeNegativeTtl(AsyncCall call, int rrType, long ttl)
+        {
+            if (isAddressType(rrType)) {
+                return;
+            }
+            call.observeTtl(Math.min((ttl < 0 ? Constants.NEGATIVE_CACHE_TTL : ttl),
+                                     lookupCaches.getMaxNegativeTtl()));
+        }
+
+        /**
+         * Extract the answer records of a cache hit.
+         *
+         * @param cached A <code>SetResponse</code> retrieved from the lookup cache
+         * @param rrType The Resource Record <code>Type</code>
+         *
+         * @return The cached records, possibly none
+         */
+        private Record[] cachedAnswers(SetResponse cached, int rrType)
+        {
+            List<Record> records = new ArrayList<>();
+            if (cached.isSuccessful()) {
+                for (RRset rrset : cached.answers()) {
+                    Iterator<?> itrRecords = rrset.rrs();
+                    while (itrRecords.hasNext()) {
+                        Record record = (Record) itrRecords.next();
+                        if (record.getType() == rrType) {
+                            records.add(record);
+                        }
+                    }
+                }
+            }
+
+            return records.toArray(new Record[records.size()]);
+        }
+
+        /**
+         * Scrapes the Discovery Service Records according to their nature.
+         *
+         * @param records An array of <code>Record</code> retrieved upon a lookup
+         * @param set A <code>ResourcesContainer</code>
+         */
+        private void parseRecords(Record[] records, final RecordsContainer set)
+        {
+            for (Record record : records) {
+                if (record instanceof PTRRecord) {
+                    String zone = PointerRecord.build((PTRRecord) record).getRData();
+                    if (zone != null) {
+                        set.getLabels().add(zone);
+                    }
+                } else if (record instanceof SRVRecord) {
+                    set.getRecords().add(ServiceRecord.build((SRVRecord) record));
+                } else if (record instanceof TXTRecord) {
+                    set.getTexts().add(TextRecord.build((TXTRecord) record));
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Private helper class holding the state shared by the queries of an asynchronous call: the
+     * errors trace, as <code>errorsTrace</code> holds it for the synchronous calls, and the minimum
+     * TTL of the records the result is made of.
+     *
+     * Thread-safe.
+     */
+    private static final class AsyncCall
+    {
+
+        /** Errors of the queries, keyed as in the synchronous errors trace. */
+        private final Map<String, StatusCode> errors = new LinkedHashMap<>();
+        /** Minimum TTL observed so far in seconds, <code>Long.MAX_VALUE</code> if none. */
+        private long minTtl = Long.MAX_VALUE;
+
+        public synchronized void error(String key, StatusCode error)
+        {
+            this.errors.put(key, error);
+        }
+
+        /**
+         * @return A snapshot of the errors of the queries
+         */
+        public synchronized Map<String, StatusCode> errors()
+        {
+            return new LinkedHashMap<>(this.errors);
+        }
+
+        public synchronized void observeTtl(long ttl)
+        {
+            this.minTtl = Math.min(this.minTtl, ttl);
+        }
+
+        public synchronized long getMinTtl()
+        {
+            return this.minTtl;
+        }
+
+    }
+
+    /**
+     * Private abstract callback carrying on an asynchronous resolution chain: errors are forwarded
+     * to the target <code>DiscoveryFuture</code>, as well as any error raised while proceeding.
+     *
+     * @param <S> Type of the intermediate result
+     * @param <T> Type of the target result
+     */
+    private static abstract class Continuation<S, T> implements DiscoveryCallback<S>
+    {
+
+        /** Target of the resolution chain. */
+        private final DiscoveryFuture<T> target;
+
+        public Continuation(DiscoveryFuture<T> target)
+        {
+            this.target = target;
+        }
+
+        @Override
+        public final void onSuccess(S result)
+        {
+            try {
+                proceed(result);
+            } catch (DnsServiceException exception) {
+                this.target.fail(exception);
+            } catch (RuntimeException exception) {
+                this.target.fail(new LookupException(StatusCode.RESOURCE_LOOKUP_ERROR, exception.toString(),
+                                                     exception));
+            }
+        }
+
+        @Override
+        public void onFailure(DnsServiceException error)
+        {
+            this.target.fail(error);
+        }
+
+        /**
+         * Carry on the resolution chain with an intermediate result.
+         *
+         * @param result The intermediate result
+         *
+         * @throws DnsServiceException In case the resolution chain cannot be carried on
+         */
+        protected abstract void proceed(S result) throws DnsServiceException;
+
+    }
+
+    /**
+     * Private inner class re-resolving watched Service Instances as soon as the cached ones expire,
+     * and notifying the changes to the listener. The scheduler only triggers the re-resolutions,
+     * carried out by the shared asynchronous workers, so that a slow watch does not hold the others.
+     */
+    private final class InstancesWatch implements Runnable, ServiceWatch
+    {
+
+        /** Watched browsing domain. */
+        private final Fqdn browsingDomain;
+        /** Watched Service Type. */
+        private final CompoundLabel type;
+        /** <code>true</code> in case of secure browsing. */
+        private final boolean secValidation;
+        /** Client handler. */
+        private final ServiceWatchListener listener;
+        /** Instances notified so far. */
+        private Set<ServiceInstance> snapshot;
+        /** Next scheduled resolution. */
+        private Future<?> next;
+        /** <code>true</code> once cancelled. */
+        private volatile boolean cancelled;
+
+        public InstancesWatch(Fqdn browsingDomain, CompoundLabel type, boolean secValidation,
+                              ServiceWatchListener listener)
+        {
+            this.browsingDomain = browsingDomain;
+            this.type = type;
+            this.secValidation = secValidation;
+            this.listener = listener;
+            this.snapshot = Collections.emptySet();
+        }
+
+        @Override
+        public void run()
+        {
+            if (this.cancelled) {
+                return;
+            }
+            long delay = Constants.WATCH_RETRY_DELAY;
+            try {
+                Set<ServiceInstance> current = listServiceInstances(this.browsingDomain, this.type, this.secValidation);
+                ServiceChanges changes = ServiceChanges.between(this.snapshot, current);
+                this.snapshot = current;
+                delay = refreshDelay(current);
+                if (!changes.isEmpty() && !this.cancelled) {
+                    this.listener.onChange(changes);
+                }
+            } catch (LookupException | ConfigurationException exception) {
+                if (!this.cancelled) {
+                    this.listener.onError(exception);
+                }
+            } finally {
+                schedule(delay);
+            }
+        }
+
+        @Override
+        public void cancel()
+        {
+            this.cancelled = true;
+            synchronized (this) {
+                if (this.next != null) {
+                    this.next.cancel(false);
+                }
+            }
+        }
+
+        @Override
+        public boolean isCancelled()
+        {
+            return this.cancelled;
+        }
+
+        /**
+         * Schedule the next resolution, unless cancelled.
+         *
+         * @param delay Delay of the next resolution, in milliseconds
+         */
+        public synchronized void schedule(long delay)
+        {
+            if (this.cancelled) {
+                return;
+            }
+            try {
+                this.next = watchScheduler().schedule(new Runnable() {
+                    @Override
+                    public void run()
+                    {
+                        try {
+                            asyncExecutor().execute(InstancesWatch.this);
+                        } catch (RejectedExecutionException ree) {
+                            schedule(Constants.WATCH_RETRY_DELAY);
+                        }
+                    }
+                }, delay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException ree) {
+                // watches shut down
+                this.cancelled = true;
+            }
+        }
+
+        /**
+         * Compute the delay of the next resolution: the cached instances expire first, their
+         * records otherwise.
+         *
+         * @param current The instances just resolved
+         *
+         * @return A delay in milliseconds
+         */
+        private long refreshDelay(Set<ServiceInstance> current)
+        {
+            long delay = instancesCache.expiresIn(instancesKey(this.browsingDomain, this.type, this.secValidation),
+                                                  TimeUnit.MILLISECONDS);
+            if (delay < 0) {
+                long ttl = (current.isEmpty() ? Constants.NEGATIVE_CACHE_TTL : Long.MAX_VALUE);
+                for (ServiceInstance instance : current) {
+                    ttl = Math.min(ttl, instance.getTtl());
+                }
+                delay = TimeUnit.SECONDS.toMillis(ttl);
+            }
+
+            return Math.max(delay, Constants.WATCH_MIN_INTERVAL);
+        }
+
+    }
+
+    /**
+     * Private inner class wrapping a lookup carried out by the lookup executor. The errors
+     * traced by the executing thread are handed back to the awaiting one.
+     */
+    private final class ConcurrentLookup implements Callable<Record[]>
+    {
+
+        /** Context of the awaiting thread. */
+        private final LookupContext parent;
+        /** Context of this lookup, owned by the executing thread. */
+        private final LookupContext ctx;
+        /** Errors traced while looking up. */
+        private final Map<String, StatusCode> trace;
+        /** Pending outcome of this lookup. */
+        private Future<Record[]> outcome;
+
+        public ConcurrentLookup(LookupContext parent, Fqdn name, int rrType)
+        {
+            this.parent = parent;
+            this.ctx = DnsUtil.context(name, "", parent.getLabel(), parent.getType(), rrType,
+                                       parent.isSecure());
+            this.ctx.setResolver(parent.getResolver());
+            this.ctx.setValResolver(parent.getValResolver());
+            this.ctx.setServer(parent.getServer());
+            this.ctx.setDeadline(parent);
+            this.ctx.setSpan(parent.getSpan());
+            this.trace = new LinkedHashMap<>();
+        }
+
+        @Override
+        public Record[] call() throws LookupException
+        {
+            errorsTrace.get().clear();
+            try {
+                return helper.lookup(this.ctx);
+            } finally {
+                this.trace.putAll(errorsTrace.get());
+                errorsTrace.remove();
+            }
+        }
+
+        /**
+         * Submit this lookup to the provided executor.
+         *
+         * @param executor The <code>ExecutorService</code> carrying out the lookup
+         */
+        public void dispatch(ExecutorService executor)
+        {
+            this.outcome = executor.submit(this);
+        }
+
+        /**
+         * Wait for this lookup outcome until the deadline of the call, merging its errors into the
+         * awaiting thread's trace.
+         *
+         * @return A set of one or more Resource <code>Record</code>
+         *
+         * @throws LookupException
+         *      In case of unsuccessful DNS lookup or expired deadline.
+         */
+        public Record[] await() throws LookupException
+        {
+            String name = this.ctx.getDomainName().fqdn();
+            try {
+                Record[] records = this.outcome.get(Math.max(0L, this.parent.getRemaining()),
+                                                    TimeUnit.NANOSECONDS);
+                errorsTrace.get().putAll(this.trace);
+                this.parent.observeTtl(this.ctx.getMinTtl());
+
+                return records;
+            } catch (ExecutionException ee) {
+                errorsTrace.get().putAll(this.trace);
+                if (ee.getCause() instanceof LookupException) {
+                    throw (LookupException) ee.getCause();
+                }
+                throw new LookupException(StatusCode.RESOURCE_LOOKUP_ERROR,
+                                          FormattingUtil.unableToResolve(name), ee.getCause());
+            } catch (TimeoutException te) {
+                throw ExceptionsUtil.build(StatusCode.DEADLINE_EXCEEDED,
+                                           "Lookup deadline expired: " + FormattingUtil.unableToResolve(name),
+                                           errorsTrace.get());
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw ExceptionsUtil.build(StatusCode.NETWORK_ERROR,
+                                           "Lookup interrupted: " + FormattingUtil.unableToResolve(name),
+                                           errorsTrace.get());
+            }
+        }
+
+        /**
+         * @return The outcome of the query of this lookup, <code>null</code> until answered
+         */
+        public StatusCode status()
+        {
+            return this.ctx.getStatus();
+        }
+
+        /**
+         * Cancel this lookup, if still pending.
+         */
+        public void cancel()
+        {
+            if (this.outcome != null) {
+                this.outcome.cancel(true);
+            }
+        }
+
+    }
+
 }
@@ -12,13 +12,16 @@ package org.eclipse.iot.tiaki.utils;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import org.eclipse.iot.tiaki.commons.DiscoveryMetrics;
 import org.eclipse.iot.tiaki.commons.LookupContext;
+import org.eclipse.iot.tiaki.commons.NoopMetrics;
 import org.eclipse.iot.tiaki.commons.StatusCode;
 import org.eclipse.iot.tiaki.domain.Fqdn;
 import org.eclipse.iot.tiaki.domain.TextRecord;
@@ -36,6 +39,7 @@ import org.xbill.DNS.Rcode;
 import org.xbill.DNS.Record;
 import org.xbill.DNS.Resolver;
 import org.xbill.DNS.ResolverConfig;
+import org.xbill.DNS.SOARecord;
 import org.xbill.DNS.Section;
 import org.xbill.DNS.SimpleResolver;
 import org.xbill.DNS.TXTRecord;
@@ -61,56 +65,6 @@ public final class DnsUtil
     /** DNSSEC response NSEC3 related text string. */
     private static final String NSEC3_NO_DS = "nsec3s proved no ds";
 
-    /** Regex to extract the description from a DNS-SD QName */
-    private static final String DNS_SD_DESC_EXT_PATTERN = ".(_[a-z-]+.){2}.+";
-
-    /** Translation table for double bytes UTF-8 characters */
-    private static final Map<String, String> decodingTable;
-
-    // TODO comprehensive escaping procedure
-    // static fill up: UTF-8 double bytes (decimal) sequences to Unicode characters
-    static {
-        decodingTable = new HashMap<>();
-        decodingTable.put("195160", "à");
-        decodingTable.put("195161", "á");
-        decodingTable.put("195162", "â");
-        decodingTable.put("195163", "ã");
-        decodingTable.put("195164", "ä");
-
-        decodingTable.put("195166", "æ");
-        decodingTable.put("195167", "ç");
-
-        decodingTable.put("195168", "è");
-        decodingTable.put("195169", "é");
-        decodingTable.put("195170", "ê");
-        decodingTable.put("195171", "ë");
-        decodingTable.put("195172", "ì");
-        decodingTable.put("195173", "í");
-        decodingTable.put("195174", "î");
-        decodingTable.put("195175", "ï");
-        decodingTable.put("195177", "ñ");
-        decodingTable.put("195178", "ò");
-        decodingTable.put("195179", "ó");
-        decodingTable.put("195180", "ô");
-        decodingTable.put("195181", "õ");
-        decodingTable.put("195182", "ö");
-        decodingTable.put("195184", "ø");
-        decodingTable.put("195185", "œ");
-        decodingTable.put("195186", "ù");
-        decodingTable.put("195187", "ú");
-        decodingTable.put("195188", "û");
-        decodingTable.put("195188", "ü");
-
-        decodingTable.put("195132", "Ä");
-        decodingTable.put("195150", "Ö");
-        decodingTable.put("195156", "Ü");
-        decodingTable.put("195159", "ß");
-
-        decodingTable.put("226128153", "'");
-
-        decodingTable.put("032", " ");
-    }
-
     /**
      * Instantiate a DNS <code>Resolver</code> by the provided Server. In case of DNSSEC validation
      * is needed, a <code>ValidatingResolver</code> is instantiated.
@@ -127,7 +81,27 @@ public final class DnsUtil
     public static Resolver getResolver(boolean dnsSec, String trustAnchor, String server)
                             throws ConfigurationException
     {
-        Resolver resolver = instantiateResolver(dnsSec, trustAnchor, server);
+        return getResolver(dnsSec, trustAnchor, server, SimpleResolver.DEFAULT_PORT);
+    }
+
+    /**
+     * Instantiate a DNS <code>Resolver</code> by the provided Server, listening on a non standard
+     * port. In case of DNSSEC validation is needed, a <code>ValidatingResolver</code> is instantiated.
+     *
+     * @param dnsSec <code>true</code> iff DNSSEC is enabled
+     * @param trustAnchor Public cryptographic to validate against
+     * @param server Server to use as DNS resolver
+     * @param port Port the server listens on
+     *
+     * @return An instance of <code>Resolver</code>
+     *
+     * @throws ConfigurationException
+     *      Exceptional circumstances in which <code>Resolver</code> cannot be created.
+     */
+    public static Resolver getResolver(boolean dnsSec, String trustAnchor, String server, int port)
+                            throws ConfigurationException
+    {
+        Resolver resolver = instantiateResolver(dnsSec, trustAnchor, server, port);
         if (resolver == null) {
             throw new ConfigurationException(String.format("Unable to retrieve a Resolver from [%s]", server));
         }
@@ -153,7 +127,7 @@ public final class DnsUtil
         String[] servers = ResolverConfig.getCurrentConfig().servers();
         Map<String, Resolver> resolvers = new LinkedHashMap<>(servers.length);
         for (String server : servers) {
-            Resolver resolver = instantiateResolver(dnsSec, trustAnchor, server);
+            Resolver resolver = instantiateResolver(dnsSec, trustAnchor, server, SimpleResolver.DEFAULT_PORT);
             if (resolver != null) {
                 resolvers.put(server, resolver);
             }
@@ -180,41 +154,34 @@ public final class DnsUtil
      */
     public static boolean checkDnsSec(Fqdn name, Resolver resolver, int rType)
                             throws LookupException
+    {
+        return checkDnsSec(name, resolver, rType, new NoopMetrics());
+    }
+
+    /**
+     * Validate the DNSSEC trust chain against the provided domain name (i.e. <code>Fqdn</code>),
+     * recording the validation latency and outcome.
+     *
+     * @param name A <code>Fqdn</code> representing the validating domain
+     * @param resolver A DNS <code>Resovler</code> to be used in this validation
+     * @param rType An integer representing the record type
+     * @param metrics The <code>DiscoveryMetrics</code> recording the validation
+     *
+     * @return <code>true</code> iff the DNSSEC is valid
+     *
+     * @throws LookupException
+     *      Containing the specific <code>StatusCode</code> defining the error that has been raised.
+     */
+    public static boolean checkDnsSec(Fqdn name, Resolver resolver, int rType, DiscoveryMetrics metrics)
+                            throws LookupException
     {
         try {
             ValidatingResolver validating = (ValidatingResolver) resolver;
             Record toValidate = Record.newRecord(Name.fromConstantString(name.fqdn()), rType, DClass.IN);
             Message dnsResponse = validating.send(Message.newQuery(toValidate));
-            RRset[] rrSets = dnsResponse.getSectionRRsets(Section.ADDITIONAL);
-            StringBuilder reason = new StringBuilder("");
-            for (RRset rrset : rrSets) {
-                if (rrset.getName().equals(Name.root) && rrset.getType() == Type.TXT
-                        && rrset.getDClass() == ValidatingResolver.VALIDATION_REASON_QCLASS) {
-                    reason.append(TextRecord.build((TXTRecord) rrset.first()).getRData());
-                }
-            }
-            StatusCode outcome = StatusCode.SUCCESSFUL_OPERATION;
-            if (dnsResponse.getRcode() == Rcode.SERVFAIL) {
-                if (reason.toString().toLowerCase().contains(CHAIN_OF_TRUST)
-                        || reason.toString().toLowerCase().contains(INSECURE)) {
-                    outcome = StatusCode.RESOURCE_INSECURE_ERROR;
-                } else if (reason.toString().toLowerCase().contains(NO_DATA)) {
-                    outcome = StatusCode.NETWORK_ERROR;
-                } else if (reason.toString().toLowerCase().contains(NO_SIGNATURE)
-                        || reason.toString().toLowerCase().contains(MISSING_KEY)) {
-                    outcome = StatusCode.RESOLUTION_NAME_ERROR;
-                }
-            } else if (dnsResponse.getRcode() == Rcode.NXDOMAIN) {
-                if (reason.toString().toLowerCase().contains(NSEC3_NO_DS)) {
-                    outcome = StatusCode.RESOURCE_INSECURE_ERROR;
-                } else {
-                    outcome = StatusCode.RESOLUTION_NAME_ERROR;
-                }
-            } else if (dnsResponse.getRcode() == Rcode.NOERROR
-                    && !dnsResponse.getHeader().getFlag(Flags.AD)) {
-                outcome = StatusCode.RESOURCE_INSECURE_ERROR;
-            }
-
+            long start = System.nanoTime();
+            StatusCode outcome = validationOutcome(dnsResponse);
+            metrics.dnsSecValidated(outcome, System.nanoTime() - start);
             if (outcome != StatusCode.SUCCESSFUL_OPERATION) {
                 throw ExceptionsUtil.build(outcome,
                         "DNSSEC Validation Failed",
@@ -228,6 +195,140 @@ public final class DnsUtil
         return true;
     }
 
+    /**
+     * Evaluate the DNSSEC validation outcome of a response received through a
+     * <code>ValidatingResolver</code>, by its AD flag and validation reason.
+     *
+     * @param dnsResponse A DNS response <code>Message</code>
+     *
+     * @return A <code>StatusCode</code> with the validation outcome
+     */
+    public static StatusCode validationOutcome(Message dnsResponse)
+    {
+        RRset[] rrSets = dnsResponse.getSectionRRsets(Section.ADDITIONAL);
+        StringBuilder reason = new StringBuilder("");
+        for (RRset rrset : rrSets) {
+            if (rrset.getName().equals(Name.root) && rrset.getType() == Type.TXT
+                    && rrset.getDClass() == ValidatingResolver.VALIDATION_REASON_QCLASS) {
+                reason.append(TextRecord.build((TXTRecord) rrset.first()).getRData());
+            }
+        }
+        StatusCode outcome = StatusCode.SUCCESSFUL_OPERATION;
+        if (dnsResponse.getRcode() == Rcode.SERVFAIL) {
+            if (reason.toString().toLowerCase().contains(CHAIN_OF_TRUST)
+                    || reason.toString().toLowerCase().contains(INSECURE)) {
+                outcome = StatusCode.RESOURCE_INSECURE_ERROR;
+            } else if (reason.toString().toLowerCase().contains(NO_DATA)) {
+                outcome = StatusCode.NETWORK_ERROR;
+            } else if (reason.toString().toLowerCase().contains(NO_SIGNATURE)
+                    || reason.toString().toLowerCase().contains(MISSING_KEY)) {
+                outcome = StatusCode.RESOLUTION_NAME_ERROR;
+            }
+        } else if (dnsResponse.getRcode() == Rcode.NXDOMAIN) {
+            if (reason.toString().toLowerCase().contains(NSEC3_NO_DS)) {
+                outcome = StatusCode.RESOURCE_INSECURE_ERROR;
+            } else {
+                outcome = StatusCode.RESOLUTION_NAME_ERROR;
+            }
+        } else if (dnsResponse.getRcode() == Rcode.NOERROR
+                && !dnsResponse.getHeader().getFlag(Flags.AD)) {
+            outcome = StatusCode.RESOURCE_INSECURE_ERROR;
+        }
+
+        return outcome;
+    }
+
+    /**
+     * Evaluate a DNS response the same way a <code>Lookup</code> does.
+     *
+     * @param dnsResponse A DNS response <code>Message</code>
+     * @param rrType The looked up Resource Record <code>Type</code>
+     *
+     * @return A <code>StatusCode</code> with the response outcome
+     */
+    public static StatusCode responseStatus(Message dnsResponse, int rrType)
+    {
+        StatusCode outcome = null;
+        if (dnsResponse.getRcode() == Rcode.NXDOMAIN) {
+            // Domain Name not found
+            outcome = StatusCode.RESOLUTION_NAME_ERROR;
+        } else if (dnsResponse.getRcode() != Rcode.NOERROR) {
+            outcome = StatusCode.NETWORK_ERROR;
+        } else if (answers(dnsResponse, rrType).length == 0) {
+            // RR set not found
+            outcome = StatusCode.RESOLUTION_RR_TYPE_ERROR;
+        } else {
+            outcome = StatusCode.SUCCESSFUL_OPERATION;
+        }
+
+        return outcome;
+    }
+
+    /**
+     * Extract the answer records of the requested type from a DNS response.
+     *
+     * @param dnsResponse A DNS response <code>Message</code>
+     * @param rrType The looked up Resource Record <code>Type</code>
+     *
+     * @return The answer records of type <code>rrType</code>
+     */
+    public static Record[] answers(Message dnsResponse, int rrType)
+    {
+        List<Record> answers = new ArrayList<>();
+        for (Record record : dnsResponse.getSectionArray(Section.ANSWER)) {
+            if (record.getType() == rrType) {
+                answers.add(record);
+            }
+        }
+
+        return answers.toArray(new Record[answers.size()]);
+    }
+
+    /**
+     * Extract the negative caching TTL of a DNS response, i.e. the lower between the TTL and the
+     * MINIMUM field of the SOA record of its authority section.
+     *
+     * @param dnsResponse A DNS response <code>Message</code>
+     *
+     * @return The negative caching TTL in seconds, <code>-1</code> in case of no SOA record
+     *
+     * @see <a href="https://tools.ietf.org/html/rfc2308#section-5">RFC 2308</a>
+     */
+    public static long negativeTtl(Message dnsResponse)
+    {
+        long ttl = -1L;
+        for (Record record : dnsResponse.getSectionArray(Section.AUTHORITY)) {
+            if (record instanceof SOARecord) {
+                long soaTtl = Math.min(record.getTTL(), ((SOARecord) record).getMinimum());
+                ttl = (ttl < 0 ? soaTtl : Math.min(ttl, soaTtl));
+            }
+        }
+
+        return ttl;
+    }
+
+    /**
+     * Instantiate a DNS query <code>Message</code>.
+     *
+     * @param domainName A domain name to lookup
+     * @param rrType The Resource Record <code>Type</code>
+     *
+     * @return A query <code>Message</code> having recursion desired
+     *
+     * @throws LookupException
+     *      Containing the specific <code>StatusCode</code> defining the error that has been raised.
+     */
+    public static Message newQuery(String domainName, int rrType) throws LookupException
+    {
+        try {
+            Name name = Name.fromString(domainName.replaceAll("\"", ""), Name.root);
+            return Message.newQuery(Record.newRecord(name, rrType, DClass.IN));
+        } catch (TextParseException ex) {
+            throw new LookupException(StatusCode.RESOURCE_LOOKUP_ERROR, String.format("Unable to create a Query for [%s]",
+                    domainName));
+        }
+    }
+
     /**
      * Validate the DNS <code>Lookup</code>, catching any transient or blocking issue.
      *
@@ -294,26 +395,61 @@ public final class DnsUtil
      * @param dnsSec <code>true</code> iff DNSSEC is enabled
      * @param trustAnchor Public cryptographic to validate against
      * @param server Server to use as DNS resolver
+     * @param port Port the server listens on
      *
      * @return <code>null</code> in case the <code>Resolver</code> cannot be instantiated
      */
-    private static Resolver instantiateResolver(boolean dnsSec, String trustAnchor, String server)
+    private static Resolver instantiateResolver(boolean dnsSec, String trustAnchor, String server, int port)
     {
         try {
             Resolver resolver = new SimpleResolver(server);
-            if (!dnsSec) {
-                return resolver;
-            }
-
-            ValidatingResolver validating = new ValidatingResolver(resolver);
-            validating.loadTrustAnchors(new ByteArrayInputStream(trustAnchor.getBytes(StandardCharsets.UTF_8)));
+            resolver.setPort(port);
 
-            return validating;
+            return (dnsSec ? validating(resolver, trustAnchor) : resolver);
         } catch (IOException e) {
             return null;
         }
     }
 
+    /**
+     * Wrap a DNS <code>Resolver</code> into a <code>ValidatingResolver</code>.
+     *
+     * @param head The <code>Resolver</code> sending the queries
+     * @param trustAnchor Public cryptographic to validate against
+     *
+     * @return An instance of <code>ValidatingResolver</code>
+     *
+     * @throws ConfigurationException
+     *      In case the Trust Anchor cannot be loaded.
+     */
+    public static Resolver getValidatingResolver(Resolver head, String trustAnchor)
+                            throws ConfigurationException
+    {
+        try {
+            return validating(head, trustAnchor);
+        } catch (IOException e) {
+            throw new ConfigurationException("Unable to load the Trust Anchor: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Private helper wrapping a DNS <code>Resolver</code> into a <code>ValidatingResolver</code>.
+     *
+     * @param head The <code>Resolver</code> sending the queries
+     * @param trustAnchor Public cryptographic to validate against
+     *
+     * @return An instance of <code>ValidatingResolver</code>
+     *
+     * @throws IOException In case the Trust Anchor cannot be loaded
+     */
+    private static Resolver validating(Resolver head, String trustAnchor) throws IOException
+    {
+        ValidatingResolver validating = new ValidatingResolver(head);
+        validating.loadTrustAnchors(new ByteArrayInputStream(trustAnchor.getBytes(StandardCharsets.UTF_8)));
+
+        return validating;
+    }
+
     /**
      * Extract service names from input pointer records.
      *
@@ -379,20 +515,86 @@ public final class DnsUtil
     }
 
     /**
-     * Extracts an unescaped description from a DNS-SD QName
+     * Extracts an unescaped description from a DNS-SD QName, i.e. its Instance label (RFC 6763,
+     * 4.1). The <code>\DDD</code> and <code>\X</code> escapes (RFC 1035, 5.1) are decoded in a
+     * single pass and the octets reassembled as UTF-8, undecodable sequences being replaced by
+     * <code>U+FFFD</code>. A name without Service labels is decoded as a whole.
      *
      * @param qname     Domain name to be used for this extraction process
      * @return      Unescaped DNS-SD description
      */
     public static String extractDnsSdDescription(String qname)
     {
-        String escaped = qname.replaceAll(DNS_SD_DESC_EXT_PATTERN, "").
-                                replaceAll("\\\\", "").
-                                replaceAll("032", " ");
-        for(String key: decodingTable.keySet())
-            escaped = escaped.replaceAll(key, decodingTable.get(key));
+        int end = instanceLabelEnd(qname);
+        byte[] octets = new byte[end];
+        int size = 0;
+        StringBuilder decoded = null;
+        int i = 0;
+        while (i < end) {
+            char c = qname.charAt(i++);
+            if (c == '\\') {
+                if (i == end) {
+                    break;
+                }
+                c = qname.charAt(i++);
+                if (isDigit(c) && i + 1 < end && isDigit(qname.charAt(i)) && isDigit(qname.charAt(i + 1))) {
+                    int value = (c - '0') * 100 + (qname.charAt(i) - '0') * 10 + (qname.charAt(i + 1) - '0');
+                    if (value <= 0xFF) {
+                        octets[size++] = (byte) value;
+                        i += 2;
+                        continue;
+                    }
+                }
+            }
+            if (c < 0x80) {
+                octets[size++] = (byte) c;
+            } else {
+                // not an octet: flush the pending ones
+                if (decoded == null) {
+                    decoded = new StringBuilder(end);
+                }
+                decoded.append(new String(octets, 0, size, StandardCharsets.UTF_8)).append(c);
+                size = 0;
+            }
+        }
+
+        String tail = new String(octets, 0, size, StandardCharsets.UTF_8);
+
+        return (decoded == null ? tail : decoded.append(tail).toString());
+    }
 
-        return escaped;
+    /**
+     * Private helper locating the end of the Instance label of a DNS-SD QName, that is the first
+     * unescaped dot followed by two Service labels (e.g. <code>._http._tcp.</code>).
+     *
+     * @return The index of that dot, or the length of the name if none
+     */
+    private static int instanceLabelEnd(String qname)
+    {
+        int length = qname.length();
+        for (int i = 0; i < length; i++) {
+            char c = qname.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '.' && isServiceLabel(qname, i + 1)) {
+                int next = qname.indexOf('.', i + 1);
+                if (next > 0 && isServiceLabel(qname, next + 1)) {
+                    return i;
+                }
+            }
+        }
+
+        return length;
+    }
+
+    private static boolean isServiceLabel(String qname, int start)
+    {
+        return start < qname.length() && qname.charAt(start) == '_';
+    }
+
+    private static boolean isDigit(char c)
+    {
+        return c >= '0' && c <= '9';
     }
 
     private DnsUtil()
@@ -26,8 +26,13 @@ public final class ExceptionsUtil
 
     /** Date format pattern. */
     private static final String DATET_FORMAT = "yyyy-MM-dd HH:mm:ss";
-    /** Date formatter. */
-    private static final SimpleDateFormat FORMATTER = new SimpleDateFormat(DATET_FORMAT);
+    /** Date formatter, one per thread as <code>SimpleDateFormat</code> is not Thread-safe. */
+    private static final ThreadLocal<SimpleDateFormat> FORMATTER = new ThreadLocal<SimpleDateFormat>() {
+        @Override
+        protected SimpleDateFormat initialValue() {
+            return new SimpleDateFormat(DATET_FORMAT);
+        }
+    };
 
 	/**
 	 * Build a <code>LookupException</code> and return its instance.
@@ -59,7 +64,7 @@ public final class ExceptionsUtil
 	public static String traceKey(Object who, String forWhich, String where)
     {
 		StringBuilder builder = new StringBuilder();
-		builder.append(FORMATTER.format(new Date(System.currentTimeMillis())))
+		builder.append(FORMATTER.get().format(new Date(System.currentTimeMillis())))
 				.append(":<")
 				.append(who.getClass().getSimpleName())
 				.append(">:[")
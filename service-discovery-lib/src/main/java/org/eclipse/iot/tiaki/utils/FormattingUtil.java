@@ -87,6 +87,18 @@ public final class FormattingUtil
 		return String.format( QUERY_OUTPUT, name.fqdnWithPrefix( prefix ), type );
 	}
 
+	/**
+	 * Build up a formatted message for a DNS query by the queried domain name.
+	 *
+	 * @param name   A <code>String</code> containing the queried domain name
+	 * @param type   A <code>String</code> containing the resource record type
+	 * @return A <code>String</code> containing the query content
+	 */
+	public static String query ( String name, String type )
+    {
+		return String.format( QUERY_OUTPUT, name, type );
+	}
+
 
 	/**
 	 * Build up a formatted response message.
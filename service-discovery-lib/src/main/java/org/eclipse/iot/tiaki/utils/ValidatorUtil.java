@@ -9,6 +9,7 @@
 
 package org.eclipse.iot.tiaki.utils;
 
+import java.util.regex.Pattern;
 import org.eclipse.iot.tiaki.domain.CompoundLabel;
 import org.eclipse.iot.tiaki.domain.Fqdn;
 
@@ -23,6 +24,9 @@ public final class ValidatorUtil
 	public static final String DNS_SD_FQDN_PATTERN = "\\";
 	public static final int FQDN_LENGTH = 255;
 
+	/** Compiled <code>FQDN_PATTERN</code>, not to compile it again on every validation. */
+	private static final Pattern FQDN_REGEX = Pattern.compile( FQDN_PATTERN );
+
 
 	/**
 	 * Check the input expression.
@@ -81,11 +85,12 @@ public final class ValidatorUtil
 		if ( name == null ) {
 			throw new IllegalArgumentException( "null/blank Fully Qualified Domain Name" );
 		}
-		else if ( name.fqdn() == null || name.fqdn().isEmpty() ) {
+		String fqdn = name.fqdn();
+		if ( fqdn == null || fqdn.isEmpty() ) {
 			throw new IllegalArgumentException( "null/blank name" );
 		}
-		else if ( !isDnsSdDomainName(name.fqdn()) && (!name.fqdn().matches( FQDN_PATTERN )
-                    || name.fqdn().length() > FQDN_LENGTH )) {
+		else if ( !isDnsSdDomainName(fqdn) && (fqdn.length() > FQDN_LENGTH
+                    || !FQDN_REGEX.matcher( fqdn ).matches()) ) {
 			throw new IllegalArgumentException( String.format( "invalid FQDN [%s]", name ) );
 		}
 	}
@@ -103,8 +108,8 @@ public final class ValidatorUtil
 		if ( name == null || name.isEmpty() ) {
 			throw new IllegalArgumentException( "null/blank name" );
 		}
-		else if ( !isDnsSdDomainName(name) && (!name.matches(FQDN_PATTERN )
-                    || name.length() > FQDN_LENGTH) ) {
+		else if ( !isDnsSdDomainName(name) && (name.length() > FQDN_LENGTH
+                    || !FQDN_REGEX.matcher( name ).matches()) ) {
 			throw new IllegalArgumentException( String.format( "invalid FQDN [%s]", name ) );
 		}
 	}
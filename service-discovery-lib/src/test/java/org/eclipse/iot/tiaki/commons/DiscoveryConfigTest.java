@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.commons;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.iot.tiaki.exceptions.ConfigurationException;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DiscoveryConfigTest
+{
+
+    private static final String ANCHOR = ". IN DS 19036 8 2 49AAC11D7B6F6446702E54A1607371607A1A41855200FD2CE1CDDE32F24E8FB5";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void settingsAreSnapshotted() throws IOException, ConfigurationException
+    {
+        InetAddress localhost = InetAddress.getByName("127.0.0.1");
+        DiscoveryConfig.Builder builder = DiscoveryConfig.builder()
+                                                         .dnsServer(localhost, 5353)
+                                                         .trustAnchor(ANCHOR)
+                                                         .dnsSecDomain("example.com")
+                                                         .cacheMaxEntries(10)
+                                                         .cacheMaxTtl(20)
+                                                         .cacheMaxNegativeTtl(5)
+                                                         .lookupDeadline(2, TimeUnit.SECONDS)
+                                                         .queryTimeout(500, TimeUnit.MILLISECONDS)
+                                                         .queryRetries(2, 50, TimeUnit.MILLISECONDS)
+                                                         .concurrentLookups(4)
+                                                         .asyncWorkers(2)
+                                                         .hedgedLookups(0.2)
+                                                         .serverEjection(5, 1, TimeUnit.MINUTES);
+        DiscoveryConfig config = builder.build();
+        builder.dnsServer(localhost).dnsSecDomain("example.org");
+
+        Assert.assertEquals(Arrays.asList(new InetSocketAddress(localhost, 5353)), config.getDnsServers());
+        Assert.assertEquals(ANCHOR, config.getTrustAnchor());
+        Assert.assertEquals("example.com", config.getDnsSecDomain());
+        Assert.assertEquals(10, config.getCacheMaxEntries());
+        Assert.assertEquals(20, config.getCacheMaxTtl());
+        Assert.assertEquals(5, config.getCacheMaxNegativeTtl());
+        Assert.assertEquals(2000L, config.getLookupDeadline());
+        Assert.assertEquals(500L, config.getQueryTimeout());
+        Assert.assertEquals(2, config.getQueryRetries());
+        Assert.assertEquals(50L, config.getRetryBackoff());
+        Assert.assertEquals(4, config.getConcurrentLookups());
+        try {
+            config.getDnsServers().clear();
+            Assert.fail("Expected an immutable list of servers");
+        } catch (UnsupportedOperationException uoe) {
+            // expected
+        }
+
+        DiscoveryConfig copy = config.toBuilder().build();
+        Assert.assertEquals(config.getDnsServers(), copy.getDnsServers());
+        Assert.assertEquals(ANCHOR, copy.getTrustAnchor());
+        Assert.assertEquals(4, copy.getConcurrentLookups());
+        Assert.assertEquals(2, copy.getAsyncWorkers());
+        Assert.assertEquals(0.2, copy.getHedgedLoad(), 0d);
+        Assert.assertEquals(5, copy.getEjectionFailures());
+        Assert.assertEquals(60000L, copy.getEjectionPeriod());
+        Assert.assertTrue(copy.sharesResolvers(config));
+        Assert.assertFalse(copy.toBuilder().queryRetries(0, 0, TimeUnit.MILLISECONDS).build().sharesResolvers(config));
+        Assert.assertFalse(copy.toBuilder().hedgedLookups(0).build().sharesResolvers(config));
+    }
+
+    @Test
+    public void trustAnchorFileIsReadOnce() throws IOException, ConfigurationException
+    {
+        File anchor = this.folder.newFile("anchor.key");
+        Files.write(anchor.toPath(), ANCHOR.getBytes(StandardCharsets.UTF_8));
+        DiscoveryConfig config = DiscoveryConfig.builder()
+                                                .dnsServer(InetAddress.getByName("127.0.0.1"))
+                                                .trustAnchor("ignored")
+                                                .trustAnchorFile(anchor)
+                                                .build();
+
+        Assert.assertTrue(anchor.delete());
+        Assert.assertEquals(ANCHOR, config.getTrustAnchor());
+        Assert.assertEquals(0L, config.getLookupDeadline());
+        try {
+            DiscoveryConfig.builder().trustAnchorFile(anchor).build();
+            Assert.fail("Expected an unreadable Trust Anchor");
+        } catch (ConfigurationException ce) {
+            // expected
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidSettingsAreRejected()
+    {
+        DiscoveryConfig.builder().concurrentLookups(0);
+    }
+
+    @Test
+    public void zeroDeadlineRemovesTheDeadline() throws IOException, ConfigurationException
+    {
+        DiscoveryConfig config = DiscoveryConfig.builder()
+                                                .dnsServer(InetAddress.getByName("127.0.0.1"))
+                                                .trustAnchor(ANCHOR)
+                                                .lookupDeadline(2, TimeUnit.SECONDS)
+                                                .build();
+        Assert.assertEquals(0L, config.toBuilder().lookupDeadline(0, TimeUnit.SECONDS).build().getLookupDeadline());
+        try {
+            DiscoveryConfig.builder().lookupDeadline(-1, TimeUnit.SECONDS);
+            Assert.fail("Expected a rejected negative deadline");
+        } catch (IllegalArgumentException iae) {
+            // expected
+        }
+    }
+
+    @Test
+    public void snapshotsAreSwappedUponChanges() throws IOException, ConfigurationException
+    {
+        Configurable configurable = new Configurable() { };
+        DiscoveryConfig config = DiscoveryConfig.builder()
+                                                .dnsServer(InetAddress.getByName("127.0.0.1"))
+                                                .trustAnchor(ANCHOR)
+                                                .concurrentLookups(2)
+                                                .build();
+        try {
+            configurable.configure(config);
+            Assert.assertSame(config, configurable.validatedConf());
+            Assert.assertNotNull(configurable.lookupExecutor);
+            configurable.checkConfiguration(false);
+            Assert.assertSame(config, configurable.validatedConf());
+
+            configurable.dnsServer(InetAddress.getByName("127.0.0.2")).concurrentLookups(1);
+            DiscoveryConfig reloaded = configurable.validatedConf();
+            Assert.assertNotSame(config, reloaded);
+            Assert.assertEquals(2, reloaded.getDnsServers().size());
+            Assert.assertEquals(ANCHOR, reloaded.getTrustAnchor());
+            Assert.assertNull(configurable.lookupExecutor);
+            Assert.assertEquals(1, config.getDnsServers().size());
+        } finally {
+            configurable.shutdownLookups();
+        }
+    }
+
+}
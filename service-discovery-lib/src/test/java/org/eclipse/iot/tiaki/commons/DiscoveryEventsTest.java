@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.commons;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Observable;
+import java.util.Observer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.iot.tiaki.domain.Fqdn;
+import org.eclipse.iot.tiaki.utils.FormattingUtil;
+import org.junit.Assert;
+import org.junit.Test;
+import org.xbill.DNS.Type;
+
+public class DiscoveryEventsTest
+{
+
+    @Test
+    public void eventsAreDroppedUnlessIntrospected()
+    {
+        DiscoveryEvents events = new DiscoveryEvents();
+        RecordingListener listener = new RecordingListener();
+        events.addListener(listener);
+        Assert.assertFalse(events.enabled());
+        events.info("dropped");
+        Assert.assertTrue(listener.events.isEmpty());
+
+        events.setIntrospected(true);
+        events.removeListener(listener);
+        Assert.assertFalse(events.enabled());
+    }
+
+    @Test
+    public void observersReceiveLegacyStrings()
+    {
+        DiscoveryEvents events = new DiscoveryEvents();
+        final List<Object> received = new ArrayList<>();
+        events.addListener(new ObserverListener(new Observer() {
+            @Override
+            public void update(Observable o, Object arg) { received.add(arg); }
+        }, null));
+        events.setIntrospected(true);
+
+        events.server("127.0.0.1");
+        events.query(new Fqdn("example.com"), "_http._tcp", Type.PTR);
+        events.answer();
+        Assert.assertEquals(FormattingUtil.server("127.0.0.1"), received.get(0));
+        Assert.assertEquals(FormattingUtil.query("_http._tcp.example.com.", "PTR"), received.get(1));
+        Assert.assertEquals(FormattingUtil.answer(), received.get(2));
+    }
+
+    @Test
+    public void deprecatedStatusChangesAreForwarded()
+    {
+        final List<Object> received = new ArrayList<>();
+        final List<Observable> sources = new ArrayList<>();
+        RecordingListener listener = new RecordingListener();
+        LegacyConfigurable configurable = new LegacyConfigurable();
+        configurable.introspected(true);
+        configurable.observer(new Observer() {
+            @Override
+            public void update(Observable o, Object arg)
+            {
+                sources.add(o);
+                received.add(arg);
+            }
+        });
+        configurable.listener(listener);
+
+        configurable.legacy("legacy");
+        configurable.events.dnsSec(new Fqdn("example.com"), StatusCode.SUCCESSFUL_OPERATION);
+        Assert.assertEquals(Arrays.<Object>asList("legacy",
+                                FormattingUtil.response(FormattingUtil.authenticData(new Fqdn("example.com").fqdn()))),
+                            received);
+        Assert.assertNotNull(sources.get(0));
+        Assert.assertSame(sources.get(0), sources.get(1));
+        Assert.assertEquals(Collections.singletonList("legacy"), listener.events);
+    }
+
+    @Test
+    public void failingListenersDoNotStopDelivery()
+    {
+        DiscoveryEvents events = new DiscoveryEvents();
+        RecordingListener listener = new RecordingListener();
+        events.addListener(new RecordingListener() {
+            @Override
+            public void info(String message) { throw new IllegalStateException(message); }
+        });
+        events.addListener(listener);
+        events.setIntrospected(true);
+
+        events.info("delivered");
+        Assert.assertEquals(Collections.singletonList("delivered"), listener.events);
+    }
+
+    @Test
+    public void asyncDispatchPreservesOrder() throws InterruptedException
+    {
+        DiscoveryEvents events = new DiscoveryEvents();
+        RecordingListener listener = new RecordingListener();
+        ExecutorService dispatcher = Executors.newSingleThreadExecutor();
+        events.addListener(listener);
+        events.setIntrospected(true);
+        events.setDispatcher(dispatcher);
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            expected.add(Integer.toString(i));
+            events.info(Integer.toString(i));
+        }
+        dispatcher.shutdown();
+        Assert.assertTrue(dispatcher.awaitTermination(5, TimeUnit.SECONDS));
+        Assert.assertEquals(expected, listener.events);
+    }
+
+    /**
+     * Helper class notifying through the deprecated API.
+     */
+    private static final class LegacyConfigurable extends Configurable
+    {
+        @SuppressWarnings("deprecation")
+        void legacy(String what) { statusChange(what); }
+    }
+
+    /**
+     * Helper class recording the received informational messages.
+     */
+    private static class RecordingListener implements DiscoveryListener
+    {
+        final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+
+        @Override
+        public void info(String message) { this.events.add(message); }
+
+        @Override
+        public void serverSelected(String server) { }
+
+        @Override
+        public void querySent(String name, String type) { }
+
+        @Override
+        public void responseReceived(StatusChangeEvent response) { }
+
+        @Override
+        public void answerComplete() { }
+    }
+
+}
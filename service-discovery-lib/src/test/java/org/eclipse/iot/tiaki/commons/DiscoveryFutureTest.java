@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.commons;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import org.eclipse.iot.tiaki.exceptions.DnsServiceException;
+import org.eclipse.iot.tiaki.exceptions.LookupException;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DiscoveryFutureTest
+{
+
+    @Test
+    public void callbacksAreNotifiedOnce() throws Exception
+    {
+        DiscoveryFuture<String> future = new DiscoveryFuture<>();
+        final StringBuilder notified = new StringBuilder();
+        DiscoveryCallback<String> callback = new DiscoveryCallback<String>() {
+            @Override
+            public void onSuccess(String result) { notified.append(result); }
+
+            @Override
+            public void onFailure(DnsServiceException error) { notified.append("failure"); }
+        };
+
+        future.whenDone(callback);
+        Assert.assertTrue(future.complete("done"));
+        Assert.assertFalse(future.fail(new LookupException(StatusCode.NETWORK_ERROR, "late")));
+        future.whenDone(callback);
+        Assert.assertEquals("donedone", notified.toString());
+        Assert.assertEquals("done", future.get());
+    }
+
+    @Test
+    public void failureIsTheExecutionCause() throws InterruptedException
+    {
+        DiscoveryFuture<String> future = new DiscoveryFuture<>();
+        LookupException error = new LookupException(StatusCode.RESOLUTION_NAME_ERROR, "example.com");
+        future.fail(error);
+        try {
+            future.get();
+            Assert.fail("Expected failure");
+        } catch (ExecutionException exception) {
+            Assert.assertSame(error, exception.getCause());
+        }
+    }
+
+    @Test(expected = CancellationException.class)
+    public void cancelledFutureReportsCancellation() throws Exception
+    {
+        DiscoveryFuture<String> future = new DiscoveryFuture<>();
+        Assert.assertTrue(future.cancel(true));
+        Assert.assertTrue(future.isCancelled());
+        Assert.assertFalse(future.complete("late"));
+        future.get();
+    }
+
+    @Test
+    public void allKeepsTheOrderOfResults() throws Exception
+    {
+        DiscoveryFuture<Integer> first = new DiscoveryFuture<>();
+        DiscoveryFuture<Integer> second = new DiscoveryFuture<>();
+        DiscoveryFuture<List<Integer>> combined = DiscoveryFuture.all(Arrays.asList(first, second));
+
+        second.complete(2);
+        Assert.assertFalse(combined.isDone());
+        first.complete(1);
+        Assert.assertEquals(Arrays.asList(1, 2), combined.get());
+    }
+
+    @Test
+    public void allFailsAsSoonAsAnyFails()
+    {
+        DiscoveryFuture<Integer> first = new DiscoveryFuture<>();
+        DiscoveryFuture<Integer> second = new DiscoveryFuture<>();
+        DiscoveryFuture<List<Integer>> combined = DiscoveryFuture.all(Arrays.asList(first, second));
+
+        second.fail(new LookupException(StatusCode.NETWORK_ERROR, "unreachable"));
+        Assert.assertTrue(combined.isDone());
+    }
+
+}
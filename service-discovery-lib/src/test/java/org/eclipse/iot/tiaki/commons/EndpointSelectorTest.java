@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.commons;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import org.eclipse.iot.tiaki.domain.DiscoveryRecordUtil;
+import org.eclipse.iot.tiaki.domain.ServiceInstance;
+import org.eclipse.iot.tiaki.domain.ServiceRecord;
+import org.eclipse.iot.tiaki.domain.TextRecord;
+import org.junit.Assert;
+import org.junit.Test;
+import org.xbill.DNS.TextParseException;
+
+public class EndpointSelectorTest
+{
+
+    private static final int DRAWS = 100000;
+
+    @Test
+    public void endpointsAreSelectedByWeight() throws TextParseException
+    {
+        ServiceInstance light = instance("light.example.com.", 0, 10);
+        ServiceInstance medium = instance("medium.example.com.", 0, 30);
+        ServiceInstance heavy = instance("heavy.example.com.", 0, 60);
+        ServiceInstance backup = instance("backup.example.com.", 1, 100);
+        EndpointSelector selector = new EndpointSelector(set(light, medium, heavy, backup));
+        Assert.assertEquals(4, selector.size());
+
+        int[] counts = new int[4];
+        for (int i = 0; i < DRAWS; i++) {
+            ServiceInstance selected = selector.select();
+            if (selected == light) {
+                counts[0]++;
+            } else if (selected == medium) {
+                counts[1]++;
+            } else if (selected == heavy) {
+                counts[2]++;
+            } else {
+                counts[3]++;
+            }
+        }
+        Assert.assertEquals(0.1, counts[0] / (double) DRAWS, 0.01);
+        Assert.assertEquals(0.3, counts[1] / (double) DRAWS, 0.01);
+        Assert.assertEquals(0.6, counts[2] / (double) DRAWS, 0.01);
+        Assert.assertEquals(0, counts[3]);
+    }
+
+    @Test
+    public void downEndpointsFailOver() throws TextParseException
+    {
+        ServiceInstance first = instance("first.example.com.", 0, 50);
+        ServiceInstance second = instance("second.example.com.", 0, 50);
+        ServiceInstance backup = instance("backup.example.com.", 10, 0);
+        EndpointSelector selector = new EndpointSelector(set(first, second, backup));
+
+        Assert.assertTrue(selector.markDown(first));
+        Assert.assertFalse(selector.markDown(first));
+        Assert.assertTrue(selector.isDown(first));
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertSame(second, selector.select());
+        }
+
+        selector.markDown(second);
+        Assert.assertSame(backup, selector.select());
+        selector.markDown(backup);
+        Assert.assertNull(selector.select());
+
+        Assert.assertTrue(selector.markUp(first));
+        Assert.assertFalse(selector.markUp(first));
+        Assert.assertFalse(selector.isDown(first));
+        Assert.assertSame(first, selector.select());
+        Assert.assertFalse(selector.markDown(instance("unknown.example.com.", 0, 1)));
+    }
+
+    @Test
+    public void zeroWeightsAreSelectedEvenly() throws TextParseException
+    {
+        ServiceInstance one = instance("one.example.com.", 0, 0);
+        ServiceInstance two = instance("two.example.com.", 0, 0);
+        EndpointSelector selector = new EndpointSelector(set(one, two));
+
+        int ones = 0;
+        for (int i = 0; i < DRAWS; i++) {
+            if (selector.select() == one) {
+                ones++;
+            }
+        }
+        Assert.assertEquals(0.5, ones / (double) DRAWS, 0.01);
+        Assert.assertNull(new EndpointSelector(Collections.<ServiceInstance>emptySet()).select());
+    }
+
+    private static ServiceInstance instance(String host, int priority, int weight) throws TextParseException
+    {
+        return new ServiceInstance("_http._tcp",
+                                   ServiceRecord.build(DiscoveryRecordUtil.createSrvRecord(host, 80, priority, weight, 60)),
+                                   TextRecord.build(DiscoveryRecordUtil.createTxtRecord("txtvers=1", 60)));
+    }
+
+    private static Set<ServiceInstance> set(ServiceInstance... instances)
+    {
+        Set<ServiceInstance> set = new HashSet<>();
+        Collections.addAll(set, instances);
+
+        return set;
+    }
+
+}
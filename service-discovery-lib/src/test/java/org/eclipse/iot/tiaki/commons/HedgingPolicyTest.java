@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.commons;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HedgingPolicyTest
+{
+
+    @Test
+    public void delayFollowsTheObservedPercentile()
+    {
+        HedgingPolicy policy = new HedgingPolicy(0.1);
+        Assert.assertEquals(Constants.HEDGE_INITIAL_DELAY, policy.delay(TimeUnit.MILLISECONDS));
+
+        for (int i = 1; i <= 128; i++) {
+            policy.observe(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+        Assert.assertEquals(122L, policy.delay(TimeUnit.MILLISECONDS));
+
+        for (int i = 0; i < 128; i++) {
+            policy.observe(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+        Assert.assertEquals(Constants.HEDGE_MIN_DELAY, policy.delay(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void hedgesAreCappedByTheExtraLoad()
+    {
+        HedgingPolicy policy = new HedgingPolicy(0.1);
+        for (int i = 0; i < Constants.HEDGE_MAX_BURST; i++) {
+            Assert.assertTrue(policy.tryHedge());
+        }
+        Assert.assertFalse(policy.tryHedge());
+
+        for (int i = 0; i < 9; i++) {
+            policy.sent();
+        }
+        Assert.assertFalse(policy.tryHedge());
+        policy.sent();
+        Assert.assertTrue(policy.tryHedge());
+        Assert.assertFalse(policy.tryHedge());
+    }
+
+    @Test
+    public void failoversAreCharged()
+    {
+        HedgingPolicy policy = new HedgingPolicy(0.1);
+        for (int i = 0; i < Constants.HEDGE_MAX_BURST + 1; i++) {
+            policy.failedOver();
+        }
+        Assert.assertFalse(policy.tryHedge());
+
+        for (int i = 0; i < 10; i++) {
+            policy.sent();
+        }
+        Assert.assertFalse(policy.tryHedge());
+        for (int i = 0; i < 10; i++) {
+            policy.sent();
+        }
+        Assert.assertTrue(policy.tryHedge());
+    }
+
+    @Test
+    public void noExtraLoadMeansNoHedges()
+    {
+        HedgingPolicy policy = new HedgingPolicy(0);
+        policy.sent();
+        Assert.assertFalse(policy.tryHedge());
+    }
+
+}
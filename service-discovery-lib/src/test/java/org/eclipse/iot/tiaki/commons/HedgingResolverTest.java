@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.commons;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.iot.tiaki.stub.StubDnsServer;
+import org.eclipse.iot.tiaki.stub.ZoneFixture;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.xbill.DNS.DClass;
+import org.xbill.DNS.Message;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.Rcode;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.Resolver;
+import org.xbill.DNS.SimpleResolver;
+import org.xbill.DNS.Type;
+
+public class HedgingResolverTest
+{
+
+    private static final ExecutorService WORKERS = Executors.newCachedThreadPool();
+
+    private StubDnsServer slow;
+    private StubDnsServer fast;
+
+    @After
+    public void tearDown()
+    {
+        for (StubDnsServer server : Arrays.asList(this.slow, this.fast)) {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    @Test
+    public void lateQueriesAreHedged() throws IOException
+    {
+        ZoneFixture zone = ZoneFixture.load("example.com.zone", "example.com.");
+        this.slow = new StubDnsServer().zone(zone).latency(1, TimeUnit.SECONDS).start();
+        this.fast = new StubDnsServer().zone(zone).start();
+        HedgingResolver hedging = new HedgingResolver(Arrays.asList(resolver(this.slow), resolver(this.fast)),
+                                                      new HedgingPolicy(0.1), WORKERS);
+
+        long start = System.nanoTime();
+        Message response = hedging.send(query());
+        Assert.assertEquals(Rcode.NOERROR, response.getRcode());
+        Assert.assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(800));
+        Assert.assertEquals(1, this.fast.queries());
+    }
+
+    @Test
+    public void exhaustedBudgetWaitsForThePrimary() throws IOException
+    {
+        ZoneFixture zone = ZoneFixture.load("example.com.zone", "example.com.");
+        this.slow = new StubDnsServer().zone(zone).latency(300, TimeUnit.MILLISECONDS).start();
+        this.fast = new StubDnsServer().zone(zone).start();
+        HedgingResolver hedging = new HedgingResolver(Arrays.asList(resolver(this.slow), resolver(this.fast)),
+                                                      new HedgingPolicy(0), WORKERS);
+
+        Assert.assertEquals(Rcode.NOERROR, hedging.send(query()).getRcode());
+        Assert.assertEquals(0, this.fast.queries());
+    }
+
+    @Test
+    public void refusedQueriesFailOverAtOnce() throws IOException
+    {
+        this.slow = new StubDnsServer().start();
+        this.fast = new StubDnsServer().zone(ZoneFixture.load("example.com.zone", "example.com.")).start();
+        HedgingResolver hedging = new HedgingResolver(Arrays.asList(resolver(this.slow), resolver(this.fast)),
+                                                      new HedgingPolicy(0), WORKERS);
+
+        Assert.assertEquals(Rcode.NOERROR, hedging.send(query()).getRcode());
+        Assert.assertEquals(1, this.slow.queries());
+        Assert.assertEquals(1, this.fast.queries());
+    }
+
+    @Test
+    public void saturatedExecutorDelaysOnlyTheHedges() throws IOException
+    {
+        ZoneFixture zone = ZoneFixture.load("example.com.zone", "example.com.");
+        this.slow = new StubDnsServer().zone(zone).latency(300, TimeUnit.MILLISECONDS).start();
+        this.fast = new StubDnsServer().zone(zone).start();
+        Executor saturated = new Executor() {
+            @Override
+            public void execute(Runnable task)
+            {
+                // never started
+            }
+        };
+        HedgingResolver hedging = new HedgingResolver(Arrays.asList(resolver(this.slow), resolver(this.fast)),
+                                                      new HedgingPolicy(1), saturated);
+
+        // the primary query is sent by the calling thread
+        Assert.assertEquals(Rcode.NOERROR, hedging.send(query()).getRcode());
+        Assert.assertEquals(1, this.slow.queries());
+        Assert.assertEquals(0, this.fast.queries());
+        Assert.assertFalse(Thread.currentThread().isInterrupted());
+    }
+
+    @Test
+    public void hedgedAnswersInterruptThePrimary() throws IOException
+    {
+        ZoneFixture zone = ZoneFixture.load("example.com.zone", "example.com.");
+        this.slow = new StubDnsServer().zone(zone).latency(2, TimeUnit.SECONDS).start();
+        this.fast = new StubDnsServer().zone(zone).start();
+        HedgingResolver hedging = new HedgingResolver(Arrays.asList(resolver(this.slow), resolver(this.fast)),
+                                                      new HedgingPolicy(0.1), WORKERS);
+
+        for (int i = 0; i < 2; i++) {
+            long start = System.nanoTime();
+            Assert.assertEquals(Rcode.NOERROR, hedging.send(query()).getRcode());
+            Assert.assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(1500));
+            // the winning hedge does not leave the calling thread interrupted
+            Assert.assertFalse(Thread.currentThread().isInterrupted());
+        }
+        Assert.assertEquals(2, this.fast.queries());
+    }
+
+    /**
+     * Helper method building a resolver addressing a stub server.
+     */
+    private static Resolver resolver(StubDnsServer server) throws IOException
+    {
+        SimpleResolver resolver = new SimpleResolver(server.getAddress().getHostAddress());
+        resolver.setPort(server.getPort());
+        resolver.setTimeout(3);
+
+        return resolver;
+    }
+
+    /**
+     * Helper method building a query.
+     */
+    private static Message query() throws IOException
+    {
+        return Message.newQuery(Record.newRecord(Name.fromString("_http._tcp.example.com."), Type.PTR, DClass.IN));
+    }
+
+}
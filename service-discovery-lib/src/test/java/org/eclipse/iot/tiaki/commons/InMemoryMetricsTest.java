@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.commons;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+import org.xbill.DNS.Type;
+
+public class InMemoryMetricsTest
+{
+
+    @Test
+    public void measuresAreRecorded()
+    {
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        for (int i = 1; i <= 10; i++) {
+            metrics.queryCompleted("10.0.0.1:53", Type.SRV, StatusCode.SUCCESSFUL_OPERATION,
+                                   TimeUnit.MILLISECONDS.toNanos(i * 10));
+        }
+        metrics.queryCompleted("10.0.0.1:53", Type.TXT, StatusCode.NETWORK_ERROR, 0);
+        metrics.queryCompleted("10.0.0.1:53", Type.TXT, StatusCode.NETWORK_ERROR, 0);
+        metrics.cacheAccessed(DiscoveryMetrics.RECORDS_CACHE, true);
+        metrics.cacheAccessed(DiscoveryMetrics.RECORDS_CACHE, true);
+        metrics.cacheAccessed(DiscoveryMetrics.RECORDS_CACHE, true);
+        metrics.cacheAccessed(DiscoveryMetrics.RECORDS_CACHE, false);
+
+        InMemoryMetrics.Histogram srv = metrics.queries("SRV");
+        Assert.assertEquals(10, srv.count());
+        Assert.assertEquals(550L, srv.sum(TimeUnit.MILLISECONDS));
+        Assert.assertEquals(50L, srv.percentile(50));
+        Assert.assertEquals(100L, srv.percentile(99));
+        Assert.assertEquals(2, metrics.queries("TXT").count());
+        Assert.assertNull(metrics.queries("PTR"));
+        Assert.assertEquals(2L, metrics.errors("10.0.0.1:53", StatusCode.NETWORK_ERROR));
+        Assert.assertEquals(0L, metrics.errors("10.0.0.1:53", StatusCode.SERVER_ERROR));
+        Assert.assertEquals(0.75, metrics.cacheHitRatio(DiscoveryMetrics.RECORDS_CACHE), 0.0);
+        Assert.assertEquals(0.0, metrics.cacheHitRatio(DiscoveryMetrics.INSTANCES_CACHE), 0.0);
+        Assert.assertEquals(0, metrics.validations().count());
+
+        // latencies are not truncated to the millisecond
+        metrics.dnsSecValidated(StatusCode.SUCCESSFUL_OPERATION, TimeUnit.MICROSECONDS.toNanos(1500));
+        Assert.assertEquals(2L, metrics.validations().percentile(50));
+    }
+
+    @Test
+    public void measuresAreScraped()
+    {
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        metrics.queryCompleted("10.0.0.1:53", Type.PTR, StatusCode.RESOLUTION_NAME_ERROR,
+                               TimeUnit.MILLISECONDS.toNanos(3));
+        metrics.callCompleted("listServiceTypes", StatusCode.SUCCESSFUL_OPERATION,
+                              TimeUnit.SECONDS.toNanos(20));
+
+        String text = metrics.scrape();
+        Assert.assertTrue(text.contains("tiaki_query_latency_ms_bucket{type=\"PTR\",le=\"2\"} 0\n"));
+        Assert.assertTrue(text.contains("tiaki_query_latency_ms_bucket{type=\"PTR\",le=\"5\"} 1\n"));
+        Assert.assertTrue(text.contains("tiaki_query_latency_ms_count{type=\"PTR\"} 1\n"));
+        Assert.assertTrue(text.contains(
+                "tiaki_query_errors_total{server=\"10.0.0.1:53\",status=\"RESOLUTION_NAME_ERROR\"} 1\n"));
+        Assert.assertTrue(text.contains("tiaki_dnssec_validation_ms_count 0\n"));
+        Assert.assertTrue(text.contains(
+                "tiaki_call_latency_ms_bucket{method=\"listServiceTypes\",le=\"10000\"} 0\n"));
+        Assert.assertTrue(text.contains(
+                "tiaki_call_latency_ms_bucket{method=\"listServiceTypes\",le=\"+Inf\"} 1\n"));
+        Assert.assertEquals(Long.MAX_VALUE, metrics.calls("listServiceTypes").percentile(50));
+    }
+
+}
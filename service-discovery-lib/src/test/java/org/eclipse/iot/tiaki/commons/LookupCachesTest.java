@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.commons;
+
+import java.net.InetAddress;
+import org.junit.Assert;
+import org.junit.Test;
+import org.xbill.DNS.ARecord;
+import org.xbill.DNS.Cache;
+import org.xbill.DNS.Credibility;
+import org.xbill.DNS.DClass;
+import org.xbill.DNS.Flags;
+import org.xbill.DNS.Message;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.PTRRecord;
+import org.xbill.DNS.Rcode;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.SOARecord;
+import org.xbill.DNS.SRVRecord;
+import org.xbill.DNS.Section;
+import org.xbill.DNS.SetResponse;
+import org.xbill.DNS.Type;
+
+public class LookupCachesTest
+{
+
+    private static final String SERVER_1 = "127.0.0.1";
+    private static final String SERVER_2 = "127.0.0.2";
+
+    @Test
+    public void serversShareTheCacheUnlessIsolated()
+    {
+        LookupCaches caches = new LookupCaches();
+        Assert.assertSame(caches.cache(SERVER_1), caches.cache(SERVER_2));
+
+        caches.setPerServer(true);
+        Assert.assertNotSame(caches.cache(SERVER_1), caches.cache(SERVER_2));
+        Assert.assertSame(caches.cache(SERVER_1), caches.cache(SERVER_1));
+    }
+
+    @Test
+    public void sharedCachesServeEveryInstance()
+    {
+        LookupCaches first = new LookupCaches();
+        LookupCaches second = new LookupCaches();
+        Assert.assertNotSame(first.cache(SERVER_1), second.cache(SERVER_1));
+
+        first.setShared(true);
+        second.setShared(true);
+        Assert.assertSame(first.cache(SERVER_1), second.cache(SERVER_1));
+    }
+
+    @Test
+    public void sizingIsApplied()
+    {
+        LookupCaches caches = new LookupCaches();
+        Cache cache = caches.cache(SERVER_1);
+        Assert.assertEquals(Constants.CACHE_SIZE, cache.getMaxEntries());
+
+        caches.setMaxEntries(10);
+        caches.setMaxTtl(60);
+        caches.setMaxNegativeTtl(5);
+        Assert.assertEquals(10, cache.getMaxEntries());
+        Assert.assertEquals(60, cache.getMaxCache());
+        Assert.assertEquals(5, cache.getMaxNCache());
+    }
+
+    @Test
+    public void negativeTtlIsTracked() throws Exception
+    {
+        Name zone = Name.fromString("example.com.");
+        Message response = Message.newQuery(Record.newRecord(Name.fromString("absent", zone), Type.PTR, DClass.IN));
+        response.getHeader().setRcode(Rcode.NXDOMAIN);
+        response.addRecord(new SOARecord(zone, DClass.IN, 300, Name.fromString("ns", zone),
+                                         Name.fromString("admin", zone), 1, 3600, 600, 86400, 60),
+                           Section.AUTHORITY);
+
+        LookupCaches.takeNegativeTtl();
+        new LookupCaches().cache(SERVER_1).addMessage(response);
+        Assert.assertEquals(60, LookupCaches.takeNegativeTtl());
+        Assert.assertEquals(-1, LookupCaches.takeNegativeTtl());
+    }
+
+    @Test
+    public void remainingTtlIsTracked() throws Exception
+    {
+        Name host = Name.fromString("host1.example.com.");
+        Message response = Message.newQuery(Record.newRecord(host, Type.A, DClass.IN));
+        response.getHeader().setFlag(Flags.AA);
+        response.addRecord(new ARecord(host, DClass.IN, 300, InetAddress.getByName("10.0.0.1")), Section.ANSWER);
+
+        LookupCaches caches = new LookupCaches();
+        caches.setMaxTtl(60);
+        Cache cache = caches.cache(SERVER_1);
+        cache.addMessage(response);
+        SetResponse cached = cache.lookupRecords(host, Type.A, Credibility.NORMAL);
+        Assert.assertTrue(cached.isSuccessful());
+        Record record = cached.answers()[0].first();
+        Assert.assertEquals(300, record.getTTL());
+        long remaining = LookupCaches.remainingTtl(cache, record);
+        Assert.assertTrue(remaining > 0 && remaining <= 60);
+
+        Record unknown = new ARecord(host, DClass.IN, 120, InetAddress.getByName("10.0.0.2"));
+        Assert.assertEquals(120, LookupCaches.remainingTtl(cache, unknown));
+    }
+
+    @Test
+    public void additionalRecordsAreHarvestedWithinTheZoneOnly() throws Exception
+    {
+        Name type = Name.fromString("_http._tcp.example.com.");
+        Name inside = Name.fromString("web1._http._tcp.example.com.");
+        Name outside = Name.fromString("web2._http._tcp.other.net.");
+        Name host = Name.fromString("host1.example.com.");
+        Name glue = Name.fromString("cdn.other.net.");
+        Message response = Message.newQuery(Record.newRecord(type, Type.PTR, DClass.IN));
+        response.getHeader().setFlag(Flags.AA);
+        response.addRecord(new PTRRecord(type, DClass.IN, 300, inside), Section.ANSWER);
+        response.addRecord(new PTRRecord(type, DClass.IN, 300, outside), Section.ANSWER);
+        response.addRecord(new SRVRecord(inside, DClass.IN, 300, 0, 10, 8080, host), Section.ADDITIONAL);
+        response.addRecord(new SRVRecord(outside, DClass.IN, 300, 0, 10, 8081, glue), Section.ADDITIONAL);
+        response.addRecord(new ARecord(host, DClass.IN, 300, InetAddress.getByName("10.0.0.1")), Section.ADDITIONAL);
+        response.addRecord(new ARecord(glue, DClass.IN, 300, InetAddress.getByName("10.0.0.2")), Section.ADDITIONAL);
+
+        Cache cache = new LookupCaches().cache(SERVER_1);
+        cache.addMessage(response);
+        Assert.assertTrue(cache.lookupRecords(inside, Type.SRV, Credibility.NORMAL).isSuccessful());
+        Assert.assertTrue(cache.lookupRecords(host, Type.A, Credibility.NORMAL).isSuccessful());
+        Assert.assertFalse(cache.lookupRecords(outside, Type.SRV, Credibility.NORMAL).isSuccessful());
+        Assert.assertFalse(cache.lookupRecords(glue, Type.A, Credibility.NORMAL).isSuccessful());
+    }
+
+}
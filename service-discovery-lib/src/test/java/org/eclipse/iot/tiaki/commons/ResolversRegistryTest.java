@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.commons;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.eclipse.iot.tiaki.exceptions.ConfigurationException;
+import org.jitsi.dnssec.validator.ValidatingResolver;
+import org.junit.Assert;
+import org.junit.Test;
+import org.xbill.DNS.Resolver;
+
+public class ResolversRegistryTest
+{
+
+    private static final String SERVER_1 = "127.0.0.1";
+    private static final String SERVER_2 = "127.0.0.2";
+    private static final ExecutorService WORKERS = Executors.newCachedThreadPool();
+
+    @Test
+    public void resolversAreBuiltOnce() throws UnknownHostException, ConfigurationException
+    {
+        ResolversRegistry registry = new ResolversRegistry(WORKERS);
+        List<InetAddress> servers = Arrays.asList(InetAddress.getByName(SERVER_1),
+                                                  InetAddress.getByName(SERVER_2));
+
+        Map<String, Resolver> first = registry.resolvers(false, servers, Constants.DEFAULT_TRUST_ANCHOR);
+        Map<String, Resolver> second = registry.resolvers(false, servers, Constants.DEFAULT_TRUST_ANCHOR);
+        Assert.assertEquals(Arrays.asList(SERVER_1, SERVER_2), Arrays.asList(first.keySet().toArray()));
+        Assert.assertSame(first.get(SERVER_1), second.get(SERVER_1));
+        Assert.assertSame(first.get(SERVER_2), second.get(SERVER_2));
+
+        Map<String, Resolver> validating = registry.resolvers(true, servers, Constants.DEFAULT_TRUST_ANCHOR);
+        Assert.assertTrue(validating.get(SERVER_1) instanceof ValidatingResolver);
+        Assert.assertSame(validating.get(SERVER_1),
+                          registry.resolvers(true, servers, Constants.DEFAULT_TRUST_ANCHOR).get(SERVER_1));
+    }
+
+    @Test
+    public void invalidationRebuildsResolvers() throws UnknownHostException, ConfigurationException
+    {
+        ResolversRegistry registry = new ResolversRegistry(WORKERS);
+        List<InetAddress> servers = Arrays.asList(InetAddress.getByName(SERVER_1));
+
+        Resolver plain = registry.resolvers(false, servers, Constants.DEFAULT_TRUST_ANCHOR).get(SERVER_1);
+        Resolver validating = registry.resolvers(true, servers, Constants.DEFAULT_TRUST_ANCHOR).get(SERVER_1);
+        registry.invalidate();
+        Assert.assertNotSame(plain, registry.resolvers(false, servers, Constants.DEFAULT_TRUST_ANCHOR).get(SERVER_1));
+        Assert.assertNotSame(validating, registry.resolvers(true, servers, Constants.DEFAULT_TRUST_ANCHOR).get(SERVER_1));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void registeredResolversAreImmutable() throws UnknownHostException, ConfigurationException
+    {
+        ResolversRegistry registry = new ResolversRegistry(WORKERS);
+        List<InetAddress> servers = Arrays.asList(InetAddress.getByName(SERVER_1));
+
+        registry.resolvers(false, servers, Constants.DEFAULT_TRUST_ANCHOR).clear();
+    }
+
+    @Test
+    public void serversOnCustomPortsAreKeyedByPort() throws UnknownHostException, ConfigurationException
+    {
+        ResolversRegistry registry = new ResolversRegistry(WORKERS);
+        InetAddress custom = InetAddress.getByName(SERVER_2);
+        List<InetSocketAddress> servers = Arrays.asList(new InetSocketAddress(InetAddress.getByName(SERVER_1), 53),
+                                                        new InetSocketAddress(custom, 5353),
+                                                        new InetSocketAddress(custom, 5354));
+
+        Map<String, Resolver> resolvers = registry.resolvers(servers, false, Constants.DEFAULT_TRUST_ANCHOR);
+        Assert.assertEquals(Arrays.asList(SERVER_1, SERVER_2 + ":5353", SERVER_2 + ":5354"),
+                            Arrays.asList(resolvers.keySet().toArray()));
+    }
+
+    @Test
+    public void hedgingKeepsTheServerKeys() throws UnknownHostException, ConfigurationException
+    {
+        ResolversRegistry registry = new ResolversRegistry(WORKERS);
+        DiscoveryConfig config = DiscoveryConfig.builder()
+                                                .dnsServer(InetAddress.getByName(SERVER_1))
+                                                .dnsServer(InetAddress.getByName(SERVER_2))
+                                                .trustAnchor(Constants.DEFAULT_TRUST_ANCHOR)
+                                                .hedgedLookups(0.5)
+                                                .build();
+
+        // the healthiest server only, its resolver hedging across the other one
+        Map<String, Resolver> resolvers = registry.resolvers(config, false);
+        Assert.assertEquals(Arrays.asList(SERVER_1), Arrays.asList(resolvers.keySet().toArray()));
+        Assert.assertTrue(resolvers.get(SERVER_1) instanceof HedgingResolver);
+
+        registry.health().failure(SERVER_1);
+        resolvers = registry.resolvers(config, false);
+        Assert.assertEquals(Arrays.asList(SERVER_2), Arrays.asList(resolvers.keySet().toArray()));
+        Assert.assertTrue(registry.resolvers(config, true).get(SERVER_2) instanceof ValidatingResolver);
+    }
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.commons;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ResultsCacheTest
+{
+
+    @Test
+    public void hitsAndMissesAreCounted()
+    {
+        ResultsCache<String> cache = new ResultsCache<>(10);
+        Assert.assertNull(cache.get("a"));
+        cache.put("a", "alpha", 60);
+        Assert.assertEquals("alpha", cache.get("a"));
+        Assert.assertEquals("alpha", cache.get("a"));
+        Assert.assertEquals(2, cache.hits());
+        Assert.assertEquals(1, cache.misses());
+    }
+
+    @Test
+    public void leastRecentlyUsedIsEvicted()
+    {
+        ResultsCache<String> cache = new ResultsCache<>(2);
+        cache.put("a", "alpha", 60);
+        cache.put("b", "beta", 60);
+        cache.get("a");
+        cache.put("c", "gamma", 60);
+        Assert.assertEquals(2, cache.size());
+        Assert.assertNull(cache.get("b"));
+        Assert.assertEquals("alpha", cache.get("a"));
+        Assert.assertEquals("gamma", cache.get("c"));
+    }
+
+    @Test
+    public void expiredResultsAreMissed()
+    {
+        ResultsCache<String> cache = new ResultsCache<>(10);
+        cache.put("zero", "never stored", 0);
+        Assert.assertEquals(0, cache.size());
+        Assert.assertNull(cache.get("zero"));
+    }
+
+    @Test
+    public void disabledCacheStoresNothing()
+    {
+        ResultsCache<String> cache = new ResultsCache<>(0);
+        cache.put("a", "alpha", 60);
+        Assert.assertNull(cache.get("a"));
+        Assert.assertEquals(0, cache.size());
+    }
+
+}
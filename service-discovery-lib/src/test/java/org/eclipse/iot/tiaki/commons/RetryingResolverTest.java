@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.commons;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.iot.tiaki.stub.StubDnsServer;
+import org.eclipse.iot.tiaki.stub.ZoneFixture;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.xbill.DNS.DClass;
+import org.xbill.DNS.Message;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.Rcode;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.SimpleResolver;
+import org.xbill.DNS.Type;
+
+public class RetryingResolverTest
+{
+
+    private static final ExecutorService WORKERS = Executors.newCachedThreadPool();
+
+    private StubDnsServer server;
+
+    @After
+    public void tearDown()
+    {
+        if (this.server != null) {
+            this.server.close();
+        }
+    }
+
+    @Test
+    public void unansweredQueriesAreRetried() throws IOException
+    {
+        this.server = new StubDnsServer().zone(ZoneFixture.load("example.com.zone", "example.com."))
+                                         .lossRate(1)
+                                         .start();
+        RetryingResolver retrying = new RetryingResolver(resolver(this.server), 2, 50, WORKERS);
+
+        long start = System.nanoTime();
+        try {
+            retrying.send(query());
+            Assert.fail("Expected an unanswered query");
+        } catch (IOException ioe) {
+            // expected
+        }
+        // three attempts of 100 ms, separated by 50 and 100 ms of backoff
+        Assert.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(450));
+        Assert.assertEquals(3, this.server.queries());
+    }
+
+    @Test
+    public void answeredQueriesAreNotRetried() throws IOException
+    {
+        this.server = new StubDnsServer().start();
+        RetryingResolver retrying = new RetryingResolver(resolver(this.server), 2, 50, WORKERS);
+
+        Assert.assertEquals(Rcode.REFUSED, retrying.send(query()).getRcode());
+        Assert.assertEquals(1, this.server.queries());
+    }
+
+    /**
+     * Helper method building a resolver addressing a stub server, with a short timeout.
+     */
+    private static SimpleResolver resolver(StubDnsServer server) throws IOException
+    {
+        SimpleResolver resolver = new SimpleResolver(server.getAddress().getHostAddress());
+        resolver.setPort(server.getPort());
+        resolver.setTimeout(0, 100);
+
+        return resolver;
+    }
+
+    /**
+     * Helper method building a query.
+     */
+    private static Message query() throws IOException
+    {
+        return Message.newQuery(Record.newRecord(Name.fromString("_http._tcp.example.com."), Type.PTR, DClass.IN));
+    }
+
+}
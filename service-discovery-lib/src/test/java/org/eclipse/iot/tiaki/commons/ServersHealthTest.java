@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.commons;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ServersHealthTest
+{
+
+    private static final String SERVER_1 = "192.0.2.1";
+    private static final String SERVER_2 = "192.0.2.2";
+    private static final String SERVER_3 = "192.0.2.3";
+
+    @Test
+    public void healthyServersKeepTheirOrder()
+    {
+        ServersHealth health = new ServersHealth();
+        Map<String, String> servers = servers();
+        health.success(SERVER_2, TimeUnit.MILLISECONDS.toNanos(1));
+        health.success(SERVER_1, TimeUnit.MILLISECONDS.toNanos(100));
+
+        Assert.assertSame(servers, health.order(servers));
+    }
+
+    @Test
+    public void failingServerIsMovedBack()
+    {
+        ServersHealth health = new ServersHealth();
+        health.success(SERVER_1, TimeUnit.MILLISECONDS.toNanos(10));
+        health.failure(SERVER_1);
+
+        Assert.assertEquals(Arrays.asList(SERVER_2, SERVER_3, SERVER_1), order(health));
+        Assert.assertEquals(0.875, health.successRate(SERVER_1), 1e-9);
+        Assert.assertEquals(1, health.consecutiveFailures(SERVER_1));
+        Assert.assertFalse(health.isEjected(SERVER_1));
+    }
+
+    @Test
+    public void fasterServerComesFirst()
+    {
+        ServersHealth health = new ServersHealth();
+        health.failure(SERVER_1);
+        health.success(SERVER_3, TimeUnit.MILLISECONDS.toNanos(200));
+        health.success(SERVER_2, TimeUnit.MILLISECONDS.toNanos(5));
+
+        Assert.assertEquals(Arrays.asList(SERVER_2, SERVER_3, SERVER_1), order(health));
+        Assert.assertEquals(5, health.smoothedRtt(SERVER_2, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(-1, health.smoothedRtt(SERVER_1, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void ejectedServerIsProbedOnce() throws InterruptedException
+    {
+        ServersHealth health = new ServersHealth();
+        health.setEjection(2, 50, TimeUnit.MILLISECONDS);
+        health.failure(SERVER_1);
+        health.failure(SERVER_1);
+        Assert.assertTrue(health.isEjected(SERVER_1));
+        Assert.assertEquals(Arrays.asList(SERVER_2, SERVER_3), order(health));
+
+        Thread.sleep(100);
+        Assert.assertEquals(Arrays.asList(SERVER_1, SERVER_2, SERVER_3), order(health));
+        Assert.assertEquals(Arrays.asList(SERVER_2, SERVER_3), order(health));
+
+        health.success(SERVER_1, TimeUnit.MILLISECONDS.toNanos(10));
+        Assert.assertFalse(health.isEjected(SERVER_1));
+        Assert.assertEquals(0, health.consecutiveFailures(SERVER_1));
+    }
+
+    @Test
+    public void ejectedServersAreKeptWhenAllAre()
+    {
+        ServersHealth health = new ServersHealth();
+        health.setEjection(1, 1, TimeUnit.HOURS);
+        health.failure(SERVER_1);
+        health.failure(SERVER_2);
+        Assert.assertEquals(Arrays.asList(SERVER_3), order(health));
+
+        health.failure(SERVER_3);
+        Assert.assertEquals(Arrays.asList(SERVER_1, SERVER_2, SERVER_3), order(health));
+    }
+
+    @Test
+    public void serverErrorsDoNotEject()
+    {
+        ServersHealth health = new ServersHealth();
+        health.setEjection(2, 1, TimeUnit.HOURS);
+        health.serverError(SERVER_1);
+        health.serverError(SERVER_1);
+        health.serverError(SERVER_1);
+
+        Assert.assertFalse(health.isEjected(SERVER_1));
+        Assert.assertEquals(0, health.consecutiveFailures(SERVER_1));
+        Assert.assertTrue(health.successRate(SERVER_1) < 0.7);
+        Assert.assertEquals(Arrays.asList(SERVER_2, SERVER_3, SERVER_1), order(health));
+    }
+
+    @Test
+    public void recoveredServerIsHealthyAgain()
+    {
+        ServersHealth health = new ServersHealth();
+        Map<String, String> servers = servers();
+        health.failure(SERVER_1);
+        health.success(SERVER_1, TimeUnit.MILLISECONDS.toNanos(10));
+        Assert.assertNotSame(servers, health.order(servers));
+
+        for (int i = 0; i < 20; i++) {
+            health.success(SERVER_1, TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        Assert.assertSame(servers, health.order(servers));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void ejectionNeedsPositiveFailures()
+    {
+        new ServersHealth().setEjection(0, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Helper method building servers in configuration order.
+     */
+    private static Map<String, String> servers()
+    {
+        Map<String, String> servers = new LinkedHashMap<>();
+        servers.put(SERVER_1, SERVER_1);
+        servers.put(SERVER_2, SERVER_2);
+        servers.put(SERVER_3, SERVER_3);
+
+        return servers;
+    }
+
+    /**
+     * Helper method ordering the servers, returning their keys.
+     */
+    private static List<String> order(ServersHealth health)
+    {
+        return Arrays.asList(health.order(servers()).keySet().toArray(new String[0]));
+    }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.commons;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.eclipse.iot.tiaki.domain.ServiceInstance;
+import org.eclipse.iot.tiaki.domain.ServiceRecord;
+import org.eclipse.iot.tiaki.domain.TextRecord;
+import org.junit.Assert;
+import org.junit.Test;
+import org.xbill.DNS.DClass;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.SRVRecord;
+import org.xbill.DNS.TXTRecord;
+import org.xbill.DNS.TextParseException;
+
+public class ServiceChangesTest
+{
+
+    @Test
+    public void firstResolutionIsAllAdded() throws TextParseException
+    {
+        ServiceInstance web1 = instance("web1", 8080, "path=/a", 300);
+        ServiceChanges changes = ServiceChanges.between(Collections.<ServiceInstance>emptySet(),
+                                                        Arrays.asList(web1));
+        Assert.assertEquals(Collections.singleton(web1), changes.getAdded());
+        Assert.assertTrue(changes.getRemoved().isEmpty());
+        Assert.assertTrue(changes.getChanged().isEmpty());
+    }
+
+    @Test
+    public void deltasAreComputedByInstanceName() throws TextParseException
+    {
+        ServiceInstance web1 = instance("web1", 8080, "path=/a", 300);
+        ServiceInstance web2 = instance("web2", 8081, "path=/b", 300);
+        ServiceInstance web2Moved = instance("web2", 9091, "path=/b", 300);
+        ServiceInstance web3 = instance("web3", 8082, "path=/c", 300);
+
+        ServiceChanges changes = ServiceChanges.between(Arrays.asList(web1, web2), Arrays.asList(web2Moved, web3));
+        Assert.assertEquals(Collections.singleton(web3), changes.getAdded());
+        Assert.assertEquals(Collections.singleton(web1), changes.getRemoved());
+        Assert.assertEquals(Collections.singleton(web2Moved), changes.getChanged());
+    }
+
+    @Test
+    public void ttlIsNotAChange() throws TextParseException
+    {
+        ServiceChanges changes = ServiceChanges.between(Arrays.asList(instance("web1", 8080, "path=/a", 300)),
+                                                        Arrays.asList(instance("web1", 8080, "path=/a", 120)));
+        Assert.assertTrue(changes.isEmpty());
+
+        changes = ServiceChanges.between(Arrays.asList(instance("web1", 8080, "path=/a", 300)),
+                                         Arrays.asList(instance("web1", 8080, "path=/z", 300)));
+        Assert.assertEquals(1, changes.getChanged().size());
+    }
+
+    private static ServiceInstance instance(String name, int port, String text, long ttl) throws TextParseException
+    {
+        Name owner = Name.fromString(name + "._http._tcp.example.com.");
+        ServiceRecord srv = ServiceRecord.build(new SRVRecord(owner, DClass.IN, ttl, 0, 10, port,
+                                                              Name.fromString("host.example.com.")));
+        TextRecord txt = TextRecord.build(new TXTRecord(owner, DClass.IN, ttl, text));
+
+        return new ServiceInstance("http", srv, txt);
+    }
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.commons;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TraceSpanTest
+{
+
+    @Test
+    public void spansAreNestedAndExported()
+    {
+        TraceSpan call = TraceSpan.root("listServiceInstances");
+        TraceSpan step = call.child("instances");
+        TraceSpan query = step.child("TXT web\\032\"three\"._http._tcp.example.com.");
+        query.setServer("127.0.0.1:53");
+        query.setRcode("NOERROR");
+        query.setRecords(2);
+        query.setCacheHit(false);
+        Assert.assertEquals(-1L, query.getDuration(TimeUnit.NANOSECONDS));
+        query.end(StatusCode.SUCCESSFUL_OPERATION);
+        query.end(StatusCode.NETWORK_ERROR);
+        step.end(StatusCode.SUCCESSFUL_OPERATION);
+        call.end(StatusCode.SUCCESSFUL_OPERATION);
+
+        Assert.assertSame(step, query.getParent());
+        Assert.assertEquals(StatusCode.SUCCESSFUL_OPERATION, query.getStatus());
+        Assert.assertTrue(call.getDuration(TimeUnit.NANOSECONDS) >= step.getDuration(TimeUnit.NANOSECONDS));
+        String json = call.toJson();
+        Assert.assertTrue(json.startsWith("{\"name\":\"listServiceInstances\",\"start\":"));
+        Assert.assertTrue(json.contains(",\"children\":[{\"name\":\"instances\","));
+        Assert.assertTrue(json.contains("\"name\":\"TXT web\\\\032\\\"three\\\"._http._tcp.example.com.\""));
+        Assert.assertTrue(json.contains(",\"server\":\"127.0.0.1:53\",\"status\":\"SUCCESSFUL_OPERATION\","
+                                        + "\"rcode\":\"NOERROR\",\"records\":2,\"cacheHit\":false}"));
+        Assert.assertTrue(json.endsWith("}]}]}"));
+    }
+
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.domain;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DiscoveryRecordTest {
+
+	@Test
+	public void testLegacySubclass () {
+		DiscoveryRecord record = new LegacyRecord( "legacy data", 60 );
+
+		Assert.assertEquals( "legacy data", record.getRData() );
+		Assert.assertEquals( "LEGACY legacy data", record.toDisplay() );
+		Assert.assertEquals( "60 legacy data", record.toString() );
+		Assert.assertEquals( new LegacyRecord( "legacy data", 60 ), record );
+	}
+
+
+	/**
+	 * Subclass written against the former API: reading the raw data field and serializing itself.
+	 */
+	private static final class LegacyRecord extends DiscoveryRecord {
+
+		LegacyRecord ( String rData, long ttl ) {
+			super( rData, ttl );
+		}
+
+		@Override
+		public String getServiceType () {
+			return null;
+		}
+
+		@Override
+		public String getServiceZone ( String dnsLabel ) {
+			return null;
+		}
+
+		@Override
+		public String getServiceName ( String dnsLabel ) {
+			return null;
+		}
+
+		@Override
+		public String toDisplay () {
+			return "LEGACY " + this.rData;
+		}
+	}
+
+}
@@ -11,6 +11,7 @@ package org.eclipse.iot.tiaki.domain;
 
 import org.xbill.DNS.DClass;
 import org.xbill.DNS.Name;
+import org.xbill.DNS.PTRRecord;
 import org.xbill.DNS.SRVRecord;
 import org.xbill.DNS.TXTRecord;
 import org.xbill.DNS.TextParseException;
@@ -26,4 +27,9 @@ public class DiscoveryRecordUtil {
 	public static TXTRecord createTxtRecord ( String rdata, long ttl ) throws TextParseException {
 		return new TXTRecord( Name.fromString( "example.com." ), DClass.IN, ttl, rdata );
 	}
+
+
+	public static PTRRecord createPtrRecord ( String target, long ttl ) throws TextParseException {
+		return new PTRRecord( Name.fromString( "_http._tcp.example.com." ), DClass.IN, ttl, Name.fromString( target ) );
+	}
 }
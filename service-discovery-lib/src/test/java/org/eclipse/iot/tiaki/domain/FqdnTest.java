@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.domain;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FqdnTest
+{
+
+    @Test
+    public void renderingIsMemoized()
+    {
+        Fqdn fqdn = new Fqdn("web1", "example.com");
+        Assert.assertEquals("web1.example.com.", fqdn.fqdn());
+        Assert.assertSame(fqdn.fqdn(), fqdn.fqdn());
+        Assert.assertSame(fqdn.fqdn(), fqdn.toString());
+        Assert.assertSame(fqdn.fqdn(), fqdn.fqdnWithPrefix(""));
+        Assert.assertSame(fqdn.fqdn(), fqdn.fqdnWithPrefix("web1"));
+
+        Assert.assertEquals("_http._tcp.web1.example.com.", fqdn.fqdnWithPrefix("_http._tcp"));
+        Assert.assertSame(fqdn.fqdnWithPrefix("_http._tcp"), fqdn.fqdnWithPrefix("_http._tcp"));
+        Assert.assertEquals("_coap._udp.web1.example.com.", fqdn.fqdnWithPrefix("_coap._udp."));
+        Assert.assertEquals("_http._tcp.web1.example.com.", fqdn.fqdnWithPrefix("_http._tcp"));
+    }
+
+    @Test
+    public void escapedNamesAreQuoted()
+    {
+        Fqdn fqdn = new Fqdn("web\\032three._http._tcp.example.com.");
+        Assert.assertEquals("\"web\\032three._http._tcp.example.com.\"", fqdn.fqdn());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidNamesAreRejected()
+    {
+        new Fqdn("bad$label", "example.com").fqdn();
+    }
+
+    @Test
+    public void namesAreInterned()
+    {
+        Fqdn fqdn = Fqdn.intern("web2._http._tcp.example.com.");
+        Assert.assertSame(fqdn, Fqdn.intern("web2._http._tcp.example.com."));
+        Assert.assertEquals(new Fqdn("web2._http._tcp.example.com."), fqdn);
+        Assert.assertNotSame(fqdn, Fqdn.intern("web2._http._tcp.example.com"));
+    }
+
+}
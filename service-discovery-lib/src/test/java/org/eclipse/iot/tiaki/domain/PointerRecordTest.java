@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.domain;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.xbill.DNS.TextParseException;
+
+public class PointerRecordTest {
+
+	@Test
+	public void testEqualsObject () throws TextParseException {
+		PointerRecord ptr1 = PointerRecord.build( DiscoveryRecordUtil.createPtrRecord( "web1._http._tcp.example.com.", 3600 ) );
+		PointerRecord ptr2 = PointerRecord.build( DiscoveryRecordUtil.createPtrRecord( "WEB1._http._tcp.example.com.", 3600 ) );
+
+		Assert.assertEquals( "Names differing by case only should be equal", ptr1, ptr2 );
+		Assert.assertEquals( ptr1.hashCode(), ptr2.hashCode() );
+		Assert.assertEquals( 0, ptr1.compareTo( ptr2 ) );
+	}
+
+
+	@Test
+	public void testNotEqualsObject () throws TextParseException {
+		PointerRecord ptr1 = PointerRecord.build( DiscoveryRecordUtil.createPtrRecord( "web1._http._tcp.example.com.", 3600 ) );
+		PointerRecord ptr2 = PointerRecord.build( DiscoveryRecordUtil.createPtrRecord( "web2._http._tcp.example.com.", 3600 ) );
+
+		Assert.assertFalse( ptr1.equals( ptr2 ) );
+		Assert.assertTrue( ptr1.compareTo( ptr2 ) < 0 );
+		Assert.assertEquals( "web1._http._tcp.example.com.", ptr1.getRData() );
+		Assert.assertEquals( "3600 PTR web1._http._tcp.example.com.", ptr1.toDisplay() );
+	}
+
+}
@@ -14,6 +14,9 @@ import java.util.Collections;
 import java.util.List;
 import org.junit.Assert;
 import org.junit.Test;
+import org.xbill.DNS.DClass;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.SRVRecord;
 import org.xbill.DNS.TextParseException;
 
 public class ServiceRecordTest {
@@ -79,5 +82,22 @@ public class ServiceRecordTest {
 	}
 
 
+	@Test
+	public void testRendering () throws TextParseException {
+		ServiceRecord svc = ServiceRecord.build( new SRVRecord( Name.fromString( "Caf\\195\\169\\032One._http._tcp.example.com." ),
+				DClass.IN, 3600, 1, 10, 8080, Name.fromString( "host1.com." ) ) );
+		Assert.assertEquals( "\"Café One\" host1.com. TCP:8080 1 10 3600", svc.getRData() );
+		Assert.assertEquals( "3600 \"Café One\" host1.com TCP:8080", svc.toString() );
+		Assert.assertEquals( "3600 SRV 1 10 host1.com:8080", svc.toDisplay() );
+		Assert.assertSame( svc.getRData(), svc.getRData() );
+		Assert.assertSame( svc.toString(), svc.toString() );
+		Assert.assertSame( svc.toDisplay(), svc.toDisplay() );
+
+		TextRecord txt = TextRecord.build( DiscoveryRecordUtil.createTxtRecord( "txtvers=1", 3600 ) );
+		ServiceInstance instance = new ServiceInstance( "_http._tcp", svc, txt );
+		Assert.assertEquals( "_http._tcp host1.com. 8080 1 10 3600 \"txtvers=1\"", instance.getRData() );
+		Assert.assertEquals( "3600 \"Café One\" host1.com TCP:8080 \"txtvers=1\"", instance.toString() );
+		Assert.assertEquals( "3600 TXT \"txtvers=1\"", txt.toDisplay() );
+	}
 
 }
@@ -9,6 +9,12 @@
 
 package org.eclipse.iot.tiaki.domain;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.TreeSet;
 import org.junit.Assert;
 import org.junit.Test;
 import org.xbill.DNS.TextParseException;
@@ -33,5 +39,36 @@ public class TextRecordTest {
 	}
 
 
+	@Test
+	public void testCompoundRecordsCompareTheirStrings () throws TextParseException {
+		TextRecord txt1 = TextRecord.build( DiscoveryRecordUtil.createTxtRecord( "a", 3600 ) );
+		TextRecord txt2 = TextRecord.build( DiscoveryRecordUtil.createTxtRecord( "b", 3600 ) );
+		TextRecord compound1 = TextRecord.build( new LinkedHashSet<>( Arrays.asList( txt1, txt2 ) ) );
+		TextRecord compound2 = TextRecord.build( new LinkedHashSet<>( Arrays.asList( txt1, txt2 ) ) );
+
+		Assert.assertEquals( compound1, compound2 );
+		Assert.assertEquals( compound1.hashCode(), compound2.hashCode() );
+		Assert.assertEquals( 0, compound1.compareTo( compound2 ) );
+		Assert.assertFalse( compound1.equals( txt1 ) );
+	}
+
+
+	@Test
+	public void testOrderedAsRendered () throws TextParseException {
+		TreeSet<TextRecord> txts = new TreeSet<>();
+		for ( String rdata : new String[] { "path=/b", "path=/a", "path=/ab", "v=1" } ) {
+			txts.add( TextRecord.build( DiscoveryRecordUtil.createTxtRecord( rdata, 3600 ) ) );
+		}
+
+		List<String> ordered = new ArrayList<>();
+		for ( TextRecord txt : txts ) {
+			ordered.add( txt.getRData() );
+		}
+		List<String> rendered = new ArrayList<>( ordered );
+		Collections.sort( rendered );
+		Assert.assertEquals( rendered, ordered );
+	}
+
+
 
 }
@@ -0,0 +1,765 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.services;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.iot.tiaki.commons.DiscoveryMetrics;
+import org.eclipse.iot.tiaki.commons.InMemoryMetrics;
+import org.eclipse.iot.tiaki.commons.InstancesResult;
+import org.eclipse.iot.tiaki.commons.ServersHealth;
+import org.eclipse.iot.tiaki.commons.ServiceChanges;
+import org.eclipse.iot.tiaki.commons.ServiceWatch;
+import org.eclipse.iot.tiaki.commons.ServiceWatchListener;
+import org.eclipse.iot.tiaki.commons.StatusCode;
+import org.eclipse.iot.tiaki.commons.TraceListener;
+import org.eclipse.iot.tiaki.commons.TraceSpan;
+import org.eclipse.iot.tiaki.domain.CompoundLabel;
+import org.eclipse.iot.tiaki.domain.Fqdn;
+import org.eclipse.iot.tiaki.domain.ServiceInstance;
+import org.eclipse.iot.tiaki.domain.TextRecord;
+import org.eclipse.iot.tiaki.exceptions.ConfigurationException;
+import org.eclipse.iot.tiaki.exceptions.DnsServiceException;
+import org.eclipse.iot.tiaki.exceptions.LookupException;
+import org.eclipse.iot.tiaki.stub.StubDnsServer;
+import org.eclipse.iot.tiaki.stub.ZoneFixture;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.xbill.DNS.DClass;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.Type;
+
+/**
+ * Discoveries run against a {@link StubDnsServer}, needing no network access.
+ */
+public class DnsServicesDiscoveryOfflineTest
+{
+
+    private static final String ORIGIN = "example.com.";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private StubDnsServer server;
+    private DnsServicesDiscovery discovery;
+
+    @After
+    public void tearDown()
+    {
+        if (this.discovery != null) {
+            this.discovery.shutdownWatches();
+            this.discovery.shutdownLookups();
+        }
+        if (this.server != null) {
+            this.server.close();
+        }
+    }
+
+    @Test
+    public void listFromUnsignedZone() throws IOException, LookupException, ConfigurationException
+    {
+        configure(ZoneFixture.load("example.com.zone", ORIGIN));
+        Fqdn domain = new Fqdn("example.com");
+
+        Assert.assertEquals(2, this.discovery.listServiceTypes(domain, false).size());
+        Set<ServiceInstance> instances = this.discovery.listServiceInstances(domain,
+                                                                             new CompoundLabel("http", "", "tcp"),
+                                                                             false);
+        Assert.assertEquals(3, instances.size());
+        Set<TextRecord> texts = this.discovery.listTextRecords(domain, "txtlabel", false);
+        Assert.assertEquals(1, texts.size());
+        Assert.assertTrue(this.discovery.listServiceInstances(domain, new CompoundLabel("nope", "", "tcp"),
+                                                              false).isEmpty());
+    }
+
+    @Test
+    public void unsignedZoneIsInsecure() throws IOException, ConfigurationException
+    {
+        configure(ZoneFixture.load("example.com.zone", ORIGIN));
+        try {
+            this.discovery.listServiceInstances(new Fqdn("example.com"), new CompoundLabel("http", "", "tcp"), true);
+            Assert.fail("Expected an insecure resource");
+        } catch (LookupException le) {
+            Assert.assertEquals(StatusCode.RESOURCE_INSECURE_ERROR, le.dnsError());
+        }
+    }
+
+    @Test
+    public void listFromSignedZone() throws IOException, LookupException, ConfigurationException
+    {
+        configure(ZoneFixture.load("example.com.zone", ORIGIN).signed());
+        Fqdn domain = new Fqdn("example.com");
+
+        Assert.assertTrue(this.discovery.isDnsSecValid(domain));
+        Set<ServiceInstance> instances = this.discovery.listServiceInstances(domain,
+                                                                             new CompoundLabel("http", "", "tcp"),
+                                                                             true);
+        Assert.assertEquals(3, instances.size());
+    }
+
+    @Test
+    public void secureListingCostsNoExtraQueries() throws Exception
+    {
+        configure(ZoneFixture.load("example.com.zone", ORIGIN).signed());
+        CompoundLabel http = new CompoundLabel("http", "", "tcp");
+        long[] queries = new long[2];
+        for (boolean secure : new boolean[] { false, true }) {
+            long before = this.server.queries();
+            Assert.assertEquals(3, this.discovery.listServiceInstances(new Fqdn("example.com"), http, secure).size());
+            queries[secure ? 1 : 0] = this.server.queries() - before;
+        }
+        // one validating query per question, the zone DNSKEY aside (i.e. not resolved twice)
+        Assert.assertTrue(queries[1] <= queries[0] + 1);
+    }
+
+    @Test
+    public void listAsyncFromSignedZone() throws Exception
+    {
+        configure(ZoneFixture.load("example.com.zone", ORIGIN).signed());
+        Fqdn domain = new Fqdn("example.com");
+
+        Assert.assertTrue(this.discovery.isDnsSecValidAsync(domain).get(10, TimeUnit.SECONDS));
+        Assert.assertEquals(2, this.discovery.listServiceTypesAsync(domain, true).get(10, TimeUnit.SECONDS).size());
+        Assert.assertEquals(3, this.discovery.listServiceInstancesAsync(domain, new CompoundLabel("http", "", "tcp"),
+                                                                        true).get(10, TimeUnit.SECONDS).size());
+        Assert.assertEquals(1, this.discovery.listTextRecordsAsync(domain, "txtlabel", true)
+                                             .get(10, TimeUnit.SECONDS).size());
+    }
+
+    @Test
+    public void asyncUnsignedZoneIsInsecure() throws Exception
+    {
+        configure(ZoneFixture.load("example.com.zone", ORIGIN));
+        try {
+            this.discovery.listServiceInstancesAsync(new Fqdn("example.com"), new CompoundLabel("http", "", "tcp"), true)
+                          .get(10, TimeUnit.SECONDS);
+            Assert.fail("Expected an insecure resource");
+        } catch (ExecutionException ee) {
+            Assert.assertEquals(StatusCode.RESOURCE_INSECURE_ERROR, ((LookupException) ee.getCause()).dnsError());
+        }
+        try {
+            this.discovery.isDnsSecValidAsync(new Fqdn("example.com")).get(10, TimeUnit.SECONDS);
+            Assert.fail("Expected an invalid DNSSEC status");
+        } catch (ExecutionException ee) {
+            Assert.assertEquals(StatusCode.DNSSEC_STATUS_ERROR, ((LookupException) ee.getCause()).dnsError());
+        }
+    }
+
+    @Test
+    public void asyncInvalidLabelsFailTheFuture() throws Exception
+    {
+        configure(ZoneFixture.load("example.com.zone", ORIGIN));
+        List<Future<?>> results = new ArrayList<>();
+        results.add(this.discovery.listServiceInstancesAsync(new Fqdn("example.com"), null, false));
+        results.add(this.discovery.listTextRecordsAsync(new Fqdn("example.com"), "", false));
+        for (Future<?> result : results) {
+            try {
+                result.get(10, TimeUnit.SECONDS);
+                Assert.fail("Expected an illegal label");
+            } catch (ExecutionException ee) {
+                Assert.assertEquals(StatusCode.ILLEGAL_FQDN, ((LookupException) ee.getCause()).dnsError());
+            }
+        }
+    }
+
+    @Test
+    public void asyncListingSharesTheInstancesCache() throws Exception
+    {
+        configure(ZoneFixture.load("example.com.zone", ORIGIN));
+        Fqdn domain = new Fqdn("example.com");
+        CompoundLabel http = new CompoundLabel("http", "", "tcp");
+
+        Assert.assertEquals(3, this.discovery.listServiceInstancesAsync(domain, http, false)
+                                             .get(10, TimeUnit.SECONDS).size());
+        long queries = this.server.queries();
+        Assert.assertEquals(3, this.discovery.listServiceInstances(domain, http, false).size());
+        Assert.assertEquals(3, this.discovery.listServiceInstancesAsync(domain, http, false)
+                                             .get(10, TimeUnit.SECONDS).size());
+        Assert.assertEquals(queries, this.server.queries());
+        Assert.assertEquals(2L, this.discovery.cacheHits());
+    }
+
+    @Test
+    public void asyncFailuresMatchBlockingOnes() throws Exception
+    {
+        ZoneFixture zone = ZoneFixture.load("example.com.zone", ORIGIN);
+        StubDnsServer silent = new StubDnsServer().zone(zone).lossRate(1).start();
+        try {
+            this.server = new StubDnsServer().zone(zone).start();
+            Fqdn domain = new Fqdn("example.com");
+            // a missing name, once a server has failed over: not found because of the failure
+            StatusCode[] codes = new StatusCode[2];
+            for (boolean async : new boolean[] { false, true }) {
+                this.discovery = new DnsServicesDiscovery();
+                this.discovery.dnsServer(silent.getAddress(), silent.getPort())
+                              .dnsServer(this.server.getAddress(), this.server.getPort())
+                              .queryTimeout(300, TimeUnit.MILLISECONDS)
+                              .queryRetries(0, 0, TimeUnit.MILLISECONDS)
+                              .asyncWorkers(1);
+                this.discovery.checkConfiguration(true);
+                try {
+                    if (async) {
+                        this.discovery.listTextRecordsAsync(domain, "nope", false).get(10, TimeUnit.SECONDS);
+                    } else {
+                        this.discovery.listTextRecords(domain, "nope", false);
+                    }
+                    Assert.fail("Expected a lookup error");
+                } catch (LookupException le) {
+                    codes[0] = le.dnsError();
+                } catch (ExecutionException ee) {
+                    codes[1] = ((LookupException) ee.getCause()).dnsError();
+                }
+            }
+            Assert.assertEquals(StatusCode.RESOURCE_LOOKUP_ERROR, codes[0]);
+            Assert.assertEquals(codes[0], codes[1]);
+        } finally {
+            silent.close();
+        }
+    }
+
+    @Test
+    public void asyncQueriesWaitForAWorker() throws Exception
+    {
+        configure(ZoneFixture.load("example.com.zone", ORIGIN));
+        this.discovery.asyncWorkers(1);
+        this.discovery.checkConfiguration(true);
+        Fqdn domain = new Fqdn("example.com");
+        List<Future<Set<ServiceInstance>>> results = new ArrayList<>();
+        for (String type : new String[] { "http", "coap", "nope" }) {
+            results.add(this.discovery.listServiceInstancesAsync(domain, new CompoundLabel(type), false));
+        }
+        Assert.assertEquals(3, results.get(0).get(10, TimeUnit.SECONDS).size());
+        Assert.assertEquals(1, results.get(1).get(10, TimeUnit.SECONDS).size());
+        Assert.assertTrue(results.get(2).get(10, TimeUnit.SECONDS).isEmpty());
+    }
+
+    @Test
+    public void listManyTypesAtOnce() throws IOException, LookupException, ConfigurationException
+    {
+        this.server = new StubDnsServer().zone(ZoneFixture.load("example.com.zone", ORIGIN)).start();
+        CompoundLabel http = new CompoundLabel("http", "", "tcp");
+        CompoundLabel anyHttp = new CompoundLabel("http");
+        CompoundLabel coap = new CompoundLabel("coap", "", "udp");
+        CompoundLabel printer = new CompoundLabel("http", "printer", "tcp");
+        CompoundLabel missing = new CompoundLabel("nope", "", "tcp");
+
+        for (int threads : new int[] { 1, 4 }) {
+            this.discovery = new DnsServicesDiscovery(0, 0);
+            this.discovery.dnsServer(this.server.getAddress(), this.server.getPort()).concurrentLookups(threads);
+            this.discovery.checkConfiguration(true);
+            long before = this.server.queries();
+
+            Map<CompoundLabel, Set<ServiceInstance>> instances =
+                    this.discovery.listServiceInstances(new Fqdn("example.com"),
+                                                        Arrays.asList(http, anyHttp, coap, printer, missing), false);
+            Assert.assertEquals(Arrays.asList(http, anyHttp, coap, printer, missing),
+                                new ArrayList<>(instances.keySet()));
+            Assert.assertEquals(3, instances.get(http).size());
+            Assert.assertEquals(instances.get(http), instances.get(anyHttp));
+            Assert.assertEquals(1, instances.get(coap).size());
+            Assert.assertEquals(1, instances.get(printer).size());
+            Assert.assertTrue(instances.get(missing).isEmpty());
+            // types enumeration, 3 PTR and 4 SRV/TXT couples looked up once (30 queries one type
+            // at a time), the escaped instance name being retried unquoted
+            Assert.assertEquals(14L, this.server.queries() - before);
+            this.discovery.shutdownLookups();
+        }
+    }
+
+    @Test
+    public void batchListingKeepsCachedTypes() throws Exception
+    {
+        StubDnsServer first = new StubDnsServer().zone(ZoneFixture.load("example.com.zone", ORIGIN)).start();
+        this.server = new StubDnsServer().zone(ZoneFixture.load("example.com.zone", ORIGIN)).start();
+        this.discovery = new DnsServicesDiscovery();
+        this.discovery.dnsServer(first.getAddress(), first.getPort())
+                      .dnsServer(this.server.getAddress(), this.server.getPort());
+        this.discovery.checkConfiguration(true);
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        this.discovery.metrics(metrics);
+        Fqdn domain = new Fqdn("example.com");
+        CompoundLabel coap = new CompoundLabel("coap", "", "udp");
+        CompoundLabel missing = new CompoundLabel("http", "nope", "tcp");
+        Assert.assertEquals(1, this.discovery.listServiceInstances(domain, coap, false).size());
+
+        // the first server failing the pending type over, the cached one is still found
+        first.close();
+        Map<CompoundLabel, Set<ServiceInstance>> instances =
+                this.discovery.listServiceInstances(domain, Arrays.asList(coap, missing), false);
+        Assert.assertEquals(1, instances.get(coap).size());
+        Assert.assertTrue(instances.get(missing).isEmpty());
+        Assert.assertEquals(1, metrics.calls("listServiceInstances").count());
+        Assert.assertEquals(1, metrics.calls("listServiceInstancesBatch").count());
+    }
+
+    @Test
+    public void additionalRecordsSpareLookups() throws Exception
+    {
+        CompoundLabel http = new CompoundLabel("http", "", "tcp");
+        long[] queries = new long[2];
+        for (boolean additional : new boolean[] { false, true }) {
+            this.server = new StubDnsServer().zone(ZoneFixture.load("example.com.zone", ORIGIN))
+                                             .additionalRecords(additional).start();
+            this.discovery = new DnsServicesDiscovery();
+            this.discovery.dnsServer(this.server.getAddress(), this.server.getPort());
+            this.discovery.checkConfiguration(true);
+
+            Set<ServiceInstance> instances = this.discovery.listServiceInstances(new Fqdn("example.com"), http, false);
+            Assert.assertEquals(3, instances.size());
+            queries[additional ? 1 : 0] = this.server.queries();
+            if (additional) {
+                assertAddresses(instances);
+            } else {
+                for (ServiceInstance instance : instances) {
+                    Assert.assertTrue(instance.getAddresses().isEmpty());
+                }
+            }
+            this.discovery.shutdownLookups();
+            this.server.close();
+        }
+        // the SRV and TXT records harvested along with the PTR ones are not looked up
+        Assert.assertTrue(queries[1] < queries[0]);
+    }
+
+    @Test
+    public void targetsAreResolvedOnDemand() throws Exception
+    {
+        CompoundLabel http = new CompoundLabel("http", "", "tcp");
+        this.server = new StubDnsServer().zone(ZoneFixture.load("example.com.zone", ORIGIN)).start();
+        for (int threads : new int[] { 0, 4 }) {
+            this.discovery = new DnsServicesDiscovery();
+            this.discovery.dnsServer(this.server.getAddress(), this.server.getPort()).resolveAddresses(true);
+            if (threads > 0) {
+                this.discovery.concurrentLookups(threads);
+            }
+            this.discovery.checkConfiguration(true);
+
+            assertAddresses(this.discovery.listServiceInstances(new Fqdn("example.com"), http, false));
+            assertAddresses(this.discovery.listServiceInstancesAsync(new Fqdn("example.com"), http, false)
+                                          .get(10, TimeUnit.SECONDS));
+            this.discovery.shutdownLookups();
+        }
+    }
+
+    @Test
+    public void watchNotifiesChangesUntilCancelled() throws Exception
+    {
+        ZoneFixture zone = ZoneFixture.of(Name.fromString(ORIGIN), records(2,
+                "@ SOA ns.example.com. admin.example.com. 1 3600 600 86400 2",
+                "@ NS ns.example.com.",
+                "_services._dns-sd._udp PTR _http._tcp.example.com.",
+                "host1 A 10.0.0.1",
+                "host2 A 10.0.0.2",
+                "_http._tcp PTR web1._http._tcp.example.com.",
+                "web1._http._tcp SRV 0 10 8080 host1.example.com.",
+                "web1._http._tcp TXT \"path=/a\""));
+        configure(zone);
+        final BlockingQueue<ServiceChanges> changes = new LinkedBlockingQueue<>();
+        ServiceWatch watch = this.discovery.watchServiceInstances(new Fqdn("example.com"),
+                                                                  new CompoundLabel("http", "", "tcp"), false,
+                                                                  new ServiceWatchListener() {
+            @Override
+            public void onChange(ServiceChanges change) { changes.add(change); }
+
+            @Override
+            public void onError(DnsServiceException error) { }
+        });
+
+        ServiceChanges first = changes.poll(10, TimeUnit.SECONDS);
+        Assert.assertEquals(1, first.getAdded().size());
+        for (Record record : records(2, "_http._tcp PTR web2._http._tcp.example.com.",
+                                     "web2._http._tcp SRV 0 20 8081 host2.example.com.",
+                                     "web2._http._tcp TXT \"path=/b\"")) {
+            zone.getZone().addRecord(record);
+        }
+        ServiceChanges second = changes.poll(10, TimeUnit.SECONDS);
+        Assert.assertNotNull(second);
+        Assert.assertEquals(1, second.getAdded().size());
+        Assert.assertEquals("host2.example.com.", second.getAdded().iterator().next().getServiceRecord().getHost());
+
+        watch.cancel();
+        Assert.assertTrue(watch.isCancelled());
+        zone.getZone().removeRecord(records(2, "_http._tcp PTR web1._http._tcp.example.com.").get(0));
+        Assert.assertNull(changes.poll(3, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void slowWatchDoesNotHoldTheOthers() throws Exception
+    {
+        configure(ZoneFixture.load("example.com.zone", ORIGIN));
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch notified = new CountDownLatch(1);
+        this.discovery.watchServiceInstances(new Fqdn("example.com"), new CompoundLabel("http", "", "tcp"), false,
+                                             new ServiceWatchListener() {
+            @Override
+            public void onChange(ServiceChanges change)
+            {
+                try {
+                    release.await();
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void onError(DnsServiceException error) { }
+        });
+        this.discovery.watchServiceInstances(new Fqdn("example.com"), new CompoundLabel("coap", "", "udp"), false,
+                                             new ServiceWatchListener() {
+            @Override
+            public void onChange(ServiceChanges change) { notified.countDown(); }
+
+            @Override
+            public void onError(DnsServiceException error) { }
+        });
+
+        try {
+            Assert.assertTrue(notified.await(10, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void partialListingReportsBrokenNames() throws IOException, LookupException, ConfigurationException
+    {
+        ZoneFixture zone = ZoneFixture.load("example.com.zone", ORIGIN);
+        zone.getZone().removeRecord(Record.fromString(Name.fromString("web2._http._tcp." + ORIGIN), Type.TXT,
+                                                      DClass.IN, 300, "\"path=/b\"", null));
+        this.server = new StubDnsServer().zone(zone).start();
+        Fqdn domain = new Fqdn("example.com");
+        CompoundLabel http = new CompoundLabel("http", "", "tcp");
+
+        for (int threads : new int[] { 1, 4 }) {
+            this.discovery = new DnsServicesDiscovery();
+            this.discovery.dnsServer(this.server.getAddress(), this.server.getPort()).concurrentLookups(threads);
+            this.discovery.checkConfiguration(true);
+
+            InstancesResult result = this.discovery.listServiceInstancesPartially(domain, http, false);
+            Assert.assertEquals(2, result.getInstances().size());
+            Assert.assertFalse(result.isComplete());
+            Assert.assertEquals(1, result.getErrors().size());
+            Map.Entry<String, StatusCode> error = result.getErrors().entrySet().iterator().next();
+            Assert.assertTrue(error.getKey().startsWith("web2._http._tcp"));
+            Assert.assertEquals(StatusCode.RESOLUTION_RR_TYPE_ERROR, error.getValue());
+
+            // incomplete results are not cached
+            long before = this.server.queries();
+            Assert.assertEquals(result.getErrors(),
+                                this.discovery.listServiceInstancesPartially(domain, http, false).getErrors());
+            Assert.assertTrue(this.server.queries() > before);
+            // the strict listing silently leaves the broken name out
+            Assert.assertEquals(result.getInstances(), this.discovery.listServiceInstances(domain, http, false));
+
+            InstancesResult coap = this.discovery.listServiceInstancesPartially(domain,
+                                                                                new CompoundLabel("coap", "", "udp"),
+                                                                                false);
+            Assert.assertTrue(coap.isComplete());
+            Assert.assertEquals(1, coap.getInstances().size());
+            this.discovery.shutdownLookups();
+        }
+    }
+
+    @Test
+    public void lookupsAreMeasured() throws IOException, LookupException, ConfigurationException
+    {
+        configure(ZoneFixture.load("example.com.zone", ORIGIN).signed());
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        this.discovery.metrics(metrics);
+        Fqdn domain = new Fqdn("example.com");
+        CompoundLabel http = new CompoundLabel("http", "", "tcp");
+        String server = this.server.getAddress().getHostAddress() + ":" + this.server.getPort();
+
+        Assert.assertEquals(3, this.discovery.listServiceInstances(domain, http, false).size());
+        Assert.assertEquals(3, this.discovery.listServiceInstances(domain, http, false).size());
+        Assert.assertEquals(1L, metrics.cacheHits(DiscoveryMetrics.INSTANCES_CACHE));
+        Assert.assertEquals(1L, metrics.cacheMisses(DiscoveryMetrics.INSTANCES_CACHE));
+        Assert.assertEquals(2, metrics.calls("listServiceInstances").count());
+        Assert.assertEquals(3, metrics.queries("SRV").count());
+        Assert.assertEquals(3, metrics.queries("TXT").count());
+        long misses = metrics.cacheMisses(DiscoveryMetrics.RECORDS_CACHE);
+        Assert.assertTrue(misses > 0);
+
+        // the records of the listings are cached
+        Assert.assertTrue(this.discovery.listServiceTypes(domain, false).size() > 0);
+        Assert.assertTrue(this.discovery.listTextRecords(domain, "nolabel", false).isEmpty());
+        Assert.assertEquals(1L, metrics.errors(server, StatusCode.RESOLUTION_NAME_ERROR));
+        Assert.assertTrue(this.discovery.listServiceTypes(domain, false).size() > 0);
+        Assert.assertTrue(metrics.cacheHits(DiscoveryMetrics.RECORDS_CACHE) > 0);
+
+        Assert.assertTrue(this.discovery.isDnsSecValid(domain));
+        Assert.assertEquals(1, metrics.validations().count());
+        Assert.assertEquals(1, metrics.calls("isDnsSecValid").count());
+        try {
+            this.discovery.listServiceInstances(new Fqdn("example.org"), http, false);
+            Assert.fail("Expected an unresolvable domain");
+        } catch (LookupException le) {
+            // expected, the failed call is measured as well
+        }
+        Assert.assertEquals(3, metrics.calls("listServiceInstances").count());
+    }
+
+    @Test
+    public void callsAreTraced() throws IOException, LookupException, ConfigurationException
+    {
+        this.server = new StubDnsServer().zone(ZoneFixture.load("example.com.zone", ORIGIN)).start();
+        this.discovery = new DnsServicesDiscovery();
+        final List<TraceSpan> traces = new ArrayList<>();
+        this.discovery.dnsServer(this.server.getAddress(), this.server.getPort())
+                      .concurrentLookups(4)
+                      .tracer(new TraceListener() {
+                          @Override
+                          public void traced(TraceSpan call) { traces.add(call); }
+                      });
+        this.discovery.checkConfiguration(true);
+        Fqdn domain = new Fqdn("example.com");
+        CompoundLabel http = new CompoundLabel("http", "", "tcp");
+
+        Assert.assertEquals(3, this.discovery.listServiceInstances(domain, http, false).size());
+        Assert.assertEquals(1, traces.size());
+        TraceSpan call = traces.get(0);
+        Assert.assertEquals("listServiceInstances", call.getName());
+        Assert.assertEquals(StatusCode.SUCCESSFUL_OPERATION, call.getStatus());
+        List<TraceSpan> steps = call.getChildren();
+        Assert.assertEquals(Arrays.asList("types", "names", "instances"),
+                            Arrays.asList(steps.get(0).getName(), steps.get(1).getName(), steps.get(2).getName()));
+        // 3 SRV and 3 TXT queries, the escaped instance name being retried unquoted in a single lookup
+        List<TraceSpan> queries = steps.get(2).getChildren();
+        Assert.assertEquals(6, queries.size());
+        String server = this.server.getAddress().getHostAddress() + ":" + this.server.getPort();
+        for (TraceSpan query : queries) {
+            Assert.assertEquals(server, query.getServer());
+            Assert.assertEquals(StatusCode.SUCCESSFUL_OPERATION, query.getStatus());
+            Assert.assertEquals("NOERROR", query.getRcode());
+            Assert.assertTrue(query.getRecords() > 0);
+            Assert.assertFalse(query.getCacheHit());
+            Assert.assertTrue(query.getDuration(TimeUnit.NANOSECONDS) >= 0);
+        }
+        Assert.assertTrue(call.toJson().contains("\"name\":\"SRV web1._http._tcp.example.com.\""));
+
+        // answered by the instances cache, no query at all
+        this.discovery.listServiceInstances(domain, http, false);
+        Assert.assertTrue(traces.get(1).getChildren().isEmpty());
+        this.discovery.listTextRecords(domain, "txtlabel", false);
+        TraceSpan txt = traces.get(2).getChildren().get(0);
+        Assert.assertEquals("TXT txtlabel.example.com.", txt.getName());
+        Assert.assertEquals(1, txt.getRecords());
+    }
+
+    @Test
+    public void deadServerIsEjected() throws IOException, LookupException, ConfigurationException
+    {
+        ZoneFixture zone = ZoneFixture.load("example.com.zone", ORIGIN);
+        StubDnsServer dead = new StubDnsServer().zone(zone).start();
+        InetAddress deadAddress = dead.getAddress();
+        int deadPort = dead.getPort();
+        String deadServer = deadAddress.getHostAddress() + ":" + deadPort;
+        dead.close();
+        this.server = new StubDnsServer().zone(zone).start();
+        this.discovery = new DnsServicesDiscovery();
+        this.discovery.dnsServer(deadAddress, deadPort)
+                      .dnsServer(this.server.getAddress(), this.server.getPort())
+                      .serverEjection(1, 1, TimeUnit.HOURS);
+        this.discovery.checkConfiguration(true);
+        Fqdn domain = new Fqdn("example.com");
+
+        Assert.assertEquals(2, this.discovery.listServiceTypes(domain, false).size());
+        ServersHealth health = this.discovery.serversHealth();
+        Assert.assertTrue(health.isEjected(deadServer));
+        int failures = health.consecutiveFailures(deadServer);
+
+        // the dead server is not addressed anymore
+        Assert.assertEquals(1, this.discovery.listTextRecords(domain, "txtlabel", false).size());
+        Assert.assertEquals(3, this.discovery.listServiceInstances(domain, new CompoundLabel("http", "", "tcp"),
+                                                                   false).size());
+        // nor by the lookups finding nothing on the others
+        Assert.assertTrue(this.discovery.listTextRecords(domain, "nope", false).isEmpty());
+        Assert.assertEquals(failures, health.consecutiveFailures(deadServer));
+    }
+
+    @Test
+    public void hedgedLookupsDoNotFailOverAgain() throws IOException, ConfigurationException
+    {
+        ZoneFixture zone = ZoneFixture.load("example.com.zone", ORIGIN);
+        StubDnsServer silent = new StubDnsServer().zone(zone).lossRate(1).start();
+        try {
+            this.server = new StubDnsServer().zone(zone).lossRate(1).start();
+            this.discovery = new DnsServicesDiscovery();
+            this.discovery.dnsServer(silent.getAddress(), silent.getPort())
+                          .dnsServer(this.server.getAddress(), this.server.getPort())
+                          .queryTimeout(300, TimeUnit.MILLISECONDS)
+                          .queryRetries(0, 0, TimeUnit.MILLISECONDS)
+                          .hedgedLookups(true);
+            this.discovery.checkConfiguration(true);
+
+            try {
+                this.discovery.listTextRecords(new Fqdn("example.com"), "txtlabel", false);
+                Assert.fail("Expected a network error");
+            } catch (LookupException le) {
+                Assert.assertEquals(StatusCode.NETWORK_ERROR, le.dnsError());
+            }
+            // every server is asked once, by the hedging resolver only
+            Assert.assertEquals(1, silent.queries());
+            Assert.assertEquals(1, this.server.queries());
+        } finally {
+            silent.close();
+        }
+    }
+
+    @Test
+    public void callDeadlineCancelsOutstandingLookups() throws IOException, ConfigurationException
+    {
+        this.server = new StubDnsServer().zone(ZoneFixture.load("example.com.zone", ORIGIN))
+                                         .latency(400, TimeUnit.MILLISECONDS)
+                                         .start();
+        this.discovery = new DnsServicesDiscovery(0, 0);
+        this.discovery.dnsServer(this.server.getAddress(), this.server.getPort())
+                      .concurrentLookups(4)
+                      .lookupDeadline(200, TimeUnit.MILLISECONDS);
+        this.discovery.checkConfiguration(true);
+
+        long start = System.nanoTime();
+        try {
+            this.discovery.listServiceInstances(new Fqdn("example.com"), new CompoundLabel("http", "", "tcp"), false);
+            Assert.fail("Expected an exceeded deadline");
+        } catch (LookupException le) {
+            Assert.assertEquals(StatusCode.DEADLINE_EXCEEDED, le.dnsError());
+        }
+        // the PTR query is waited for, the SRV and TXT ones are not
+        Assert.assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(700));
+    }
+
+    @Test
+    public void sharedAcrossThreads() throws Exception
+    {
+        configure(ZoneFixture.load("example.com.zone", ORIGIN).signed());
+        final Fqdn domain = new Fqdn("example.com");
+        final CompoundLabel http = new CompoundLabel("http", "", "tcp");
+        final CompoundLabel coap = new CompoundLabel("coap", "", "udp");
+        final CountDownLatch start = new CountDownLatch(1);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        try {
+            List<Future<Void>> outcomes = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                final boolean secure = (i % 2 == 0);
+                outcomes.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception
+                    {
+                        start.await();
+                        for (int j = 0; j < 20; j++) {
+                            Assert.assertEquals(2, discovery.listServiceTypes(domain, secure).size());
+                            Assert.assertEquals(3, discovery.listServiceInstances(domain, http, secure).size());
+                            Map<CompoundLabel, Set<ServiceInstance>> instances =
+                                    discovery.listServiceInstances(domain, Arrays.asList(http, coap), secure);
+                            Assert.assertEquals(3, instances.get(http).size());
+                            Assert.assertEquals(1, instances.get(coap).size());
+                            Assert.assertEquals(1, discovery.listTextRecords(domain, "txtlabel", secure).size());
+                            Assert.assertTrue(discovery.isDnsSecValid(domain));
+                        }
+                        return null;
+                    }
+                }));
+            }
+            // configuration reloads racing with the lookups
+            outcomes.add(executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception
+                {
+                    start.await();
+                    for (int j = 0; j < 50; j++) {
+                        discovery.checkConfiguration(true);
+                        Thread.sleep(1);
+                    }
+                    return null;
+                }
+            }));
+            start.countDown();
+            for (Future<Void> outcome : outcomes) {
+                outcome.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Helper method parsing records of the test zone, all with the provided TTL.
+     */
+    private static List<Record> records(long ttl, String... lines) throws IOException
+    {
+        List<Record> records = new ArrayList<>();
+        for (String line : lines) {
+            String[] fields = line.split(" ", 3);
+            records.add(Record.fromString(Name.fromString(fields[0], Name.fromString(ORIGIN)),
+                                          Type.value(fields[1]), DClass.IN, ttl, fields[2],
+                                          Name.fromString(ORIGIN)));
+        }
+
+        return records;
+    }
+
+    /**
+     * Helper method checking the addresses of the <code>_http._tcp</code> instances.
+     */
+    private static void assertAddresses(Set<ServiceInstance> instances) throws IOException
+    {
+        for (ServiceInstance instance : instances) {
+            String host = instance.getServiceRecord().getHost();
+            if (host.equals("host1.example.com.")) {
+                Assert.assertEquals(Arrays.asList(InetAddress.getByName("10.0.0.1")), instance.getAddresses());
+            } else if (host.equals("host2.example.com.")) {
+                Assert.assertEquals(Arrays.asList(InetAddress.getByName("10.0.0.2"), InetAddress.getByName("::2")),
+                                    instance.getAddresses());
+            } else {
+                Assert.assertEquals(Arrays.asList(InetAddress.getByName("10.0.0.3")), instance.getAddresses());
+            }
+        }
+    }
+
+    /**
+     * Helper method serving a zone and pointing the discovery at it.
+     */
+    private void configure(ZoneFixture zone) throws IOException, ConfigurationException
+    {
+        this.server = new StubDnsServer().zone(zone).start();
+        this.discovery = new DnsServicesDiscovery();
+        this.discovery.dnsServer(this.server.getAddress(), this.server.getPort());
+        if (zone.getTrustAnchor() != null) {
+            File anchor = this.folder.newFile("anchor.key");
+            Files.write(anchor.toPath(), zone.getTrustAnchor().getBytes(StandardCharsets.UTF_8));
+            this.discovery.trustAnchorFile(anchor);
+        }
+        this.discovery.checkConfiguration(true);
+    }
+
+}
@@ -0,0 +1,589 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.stub;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.BindException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.xbill.DNS.ExtendedFlags;
+import org.xbill.DNS.Flags;
+import org.xbill.DNS.Message;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.NameTooLongException;
+import org.xbill.DNS.OPTRecord;
+import org.xbill.DNS.PTRRecord;
+import org.xbill.DNS.RRset;
+import org.xbill.DNS.Rcode;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.SRVRecord;
+import org.xbill.DNS.Section;
+import org.xbill.DNS.SetResponse;
+import org.xbill.DNS.Type;
+import org.xbill.DNS.Zone;
+
+/**
+ * Embedded authoritative DNS server answering over UDP and TCP on an ephemeral loopback port,
+ * to run discoveries with neither network access nor a live resolver. Configure it, start it,
+ * then point the library at it through <code>Configurable.dnsServer(getAddress(), getPort())</code>.
+ *
+ * Besides the served zones (see {@link ZoneFixture}), the server can delay every response and
+ * drop a share of the UDP queries, the losses being drawn from a fixed-seed generator so that runs
+ * are reproducible. <code>RRSIG</code> and <code>NSEC</code> records of signed zones are returned
+ * to queries having the DNSSEC OK bit set. UDP responses exceeding the advertised payload size are
+ * truncated, to be retried over TCP. On demand, the additional sections are filled in as defined
+ * by RFC 6763 section 12.
+ *
+ * Configuration steps are not Thread-safe, serving is.
+ *
+ */
+public final class StubDnsServer implements Closeable
+{
+
+    /** Attempts to bind UDP and TCP sockets on the same ephemeral port. */
+    private static final int BIND_ATTEMPTS = 10;
+    /** Default UDP payload size, in absence of EDNS. */
+    private static final int UDP_PAYLOAD = 512;
+
+    /** Served zones. */
+    private final List<Zone> zones;
+    /** <code>NSEC</code> chains of the served zones, in canonical order. */
+    private final ConcurrentMap<Name, TreeMap<Name, RRset>> chains;
+    /** Received queries, dropped ones included. */
+    private final AtomicLong queries;
+    /** Generator of the packet losses. */
+    private final Random losses;
+    /** Delay applied to every response, in milliseconds. */
+    private long latency;
+    /** Share of the UDP queries to be dropped, between 0 and 1. */
+    private double lossRate;
+    /** Whether the additional records of PTR and SRV answers are returned. */
+    private boolean additionalRecords;
+    /** UDP socket, <code>null</code> until started. */
+    private DatagramSocket udp;
+    /** TCP socket, <code>null</code> until started. */
+    private ServerSocket tcp;
+    /** Threads receiving the queries. */
+    private ExecutorService receivers;
+    /** Threads sending the delayed responses. */
+    private ScheduledExecutorService senders;
+
+    public StubDnsServer()
+    {
+        this.zones = new CopyOnWriteArrayList<>();
+        this.chains = new ConcurrentHashMap<>();
+        this.queries = new AtomicLong();
+        this.losses = new Random(42L);
+    }
+
+    /**
+     * Serve a zone. Multiple calls serve multiple zones.
+     *
+     * @param zone The zone to be served
+     * @return This instance to further configure
+     */
+    public StubDnsServer zone(Zone zone)
+    {
+        this.zones.add(zone);
+        this.chains.put(zone.getOrigin(), nsecChain(zone));
+
+        return this;
+    }
+
+    /**
+     * Serve a zone fixture.
+     *
+     * @param fixture The zone to be served
+     * @return This instance to further configure
+     */
+    public StubDnsServer zone(ZoneFixture fixture)
+    {
+        return zone(fixture.getZone());
+    }
+
+    /**
+     * Delay every response.
+     *
+     * @param delay Delay of the responses
+     * @param unit  The <code>TimeUnit</code> of <code>delay</code>
+     * @return This instance to further configure
+     */
+    public StubDnsServer latency(long delay, TimeUnit unit)
+    {
+        if (delay < 0) {
+            throw new IllegalArgumentException("The latency cannot be negative");
+        }
+        this.latency = unit.toMillis(delay);
+
+        return this;
+    }
+
+    /**
+     * Drop a share of the UDP queries.
+     *
+     * @param rate Share of dropped queries, between <code>0</code> and <code>1</code>
+     * @return This instance to further configure
+     */
+    public StubDnsServer lossRate(double rate)
+    {
+        if (rate < 0 || rate > 1) {
+            throw new IllegalArgumentException("The loss rate must be between 0 and 1");
+        }
+        this.lossRate = rate;
+
+        return this;
+    }
+
+    /**
+     * Return the additional records recommended by RFC 6763 section 12: the SRV, TXT and address
+     * records of the instances answering a PTR query, the address records of the targets answering
+     * an SRV query.
+     *
+     * @param enabled <code>true</code> to return the additional records
+     * @return This instance to further configure
+     */
+    public StubDnsServer additionalRecords(boolean enabled)
+    {
+        this.additionalRecords = enabled;
+
+        return this;
+    }
+
+    /**
+     * Start serving.
+     *
+     * @return This instance, listening
+     *
+     * @throws IOException In case the sockets cannot be bound
+     */
+    public StubDnsServer start() throws IOException
+    {
+        bind();
+        ThreadFactory daemons = new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable task)
+            {
+                Thread thread = new Thread(task, "tiaki-stub-dns");
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+        this.receivers = Executors.newCachedThreadPool(daemons);
+        this.senders = Executors.newScheduledThreadPool(2, daemons);
+        this.receivers.execute(new Runnable() {
+            @Override
+            public void run() { serveUdp(); }
+        });
+        this.receivers.execute(new Runnable() {
+            @Override
+            public void run() { acceptTcp(); }
+        });
+
+        return this;
+    }
+
+    /**
+     * @return The address the server listens on
+     */
+    public InetAddress getAddress()
+    {
+        return this.udp.getLocalAddress();
+    }
+
+    /**
+     * @return The port the server listens on, for both UDP and TCP
+     */
+    public int getPort()
+    {
+        return this.udp.getLocalPort();
+    }
+
+    /**
+     * @return The number of queries received so far, dropped ones included
+     */
+    public long queries()
+    {
+        return this.queries.get();
+    }
+
+    @Override
+    public void close()
+    {
+        if (this.udp != null) {
+            this.udp.close();
+        }
+        try {
+            if (this.tcp != null) {
+                this.tcp.close();
+            }
+        } catch (IOException ioe) { /* closing anyway */ }
+        if (this.receivers != null) {
+            this.receivers.shutdownNow();
+            this.senders.shutdownNow();
+        }
+    }
+
+    /**
+     * Private helper binding the UDP and TCP sockets on the same ephemeral port, as resolvers
+     * retry truncated responses over TCP on the UDP port.
+     *
+     * @throws IOException In case no port can be bound
+     */
+    private void bind() throws IOException
+    {
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        for (int attempt = 1; ; attempt++) {
+            DatagramSocket socket = new DatagramSocket(0, loopback);
+            try {
+                this.tcp = new ServerSocket(socket.getLocalPort(), 50, loopback);
+                this.udp = socket;
+                return;
+            } catch (BindException be) {
+                socket.close();
+                if (attempt == BIND_ATTEMPTS) {
+                    throw be;
+                }
+            }
+        }
+    }
+
+    /**
+     * Private helper serving the UDP queries until closed.
+     */
+    private void serveUdp()
+    {
+        byte[] buffer = new byte[UDP_PAYLOAD * 8];
+        while (!this.udp.isClosed()) {
+            try {
+                DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+                this.udp.receive(packet);
+                this.queries.incrementAndGet();
+                if (this.lossRate > 0 && nextLoss()) {
+                    continue;
+                }
+                final SocketAddress client = packet.getSocketAddress();
+                Message query = new Message(Arrays.copyOf(packet.getData(), packet.getLength()));
+                OPTRecord opt = query.getOPT();
+                final byte[] response = answer(query).toWire(opt == null ? UDP_PAYLOAD
+                                                                         : Math.max(UDP_PAYLOAD, opt.getPayloadSize()));
+                this.senders.schedule(new Runnable() {
+                    @Override
+                    public void run()
+                    {
+                        try {
+                            udp.send(new DatagramPacket(response, response.length, client));
+                        } catch (IOException ioe) { /* client gone, go ahead */ }
+                    }
+                }, this.latency, TimeUnit.MILLISECONDS);
+            } catch (SocketException se) {
+                return;
+            } catch (IOException ioe) { /* malformed query, go ahead */ }
+        }
+    }
+
+    /**
+     * Private helper accepting the TCP connections until closed.
+     */
+    private void acceptTcp()
+    {
+        while (!this.tcp.isClosed()) {
+            try {
+                final Socket connection = this.tcp.accept();
+                this.receivers.execute(new Runnable() {
+                    @Override
+                    public void run() { serveTcp(connection); }
+                });
+            } catch (IOException ioe) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Private helper serving the queries of a TCP connection until closed by the client.
+     *
+     * @param connection The accepted connection
+     */
+    private void serveTcp(Socket connection)
+    {
+        try (Socket client = connection) {
+            DataInputStream in = new DataInputStream(client.getInputStream());
+            DataOutputStream out = new DataOutputStream(client.getOutputStream());
+            while (true) {
+                byte[] wire = new byte[in.readUnsignedShort()];
+                in.readFully(wire);
+                this.queries.incrementAndGet();
+                byte[] response = answer(new Message(wire)).toWire();
+                if (this.latency > 0) {
+                    Thread.sleep(this.latency);
+                }
+                out.writeShort(response.length);
+                out.write(response);
+                out.flush();
+            }
+        } catch (EOFException eofe) {
+            /* client done */
+        } catch (IOException ioe) {
+            /* client gone */
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Private helper drawing whether the current query has to be dropped.
+     *
+     * @return <code>true</code> iff the query is lost
+     */
+    private boolean nextLoss()
+    {
+        synchronized (this.losses) {
+            return this.losses.nextDouble() < this.lossRate;
+        }
+    }
+
+    /**
+     * Private helper building the authoritative response to a query.
+     *
+     * @param query The received query
+     *
+     * @return The response <code>Message</code>
+     */
+    private Message answer(Message query)
+    {
+        Message response = new Message(query.getHeader().getID());
+        response.getHeader().setFlag(Flags.QR);
+        Record question = query.getQuestion();
+        if (question == null) {
+            response.getHeader().setRcode(Rcode.FORMERR);
+            return response;
+        }
+        response.addRecord(question, Section.QUESTION);
+        OPTRecord opt = query.getOPT();
+        boolean dnsSec = (opt != null && (opt.getFlags() & ExtendedFlags.DO) != 0);
+        if (opt != null) {
+            response.addRecord(new OPTRecord(UDP_PAYLOAD * 8, 0, 0, dnsSec ? ExtendedFlags.DO : 0),
+                               Section.ADDITIONAL);
+        }
+        if (query.getHeader().getFlag(Flags.RD)) {
+            response.getHeader().setFlag(Flags.RD);
+        }
+
+        Zone zone = zoneOf(question.getName());
+        if (zone == null) {
+            response.getHeader().setRcode(Rcode.REFUSED);
+            return response;
+        }
+        response.getHeader().setFlag(Flags.AA);
+
+        SetResponse found = zone.findRecords(question.getName(), question.getType());
+        if (found.isSuccessful()) {
+            for (RRset rrset : found.answers()) {
+                add(response, rrset, Section.ANSWER, dnsSec);
+            }
+            if (this.additionalRecords) {
+                additional(response, zone, dnsSec);
+            }
+        } else if (found.isCNAME()) {
+            add(response, zone.findExactMatch(question.getName(), Type.CNAME), Section.ANSWER, dnsSec);
+        } else if (found.isDelegation()) {
+            response.getHeader().unsetFlag(Flags.AA);
+            add(response, found.getNS(), Section.AUTHORITY, dnsSec);
+        } else {
+            if (found.isNXDOMAIN()) {
+                response.getHeader().setRcode(Rcode.NXDOMAIN);
+            }
+            add(response, zone.findExactMatch(zone.getOrigin(), Type.SOA), Section.AUTHORITY, dnsSec);
+            if (dnsSec) {
+                denial(response, zone, question.getName(), found.isNXDOMAIN());
+            }
+        }
+
+        return response;
+    }
+
+    /**
+     * Private helper adding the records of the PTR and SRV answers targets to the additional
+     * section, as far as served by the same zone.
+     *
+     * @param response The response being built, its answers included
+     * @param zone     The zone serving the queried name
+     * @param dnsSec   <code>true</code> iff signatures have to be added
+     */
+    private static void additional(Message response, Zone zone, boolean dnsSec)
+    {
+        Set<Name> hosts = new LinkedHashSet<>();
+        for (Record record : response.getSectionArray(Section.ANSWER)) {
+            if (record instanceof PTRRecord) {
+                Name instance = ((PTRRecord) record).getTarget();
+                RRset srv = zone.findExactMatch(instance, Type.SRV);
+                add(response, srv, Section.ADDITIONAL, dnsSec);
+                add(response, zone.findExactMatch(instance, Type.TXT), Section.ADDITIONAL, dnsSec);
+                if (srv != null) {
+                    Iterator<?> rrs = srv.rrs();
+                    while (rrs.hasNext()) {
+                        hosts.add(((SRVRecord) rrs.next()).getTarget());
+                    }
+                }
+            } else if (record instanceof SRVRecord) {
+                hosts.add(((SRVRecord) record).getTarget());
+            }
+        }
+        for (Name host : hosts) {
+            add(response, zone.findExactMatch(host, Type.A), Section.ADDITIONAL, dnsSec);
+            add(response, zone.findExactMatch(host, Type.AAAA), Section.ADDITIONAL, dnsSec);
+        }
+    }
+
+    /**
+     * Private helper adding the <code>NSEC</code> records proving the non existence of the
+     * queried name or type, in case of signed zone.
+     *
+     * @param response The response being built
+     * @param zone     The zone serving the queried name
+     * @param name     The queried name
+     * @param nxDomain <code>true</code> iff the name does not exist
+     */
+    private void denial(Message response, Zone zone, Name name, boolean nxDomain)
+    {
+        TreeMap<Name, RRset> chain = this.chains.get(zone.getOrigin());
+        if (chain.isEmpty()) {
+            return;
+        }
+        if (!nxDomain) {
+            RRset nsec = chain.get(name);
+            if (nsec != null) {
+                add(response, nsec, Section.AUTHORITY, true);
+            }
+            return;
+        }
+
+        RRset covering = covering(chain, name);
+        add(response, covering, Section.AUTHORITY, true);
+        Name encloser = name;
+        while (encloser.labels() > zone.getOrigin().labels() && !chain.containsKey(encloser)) {
+            encloser = new Name(encloser, 1);
+        }
+        try {
+            RRset wildcard = covering(chain, Name.concatenate(Name.fromConstantString("*"), encloser));
+            if (wildcard != covering) {
+                add(response, wildcard, Section.AUTHORITY, true);
+            }
+        } catch (NameTooLongException ntle) { /* no wildcard to deny */ }
+    }
+
+    /**
+     * Private helper retrieving the <code>NSEC</code> RRsets of a zone, in canonical order.
+     *
+     * @param zone The zone
+     *
+     * @return The <code>NSEC</code> RRsets keyed by owner name
+     */
+    private static TreeMap<Name, RRset> nsecChain(Zone zone)
+    {
+        TreeMap<Name, RRset> chain = new TreeMap<>();
+        Iterator<?> it = zone.iterator();
+        while (it.hasNext()) {
+            RRset rrset = (RRset) it.next();
+            if (rrset.getType() == Type.NSEC) {
+                chain.put(rrset.getName(), rrset);
+            }
+        }
+
+        return chain;
+    }
+
+    /**
+     * Private helper retrieving the <code>NSEC</code> RRset covering a name.
+     *
+     * @param chain The <code>NSEC</code> chain
+     * @param name  The covered name
+     *
+     * @return The covering <code>NSEC</code> RRset
+     */
+    private static RRset covering(TreeMap<Name, RRset> chain, Name name)
+    {
+        Map.Entry<Name, RRset> previous = chain.floorEntry(name);
+
+        return (previous == null ? chain.lastEntry().getValue() : previous.getValue());
+    }
+
+    /**
+     * Private helper adding an RRset, and its signatures if requested, to a response section.
+     *
+     * @param response The response being built
+     * @param rrset    The RRset to be added
+     * @param section  The target section
+     * @param dnsSec   <code>true</code> iff signatures have to be added
+     */
+    private static void add(Message response, RRset rrset, int section, boolean dnsSec)
+    {
+        if (rrset == null) {
+            return;
+        }
+        Iterator<?> rrs = rrset.rrs();
+        while (rrs.hasNext()) {
+            response.addRecord((Record) rrs.next(), section);
+        }
+        if (dnsSec) {
+            Iterator<?> sigs = rrset.sigs();
+            while (sigs.hasNext()) {
+                response.addRecord((Record) sigs.next(), section);
+            }
+        }
+    }
+
+    /**
+     * Private helper retrieving the zone serving a name, the most specific one in case of nesting.
+     *
+     * @param name The queried name
+     *
+     * @return The serving <code>Zone</code>, <code>null</code> in case of none
+     */
+    private Zone zoneOf(Name name)
+    {
+        Zone serving = null;
+        for (Zone zone : this.zones) {
+            if (name.subdomain(zone.getOrigin())
+                    && (serving == null || zone.getOrigin().labels() > serving.getOrigin().labels())) {
+                serving = zone;
+            }
+        }
+
+        return serving;
+    }
+
+}
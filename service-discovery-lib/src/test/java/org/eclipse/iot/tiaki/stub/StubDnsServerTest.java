@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.stub;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.xbill.DNS.DClass;
+import org.xbill.DNS.DNSKEYRecord;
+import org.xbill.DNS.DNSSEC;
+import org.xbill.DNS.Flags;
+import org.xbill.DNS.Master;
+import org.xbill.DNS.Message;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.RRSIGRecord;
+import org.xbill.DNS.RRset;
+import org.xbill.DNS.Rcode;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.Section;
+import org.xbill.DNS.SimpleResolver;
+import org.xbill.DNS.Type;
+
+public class StubDnsServerTest
+{
+
+    private static final String ORIGIN = "example.com.";
+
+    private StubDnsServer server;
+
+    @After
+    public void tearDown()
+    {
+        if (this.server != null) {
+            this.server.close();
+        }
+    }
+
+    @Test
+    public void answersOverUdpAndTcp() throws IOException
+    {
+        this.server = new StubDnsServer().zone(ZoneFixture.load("example.com.zone", ORIGIN)).start();
+        SimpleResolver resolver = resolver();
+
+        Message udp = resolver.send(query("_http._tcp.example.com.", Type.PTR));
+        Assert.assertTrue(udp.getHeader().getFlag(Flags.AA));
+        Assert.assertEquals(3, udp.getSectionArray(Section.ANSWER).length);
+
+        resolver.setTCP(true);
+        Message tcp = resolver.send(query("web1._http._tcp.example.com.", Type.SRV));
+        Assert.assertEquals(1, tcp.getSectionArray(Section.ANSWER).length);
+        Assert.assertEquals(2, this.server.queries());
+    }
+
+    @Test
+    public void missingNamesAreDeniedWithTheSoa() throws IOException
+    {
+        this.server = new StubDnsServer().zone(ZoneFixture.load("example.com.zone", ORIGIN)).start();
+
+        Message response = resolver().send(query("_nope._tcp.example.com.", Type.PTR));
+        Assert.assertEquals(Rcode.NXDOMAIN, response.getRcode());
+        Assert.assertEquals(Type.SOA, response.getSectionArray(Section.AUTHORITY)[0].getType());
+
+        response = resolver().send(query("other.org.", Type.A));
+        Assert.assertEquals(Rcode.REFUSED, response.getRcode());
+    }
+
+    @Test
+    public void responsesAreDelayed() throws IOException
+    {
+        this.server = new StubDnsServer().zone(ZoneFixture.load("example.com.zone", ORIGIN))
+                                         .latency(200, TimeUnit.MILLISECONDS)
+                                         .start();
+
+        long start = System.nanoTime();
+        resolver().send(query("txtlabel.example.com.", Type.TXT));
+        Assert.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(200));
+    }
+
+    @Test(expected = SocketTimeoutException.class)
+    public void lostQueriesAreNotAnswered() throws IOException
+    {
+        this.server = new StubDnsServer().zone(ZoneFixture.load("example.com.zone", ORIGIN))
+                                         .lossRate(1)
+                                         .start();
+
+        resolver().send(query("txtlabel.example.com.", Type.TXT));
+    }
+
+    @Test
+    public void signedZonesCarryVerifiableSignatures() throws IOException, DNSSEC.DNSSECException
+    {
+        ZoneFixture signed = ZoneFixture.load("example.com.zone", ORIGIN).signed();
+        this.server = new StubDnsServer().zone(signed).start();
+        SimpleResolver resolver = resolver();
+        resolver.setEDNS(0, 0, 0x8000, null);
+        DNSKEYRecord key = (DNSKEYRecord) new Master(new ByteArrayInputStream(
+                signed.getTrustAnchor().getBytes("UTF-8"))).nextRecord();
+
+        Message response = resolver.send(query("web1._http._tcp.example.com.", Type.SRV));
+        RRset srv = response.getSectionRRsets(Section.ANSWER)[0];
+        DNSSEC.verify(srv, (RRSIGRecord) srv.sigs().next(), key);
+
+        response = resolver.send(query("web9._http._tcp.example.com.", Type.SRV));
+        Assert.assertEquals(Rcode.NXDOMAIN, response.getRcode());
+        boolean denied = false;
+        for (Record record : response.getSectionArray(Section.AUTHORITY)) {
+            denied |= (record.getType() == Type.NSEC);
+        }
+        Assert.assertTrue(denied);
+    }
+
+    /**
+     * Helper method building a resolver addressing the stub server.
+     */
+    private SimpleResolver resolver() throws IOException
+    {
+        SimpleResolver resolver = new SimpleResolver(this.server.getAddress().getHostAddress());
+        resolver.setPort(this.server.getPort());
+        resolver.setTimeout(1);
+
+        return resolver;
+    }
+
+    /**
+     * Helper method building a query.
+     */
+    private static Message query(String name, int type) throws IOException
+    {
+        return Message.newQuery(Record.newRecord(Name.fromString(name), type, DClass.IN));
+    }
+
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.stub;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import org.xbill.DNS.DNSKEYRecord;
+import org.xbill.DNS.DNSSEC;
+import org.xbill.DNS.Master;
+import org.xbill.DNS.NSECRecord;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.RRset;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.TextParseException;
+import org.xbill.DNS.Type;
+import org.xbill.DNS.Zone;
+
+/**
+ * Zone served by a {@link StubDnsServer}, loaded from a master file among the test resources
+ * (<code>zones/</code> folder) or built out of records, and optionally signed on the fly.
+ *
+ * Signing generates a fresh RSA/SHA-256 key, adds the apex <code>DNSKEY</code>, an
+ * <code>NSEC</code> chain and the <code>RRSIG</code>s of every RRset; the key is then
+ * published as trust anchor, so that validating resolvers can be configured with it.
+ *
+ */
+public final class ZoneFixture
+{
+
+    /** Classpath folder of the master files. */
+    private static final String ZONES_FOLDER = "/zones/";
+    /** Lifetime of the generated signatures. */
+    private static final long SIGNATURES_VALIDITY = TimeUnit.DAYS.toMillis(30);
+
+    /** The served zone. */
+    private final Zone zone;
+    /** Trust anchor of the zone, <code>null</code> unless signed. */
+    private final String trustAnchor;
+
+    private ZoneFixture(Zone zone, String trustAnchor)
+    {
+        this.zone = zone;
+        this.trustAnchor = trustAnchor;
+    }
+
+    /**
+     * Load a zone from a master file among the test resources.
+     *
+     * @param resource Name of the master file in the <code>zones/</code> folder
+     * @param origin   Origin of the zone
+     *
+     * @return The loaded <code>ZoneFixture</code>
+     *
+     * @throws IOException In case of missing or malformed master file
+     */
+    public static ZoneFixture load(String resource, String origin) throws IOException
+    {
+        Name name = Name.fromString(origin, Name.root);
+        List<Record> records = new ArrayList<>();
+        try (InputStream in = ZoneFixture.class.getResourceAsStream(ZONES_FOLDER + resource)) {
+            if (in == null) {
+                throw new IOException("Missing zone file " + resource);
+            }
+            Master master = new Master(in, name);
+            Record record;
+            while ((record = master.nextRecord()) != null) {
+                records.add(record);
+            }
+        }
+
+        return of(name, records);
+    }
+
+    /**
+     * Build a zone out of records, the <code>SOA</code> and <code>NS</code> ones included.
+     *
+     * @param origin  Origin of the zone
+     * @param records Records of the zone
+     *
+     * @return The built <code>ZoneFixture</code>
+     *
+     * @throws IOException In case of malformed zone
+     */
+    public static ZoneFixture of(Name origin, List<Record> records) throws IOException
+    {
+        return new ZoneFixture(new Zone(origin, records.toArray(new Record[records.size()])), null);
+    }
+
+    /**
+     * Sign this zone with a freshly generated key.
+     *
+     * @return A new, signed, <code>ZoneFixture</code>
+     *
+     * @throws IOException In case the zone cannot be signed
+     */
+    public ZoneFixture signed() throws IOException
+    {
+        Name origin = this.zone.getOrigin();
+        long ttl = this.zone.getSOA().getMinimum();
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(1024);
+            KeyPair keys = generator.generateKeyPair();
+            DNSKEYRecord key = new DNSKEYRecord(origin, this.zone.getDClass(), ttl,
+                                                DNSKEYRecord.Flags.ZONE_KEY | DNSKEYRecord.Flags.SEP_KEY,
+                                                DNSKEYRecord.Protocol.DNSSEC, DNSSEC.Algorithm.RSASHA256,
+                                                keys.getPublic());
+
+            List<Record> records = records();
+            records.add(key);
+            records.addAll(nsecChain(records, ttl));
+            Zone signed = new Zone(origin, records.toArray(new Record[records.size()]));
+
+            Date inception = new Date(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1));
+            Date expiration = new Date(System.currentTimeMillis() + SIGNATURES_VALIDITY);
+            List<RRset> rrsets = rrsets(signed);
+            for (RRset rrset : rrsets) {
+                signed.addRecord(DNSSEC.sign(rrset, key, keys.getPrivate(), inception, expiration));
+            }
+
+            return new ZoneFixture(signed, key.toString());
+        } catch (GeneralSecurityException | DNSSEC.DNSSECException e) {
+            throw new IOException("Unable to sign " + origin, e);
+        }
+    }
+
+    /**
+     * @return The served zone
+     */
+    public Zone getZone()
+    {
+        return this.zone;
+    }
+
+    /**
+     * @return The trust anchor of the zone, as master file line, <code>null</code> unless signed
+     */
+    public String getTrustAnchor()
+    {
+        return this.trustAnchor;
+    }
+
+    /**
+     * Private helper retrieving the records of this zone.
+     *
+     * @return A mutable list of records
+     */
+    private List<Record> records()
+    {
+        List<Record> records = new ArrayList<>();
+        for (RRset rrset : rrsets(this.zone)) {
+            Iterator<?> rrs = rrset.rrs();
+            while (rrs.hasNext()) {
+                records.add((Record) rrs.next());
+            }
+        }
+
+        return records;
+    }
+
+    /**
+     * Private helper building the <code>NSEC</code> chain of the provided records.
+     *
+     * @param records Records of the zone
+     * @param ttl     TTL of the built records
+     *
+     * @return The <code>NSEC</code> records, one per owner name
+     *
+     * @throws TextParseException Never, the names being valid
+     */
+    private static List<Record> nsecChain(List<Record> records, long ttl) throws TextParseException
+    {
+        Map<Name, List<Integer>> types = new TreeMap<>();
+        for (Record record : records) {
+            List<Integer> owned = types.get(record.getName());
+            if (owned == null) {
+                owned = new ArrayList<>();
+                owned.add(Type.RRSIG);
+                owned.add(Type.NSEC);
+                types.put(record.getName(), owned);
+            }
+            if (!owned.contains(record.getType())) {
+                owned.add(record.getType());
+            }
+        }
+
+        List<Record> chain = new ArrayList<>();
+        List<Name> names = new ArrayList<>(types.keySet());
+        for (int i = 0; i < names.size(); i++) {
+            List<Integer> owned = types.get(names.get(i));
+            int[] bitmap = new int[owned.size()];
+            for (int t = 0; t < bitmap.length; t++) {
+                bitmap[t] = owned.get(t);
+            }
+            chain.add(new NSECRecord(names.get(i), records.get(0).getDClass(), ttl,
+                                     names.get((i + 1) % names.size()), bitmap));
+        }
+
+        return chain;
+    }
+
+    /**
+     * Private helper listing the RRsets of a zone.
+     *
+     * @param zone The zone
+     *
+     * @return The list of <code>RRset</code>s
+     */
+    private static List<RRset> rrsets(Zone zone)
+    {
+        List<RRset> rrsets = new ArrayList<>();
+        Iterator<?> it = zone.iterator();
+        while (it.hasNext()) {
+            rrsets.add((RRset) it.next());
+        }
+
+        return rrsets;
+    }
+
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2015, Verisign, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.eclipse.iot.tiaki.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DnsUtilTest {
+
+	@Test
+	public void extractDnsSdDescriptionTest () {
+		Assert.assertEquals( "Living Room Printer",
+				DnsUtil.extractDnsSdDescription( "Living\\032Room\\032Printer._ipp._tcp.example.com." ) );
+		Assert.assertEquals( "Café München’s",
+				DnsUtil.extractDnsSdDescription( "Caf\\195\\169\\032M\\195\\188nchen\\226\\128\\153s._ipp._tcp.example.com." ) );
+		Assert.assertEquals( "Plug 🔌",
+				DnsUtil.extractDnsSdDescription( "Plug\\032\\240\\159\\148\\140._http._tcp.example.com." ) );
+		Assert.assertEquals( "My.Printer\\2 (\"032\")",
+				DnsUtil.extractDnsSdDescription( "My\\.Printer\\\\2\\032\\(\\\"032\\\"\\)._http._tcp.example.com." ) );
+		Assert.assertEquals( "Café",
+				DnsUtil.extractDnsSdDescription( "Café._http._tcp.example.com." ) );
+		Assert.assertEquals( "web1.example.com.",
+				DnsUtil.extractDnsSdDescription( "web1.example.com." ) );
+	}
+
+	@Test
+	public void extractMalformedDnsSdDescriptionTest () {
+		Assert.assertEquals( "bad�", DnsUtil.extractDnsSdDescription( "bad\\255._http._tcp.example.com." ) );
+		Assert.assertEquals( "bad�!", DnsUtil.extractDnsSdDescription( "bad\\195!._http._tcp.example.com." ) );
+		Assert.assertEquals( "bad999", DnsUtil.extractDnsSdDescription( "bad\\999._http._tcp.example.com." ) );
+		Assert.assertEquals( "bad12", DnsUtil.extractDnsSdDescription( "bad\\12" ) );
+		Assert.assertEquals( "bad", DnsUtil.extractDnsSdDescription( "bad\\" ) );
+		Assert.assertEquals( "", DnsUtil.extractDnsSdDescription( "" ) );
+	}
+
+}